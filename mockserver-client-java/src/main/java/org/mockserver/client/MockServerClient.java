@@ -1136,6 +1136,19 @@ public class MockServerClient implements Stoppable {
         return new Expectation[0];
     }
 
+    /**
+     * Specify a batch of expectations to be created, or updated (if the id matches), in a single request.
+     * <p>
+     * The batch is applied by MockServer as a single upsert so expectations are persisted and listeners are notified once for the whole batch,
+     * this should be used instead of calling upsert(...) once per expectation when loading a large number of expectations.
+     *
+     * @param expectations the expectations to create or update (if the id field matches)
+     * @return upserted expectations
+     */
+    public Expectation[] upsert(List<Expectation> expectations) {
+        return upsert(expectations != null ? expectations.toArray(new Expectation[0]) : null);
+    }
+
     /**
      * Specify one or more expectations, normally this method should not be used directly instead the when(...) and response(...) or forward(...) or error(...) methods should be used
      * for example:
@@ -0,0 +1,183 @@
+package org.mockserver.client;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.AbstractChannelPoolMap;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.mockserver.configuration.ConfigurationProperties;
+import org.mockserver.metrics.Metrics;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.model.Message;
+import org.mockserver.socket.NettyTransport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mockserver.client.NettyHttpClient.*;
+import static org.mockserver.metrics.Metrics.Name.*;
+
+/**
+ * Keeps connections to each remote address open between forwarded or proxied requests, a connection
+ * is only returned to the pool once its response has been received and both sides agreed to keep it alive.
+ * <p>
+ * Connections are checked to still be active when acquired and released and unused connections are closed after
+ * the idle timeout.  If a reused connection is closed by the remote side before any part of the response is received
+ * the request is sent once more on a new connection, but only if the request couldn't be written to the connection or
+ * the request method is idempotent, as otherwise the remote side may already have processed the request.
+ * <p>
+ * If the whole response isn't received within the maximum socket timeout the request fails and the connection is closed,
+ * so a remote side that never responds can't hold a connection, and its place in the pool, indefinitely.
+ *
+ * @author jamesdbloom
+ */
+public class HttpClientConnectionPool {
+
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList("GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE"));
+    private final AbstractChannelPoolMap<PoolKey, FixedChannelPool> pools;
+
+    HttpClientConnectionPool(EventLoopGroup eventLoopGroup, HttpClientInitializer httpClientInitializer) {
+        this.pools = new AbstractChannelPoolMap<PoolKey, FixedChannelPool>() {
+            @Override
+            protected FixedChannelPool newPool(PoolKey poolKey) {
+                Bootstrap bootstrap = NettyTransport.configureClient(new Bootstrap().group(eventLoopGroup))
+                    .option(ChannelOption.AUTO_READ, true)
+                    .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(8 * 1024, 32 * 1024))
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, poolKey.connectionTimeoutMillis)
+                    .attr(SECURE, poolKey.secure)
+                    .attr(REMOTE_SOCKET, poolKey.remoteAddress)
+                    .attr(POOLED, true)
+                    .remoteAddress(poolKey.remoteAddress);
+                return new FixedChannelPool(
+                    bootstrap,
+                    new AbstractChannelPoolHandler() {
+                        @Override
+                        public void channelCreated(Channel channel) {
+                            Metrics.increment(FORWARD_CONNECTION_CREATED_COUNT);
+                            channel.closeFuture().addListener((ChannelFutureListener) future -> Metrics.increment(FORWARD_CONNECTION_CLOSED_COUNT));
+                            channel.pipeline().addLast(httpClientInitializer);
+                        }
+                    },
+                    ChannelHealthChecker.ACTIVE,
+                    FixedChannelPool.AcquireTimeoutAction.FAIL,
+                    ConfigurationProperties.maxSocketTimeout(),
+                    Math.max(ConfigurationProperties.forwardConnectionPoolMaxConnections(), 1),
+                    Integer.MAX_VALUE,
+                    true,
+                    true
+                );
+            }
+        };
+    }
+
+    CompletableFuture<HttpResponse> sendRequest(HttpRequest httpRequest, InetSocketAddress remoteAddress, boolean secure, int connectionTimeoutMillis) {
+        CompletableFuture<HttpResponse> httpResponseFuture = new CompletableFuture<>();
+        sendRequest(httpRequest, pools.get(new PoolKey(remoteAddress, secure, connectionTimeoutMillis)), httpResponseFuture, true);
+        return httpResponseFuture;
+    }
+
+    private void sendRequest(HttpRequest httpRequest, FixedChannelPool pool, CompletableFuture<HttpResponse> httpResponseFuture, boolean retryIfConnectionClosed) {
+        pool.acquire().addListener((FutureListener<Channel>) (Future<Channel> acquireFuture) -> {
+            if (acquireFuture.isSuccess()) {
+                Channel channel = acquireFuture.getNow();
+                boolean reused = Boolean.TRUE.equals(channel.attr(REUSED).get());
+                if (reused) {
+                    Metrics.increment(FORWARD_CONNECTION_REUSED_COUNT);
+                }
+                CompletableFuture<Message> responseFuture = new CompletableFuture<>();
+                AtomicBoolean requestWritten = new AtomicBoolean(false);
+                channel.attr(KEEP_ALIVE).set(true);
+                channel.attr(RESPONSE_STARTED).set(false);
+                channel.attr(RESPONSE_FUTURE).set(responseFuture);
+                long responseTimeoutMillis = ConfigurationProperties.maxSocketTimeout();
+                ScheduledFuture<?> responseTimeout = channel.eventLoop().schedule(
+                    () -> responseFuture.completeExceptionally(new SocketCommunicationException("Response was not received after " + responseTimeoutMillis + " milliseconds, to wait longer please use \"mockserver.maxSocketTimeout\" system property or ConfigurationProperties.maxSocketTimeout(long milliseconds)", null)),
+                    responseTimeoutMillis,
+                    MILLISECONDS
+                );
+                responseFuture
+                    .whenComplete((message, throwable) -> {
+                        responseTimeout.cancel(false);
+                        if (throwable != null || !Boolean.TRUE.equals(channel.attr(KEEP_ALIVE).get())) {
+                            channel.close();
+                        } else {
+                            channel.attr(REUSED).set(true);
+                        }
+                        pool.release(channel);
+                        if (throwable == null) {
+                            httpResponseFuture.complete((HttpResponse) message);
+                        } else if (reused && retryIfConnectionClosed && !Boolean.TRUE.equals(channel.attr(RESPONSE_STARTED).get()) && (!requestWritten.get() || isIdempotent(httpRequest)) && (throwable instanceof SocketConnectionException || throwable instanceof IOException)) {
+                            // the remote side closed the idle connection before responding, so either it didn't receive the request or the request can safely be repeated
+                            sendRequest(httpRequest, pool, httpResponseFuture, false);
+                        } else {
+                            httpResponseFuture.completeExceptionally(throwable);
+                        }
+                    });
+                channel
+                    .writeAndFlush(httpRequest)
+                    .addListener((ChannelFutureListener) writeFuture -> {
+                        if (writeFuture.isSuccess()) {
+                            requestWritten.set(true);
+                        } else {
+                            responseFuture.completeExceptionally(reused ? new SocketConnectionException("Unable to send request on pooled connection", writeFuture.cause()) : writeFuture.cause());
+                        }
+                    });
+            } else {
+                httpResponseFuture.completeExceptionally(acquireFuture.cause());
+            }
+        });
+    }
+
+    private static boolean isIdempotent(HttpRequest httpRequest) {
+        return IDEMPOTENT_METHODS.contains(httpRequest.getMethod("GET").toUpperCase());
+    }
+
+    private static class PoolKey {
+        private final InetSocketAddress remoteAddress;
+        private final boolean secure;
+        private final int connectionTimeoutMillis;
+
+        private PoolKey(InetSocketAddress remoteAddress, boolean secure, int connectionTimeoutMillis) {
+            this.remoteAddress = remoteAddress;
+            this.secure = secure;
+            this.connectionTimeoutMillis = connectionTimeoutMillis;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PoolKey poolKey = (PoolKey) o;
+            return secure == poolKey.secure &&
+                connectionTimeoutMillis == poolKey.connectionTimeoutMillis &&
+                Objects.equals(remoteAddress, poolKey.remoteAddress);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(remoteAddress, secure, connectionTimeoutMillis);
+        }
+    }
+}
@@ -10,8 +10,10 @@ import org.mockserver.model.Message;
 import javax.net.ssl.SSLException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.mockserver.client.NettyHttpClient.POOLED;
 import static org.mockserver.client.NettyHttpClient.RESPONSE_FUTURE;
 
 @ChannelHandler.Sharable
@@ -30,7 +32,9 @@ public class HttpClientHandler extends SimpleChannelInboundHandler<Message> {
     @Override
     public void channelRead0(ChannelHandlerContext ctx, Message response) {
         ctx.channel().attr(RESPONSE_FUTURE).get().complete(response);
-        ctx.close();
+        if (!Boolean.TRUE.equals(ctx.channel().attr(POOLED).get())) {
+            ctx.close();
+        }
     }
 
     @Override
@@ -38,7 +42,10 @@ public class HttpClientHandler extends SimpleChannelInboundHandler<Message> {
         if (isNotSslException(cause) && isNotConnectionReset(cause)) {
             cause.printStackTrace();
         }
-        ctx.channel().attr(RESPONSE_FUTURE).get().completeExceptionally(cause);
+        CompletableFuture<Message> responseFuture = ctx.channel().attr(RESPONSE_FUTURE).get();
+        if (responseFuture != null) {
+            responseFuture.completeExceptionally(cause);
+        }
         ctx.close();
     }
 
@@ -9,8 +9,10 @@ import io.netty.handler.codec.http.HttpContentDecompressor;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.proxy.HttpProxyHandler;
 import io.netty.handler.proxy.Socks5ProxyHandler;
+import io.netty.handler.timeout.IdleStateHandler;
 import org.mockserver.codec.MockServerBinaryClientCodec;
 import org.mockserver.codec.MockServerHttpClientCodec;
+import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.logging.LoggingHandler;
 import org.mockserver.logging.MockServerLogger;
 import org.mockserver.proxyconfiguration.ProxyConfiguration;
@@ -18,6 +20,8 @@ import org.mockserver.socket.tls.NettySslContextFactory;
 
 import java.net.InetSocketAddress;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mockserver.client.NettyHttpClient.POOLED;
 import static org.mockserver.client.NettyHttpClient.REMOTE_SOCKET;
 import static org.mockserver.client.NettyHttpClient.SECURE;
 import static org.slf4j.event.Level.TRACE;
@@ -30,6 +34,7 @@ public class HttpClientInitializer extends ChannelInitializer<SocketChannel> {
     private final boolean isHttp;
     private final HttpClientConnectionErrorHandler httpClientConnectionHandler;
     private final HttpClientHandler httpClientHandler;
+    private final HttpClientKeepAliveHandler httpClientKeepAliveHandler;
     private final ProxyConfiguration proxyConfiguration;
     private final NettySslContextFactory nettySslContextFactory;
 
@@ -40,6 +45,7 @@ public class HttpClientInitializer extends ChannelInitializer<SocketChannel> {
         this.isHttp = isHttp;
         this.httpClientHandler = new HttpClientHandler();
         this.httpClientConnectionHandler = new HttpClientConnectionErrorHandler();
+        this.httpClientKeepAliveHandler = new HttpClientKeepAliveHandler();
         this.nettySslContextFactory = nettySslContextFactory;
     }
 
@@ -78,9 +84,14 @@ public class HttpClientInitializer extends ChannelInitializer<SocketChannel> {
         if (isHttp) {
             pipeline.addLast(new HttpClientCodec());
 
+            if (Boolean.TRUE.equals(channel.attr(POOLED).get())) {
+                pipeline.addLast(new IdleStateHandler(0, 0, ConfigurationProperties.forwardConnectionPoolIdleTimeout(), MILLISECONDS));
+                pipeline.addLast(httpClientKeepAliveHandler);
+            }
+
             pipeline.addLast(new HttpContentDecompressor());
 
-            pipeline.addLast(new HttpObjectAggregator(Integer.MAX_VALUE));
+            pipeline.addLast(new HttpObjectAggregator(ConfigurationProperties.maxContentLength()));
 
             pipeline.addLast(new MockServerHttpClientCodec(mockServerLogger));
         } else {
@@ -0,0 +1,58 @@
+package org.mockserver.client;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.mockserver.model.Message;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockserver.client.NettyHttpClient.KEEP_ALIVE;
+import static org.mockserver.client.NettyHttpClient.RESPONSE_FUTURE;
+import static org.mockserver.client.NettyHttpClient.RESPONSE_STARTED;
+
+/**
+ * Records whether a pooled connection can be reused after the current response, records
+ * when the first part of the response is received and closes pooled connections that
+ * have been idle for longer than the idle timeout, connections waiting for a response
+ * are instead closed by the response timeout of the connection pool
+ *
+ * @author jamesdbloom
+ */
+@ChannelHandler.Sharable
+public class HttpClientKeepAliveHandler extends ChannelDuplexHandler {
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof HttpRequest && !HttpUtil.isKeepAlive((HttpRequest) msg)) {
+            ctx.channel().attr(KEEP_ALIVE).set(false);
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        ctx.channel().attr(RESPONSE_STARTED).set(true);
+        if (msg instanceof HttpResponse && !HttpUtil.isKeepAlive((HttpResponse) msg)) {
+            ctx.channel().attr(KEEP_ALIVE).set(false);
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            CompletableFuture<Message> responseFuture = ctx.channel().attr(RESPONSE_FUTURE).get();
+            if (responseFuture == null || responseFuture.isDone()) {
+                ctx.close();
+            }
+        } else {
+            super.userEventTriggered(ctx, evt);
+        }
+    }
+}
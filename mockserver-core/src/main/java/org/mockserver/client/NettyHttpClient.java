@@ -8,16 +8,17 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.WriteBufferWaterMark;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.AttributeKey;
 import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
+import org.mockserver.metrics.Metrics;
 import org.mockserver.model.BinaryMessage;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
 import org.mockserver.model.Message;
 import org.mockserver.proxyconfiguration.ProxyConfiguration;
+import org.mockserver.socket.NettyTransport;
 import org.mockserver.socket.tls.NettySslContextFactory;
 import org.slf4j.event.Level;
 
@@ -31,16 +32,23 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import static org.mockserver.metrics.Metrics.Timer.FORWARD_ROUND_TRIP;
+
 public class NettyHttpClient {
 
     static final AttributeKey<Boolean> SECURE = AttributeKey.valueOf("SECURE");
     static final AttributeKey<InetSocketAddress> REMOTE_SOCKET = AttributeKey.valueOf("REMOTE_SOCKET");
     static final AttributeKey<CompletableFuture<Message>> RESPONSE_FUTURE = AttributeKey.valueOf("RESPONSE_FUTURE");
+    static final AttributeKey<Boolean> POOLED = AttributeKey.valueOf("POOLED");
+    static final AttributeKey<Boolean> REUSED = AttributeKey.valueOf("REUSED");
+    static final AttributeKey<Boolean> KEEP_ALIVE = AttributeKey.valueOf("KEEP_ALIVE");
+    static final AttributeKey<Boolean> RESPONSE_STARTED = AttributeKey.valueOf("RESPONSE_STARTED");
     private final MockServerLogger mockServerLogger;
     private final EventLoopGroup eventLoopGroup;
     private final ProxyConfiguration proxyConfiguration;
     private final boolean forwardProxyClient;
     private final NettySslContextFactory nettySslContextFactory;
+    private final HttpClientConnectionPool httpClientConnectionPool;
 
     public NettyHttpClient(MockServerLogger mockServerLogger, EventLoopGroup eventLoopGroup, ProxyConfiguration proxyConfiguration, boolean forwardProxyClient) {
         this(mockServerLogger, eventLoopGroup, proxyConfiguration, forwardProxyClient, new NettySslContextFactory(mockServerLogger));
@@ -52,6 +60,11 @@ public class NettyHttpClient {
         this.proxyConfiguration = proxyConfiguration;
         this.forwardProxyClient = forwardProxyClient;
         this.nettySslContextFactory = nettySslContextFactory;
+        if (forwardProxyClient) {
+            this.httpClientConnectionPool = new HttpClientConnectionPool(eventLoopGroup, new HttpClientInitializer(proxyConfiguration, mockServerLogger, true, nettySslContextFactory, true));
+        } else {
+            this.httpClientConnectionPool = null;
+        }
     }
 
     public CompletableFuture<HttpResponse> sendRequest(final HttpRequest httpRequest) throws SocketConnectionException {
@@ -64,17 +77,20 @@ public class NettyHttpClient {
 
     public CompletableFuture<HttpResponse> sendRequest(final HttpRequest httpRequest, @Nullable InetSocketAddress remoteAddress, Integer connectionTimeoutMillis) throws SocketConnectionException {
         if (!eventLoopGroup.isShuttingDown()) {
+            long sendStartTime = System.nanoTime();
             if (proxyConfiguration != null && proxyConfiguration.getType() == ProxyConfiguration.Type.HTTP) {
                 remoteAddress = proxyConfiguration.getProxyAddress();
             } else if (remoteAddress == null) {
                 remoteAddress = httpRequest.socketAddressFromHostHeader();
             }
 
+            if (httpClientConnectionPool != null && ConfigurationProperties.forwardConnectionPoolMaxConnections() > 0) {
+                return recordRoundTrip(httpClientConnectionPool.sendRequest(httpRequest, remoteAddress, httpRequest.isSecure() != null && httpRequest.isSecure(), connectionTimeoutMillis), sendStartTime);
+            }
+
             final CompletableFuture<HttpResponse> httpResponseFuture = new CompletableFuture<>();
             final CompletableFuture<Message> responseFuture = new CompletableFuture<>();
-            new Bootstrap()
-                .group(eventLoopGroup)
-                .channel(NioSocketChannel.class)
+            NettyTransport.configureClient(new Bootstrap().group(eventLoopGroup))
                 .option(ChannelOption.AUTO_READ, true)
                 .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(8 * 1024, 32 * 1024))
@@ -102,12 +118,19 @@ public class NettyHttpClient {
                     }
                 });
 
-            return httpResponseFuture;
+            return recordRoundTrip(httpResponseFuture, sendStartTime);
         } else {
             throw new IllegalStateException("Request sent after client has been stopped - the event loop has been shutdown so it is not possible to send a request");
         }
     }
 
+    private CompletableFuture<HttpResponse> recordRoundTrip(CompletableFuture<HttpResponse> httpResponseFuture, long sendStartTime) {
+        if (ConfigurationProperties.metricsEnabled()) {
+            httpResponseFuture.whenComplete((httpResponse, throwable) -> Metrics.record(FORWARD_ROUND_TRIP, System.nanoTime() - sendStartTime));
+        }
+        return httpResponseFuture;
+    }
+
     public CompletableFuture<BinaryMessage> sendRequest(final BinaryMessage binaryRequest, final boolean isSecure, InetSocketAddress remoteAddress, Integer connectionTimeoutMillis) throws SocketConnectionException {
         if (!eventLoopGroup.isShuttingDown()) {
             if (proxyConfiguration != null && proxyConfiguration.getType() == ProxyConfiguration.Type.HTTP) {
@@ -118,9 +141,7 @@ public class NettyHttpClient {
 
             final CompletableFuture<BinaryMessage> binaryResponseFuture = new CompletableFuture<>();
             final CompletableFuture<Message> responseFuture = new CompletableFuture<>();
-            new Bootstrap()
-                .group(eventLoopGroup)
-                .channel(NioSocketChannel.class)
+            NettyTransport.configureClient(new Bootstrap().group(eventLoopGroup))
                 .option(ChannelOption.AUTO_READ, true)
                 .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(8 * 1024, 32 * 1024))
@@ -0,0 +1,422 @@
+package org.mockserver.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.channel.Channel;
+import org.mockserver.log.MockServerEventLog;
+import org.mockserver.log.PeerEventLogs;
+import org.mockserver.log.PeerLogEntries;
+import org.mockserver.log.model.LogEntry;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.model.RequestDefinition;
+import org.mockserver.scheduler.Scheduler;
+import org.mockserver.serialization.HttpResponseSerializer;
+import org.mockserver.serialization.RequestDefinitionSerializer;
+import org.mockserver.uuid.UUIDService;
+import org.slf4j.event.Level;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mockserver.serialization.ObjectMapperFactory.createObjectMapper;
+
+/**
+ * Queries the event logs of the other instances in a cluster over the expectation replication connections, the request
+ * definitions are sent with each query so each instance only returns matching log entries, which are streamed back in
+ * batches and merged by the instance that received the retrieve or verify request.
+ * <p>
+ * Only directly connected instances are queried, so log aggregation requires every instance to be connected to every
+ * other instance.  Instances that don't respond within the timeout, and instances that are connected to another instance
+ * but not to this one, are returned as missing so verification fails instead of passing on a partial log.
+ * <p>
+ * Clearing and resetting the log is sent to every connected instance in the same way, so requests received by any
+ * instance before a clear or reset aren't retrieved or verified afterwards.
+ *
+ * @author jamesdbloom
+ */
+public class ClusterEventLog implements PeerEventLogs {
+
+    private static final int BATCH_SIZE = 100;
+    private static final String TYPE = "type";
+    private static final String NODE = "node";
+    private static final String QUERY = "query";
+    private static final String KIND = "kind";
+    private static final String REQUEST_DEFINITIONS = "requestDefinitions";
+    private static final String EXPECTATION_ID = "expectationId";
+    private static final String ENTRIES = "entries";
+    private static final String COUNT = "count";
+    private static final String FAILED = "failed";
+    private static final String EPOCH_TIME = "epochTime";
+    private static final String LOG_TYPE = "logType";
+    private static final String HTTP_REQUESTS = "httpRequests";
+    private static final String HTTP_RESPONSE = "httpResponse";
+    private static final String LOG_QUERY = "LOG_QUERY";
+    private static final String LOG_QUERY_RESULT = "LOG_QUERY_RESULT";
+    private static final String LOG_QUERY_END = "LOG_QUERY_END";
+    private static final String REQUESTS = "REQUESTS";
+    private static final String REQUEST_RESPONSES = "REQUEST_RESPONSES";
+    private static final String MATCHED_REQUEST_COUNT = "MATCHED_REQUEST_COUNT";
+    private static final String CLEAR = "CLEAR";
+    private static final String RESET = "RESET";
+
+    private final MockServerLogger mockServerLogger;
+    private final MockServerEventLog mockServerEventLog;
+    private final ExpectationReplicator expectationReplicator;
+    private final long timeoutMillis;
+    private final ObjectMapper objectMapper = createObjectMapper();
+    private final RequestDefinitionSerializer requestDefinitionSerializer;
+    private final HttpResponseSerializer httpResponseSerializer;
+    // log entries are serialized and deserialized on this thread, instead of the netty event loop
+    private final ScheduledExecutorService queryExecutor;
+    private final Map<String, PendingQuery> pendingQueries = new ConcurrentHashMap<>();
+
+    public ClusterEventLog(MockServerLogger mockServerLogger, MockServerEventLog mockServerEventLog, ExpectationReplicator expectationReplicator, long timeoutMillis) {
+        this.mockServerLogger = mockServerLogger;
+        this.mockServerEventLog = mockServerEventLog;
+        this.expectationReplicator = expectationReplicator;
+        this.timeoutMillis = timeoutMillis;
+        this.requestDefinitionSerializer = new RequestDefinitionSerializer(mockServerLogger);
+        this.httpResponseSerializer = new HttpResponseSerializer(mockServerLogger);
+        this.queryExecutor = Executors.newSingleThreadScheduledExecutor(new Scheduler.SchedulerThreadFactory("ClusterEventLog"));
+        expectationReplicator.registerRecordHandler(LOG_QUERY, (channel, record) -> execute(() -> receiveQuery(channel, record)));
+        expectationReplicator.registerRecordHandler(LOG_QUERY_RESULT, (channel, record) -> execute(() -> receiveResult(record)));
+        expectationReplicator.registerRecordHandler(LOG_QUERY_END, (channel, record) -> execute(() -> receiveEnd(record)));
+    }
+
+    @Override
+    public void retrieveRequestLogEntries(List<RequestDefinition> requestDefinitions, Consumer<PeerLogEntries> consumer) {
+        query(REQUESTS, requestDefinitions, null, pendingQuery -> consumer.accept(new PeerLogEntries(pendingQuery.logEntries(), pendingQuery.missingNodeIds())));
+    }
+
+    @Override
+    public void retrieveRequestResponseLogEntries(RequestDefinition requestDefinition, Consumer<PeerLogEntries> consumer) {
+        query(REQUEST_RESPONSES, Collections.singletonList(requestDefinition), null, pendingQuery -> consumer.accept(new PeerLogEntries(pendingQuery.logEntries(), pendingQuery.missingNodeIds())));
+    }
+
+    @Override
+    public void retrieveMatchedRequestCount(String expectationId, BiConsumer<Integer, Set<String>> consumer) {
+        query(MATCHED_REQUEST_COUNT, Collections.emptyList(), expectationId, pendingQuery -> consumer.accept(pendingQuery.count.get(), pendingQuery.missingNodeIds()));
+    }
+
+    @Override
+    public void clear(RequestDefinition requestDefinition, Runnable completionCallback) {
+        query(CLEAR, Collections.singletonList(requestDefinition), null, pendingQuery -> {
+            warnIfNotCleared(pendingQuery);
+            completionCallback.run();
+        });
+    }
+
+    @Override
+    public void reset(Runnable completionCallback) {
+        query(RESET, Collections.emptyList(), null, pendingQuery -> {
+            warnIfNotCleared(pendingQuery);
+            completionCallback.run();
+        });
+    }
+
+    private void warnIfNotCleared(PendingQuery pendingQuery) {
+        Set<String> missingNodeIds = pendingQuery.missingNodeIds();
+        if (!missingNodeIds.isEmpty()) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.WARN)
+                    .setMessageFormat("event log not cleared on cluster peers{}requests they received before the clear may still be retrieved or verified")
+                    .setArguments(missingNodeIds)
+            );
+        }
+    }
+
+    private void query(String kind, List<RequestDefinition> requestDefinitions, String expectationId, Consumer<PendingQuery> completionConsumer) {
+        Map<String, Channel> peerChannels = expectationReplicator.getPeerChannels();
+        PendingQuery pendingQuery = new PendingQuery(UUIDService.getUUID(), new ConcurrentSkipListSet<>(peerChannels.keySet()), expectationReplicator.getUnconnectedNodes(), completionConsumer);
+        if (pendingQuery.awaitedNodeIds.isEmpty()) {
+            pendingQuery.complete();
+            return;
+        }
+        try {
+            ObjectNode query = objectMapper.createObjectNode();
+            query.put(TYPE, LOG_QUERY);
+            query.put(QUERY, pendingQuery.id);
+            query.put(NODE, expectationReplicator.getNodeId());
+            query.put(KIND, kind);
+            ArrayNode requestDefinitionsJson = query.putArray(REQUEST_DEFINITIONS);
+            // an empty array matches every request
+            if (!requestDefinitions.contains(null)) {
+                for (RequestDefinition requestDefinition : requestDefinitions) {
+                    requestDefinitionsJson.add(objectMapper.readTree(requestDefinitionSerializer.serialize(false, requestDefinition)));
+                }
+            }
+            if (expectationId != null) {
+                query.put(EXPECTATION_ID, expectationId);
+            }
+            String record = objectMapper.writeValueAsString(query) + "\n";
+            pendingQueries.put(pendingQuery.id, pendingQuery);
+            pendingQuery.timeout = queryExecutor.schedule(() -> timeout(pendingQuery), timeoutMillis, MILLISECONDS);
+            peerChannels.forEach((peerNodeId, channel) -> {
+                if (channel.isActive()) {
+                    channel.writeAndFlush(record).addListener(future -> {
+                        if (!future.isSuccess()) {
+                            execute(() -> notAvailable(pendingQuery, peerNodeId));
+                        }
+                    });
+                } else {
+                    execute(() -> notAvailable(pendingQuery, peerNodeId));
+                }
+            });
+        } catch (Throwable throwable) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.WARN)
+                    .setMessageFormat("exception while querying the event log of cluster peers")
+                    .setThrowable(throwable)
+            );
+            pendingQueries.remove(pendingQuery.id);
+            pendingQuery.missingNodeIds.addAll(pendingQuery.awaitedNodeIds);
+            pendingQuery.complete();
+        }
+    }
+
+    private void receiveQuery(Channel channel, JsonNode query) {
+        String queryId = query.path(QUERY).asText();
+        try {
+            List<RequestDefinition> requestDefinitions = new ArrayList<>();
+            for (JsonNode requestDefinition : query.path(REQUEST_DEFINITIONS)) {
+                requestDefinitions.add(requestDefinitionSerializer.deserialize(requestDefinition.toString()));
+            }
+            switch (query.path(KIND).asText()) {
+                case REQUESTS:
+                    mockServerEventLog.retrieveLocalRequestLogEntries(requestDefinitions, logEntries -> execute(() -> sendResults(channel, queryId, logEntries)));
+                    break;
+                case REQUEST_RESPONSES:
+                    mockServerEventLog.retrieveLocalRequestResponseLogEntries(requestDefinitions.isEmpty() ? null : requestDefinitions.get(0), logEntries -> execute(() -> sendResults(channel, queryId, logEntries)));
+                    break;
+                case MATCHED_REQUEST_COUNT:
+                    mockServerEventLog.retrieveLocalMatchedRequestCount(query.path(EXPECTATION_ID).asText(), count -> execute(() -> sendEnd(channel, queryId, count)));
+                    break;
+                case CLEAR:
+                    mockServerEventLog.clearLocal(requestDefinitions.isEmpty() ? null : requestDefinitions.get(0));
+                    sendEnd(channel, queryId, 0);
+                    break;
+                case RESET:
+                    mockServerEventLog.resetLocal();
+                    sendEnd(channel, queryId, 0);
+                    break;
+                default:
+                    sendEnd(channel, queryId, 0);
+                    break;
+            }
+        } catch (Throwable throwable) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.WARN)
+                    .setMessageFormat("exception while processing event log query from cluster peer{}")
+                    .setArguments(query.path(NODE).asText())
+                    .setThrowable(throwable)
+            );
+            sendFailed(channel, queryId);
+        }
+    }
+
+    private void sendResults(Channel channel, String queryId, List<LogEntry> logEntries) {
+        try {
+            for (int start = 0; start < logEntries.size(); start += BATCH_SIZE) {
+                ObjectNode result = objectMapper.createObjectNode();
+                result.put(TYPE, LOG_QUERY_RESULT);
+                result.put(QUERY, queryId);
+                result.put(NODE, expectationReplicator.getNodeId());
+                ArrayNode entries = result.putArray(ENTRIES);
+                for (LogEntry logEntry : logEntries.subList(start, Math.min(start + BATCH_SIZE, logEntries.size()))) {
+                    ObjectNode entry = entries.addObject();
+                    entry.put(EPOCH_TIME, logEntry.getEpochTime());
+                    entry.put(LOG_TYPE, logEntry.getType().name());
+                    ArrayNode httpRequests = entry.putArray(HTTP_REQUESTS);
+                    if (logEntry.getHttpRequests() != null) {
+                        for (RequestDefinition httpRequest : logEntry.getHttpRequests()) {
+                            httpRequests.add(objectMapper.readTree(requestDefinitionSerializer.serialize(false, httpRequest)));
+                        }
+                    }
+                    if (logEntry.getHttpResponse() != null) {
+                        entry.set(HTTP_RESPONSE, objectMapper.readTree(httpResponseSerializer.serialize(logEntry.getHttpResponse())));
+                    }
+                }
+                channel.write(objectMapper.writeValueAsString(result) + "\n");
+            }
+        } catch (Throwable throwable) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.WARN)
+                    .setMessageFormat("exception while sending event log query result to cluster peer")
+                    .setThrowable(throwable)
+            );
+        }
+        sendEnd(channel, queryId, logEntries.size());
+    }
+
+    private void sendEnd(Channel channel, String queryId, int count) {
+        ObjectNode end = objectMapper.createObjectNode();
+        end.put(TYPE, LOG_QUERY_END);
+        end.put(QUERY, queryId);
+        end.put(NODE, expectationReplicator.getNodeId());
+        end.put(COUNT, count);
+        writeEnd(channel, end);
+    }
+
+    /**
+     * Ends a query that couldn't be run, for example because too many event log queries are in progress, so the querying
+     * instance treats this instance as unavailable instead of as having no matching entries
+     */
+    private void sendFailed(Channel channel, String queryId) {
+        ObjectNode end = objectMapper.createObjectNode();
+        end.put(TYPE, LOG_QUERY_END);
+        end.put(QUERY, queryId);
+        end.put(NODE, expectationReplicator.getNodeId());
+        end.put(FAILED, true);
+        writeEnd(channel, end);
+    }
+
+    private void writeEnd(Channel channel, ObjectNode end) {
+        try {
+            channel.writeAndFlush(objectMapper.writeValueAsString(end) + "\n");
+        } catch (Throwable throwable) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.WARN)
+                    .setMessageFormat("exception while sending event log query result to cluster peer")
+                    .setThrowable(throwable)
+            );
+        }
+    }
+
+    private void receiveResult(JsonNode result) {
+        PendingQuery pendingQuery = pendingQueries.get(result.path(QUERY).asText());
+        if (pendingQuery != null) {
+            try {
+                List<LogEntry> logEntries = new ArrayList<>();
+                for (JsonNode entry : result.path(ENTRIES)) {
+                    List<RequestDefinition> httpRequests = new ArrayList<>();
+                    for (JsonNode httpRequest : entry.path(HTTP_REQUESTS)) {
+                        httpRequests.add(requestDefinitionSerializer.deserialize(httpRequest.toString()));
+                    }
+                    LogEntry logEntry = new LogEntry()
+                        .setType(LogEntry.LogMessageType.valueOf(entry.path(LOG_TYPE).asText()))
+                        .setEpochTime(entry.path(EPOCH_TIME).asLong())
+                        .setHttpRequests(httpRequests.toArray(new RequestDefinition[0]));
+                    if (entry.hasNonNull(HTTP_RESPONSE)) {
+                        logEntry.setHttpResponse(httpResponseSerializer.deserialize(entry.get(HTTP_RESPONSE).toString()));
+                    }
+                    logEntries.add(logEntry);
+                }
+                pendingQuery.logEntries.addAll(logEntries);
+            } catch (Throwable throwable) {
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setLogLevel(Level.WARN)
+                        .setMessageFormat("exception while processing event log query result from cluster peer{}")
+                        .setArguments(result.path(NODE).asText())
+                        .setThrowable(throwable)
+                );
+            }
+        }
+    }
+
+    private void receiveEnd(JsonNode end) {
+        PendingQuery pendingQuery = pendingQueries.get(end.path(QUERY).asText());
+        if (pendingQuery != null) {
+            if (end.path(FAILED).asBoolean()) {
+                notAvailable(pendingQuery, end.path(NODE).asText());
+            } else {
+                pendingQuery.count.addAndGet(end.path(COUNT).asInt());
+                receivedAll(pendingQuery, end.path(NODE).asText());
+            }
+        }
+    }
+
+    private void receivedAll(PendingQuery pendingQuery, String nodeId) {
+        pendingQuery.awaitedNodeIds.remove(nodeId);
+        if (pendingQuery.awaitedNodeIds.isEmpty() && pendingQueries.remove(pendingQuery.id) != null) {
+            if (pendingQuery.timeout != null) {
+                pendingQuery.timeout.cancel(false);
+            }
+            pendingQuery.complete();
+        }
+    }
+
+    private void notAvailable(PendingQuery pendingQuery, String nodeId) {
+        if (pendingQuery.awaitedNodeIds.contains(nodeId)) {
+            pendingQuery.missingNodeIds.add(nodeId);
+            receivedAll(pendingQuery, nodeId);
+        }
+    }
+
+    private void timeout(PendingQuery pendingQuery) {
+        if (pendingQueries.remove(pendingQuery.id) != null) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.WARN)
+                    .setMessageFormat("cluster peers{}did not respond to event log query within " + timeoutMillis + "ms")
+                    .setArguments(pendingQuery.awaitedNodeIds)
+            );
+            pendingQuery.missingNodeIds.addAll(pendingQuery.awaitedNodeIds);
+            pendingQuery.complete();
+        }
+    }
+
+    private void execute(Runnable command) {
+        try {
+            queryExecutor.execute(command);
+        } catch (RejectedExecutionException ignore) {
+            // stopped
+        }
+    }
+
+    public void stop() {
+        queryExecutor.shutdown();
+        pendingQueries.values().forEach(pendingQuery -> {
+            pendingQuery.missingNodeIds.addAll(pendingQuery.awaitedNodeIds);
+            pendingQuery.complete();
+        });
+        pendingQueries.clear();
+    }
+
+    private static class PendingQuery {
+        private final String id;
+        // node ids are only removed on the query executor thread, after the query is sent
+        private final Set<String> awaitedNodeIds;
+        private final Set<String> missingNodeIds = new ConcurrentSkipListSet<>();
+        private final Consumer<PendingQuery> completionConsumer;
+        private final List<LogEntry> logEntries = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+        private volatile ScheduledFuture<?> timeout;
+
+        private PendingQuery(String id, Set<String> awaitedNodeIds, Set<String> unconnectedNodeIds, Consumer<PendingQuery> completionConsumer) {
+            this.id = id;
+            this.awaitedNodeIds = awaitedNodeIds;
+            this.missingNodeIds.addAll(unconnectedNodeIds);
+            this.completionConsumer = completionConsumer;
+        }
+
+        private List<LogEntry> logEntries() {
+            synchronized (logEntries) {
+                return new ArrayList<>(logEntries);
+            }
+        }
+
+        private Set<String> missingNodeIds() {
+            return new TreeSet<>(missingNodeIds);
+        }
+
+        private void complete() {
+            if (completed.compareAndSet(false, true)) {
+                completionConsumer.accept(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,762 @@
+package org.mockserver.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.*;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.AttributeKey;
+import org.mockserver.configuration.ConfigurationProperties;
+import org.mockserver.log.model.LogEntry;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.mock.Expectation;
+import org.mockserver.mock.RequestMatchers;
+import org.mockserver.mock.listeners.MockServerMatcherListener;
+import org.mockserver.mock.listeners.MockServerMatcherNotifier.Cause;
+import org.mockserver.scheduler.Scheduler;
+import org.mockserver.serialization.model.ExpectationDTO;
+import org.mockserver.serialization.serializers.response.TimeToLiveSerializer;
+import org.mockserver.socket.NettyTransport;
+import org.mockserver.socket.tls.NettySslContextFactory;
+import org.mockserver.uuid.UUIDService;
+import org.slf4j.event.Level;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.mockserver.serialization.ObjectMapperFactory.createObjectMapper;
+
+/**
+ * Replicates expectation upserts and removals between the instances of a cluster as incremental records, one JSON
+ * record per line, over TCP connections between the instances.
+ * <p>
+ * Each expectation has a version vector that is incremented by the node that changes the expectation, so a record only
+ * replaces an expectation if its version is after the local version, and changes made concurrently by different nodes
+ * are resolved by keeping the latest change (or the change from the greatest node id) with the merged version.
+ * Removals are kept as tombstones for an hour so an older upsert can't restore a removed expectation.
+ * <p>
+ * When a connection is opened each node sends a snapshot of its expectations and tombstones, so a joining node catches up,
+ * followed by changes as they happen, records that change local expectations are forwarded to the other connected nodes
+ * so all nodes are updated even if each node is only connected to some of the other nodes.
+ * <p>
+ * Expectations removed because their times or time to live has expired are not replicated as removals, as each node
+ * applies times and time to live to the requests it receives.
+ * <p>
+ * Each node sends the node ids of its connected nodes to the nodes it is connected to, so a node can tell which nodes in
+ * the cluster it isn't directly connected to.
+ * <p>
+ * Other record types, such as event log queries, can be exchanged over the same connections by registering a record handler.
+ * <p>
+ * The replication port is bound to the loopback address unless another bind address is configured, it is only bound to
+ * another address if the connections are authenticated either with a shared secret or with TLS mutual authentication.
+ * When a shared secret is configured each HELLO record includes a random nonce which the other node must return signed
+ * with the secret (HMAC-SHA256), together with the node ids of both nodes, in an AUTH record, until then every other record
+ * received on the connection is rejected, including records for registered record handlers, and the connection is closed.
+ * A HELLO record with this node's own id is never authenticated.
+ *
+ * @author jamesdbloom
+ */
+public class ExpectationReplicator implements MockServerMatcherListener {
+
+    private static final int MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+    private static final long TOMBSTONE_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final AttributeKey<String> PEER_NODE_ID = AttributeKey.valueOf("PEER_NODE_ID");
+    private static final AttributeKey<String> HELLO_NODE_ID = AttributeKey.valueOf("HELLO_NODE_ID");
+    private static final AttributeKey<String> NONCE = AttributeKey.valueOf("NONCE");
+    private static final AttributeKey<Boolean> AUTHENTICATED = AttributeKey.valueOf("AUTHENTICATED");
+    private static final String LOOPBACK_ADDRESS = "127.0.0.1";
+    private static final String TYPE = "type";
+    private static final String NODE = "node";
+    private static final String ID = "id";
+    private static final String VERSION = "version";
+    private static final String TIMESTAMP = "timestamp";
+    private static final String EXPECTATION = "expectation";
+    private static final String RECORDS = "records";
+    private static final String PEERS = "peers";
+    private static final String NONCE_FIELD = "nonce";
+    private static final String PROOF = "proof";
+    private static final String HELLO = "HELLO";
+    private static final String AUTH = "AUTH";
+    private static final String UPSERT = "UPSERT";
+    private static final String REMOVE = "REMOVE";
+    private static final String SNAPSHOT_END = "SNAPSHOT_END";
+    private static final String PEER_NODES = "PEER_NODES";
+
+    private final MockServerLogger mockServerLogger;
+    private final RequestMatchers requestMatchers;
+    private final String nodeId;
+    private final NettySslContextFactory nettySslContextFactory;
+    private final String secret;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final ObjectMapper objectMapper = createObjectMapper();
+    private final ObjectWriter expectationWriter = createObjectMapper(false, new TimeToLiveSerializer());
+    private final ScheduledExecutorService replicationExecutor;
+    private final EventLoopGroup eventLoopGroup;
+    private final Map<String, Channel> peerChannels = new ConcurrentHashMap<>();
+    // node ids of the nodes connected to each connected node
+    private final Map<String, Set<String>> peerNodesOfPeers = new ConcurrentHashMap<>();
+    private final List<InetSocketAddress> configuredPeers;
+    private final Map<InetSocketAddress, Channel> configuredPeerChannels = new ConcurrentHashMap<>();
+    // configured peers that are this node, i.e. when every node is configured with the same list of peers
+    private final Set<InetSocketAddress> selfPeers = ConcurrentHashMap.newKeySet();
+    private final Map<String, BiConsumer<Channel, JsonNode>> recordHandlers = new ConcurrentHashMap<>();
+    private final AtomicBoolean captureScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean apiChanges = new AtomicBoolean(false);
+    private volatile boolean stopped;
+    private Channel serverChannel;
+    // only accessed from the replication executor thread
+    private final Map<String, ReplicatedExpectation> replicatedExpectations = new HashMap<>();
+
+    public ExpectationReplicator(MockServerLogger mockServerLogger, RequestMatchers requestMatchers, String nodeId, int port, List<InetSocketAddress> peers) {
+        this(mockServerLogger, requestMatchers, nodeId, LOOPBACK_ADDRESS, port, peers, null, null);
+    }
+
+    /**
+     * @param bindAddress             address the replication port is bound to
+     * @param nettySslContextFactory  creates the TLS context for replication connections, or null for plain TCP connections
+     * @param secret                  secret shared by every node in the cluster used to authenticate connections, or null
+     */
+    public ExpectationReplicator(MockServerLogger mockServerLogger, RequestMatchers requestMatchers, String nodeId, String bindAddress, int port, List<InetSocketAddress> peers, NettySslContextFactory nettySslContextFactory, String secret) {
+        this.mockServerLogger = mockServerLogger;
+        this.requestMatchers = requestMatchers;
+        this.nodeId = isNotBlank(nodeId) ? nodeId : UUIDService.getUUID();
+        this.nettySslContextFactory = nettySslContextFactory;
+        this.secret = isNotBlank(secret) ? secret : null;
+        this.configuredPeers = new ArrayList<>(peers);
+        this.replicationExecutor = Executors.newSingleThreadScheduledExecutor(new Scheduler.SchedulerThreadFactory("ClusterReplication"));
+        this.eventLoopGroup = NettyTransport.createEventLoopGroup(2, new Scheduler.SchedulerThreadFactory("ClusterReplicationEventLoop"));
+        requestMatchers.registerListener(this);
+        execute(this::captureLocalChanges);
+        replicationExecutor.scheduleWithFixedDelay(this::removeExpiredTombstones, 1, 1, TimeUnit.MINUTES);
+        if (port > 0) {
+            try {
+                InetAddress address = InetAddress.getByName(isNotBlank(bindAddress) ? bindAddress : LOOPBACK_ADDRESS);
+                if (address.isLoopbackAddress() || authenticated()) {
+                    serverChannel = NettyTransport
+                        .configureServer(new ServerBootstrap().group(eventLoopGroup, eventLoopGroup))
+                        .childHandler(channelInitializer(null))
+                        .bind(address, port)
+                        .syncUninterruptibly()
+                        .channel();
+                } else {
+                    mockServerLogger.logEvent(
+                        new LogEntry()
+                            .setLogLevel(Level.ERROR)
+                            .setMessageFormat("not binding expectation replication port{}to non-loopback address{}because replication connections aren't authenticated, configure clusterReplicationSecret or clusterReplicationTLS with tlsMutualAuthenticationRequired")
+                            .setArguments(port, address)
+                    );
+                }
+            } catch (Throwable throwable) {
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setLogLevel(Level.ERROR)
+                        .setMessageFormat("exception binding expectation replication port " + port)
+                        .setThrowable(throwable)
+                );
+            }
+        }
+        for (InetSocketAddress peer : peers) {
+            connect(peer);
+        }
+        if (MockServerLogger.isEnabled(Level.INFO)) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.INFO)
+                    .setMessageFormat("started expectation replication for node{}on port{}with peers{}")
+                    .setArguments(this.nodeId, port, peers)
+            );
+        }
+    }
+
+    private boolean authenticated() {
+        return secret != null || nettySslContextFactory != null && ConfigurationProperties.tlsMutualAuthenticationRequired();
+    }
+
+    /**
+     * Parses a comma separated list of host:port
+     */
+    public static List<InetSocketAddress> peers(String peers) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        if (peers != null) {
+            for (String peer : peers.split(",")) {
+                String hostAndPort = peer.trim();
+                if (!hostAndPort.isEmpty()) {
+                    int separator = hostAndPort.lastIndexOf(':');
+                    if (separator <= 0 || separator == hostAndPort.length() - 1) {
+                        throw new IllegalArgumentException("invalid cluster peer \"" + hostAndPort + "\" expected host:port");
+                    }
+                    // unresolved so the host is resolved again for each connection attempt
+                    addresses.add(InetSocketAddress.createUnresolved(hostAndPort.substring(0, separator), Integer.parseInt(hostAndPort.substring(separator + 1))));
+                }
+            }
+        }
+        return addresses;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Returns the connection to each connected node by node id
+     */
+    public Map<String, Channel> getPeerChannels() {
+        return Collections.unmodifiableMap(peerChannels);
+    }
+
+    /**
+     * Returns the nodes in the cluster this node isn't directly connected to, the node id of nodes that are connected to a
+     * connected node but not to this node and host:port of configured peers that aren't connected
+     */
+    public Set<String> getUnconnectedNodes() {
+        Set<String> unconnectedNodes = new TreeSet<>();
+        for (Set<String> peerNodes : peerNodesOfPeers.values()) {
+            unconnectedNodes.addAll(peerNodes);
+        }
+        unconnectedNodes.removeAll(peerChannels.keySet());
+        unconnectedNodes.remove(nodeId);
+        for (InetSocketAddress peer : configuredPeers) {
+            Channel channel = configuredPeerChannels.get(peer);
+            if (!selfPeers.contains(peer) && (channel == null || !channel.isActive())) {
+                unconnectedNodes.add(peer.getHostString() + ":" + peer.getPort());
+            }
+        }
+        return unconnectedNodes;
+    }
+
+    /**
+     * Registers a handler for records of the type, handlers are called on the netty event loop so must not block
+     */
+    public void registerRecordHandler(String type, BiConsumer<Channel, JsonNode> recordHandler) {
+        recordHandlers.put(type, recordHandler);
+    }
+
+    @Override
+    public void updated(RequestMatchers requestMatchers, Cause cause) {
+        if (cause == Cause.REPLICATION) {
+            // replicated changes are recorded when they are applied
+            return;
+        }
+        if (cause == Cause.API) {
+            apiChanges.set(true);
+        }
+        if (captureScheduled.compareAndSet(false, true)) {
+            execute(this::captureLocalChanges);
+        }
+    }
+
+    /**
+     * Finds expectations changed since the last capture, changes made by the API are given a new version and sent to
+     * the other nodes, other changes (i.e. from the initialization file) and expired expectations are only recorded locally
+     */
+    private void captureLocalChanges() {
+        captureScheduled.set(false);
+        boolean replicate = apiChanges.getAndSet(false);
+        try {
+            Set<String> currentIds = new HashSet<>();
+            for (Expectation expectation : requestMatchers.retrieveActiveExpectations(null)) {
+                currentIds.add(expectation.getId());
+                ReplicatedExpectation existing = replicatedExpectations.get(expectation.getId());
+                if (existing == null || existing.expectation != expectation) {
+                    VersionVector version = existing != null ? existing.version : VersionVector.EMPTY;
+                    if (replicate) {
+                        ReplicatedExpectation changed = new ReplicatedExpectation(version.increment(nodeId), expectation, System.currentTimeMillis(), nodeId, false);
+                        replicatedExpectations.put(expectation.getId(), changed);
+                        send(expectation.getId(), changed, null);
+                    } else if (!apiChanges.get()) {
+                        // an api change made during this capture is left for the capture it schedules to version and send
+                        replicatedExpectations.put(expectation.getId(), new ReplicatedExpectation(version, expectation, existing != null ? existing.timestamp : 0, existing != null ? existing.changedBy : nodeId, false));
+                    }
+                }
+            }
+            for (Map.Entry<String, ReplicatedExpectation> entry : new ArrayList<>(replicatedExpectations.entrySet())) {
+                ReplicatedExpectation existing = entry.getValue();
+                if (existing.expectation != null && !currentIds.contains(entry.getKey())) {
+                    if (replicate && existing.expectation.isActive()) {
+                        ReplicatedExpectation removed = new ReplicatedExpectation(existing.version.increment(nodeId), null, System.currentTimeMillis(), nodeId, false);
+                        replicatedExpectations.put(entry.getKey(), removed);
+                        send(entry.getKey(), removed, null);
+                    } else if (!apiChanges.get()) {
+                        replicatedExpectations.put(entry.getKey(), new ReplicatedExpectation(existing.version, null, System.currentTimeMillis(), existing.changedBy, true));
+                    }
+                }
+            }
+        } catch (Throwable throwable) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.ERROR)
+                    .setMessageFormat("exception while replicating expectations")
+                    .setThrowable(throwable)
+            );
+        }
+    }
+
+    private void receive(Channel channel, JsonNode record) {
+        try {
+            switch (record.path(TYPE).asText()) {
+                case HELLO:
+                case AUTH:
+                    receiveHello(channel, channel.attr(PEER_NODE_ID).get());
+                    break;
+                case UPSERT:
+                case REMOVE:
+                    receiveChange(channel, record);
+                    break;
+                case PEER_NODES:
+                    receivePeerNodes(channel, record);
+                    break;
+                case SNAPSHOT_END:
+                    if (MockServerLogger.isEnabled(Level.INFO)) {
+                        mockServerLogger.logEvent(
+                            new LogEntry()
+                                .setLogLevel(Level.INFO)
+                                .setMessageFormat("received snapshot of{}expectations from node{}")
+                                .setArguments(record.path(RECORDS).asInt(), record.path(NODE).asText())
+                        );
+                    }
+                    break;
+            }
+        } catch (Throwable throwable) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.WARN)
+                    .setMessageFormat("exception while applying replication record:{}ignoring record")
+                    .setArguments(record)
+                    .setThrowable(throwable)
+            );
+        }
+    }
+
+    private void receiveHello(Channel channel, String peerNodeId) throws Exception {
+        peerChannels.putIfAbsent(peerNodeId, channel);
+        captureLocalChanges();
+        int records = 0;
+        for (Map.Entry<String, ReplicatedExpectation> entry : replicatedExpectations.entrySet()) {
+            if (!entry.getValue().expired) {
+                channel.write(record(entry.getKey(), entry.getValue()));
+                records++;
+            }
+        }
+        ObjectNode snapshotEnd = objectMapper.createObjectNode();
+        snapshotEnd.put(TYPE, SNAPSHOT_END);
+        snapshotEnd.put(NODE, nodeId);
+        snapshotEnd.put(RECORDS, records);
+        channel.writeAndFlush(objectMapper.writeValueAsString(snapshotEnd) + "\n");
+        sendPeerNodes();
+    }
+
+    private void receivePeerNodes(Channel channel, JsonNode record) {
+        String peerNodeId = channel.attr(PEER_NODE_ID).get();
+        if (peerNodeId != null && peerChannels.get(peerNodeId) != null) {
+            Set<String> peerNodes = new HashSet<>();
+            for (JsonNode peerNode : record.path(PEERS)) {
+                peerNodes.add(peerNode.asText());
+            }
+            peerNodesOfPeers.put(peerNodeId, peerNodes);
+        }
+    }
+
+    private void sendPeerNodes() {
+        try {
+            ObjectNode peerNodes = objectMapper.createObjectNode();
+            peerNodes.put(TYPE, PEER_NODES);
+            peerNodes.put(NODE, nodeId);
+            ArrayNode peers = peerNodes.putArray(PEERS);
+            peerChannels.keySet().forEach(peers::add);
+            String record = objectMapper.writeValueAsString(peerNodes) + "\n";
+            peerChannels.values().forEach(channel -> {
+                if (channel.isActive()) {
+                    channel.writeAndFlush(record);
+                }
+            });
+        } catch (Throwable throwable) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.WARN)
+                    .setMessageFormat("exception while sending connected nodes to cluster peers")
+                    .setThrowable(throwable)
+            );
+        }
+    }
+
+    private void receiveChange(Channel channel, JsonNode record) throws Exception {
+        String peerNodeId = channel.attr(PEER_NODE_ID).get();
+        if (peerNodeId == null || !Boolean.TRUE.equals(channel.attr(AUTHENTICATED).get()) || !peerChannels.containsKey(peerNodeId)) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.WARN)
+                    .setMessageFormat("ignoring replication record:{}from unregistered connection{}")
+                    .setArguments(record, channel.remoteAddress())
+            );
+            return;
+        }
+        if (apiChanges.get()) {
+            // version local changes first so concurrent changes are detected
+            captureLocalChanges();
+        }
+        String id = record.get(ID).asText();
+        VersionVector version = VersionVector.fromJson(record.get(VERSION));
+        long timestamp = record.path(TIMESTAMP).asLong();
+        String changedBy = record.path(NODE).asText();
+        JsonNode expectation = UPSERT.equals(record.path(TYPE).asText()) ? record.get(EXPECTATION) : null;
+        ReplicatedExpectation local = replicatedExpectations.get(id);
+        switch (local != null ? version.compare(local.version) : VersionVector.Ordering.AFTER) {
+            case AFTER:
+                send(id, apply(id, expectation, version, timestamp, changedBy), peerNodeId);
+                break;
+            case CONCURRENT:
+                ReplicatedExpectation resolved;
+                VersionVector merged = version.merge(local.version);
+                if (local.expired || timestamp > local.timestamp || timestamp == local.timestamp && changedBy.compareTo(local.changedBy) > 0) {
+                    resolved = apply(id, expectation, merged, timestamp, changedBy);
+                } else {
+                    resolved = new ReplicatedExpectation(merged, local.expectation, local.timestamp, local.changedBy, false);
+                    replicatedExpectations.put(id, resolved);
+                }
+                // the merged version replaces both changes on every node, including the sender
+                send(id, resolved, null);
+                break;
+            default:
+                // already applied or replaced by a later change
+                break;
+        }
+    }
+
+    private ReplicatedExpectation apply(String id, JsonNode expectationJson, VersionVector version, long timestamp, String changedBy) throws Exception {
+        Expectation expectation = null;
+        if (expectationJson != null) {
+            ExpectationDTO expectationDTO = objectMapper.treeToValue(expectationJson, ExpectationDTO.class);
+            expectation = requestMatchers.add(expectationDTO.buildObject(), Cause.REPLICATION);
+        } else {
+            requestMatchers.remove(id, Cause.REPLICATION);
+        }
+        ReplicatedExpectation applied = new ReplicatedExpectation(version, expectation, timestamp, changedBy, false);
+        replicatedExpectations.put(id, applied);
+        return applied;
+    }
+
+    private void send(String id, ReplicatedExpectation replicatedExpectation, String exceptPeerNodeId) throws Exception {
+        if (!peerChannels.isEmpty()) {
+            String record = record(id, replicatedExpectation);
+            peerChannels.forEach((peerNodeId, channel) -> {
+                if (!peerNodeId.equals(exceptPeerNodeId) && channel.isActive()) {
+                    channel.writeAndFlush(record);
+                }
+            });
+        }
+    }
+
+    private String record(String id, ReplicatedExpectation replicatedExpectation) throws Exception {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put(TYPE, replicatedExpectation.expectation != null ? UPSERT : REMOVE);
+        record.put(NODE, replicatedExpectation.changedBy);
+        record.put(ID, id);
+        record.set(VERSION, replicatedExpectation.version.toJson());
+        record.put(TIMESTAMP, replicatedExpectation.timestamp);
+        String json = objectMapper.writeValueAsString(record);
+        if (replicatedExpectation.expectation != null) {
+            json = json.substring(0, json.length() - 1) + ",\"" + EXPECTATION + "\":" + expectationWriter.writeValueAsString(replicatedExpectation.expectation) + "}";
+        }
+        return json + "\n";
+    }
+
+    private void removeExpiredTombstones() {
+        long expiredBefore = System.currentTimeMillis() - TOMBSTONE_RETENTION_MILLIS;
+        replicatedExpectations.values().removeIf(replicatedExpectation -> replicatedExpectation.expectation == null && replicatedExpectation.timestamp < expiredBefore);
+    }
+
+    private void connect(InetSocketAddress peer) {
+        if (!stopped) {
+            NettyTransport
+                .configureClient(new Bootstrap().group(eventLoopGroup))
+                .handler(channelInitializer(peer))
+                .connect(peer)
+                .addListener((ChannelFutureListener) future -> {
+                    if (future.isSuccess()) {
+                        configuredPeerChannels.put(peer, future.channel());
+                        future.channel().closeFuture().addListener(closeFuture -> {
+                            configuredPeerChannels.remove(peer, future.channel());
+                            if (!selfPeers.contains(peer)) {
+                                reconnect(peer);
+                            }
+                        });
+                    } else {
+                        if (MockServerLogger.isEnabled(Level.DEBUG)) {
+                            mockServerLogger.logEvent(
+                                new LogEntry()
+                                    .setLogLevel(Level.DEBUG)
+                                    .setMessageFormat("exception connecting to cluster peer{}retrying in " + RECONNECT_DELAY_MILLIS + "ms")
+                                    .setArguments(peer)
+                                    .setThrowable(future.cause())
+                            );
+                        }
+                        reconnect(peer);
+                    }
+                });
+        }
+    }
+
+    private void reconnect(InetSocketAddress peer) {
+        if (!stopped) {
+            try {
+                replicationExecutor.schedule(() -> connect(peer), RECONNECT_DELAY_MILLIS, MILLISECONDS);
+            } catch (RejectedExecutionException ignore) {
+                // stopped
+            }
+        }
+    }
+
+    private void execute(Runnable command) {
+        try {
+            replicationExecutor.execute(command);
+        } catch (RejectedExecutionException ignore) {
+            // stopped
+        }
+    }
+
+    /**
+     * @param peer the peer for client connections, or null for connections accepted by the replication port
+     */
+    private ChannelInitializer<Channel> channelInitializer(InetSocketAddress peer) {
+        return new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel channel) {
+                if (nettySslContextFactory != null) {
+                    if (peer != null) {
+                        SslContext sslContext = nettySslContextFactory.createClientSslContext(false);
+                        channel.pipeline().addLast(sslContext.newHandler(channel.alloc(), peer.getHostString(), peer.getPort()));
+                    } else {
+                        channel.pipeline().addLast(nettySslContextFactory.createServerSslContext().newHandler(channel.alloc()));
+                    }
+                }
+                channel.pipeline().addLast(
+                    new LineBasedFrameDecoder(MAX_RECORD_LENGTH),
+                    new StringDecoder(UTF_8),
+                    new StringEncoder(UTF_8),
+                    new ReplicationHandler(peer)
+                );
+            }
+        };
+    }
+
+    public void stop() {
+        stopped = true;
+        requestMatchers.unregisterListener(this);
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        replicationExecutor.shutdown();
+    }
+
+    private class ReplicationHandler extends SimpleChannelInboundHandler<String> {
+
+        // null for connections accepted by the replication port
+        private final InetSocketAddress peer;
+
+        private ReplicationHandler(InetSocketAddress peer) {
+            this.peer = peer;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            ObjectNode hello = objectMapper.createObjectNode();
+            hello.put(TYPE, HELLO);
+            hello.put(NODE, nodeId);
+            if (secret != null) {
+                byte[] nonce = new byte[32];
+                secureRandom.nextBytes(nonce);
+                ctx.channel().attr(NONCE).set(Base64.getEncoder().encodeToString(nonce));
+                hello.put(NONCE_FIELD, ctx.channel().attr(NONCE).get());
+            }
+            ctx.writeAndFlush(objectMapper.writeValueAsString(hello) + "\n");
+            super.channelActive(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, String line) throws Exception {
+            JsonNode record;
+            try {
+                record = objectMapper.readTree(line);
+            } catch (Throwable throwable) {
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setLogLevel(Level.WARN)
+                        .setMessageFormat("exception while parsing replication record:{}ignoring record")
+                        .setArguments(line)
+                        .setThrowable(throwable)
+                );
+                return;
+            }
+            String type = record.path(TYPE).asText();
+            if (HELLO.equals(type) || AUTH.equals(type)) {
+                if (authenticate(ctx, record)) {
+                    execute(() -> receive(ctx.channel(), record));
+                }
+                return;
+            }
+            if (!Boolean.TRUE.equals(ctx.channel().attr(AUTHENTICATED).get())) {
+                rejectConnection(ctx, "received " + type + " record before authentication");
+                return;
+            }
+            BiConsumer<Channel, JsonNode> recordHandler = recordHandlers.get(type);
+            if (recordHandler != null) {
+                recordHandler.accept(ctx.channel(), record);
+            } else {
+                execute(() -> receive(ctx.channel(), record));
+            }
+        }
+
+        /**
+         * Authenticates the connection on the event loop, before any later record on the connection is read, returns
+         * true once the connection is authenticated and the peer's node id is registered on the connection
+         */
+        private boolean authenticate(ChannelHandlerContext ctx, JsonNode record) throws Exception {
+            Channel channel = ctx.channel();
+            if (HELLO.equals(record.path(TYPE).asText())) {
+                String helloNodeId = record.path(NODE).asText();
+                if (channel.attr(HELLO_NODE_ID).get() != null) {
+                    rejectConnection(ctx, "received duplicate HELLO record");
+                    return false;
+                }
+                if (isBlank(helloNodeId)) {
+                    rejectConnection(ctx, "received HELLO record without node id");
+                    return false;
+                }
+                if (nodeId.equals(helloNodeId)) {
+                    connectedToItself(ctx);
+                    return false;
+                }
+                channel.attr(HELLO_NODE_ID).set(helloNodeId);
+                if (secret == null) {
+                    return registerPeer(channel, helloNodeId);
+                }
+                ObjectNode auth = objectMapper.createObjectNode();
+                auth.put(TYPE, AUTH);
+                auth.put(NODE, nodeId);
+                auth.put(PROOF, proof(record.path(NONCE_FIELD).asText(), nodeId, helloNodeId));
+                ctx.writeAndFlush(objectMapper.writeValueAsString(auth) + "\n");
+                return false;
+            } else {
+                String helloNodeId = channel.attr(HELLO_NODE_ID).get();
+                if (secret == null || helloNodeId == null || Boolean.TRUE.equals(channel.attr(AUTHENTICATED).get())) {
+                    rejectConnection(ctx, "received unexpected AUTH record");
+                    return false;
+                }
+                byte[] expected = proof(channel.attr(NONCE).get(), helloNodeId, nodeId).getBytes(UTF_8);
+                if (!MessageDigest.isEqual(expected, record.path(PROOF).asText().getBytes(UTF_8))) {
+                    rejectConnection(ctx, "received invalid AUTH record, the shared secret doesn't match");
+                    return false;
+                }
+                return registerPeer(channel, helloNodeId);
+            }
+        }
+
+        private boolean registerPeer(Channel channel, String peerNodeId) {
+            channel.attr(PEER_NODE_ID).set(peerNodeId);
+            channel.attr(AUTHENTICATED).set(true);
+            return true;
+        }
+
+        /**
+         * Signs the nonce for the node proving it has the secret to the node verifying it, both node ids are signed so a
+         * proof can't be reflected back to the node that issued the nonce or replayed to a different node
+         */
+        private String proof(String nonce, String proverNodeId, String verifierNodeId) throws Exception {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(UTF_8), "HmacSHA256"));
+            return Base64.getEncoder().encodeToString(mac.doFinal((AUTH + ":" + nonce + ":" + proverNodeId + ":" + verifierNodeId).getBytes(UTF_8)));
+        }
+
+        /**
+         * A HELLO with this node's id is either a configured peer that is this node, which isn't reconnected, or a
+         * connection pretending to be this node, either way the connection is closed without authenticating it
+         */
+        private void connectedToItself(ChannelHandlerContext ctx) {
+            if (peer != null) {
+                selfPeers.add(peer);
+            }
+            if (MockServerLogger.isEnabled(Level.DEBUG)) {
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setLogLevel(Level.DEBUG)
+                        .setMessageFormat("closing expectation replication connection from{}received HELLO record with this node's id")
+                        .setArguments(ctx.channel().remoteAddress())
+                );
+            }
+            ctx.close();
+        }
+
+        private void rejectConnection(ChannelHandlerContext ctx, String reason) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.WARN)
+                    .setMessageFormat("closing expectation replication connection from{}" + reason)
+                    .setArguments(ctx.channel().remoteAddress())
+            );
+            ctx.close();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            String peerNodeId = ctx.channel().attr(PEER_NODE_ID).get();
+            if (peerNodeId != null && peerChannels.remove(peerNodeId, ctx.channel())) {
+                peerNodesOfPeers.remove(peerNodeId);
+                execute(ExpectationReplicator.this::sendPeerNodes);
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            if (!stopped) {
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setLogLevel(Level.WARN)
+                        .setMessageFormat("exception on expectation replication connection to{}closing connection")
+                        .setArguments(ctx.channel().remoteAddress())
+                        .setThrowable(cause)
+                );
+            }
+            ctx.close();
+        }
+    }
+
+    private static class ReplicatedExpectation {
+        private final VersionVector version;
+        // null for removed expectations
+        private final Expectation expectation;
+        private final long timestamp;
+        private final String changedBy;
+        // removed locally, because times or time to live expired, without changing the version
+        private final boolean expired;
+
+        private ReplicatedExpectation(VersionVector version, Expectation expectation, long timestamp, String changedBy, boolean expired) {
+            this.version = version;
+            this.expectation = expectation;
+            this.timestamp = timestamp;
+            this.changedBy = changedBy;
+            this.expired = expired;
+        }
+    }
+}
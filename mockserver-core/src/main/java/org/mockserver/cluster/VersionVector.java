@@ -0,0 +1,112 @@
+package org.mockserver.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.*;
+
+/**
+ * Immutable version of a replicated expectation, holding the number of changes made to the expectation by each node,
+ * so two versions can be compared to find if one replaces the other or if they were changed concurrently by different nodes
+ *
+ * @author jamesdbloom
+ */
+public class VersionVector {
+
+    public static final VersionVector EMPTY = new VersionVector(Collections.emptyMap());
+
+    private final Map<String, Long> counters;
+
+    private VersionVector(Map<String, Long> counters) {
+        this.counters = counters;
+    }
+
+    public enum Ordering {
+        BEFORE,
+        EQUAL,
+        AFTER,
+        CONCURRENT
+    }
+
+    public VersionVector increment(String nodeId) {
+        Map<String, Long> counters = new TreeMap<>(this.counters);
+        counters.merge(nodeId, 1L, Long::sum);
+        return new VersionVector(counters);
+    }
+
+    public VersionVector merge(VersionVector other) {
+        Map<String, Long> counters = new TreeMap<>(this.counters);
+        other.counters.forEach((nodeId, counter) -> counters.merge(nodeId, counter, Math::max));
+        return new VersionVector(counters);
+    }
+
+    /**
+     * Returns the ordering of this version relative to the other version
+     */
+    public Ordering compare(VersionVector other) {
+        boolean before = false;
+        boolean after = false;
+        Set<String> nodeIds = new HashSet<>(counters.keySet());
+        nodeIds.addAll(other.counters.keySet());
+        for (String nodeId : nodeIds) {
+            long counter = counters.getOrDefault(nodeId, 0L);
+            long otherCounter = other.counters.getOrDefault(nodeId, 0L);
+            if (counter < otherCounter) {
+                before = true;
+            } else if (counter > otherCounter) {
+                after = true;
+            }
+        }
+        if (before && after) {
+            return Ordering.CONCURRENT;
+        } else if (before) {
+            return Ordering.BEFORE;
+        } else if (after) {
+            return Ordering.AFTER;
+        } else {
+            return Ordering.EQUAL;
+        }
+    }
+
+    public ObjectNode toJson() {
+        ObjectNode json = JsonNodeFactory.instance.objectNode();
+        counters.forEach(json::put);
+        return json;
+    }
+
+    public static VersionVector fromJson(JsonNode json) {
+        Map<String, Long> counters = new TreeMap<>();
+        if (json != null) {
+            json.fields().forEachRemaining(field -> counters.put(field.getKey(), field.getValue().asLong()));
+        }
+        return new VersionVector(counters);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return compare((VersionVector) o) == Ordering.EQUAL;
+    }
+
+    @Override
+    public int hashCode() {
+        Map<String, Long> nonZeroCounters = new TreeMap<>();
+        counters.forEach((nodeId, counter) -> {
+            if (counter != 0) {
+                nonZeroCounters.put(nodeId, counter);
+            }
+        });
+        return nonZeroCounters.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return counters.toString();
+    }
+}
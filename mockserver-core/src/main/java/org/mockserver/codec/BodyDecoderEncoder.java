@@ -13,43 +13,46 @@ import static org.mockserver.model.JsonBody.DEFAULT_MATCH_TYPE;
 public class BodyDecoderEncoder {
 
     public ByteBuf bodyToByteBuf(Body body, String contentTypeHeader) {
+        ByteBuf encoded = body != null ? body.getEncoded(contentTypeHeader) : null;
+        if (encoded != null) {
+            return encoded.retainedDuplicate();
+        }
         byte[] bytes = bodyToBytes(body, contentTypeHeader);
         if (bytes != null) {
-            return Unpooled.copiedBuffer(bytes);
+            return Unpooled.wrappedBuffer(bytes);
         } else {
             return Unpooled.buffer(0, 0);
         }
     }
 
     public ByteBuf[] bodyToByteBuf(Body body, String contentTypeHeader, int chunkSize) {
-        byte[][] chunks = split(bodyToBytes(body, contentTypeHeader), chunkSize);
-        ByteBuf[] byteBufs = new ByteBuf[chunks.length];
-        for (int i = 0; i < chunks.length; i++) {
-            if (chunks[i] != null) {
-                byteBufs[i] = Unpooled.copiedBuffer(chunks[i]);
-            } else {
-                byteBufs[i] = Unpooled.buffer(0, 0);
-            }
+        ByteBuf encoded = bodyToByteBuf(body, contentTypeHeader);
+        int length = encoded.readableBytes();
+        if (length <= chunkSize) {
+            return new ByteBuf[]{encoded};
+        }
+        ByteBuf[] byteBufs = new ByteBuf[(length + chunkSize - 1) / chunkSize];
+        for (int i = 0; i < byteBufs.length; i++) {
+            byteBufs[i] = encoded.retainedSlice(encoded.readerIndex() + i * chunkSize, Math.min(length - i * chunkSize, chunkSize));
         }
+        // each chunk holds its own reference
+        encoded.release();
         return byteBufs;
     }
 
-    public static byte[][] split(byte[] array, int chunkSize) {
-        if (chunkSize < array.length) {
-            int numOfChunks = (array.length + chunkSize - 1) / chunkSize;
-            byte[][] output = new byte[numOfChunks][];
-
-            for (int i = 0; i < numOfChunks; ++i) {
-                int start = i * chunkSize;
-                int length = Math.min(array.length - start, chunkSize);
-
-                byte[] temp = new byte[length];
-                System.arraycopy(array, start, temp, 0, length);
-                output[i] = temp;
+    /**
+     * Encodes a body that is written for many responses, i.e. the response body of an expectation, once into a shared read
+     * only buffer kept on the body, which is then written as a retained duplicate or slice for each response with the same
+     * content type header, other bodies are encoded each time they are written so bodies that are only logged don't keep an
+     * encoded copy
+     */
+    public void encodeOnce(Body body, String contentTypeHeader) {
+        // only bodies with immutable values, a parameter body's parameters can be modified after encoding
+        if (body != null && (body instanceof BinaryBody || body.getValue() instanceof String) && body.getEncoded(contentTypeHeader) == null) {
+            byte[] bytes = bodyToBytes(body, contentTypeHeader);
+            if (bytes != null) {
+                body.setEncoded(contentTypeHeader, Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(bytes).asReadOnly()));
             }
-            return output;
-        } else {
-            return new byte[][]{array};
         }
     }
 
@@ -70,7 +70,11 @@ public class ExpandedParameterDecoder {
         return parameters.withEntries(parameterMap);
     }
 
-    public void splitParameters(Parameters matcher, Parameters matched) {
+    /**
+     * @return true if any matched parameters were split
+     */
+    public boolean splitParameters(Parameters matcher, Parameters matched) {
+        boolean modified = false;
         if (matcher != null && matched != null) {
             for (Parameter matcherEntry : matcher.getEntries()) {
                 if (matcherEntry.getName().getParameterStyle() != null && matcherEntry.getName().getParameterStyle().isExploded()) {
@@ -78,11 +82,13 @@ public class ExpandedParameterDecoder {
                         if (matcherEntry.getName().getValue().equals(matchedEntry.getName().getValue()) || matchedEntry.getName().getValue().matches(matcherEntry.getName().getValue())) {
                             matchedEntry.replaceValues(new ExpandedParameterDecoder(mockServerLogger).splitOnDelimiter(matcherEntry.getName().getParameterStyle(), matcherEntry.getName().getValue(), matchedEntry.getValues()));
                             matched.replaceEntry(matchedEntry);
+                            modified = true;
                         }
                     }
                 }
             }
         }
+        return modified;
     }
 
     public List<NottableString> splitOnDelimiter(ParameterStyle style, String name, List<NottableString> values) {
@@ -1,15 +1,46 @@
 package org.mockserver.collections;
 
-import java.util.Collection;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 
 /**
+ * A bounded deque that evicts the element at the opposite end when an element is added to a full deque, the onEvictCallback
+ * is called for every element that is evicted, cleared or removed using removeItem
+ * <p>
+ * Elements are held in a doubly linked list guarded by a lock with an identity index of the nodes, so the size is O(1) and
+ * removing a specific element with removeItem is O(1) instead of a scan of the whole deque, the Deque methods fall back to a
+ * scan using equals for an element that is equal to, but not the same instance as, an element in the deque.  Iterators are
+ * weakly consistent, as for ConcurrentLinkedDeque, they never throw ConcurrentModificationException and reflect some of the
+ * changes made after they were created.
+ * <p>
+ * This no longer extends ConcurrentLinkedDeque so callers should use the Deque interface.
+ *
  * @author jamesdbloom
  */
-public class CircularConcurrentLinkedDeque<E> extends ConcurrentLinkedDeque<E> {
-    private int maxSize;
+public class CircularConcurrentLinkedDeque<E> extends AbstractCollection<E> implements Deque<E> {
+    private volatile int maxSize;
     private final Consumer<E> onEvictCallback;
+    private final ReentrantLock lock = new ReentrantLock();
+    // the first node of each element, further nodes for the same element are chained using sameNext
+    private final Map<E, Node<E>> index = new IdentityHashMap<>();
+    private Node<E> first;
+    private Node<E> last;
+    private volatile int size;
+
+    private static final class Node<E> {
+        // null once the node has been removed
+        E item;
+        Node<E> prev;
+        // a removed first node links to itself, so an iterator positioned on it continues from the new first node
+        Node<E> next;
+        Node<E> samePrev;
+        Node<E> sameNext;
+
+        Node(E item) {
+            this.item = item;
+        }
+    }
 
     public CircularConcurrentLinkedDeque(int maxSize, Consumer<E> onEvictCallback) {
         this.maxSize = maxSize;
@@ -22,73 +53,472 @@ public class CircularConcurrentLinkedDeque<E> extends ConcurrentLinkedDeque<E> {
 
     @Override
     public boolean add(E element) {
-        if (maxSize > 0) {
-            evictExcessElements();
-            return super.add(element);
-        } else {
-            return false;
-        }
+        return offerLast(element);
     }
 
     @Override
-    public boolean addAll(Collection<? extends E> collection) {
-        if (maxSize > 0) {
-            boolean result = false;
-            for (E element : collection) {
-                if (add(element)) {
-                    result = true;
-                }
+    public boolean offer(E element) {
+        return offerLast(element);
+    }
+
+    @Override
+    public void addFirst(E element) {
+        offerFirst(element);
+    }
+
+    @Override
+    public void addLast(E element) {
+        offerLast(element);
+    }
+
+    @Override
+    public void push(E element) {
+        offerFirst(element);
+    }
+
+    /**
+     * Adds the element at the head, evicting elements from the tail if the deque is full, returns false if the
+     * maximum size is zero
+     */
+    @Override
+    public boolean offerFirst(E element) {
+        Objects.requireNonNull(element);
+        List<E> evicted;
+        lock.lock();
+        try {
+            if (maxSize <= 0) {
+                return false;
             }
-            return result;
-        } else {
-            return false;
+            evicted = evictExcessElements(false);
+            Node<E> node = new Node<>(element);
+            node.next = first;
+            if (first == null) {
+                last = node;
+            } else {
+                first.prev = node;
+            }
+            first = node;
+            indexFirst(node);
+            size++;
+        } finally {
+            lock.unlock();
         }
+        evicted(evicted);
+        return true;
     }
 
+    /**
+     * Adds the element at the tail, evicting elements from the head if the deque is full, returns false if the
+     * maximum size is zero
+     */
     @Override
-    public boolean offer(E element) {
-        if (maxSize > 0) {
-            evictExcessElements();
-            return super.offer(element);
-        } else {
-            return false;
+    public boolean offerLast(E element) {
+        Objects.requireNonNull(element);
+        List<E> evicted;
+        lock.lock();
+        try {
+            if (maxSize <= 0) {
+                return false;
+            }
+            evicted = evictExcessElements(true);
+            Node<E> node = new Node<>(element);
+            node.prev = last;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            indexLast(node);
+            size++;
+        } finally {
+            lock.unlock();
         }
+        evicted(evicted);
+        return true;
     }
 
-    private void evictExcessElements() {
-        if (onEvictCallback == null) {
-            while (size() >= maxSize) {
-                super.poll();
+    private List<E> evictExcessElements(boolean fromFirst) {
+        List<E> evicted = null;
+        while (size >= maxSize && first != null) {
+            E element = unlink(fromFirst ? first : last);
+            if (onEvictCallback != null) {
+                if (evicted == null) {
+                    evicted = new ArrayList<>(1);
+                }
+                evicted.add(element);
             }
-        } else {
-            while (size() >= maxSize) {
-                onEvictCallback.accept(super.poll());
+        }
+        return evicted;
+    }
+
+    private void evicted(List<E> evicted) {
+        // callbacks are called outside the lock, so they can safely read this deque
+        if (evicted != null) {
+            for (E element : evicted) {
+                onEvictCallback.accept(element);
             }
         }
     }
 
+    @Override
     public void clear() {
-        if (onEvictCallback == null) {
-            super.clear();
-        } else {
-            while (size() > 0) {
-                onEvictCallback.accept(super.poll());
+        List<E> cleared = new ArrayList<>();
+        lock.lock();
+        try {
+            while (first != null) {
+                cleared.add(unlink(first));
             }
+        } finally {
+            lock.unlock();
+        }
+        if (onEvictCallback != null) {
+            cleared.forEach(onEvictCallback);
         }
     }
 
     /**
-     * @deprecated use removeItem instead
+     * @deprecated use removeItem instead, which also calls the onEvictCallback
      */
     @Deprecated
+    @Override
     public boolean remove(Object o) {
-        return super.remove(o);
+        return removeFirstOccurrence(o);
     }
 
+    /**
+     * Removes the element, which must be the same instance that was added, in O(1) and calls the onEvictCallback
+     */
     public boolean removeItem(E e) {
         if (onEvictCallback != null) {
             onEvictCallback.accept(e);
         }
-        return super.remove(e);
+        return removeFirstOccurrence(e, false);
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        return removeFirstOccurrence(o, true);
+    }
+
+    private boolean removeFirstOccurrence(Object o, boolean scanForEqualElement) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            Node<E> node = index.get(o);
+            if (node == null && scanForEqualElement) {
+                node = first;
+                while (node != null && !o.equals(node.item)) {
+                    node = node.next;
+                }
+            }
+            if (node != null) {
+                unlink(node);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            Node<E> node = index.get(o);
+            if (node != null) {
+                while (node.sameNext != null) {
+                    node = node.sameNext;
+                }
+            } else {
+                node = last;
+                while (node != null && !o.equals(node.item)) {
+                    node = node.prev;
+                }
+            }
+            if (node != null) {
+                unlink(node);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E pollFirst() {
+        lock.lock();
+        try {
+            return first != null ? unlink(first) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E pollLast() {
+        lock.lock();
+        try {
+            return last != null ? unlink(last) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public E pop() {
+        return removeFirst();
+    }
+
+    @Override
+    public E remove() {
+        return removeFirst();
+    }
+
+    @Override
+    public E removeFirst() {
+        E element = pollFirst();
+        if (element == null) {
+            throw new NoSuchElementException();
+        }
+        return element;
+    }
+
+    @Override
+    public E removeLast() {
+        E element = pollLast();
+        if (element == null) {
+            throw new NoSuchElementException();
+        }
+        return element;
+    }
+
+    @Override
+    public E peekFirst() {
+        lock.lock();
+        try {
+            return first != null ? first.item : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E peekLast() {
+        lock.lock();
+        try {
+            return last != null ? last.item : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public E element() {
+        return getFirst();
+    }
+
+    @Override
+    public E getFirst() {
+        E element = peekFirst();
+        if (element == null) {
+            throw new NoSuchElementException();
+        }
+        return element;
+    }
+
+    @Override
+    public E getLast() {
+        E element = peekLast();
+        if (element == null) {
+            throw new NoSuchElementException();
+        }
+        return element;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (index.containsKey(o)) {
+                return true;
+            }
+            for (Node<E> node = first; node != null; node = node.next) {
+                if (o.equals(node.item)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new WeaklyConsistentIterator(true);
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return new WeaklyConsistentIterator(false);
+    }
+
+    private void indexFirst(Node<E> node) {
+        Node<E> same = index.put(node.item, node);
+        if (same != null) {
+            node.sameNext = same;
+            same.samePrev = node;
+        }
+    }
+
+    private void indexLast(Node<E> node) {
+        Node<E> same = index.putIfAbsent(node.item, node);
+        if (same != null) {
+            while (same.sameNext != null) {
+                same = same.sameNext;
+            }
+            same.sameNext = node;
+            node.samePrev = same;
+        }
+    }
+
+    private E unlink(Node<E> node) {
+        E element = node.item;
+        if (node.samePrev == null) {
+            if (node.sameNext == null) {
+                index.remove(element);
+            } else {
+                index.put(element, node.sameNext);
+            }
+        } else {
+            node.samePrev.sameNext = node.sameNext;
+        }
+        if (node.sameNext != null) {
+            node.sameNext.samePrev = node.samePrev;
+        }
+        node.samePrev = null;
+        node.sameNext = null;
+
+        Node<E> prev = node.prev;
+        Node<E> next = node.next;
+        if (prev == null) {
+            first = next;
+        } else {
+            prev.next = next;
+        }
+        if (next == null) {
+            last = prev;
+        } else {
+            next.prev = prev;
+        }
+        // links of a removed node are kept so an iterator positioned on it can continue,
+        // except the old first node which links to itself so a long lived iterator doesn't retain evicted nodes
+        if (prev == null) {
+            node.next = node;
+        }
+        node.item = null;
+        size--;
+        return element;
+    }
+
+    private class WeaklyConsistentIterator implements Iterator<E> {
+        private final boolean ascending;
+        private Node<E> nextNode;
+        private E nextItem;
+        private Node<E> lastReturned;
+
+        private WeaklyConsistentIterator(boolean ascending) {
+            this.ascending = ascending;
+            lock.lock();
+            try {
+                nextNode = ascending ? first : last;
+                nextItem = nextNode != null ? nextNode.item : null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Node<E> successor(Node<E> node) {
+            while (true) {
+                Node<E> successor = ascending ? node.next : node.prev;
+                if (successor == null) {
+                    return null;
+                } else if (successor == node) {
+                    return first;
+                } else if (successor.item != null) {
+                    return successor;
+                }
+                node = successor;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+
+        @Override
+        public E next() {
+            if (nextNode == null) {
+                throw new NoSuchElementException();
+            }
+            E item = nextItem;
+            lastReturned = nextNode;
+            lock.lock();
+            try {
+                nextNode = successor(nextNode);
+                nextItem = nextNode != null ? nextNode.item : null;
+            } finally {
+                lock.unlock();
+            }
+            return item;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            lock.lock();
+            try {
+                if (lastReturned.item != null) {
+                    unlink(lastReturned);
+                }
+            } finally {
+                lock.unlock();
+            }
+            lastReturned = null;
+        }
     }
 }
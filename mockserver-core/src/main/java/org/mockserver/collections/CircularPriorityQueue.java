@@ -2,29 +2,44 @@ package org.mockserver.collections;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
+ * Elements are held in insertion order keyed by a sequence number and the number of elements is
+ * tracked separately, so eviction and removal don't scan every element
+ *
  * @author jamesdbloom
  */
 public class CircularPriorityQueue<K, V, SLK extends Keyed<K>> {
     private int maxSize;
     private final Function<V, SLK> skipListKeyFunction;
     private final Function<V, K> mapKeyFunction;
+    private final Consumer<V> evictionListener;
     private final ConcurrentSkipListSet<SLK> sortOrderSkipList;
-    private final ConcurrentLinkedQueue<V> insertionOrderQueue = new ConcurrentLinkedQueue<>();
+    private final ConcurrentSkipListMap<Long, V> insertionOrder = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<K, Long> insertionSequenceByKey = new ConcurrentHashMap<>();
+    private final AtomicLong insertionSequence = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
     private final ConcurrentMap<K, V> byKey = new ConcurrentHashMap<>();
 
     public CircularPriorityQueue(int maxSize, Comparator<? super SLK> skipListComparator, Function<V, SLK> skipListKeyFunction, Function<V, K> mapKeyFunction) {
+        this(maxSize, skipListComparator, skipListKeyFunction, mapKeyFunction, null);
+    }
+
+    public CircularPriorityQueue(int maxSize, Comparator<? super SLK> skipListComparator, Function<V, SLK> skipListKeyFunction, Function<V, K> mapKeyFunction, Consumer<V> evictionListener) {
         sortOrderSkipList = new ConcurrentSkipListSet<>(skipListComparator);
         this.maxSize = maxSize;
         this.skipListKeyFunction = skipListKeyFunction;
         this.mapKeyFunction = mapKeyFunction;
+        this.evictionListener = evictionListener;
     }
 
     public void setMaxSize(int maxSize) {
@@ -41,21 +56,50 @@ public class CircularPriorityQueue<K, V, SLK extends Keyed<K>> {
 
     public void add(V element) {
         if (maxSize > 0 && element != null) {
-            insertionOrderQueue.offer(element);
-            sortOrderSkipList.add(skipListKeyFunction.apply(element));
-            byKey.put(mapKeyFunction.apply(element), element);
-            while (insertionOrderQueue.size() > maxSize) {
-                V elementToRemove = insertionOrderQueue.poll();
+            K key = mapKeyFunction.apply(element);
+            long sequence = insertionSequence.incrementAndGet();
+            insertionOrder.put(sequence, element);
+            size.incrementAndGet();
+            SLK skipListKey = skipListKeyFunction.apply(element);
+            sortOrderSkipList.add(skipListKey);
+            V replacedElement = byKey.put(key, element);
+            Long replacedSequence = insertionSequenceByKey.put(key, sequence);
+            if (replacedSequence != null && insertionOrder.remove(replacedSequence) != null) {
+                size.decrementAndGet();
+            }
+            if (replacedElement != null && replacedElement != element) {
+                SLK replacedSkipListKey = skipListKeyFunction.apply(replacedElement);
+                if (sortOrderSkipList.comparator().compare(replacedSkipListKey, skipListKey) != 0) {
+                    sortOrderSkipList.remove(replacedSkipListKey);
+                }
+            }
+            while (size.get() > maxSize) {
+                Map.Entry<Long, V> eldest = insertionOrder.pollFirstEntry();
+                if (eldest == null) {
+                    break;
+                }
+                size.decrementAndGet();
+                V elementToRemove = eldest.getValue();
+                K keyToRemove = mapKeyFunction.apply(elementToRemove);
+                insertionSequenceByKey.remove(keyToRemove, eldest.getKey());
                 sortOrderSkipList.remove(skipListKeyFunction.apply(elementToRemove));
-                byKey.remove(mapKeyFunction.apply(elementToRemove));
+                byKey.remove(keyToRemove, elementToRemove);
+                if (evictionListener != null) {
+                    evictionListener.accept(elementToRemove);
+                }
             }
         }
     }
 
     public boolean remove(V element) {
         if (element != null) {
-            insertionOrderQueue.remove(element);
-            byKey.remove(mapKeyFunction.apply(element));
+            K key = mapKeyFunction.apply(element);
+            Long sequence = insertionSequenceByKey.get(key);
+            if (sequence != null && insertionOrder.remove(sequence, element)) {
+                insertionSequenceByKey.remove(key, sequence);
+                size.decrementAndGet();
+            }
+            byKey.remove(key);
             return sortOrderSkipList.remove(skipListKeyFunction.apply(element));
         } else {
             return false;
@@ -63,7 +107,7 @@ public class CircularPriorityQueue<K, V, SLK extends Keyed<K>> {
     }
 
     public int size() {
-        return insertionOrderQueue.size();
+        return size.get();
     }
 
     public Stream<V> stream() {
@@ -83,7 +127,7 @@ public class CircularPriorityQueue<K, V, SLK extends Keyed<K>> {
     }
 
     public boolean isEmpty() {
-        return insertionOrderQueue.isEmpty();
+        return size.get() == 0;
     }
 
     public List<V> toSortedList() {
@@ -0,0 +1,180 @@
+package org.mockserver.collections;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * An ordered log of elements that can be read from immutable snapshots, a snapshot is taken without copying the
+ * elements, only the references to the fixed size chunks holding them, so it is O(n / chunk size).
+ * <p>
+ * Elements are appended to the last chunk and removed from the first chunk by advancing its start, slots are
+ * never overwritten and chunks are never modified below the size of an existing snapshot, so a snapshot can be read
+ * on any thread while elements continue to be added and removed.  Removing an element that isn't the first element is
+ * deferred until the next snapshot is taken, which copies the remaining elements into new chunks, this only happens
+ * when elements are cleared.
+ *
+ * @author jamesdbloom
+ */
+public class SnapshotLog<E> {
+
+    static final int CHUNK_SIZE = 1024;
+    private final List<Object[]> chunks = new ArrayList<>();
+    private final Set<E> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+    // offset of the first element in the first chunk
+    private int start;
+    // number of elements written to the last chunk
+    private int end;
+    private int size;
+    private Snapshot<E> snapshot;
+
+    public synchronized void add(E element) {
+        if (chunks.isEmpty() || end == CHUNK_SIZE) {
+            chunks.add(new Object[CHUNK_SIZE]);
+            end = 0;
+        }
+        chunks.get(chunks.size() - 1)[end++] = element;
+        size++;
+        snapshot = null;
+    }
+
+    /**
+     * Removes the element, which must be the same instance that was added, removing the first element is O(1) as is
+     * the case for evicted elements
+     */
+    public synchronized void remove(E element) {
+        if (size > 0) {
+            if (first() == element) {
+                removeFirst();
+            } else {
+                removed.add(element);
+            }
+            while (size > 0 && !removed.isEmpty() && removed.remove(first())) {
+                removeFirst();
+            }
+            snapshot = null;
+        }
+    }
+
+    public synchronized void clear() {
+        // chunks are replaced not cleared, as they may still be read from a snapshot
+        chunks.clear();
+        removed.clear();
+        start = 0;
+        end = 0;
+        size = 0;
+        snapshot = null;
+    }
+
+    /**
+     * Returns an immutable snapshot of the elements, in the order they were added
+     */
+    public synchronized List<E> snapshot() {
+        if (!removed.isEmpty()) {
+            compact();
+        }
+        if (snapshot == null) {
+            snapshot = new Snapshot<>(chunks.toArray(new Object[0][]), start, size);
+        }
+        return snapshot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E first() {
+        return (E) chunks.get(0)[start];
+    }
+
+    private void removeFirst() {
+        start++;
+        size--;
+        if (size == 0) {
+            chunks.clear();
+            start = 0;
+            end = 0;
+        } else if (start == CHUNK_SIZE) {
+            chunks.remove(0);
+            start = 0;
+        }
+    }
+
+    private void compact() {
+        List<E> elements = new ArrayList<>(new Snapshot<E>(chunks.toArray(new Object[0][]), start, size));
+        Set<E> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+        toRemove.addAll(removed);
+        clear();
+        for (E element : elements) {
+            if (!toRemove.contains(element)) {
+                add(element);
+            }
+        }
+    }
+
+    private static class Snapshot<E> extends AbstractList<E> implements RandomAccess {
+        private final Object[][] chunks;
+        private final int start;
+        private final int size;
+
+        private Snapshot(Object[][] chunks, int start, int size) {
+            this.chunks = chunks;
+            this.start = start;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            int position = start + index;
+            return (E) chunks[position / CHUNK_SIZE][position % CHUNK_SIZE];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Returns a list of the elements of the snapshot that match the predicate, the snapshot is only filtered when the
+     * list is first read, so a filtered snapshot can be taken cheaply on one thread and filtered on the thread reading it,
+     * the filtered list must only be read by one thread
+     */
+    public static <E> List<E> filter(List<E> snapshot, Predicate<E> predicate) {
+        return new FilteredSnapshot<>(snapshot, predicate);
+    }
+
+    private static class FilteredSnapshot<E> extends AbstractList<E> implements RandomAccess {
+        private final List<E> snapshot;
+        private final Predicate<E> predicate;
+        private List<E> filtered;
+
+        private FilteredSnapshot(List<E> snapshot, Predicate<E> predicate) {
+            this.snapshot = snapshot;
+            this.predicate = predicate;
+        }
+
+        private List<E> filtered() {
+            if (filtered == null) {
+                List<E> filtered = new ArrayList<>();
+                for (E element : snapshot) {
+                    if (predicate.test(element)) {
+                        filtered.add(element);
+                    }
+                }
+                this.filtered = filtered;
+            }
+            return filtered;
+        }
+
+        @Override
+        public E get(int index) {
+            return filtered().get(index);
+        }
+
+        @Override
+        public int size() {
+            return filtered().size();
+        }
+    }
+}
@@ -39,19 +39,41 @@ public class ConfigurationProperties {
     private static final String DEFAULT_LOG_LEVEL = "INFO";
     private static final long DEFAULT_MAX_TIMEOUT = 20;
     private static final int DEFAULT_CONNECT_TIMEOUT = 20000;
+    private static final int DEFAULT_FORWARD_CONNECTION_POOL_MAX_CONNECTIONS = 50;
+    private static final long DEFAULT_FORWARD_CONNECTION_POOL_IDLE_TIMEOUT = 60000;
     private static final String DEFAULT_MOCKSERVER_ALWAYS_CLOSE_SOCKET_CONNECTIONS = "false";
     private static final int DEFAULT_MAX_FUTURE_TIMEOUT = 60;
     private static final String DEFAULT_OUTPUT_MEMORY_USAGE_CSV = "false";
+    private static final String DEFAULT_MEMORY_MAPPED_LOG_ENTRIES = "false";
     private static final int DEFAULT_MAX_WEB_SOCKET_EXPECTATIONS = 1500;
     private static final int DEFAULT_MAX_INITIAL_LINE_LENGTH = Integer.MAX_VALUE;
     private static final int DEFAULT_MAX_HEADER_SIZE = Integer.MAX_VALUE;
     private static final int DEFAULT_MAX_CHUNK_SIZE = Integer.MAX_VALUE;
+    private static final int DEFAULT_MAX_CONTENT_LENGTH = Integer.MAX_VALUE;
+    private static final int DEFAULT_MAX_LOG_ENTRY_BODY_SIZE = Integer.MAX_VALUE;
     private static final String DEFAULT_ENABLE_CORS_FOR_API = "false";
     private static final String DEFAULT_ENABLE_CORS_FOR_ALL_RESPONSES = "false";
     private static final String DEFAULT_PREVENT_CERTIFICATE_DYNAMIC_UPDATE = "false";
+    private static final String DEFAULT_TLS_HOSTNAME_CERTIFICATES = "false";
+    private static final int DEFAULT_TLS_HOSTNAME_CERTIFICATE_CACHE_SIZE = 250;
+    private static final String DEFAULT_TLS_KEY_PAIR_ALGORITHM = "RSA";
+    private static final int DEFAULT_TLS_KEY_PAIR_POOL_SIZE = 4;
+    private static final int DEFAULT_TLS_SESSION_CACHE_SIZE = 0;
+    private static final long DEFAULT_TLS_SESSION_TIMEOUT = 0;
+    private static final String DEFAULT_TLS_SESSION_TICKETS = "true";
+    private static final String DEFAULT_TLS_PROVIDER = "JDK";
+    private static final String DEFAULT_TLS_ALPN_ENABLED = "false";
     private static final int DEFAULT_NIO_EVENT_LOOP_THREAD_COUNT = 5;
     private static final int DEFAULT_ACTION_HANDLER_THREAD_COUNT = Math.max(5, Runtime.getRuntime().availableProcessors());
     private static final int DEFAULT_WEB_SOCKET_CLIENT_EVENT_LOOP_THREAD_COUNT = 5;
+    private static final int DEFAULT_CONTROL_PLANE_THREAD_COUNT = 2;
+    private static final int DEFAULT_CONTROL_PLANE_QUEUE_SIZE = 1000;
+    private static final String DEFAULT_NATIVE_TRANSPORT_ENABLED = "true";
+    private static final int DEFAULT_ACCEPTOR_THREAD_COUNT = 1;
+    private static final String DEFAULT_SOCKET_TCP_NO_DELAY = "true";
+    private static final int DEFAULT_SOCKET_TCP_FAST_OPEN = 0;
+    private static final int DEFAULT_SOCKET_RECEIVE_BUFFER_SIZE = 0;
+    private static final int DEFAULT_SOCKET_SEND_BUFFER_SIZE = 0;
     private static final String DEFAULT_CERTIFICATE_AUTHORITY_PRIVATE_KEY = "org/mockserver/socket/PKCS8CertificateAuthorityPrivateKey.pem";
     private static final String DEFAULT_CERTIFICATE_AUTHORITY_X509_CERTIFICATE = "org/mockserver/socket/CertificateAuthorityCertificate.pem";
     private static final String DEFAULT_MOCKSERVER_DYNAMICALLY_CREATE_CERTIFICATE_AUTHORITY_CERTIFICATE = "false";
@@ -74,22 +96,47 @@ public class ConfigurationProperties {
     private static final String MOCKSERVER_MAX_LOG_ENTRIES = "mockserver.maxLogEntries";
     private static final String MOCKSERVER_OUTPUT_MEMORY_USAGE_CSV = "mockserver.outputMemoryUsageCsv";
     private static final String MOCKSERVER_MEMORY_USAGE_DIRECTORY = "mockserver.memoryUsageCsvDirectory";
+    private static final String MOCKSERVER_MEMORY_MAPPED_LOG_ENTRIES = "mockserver.memoryMappedLogEntries";
+    private static final String MOCKSERVER_MEMORY_MAPPED_LOG_ENTRIES_DIRECTORY = "mockserver.memoryMappedLogEntriesDirectory";
     private static final String MOCKSERVER_MAX_WEB_SOCKET_EXPECTATIONS = "mockserver.maxWebSocketExpectations";
     private static final String MOCKSERVER_MAX_INITIAL_LINE_LENGTH = "mockserver.maxInitialLineLength";
     private static final String MOCKSERVER_MAX_HEADER_SIZE = "mockserver.maxHeaderSize";
     private static final String MOCKSERVER_MAX_CHUNK_SIZE = "mockserver.maxChunkSize";
+    private static final String MOCKSERVER_MAX_CONTENT_LENGTH = "mockserver.maxContentLength";
+    private static final String MOCKSERVER_MAX_LOG_ENTRY_BODY_SIZE = "mockserver.maxLogEntryBodySize";
     private static final String MOCKSERVER_NIO_EVENT_LOOP_THREAD_COUNT = "mockserver.nioEventLoopThreadCount";
     private static final String MOCKSERVER_ACTION_HANDLER_THREAD_COUNT = "mockserver.actionHandlerThreadCount";
+    private static final String MOCKSERVER_DELAY_TIMER_TICK_DURATION = "mockserver.delayTimerTickDuration";
+    private static final String MOCKSERVER_ACTION_HANDLER_VIRTUAL_THREADS = "mockserver.actionHandlerVirtualThreads";
     private static final String MOCKSERVER_WEB_SOCKET_CLIENT_EVENT_LOOP_THREAD_COUNT = "mockserver.webSocketClientEventLoopThreadCount";
+    private static final String MOCKSERVER_CONTROL_PLANE_THREAD_COUNT = "mockserver.controlPlaneThreadCount";
+    private static final String MOCKSERVER_CONTROL_PLANE_QUEUE_SIZE = "mockserver.controlPlaneQueueSize";
+    private static final String MOCKSERVER_NATIVE_TRANSPORT_ENABLED = "mockserver.nativeTransportEnabled";
+    private static final String MOCKSERVER_ACCEPTOR_THREAD_COUNT = "mockserver.acceptorThreadCount";
+    private static final String MOCKSERVER_SOCKET_TCP_NO_DELAY = "mockserver.socketTcpNoDelay";
+    private static final String MOCKSERVER_SOCKET_TCP_FAST_OPEN = "mockserver.socketTcpFastOpen";
+    private static final String MOCKSERVER_SOCKET_RECEIVE_BUFFER_SIZE = "mockserver.socketReceiveBufferSize";
+    private static final String MOCKSERVER_SOCKET_SEND_BUFFER_SIZE = "mockserver.socketSendBufferSize";
     private static final String MOCKSERVER_MAX_SOCKET_TIMEOUT = "mockserver.maxSocketTimeout";
     private static final String MOCKSERVER_MAX_FUTURE_TIMEOUT = "mockserver.maxFutureTimeout";
     private static final String MOCKSERVER_SOCKET_CONNECTION_TIMEOUT = "mockserver.socketConnectionTimeout";
     private static final String MOCKSERVER_ALWAYS_CLOSE_SOCKET_CONNECTIONS = "mockserver.alwaysCloseSocketConnections";
+    private static final String MOCKSERVER_FORWARD_CONNECTION_POOL_MAX_CONNECTIONS = "mockserver.forwardConnectionPoolMaxConnections";
+    private static final String MOCKSERVER_FORWARD_CONNECTION_POOL_IDLE_TIMEOUT = "mockserver.forwardConnectionPoolIdleTimeout";
     private static final String MOCKSERVER_SSL_CERTIFICATE_DOMAIN_NAME = "mockserver.sslCertificateDomainName";
     private static final String MOCKSERVER_SSL_SUBJECT_ALTERNATIVE_NAME_DOMAINS = "mockserver.sslSubjectAlternativeNameDomains";
     private static final String MOCKSERVER_SSL_SUBJECT_ALTERNATIVE_NAME_IPS = "mockserver.sslSubjectAlternativeNameIps";
     private static final String MOCKSERVER_USE_BOUNCY_CASTLE_FOR_KEY_AND_CERTIFICATE_GENERATION = "mockserver.useBouncyCastleForKeyAndCertificateGeneration";
     private static final String MOCKSERVER_PREVENT_CERTIFICATE_DYNAMIC_UPDATE = "mockserver.preventCertificateDynamicUpdate";
+    private static final String MOCKSERVER_TLS_HOSTNAME_CERTIFICATES = "mockserver.tlsHostnameCertificates";
+    private static final String MOCKSERVER_TLS_HOSTNAME_CERTIFICATE_CACHE_SIZE = "mockserver.tlsHostnameCertificateCacheSize";
+    private static final String MOCKSERVER_TLS_KEY_PAIR_ALGORITHM = "mockserver.tlsKeyPairAlgorithm";
+    private static final String MOCKSERVER_TLS_KEY_PAIR_POOL_SIZE = "mockserver.tlsKeyPairPoolSize";
+    private static final String MOCKSERVER_TLS_SESSION_CACHE_SIZE = "mockserver.tlsSessionCacheSize";
+    private static final String MOCKSERVER_TLS_SESSION_TIMEOUT = "mockserver.tlsSessionTimeout";
+    private static final String MOCKSERVER_TLS_SESSION_TICKETS = "mockserver.tlsSessionTickets";
+    private static final String MOCKSERVER_TLS_PROVIDER = "mockserver.tlsProvider";
+    private static final String MOCKSERVER_TLS_ALPN_ENABLED = "mockserver.tlsAlpnEnabled";
     private static final String MOCKSERVER_CERTIFICATE_AUTHORITY_PRIVATE_KEY = "mockserver.certificateAuthorityPrivateKey";
     private static final String MOCKSERVER_CERTIFICATE_AUTHORITY_X509_CERTIFICATE = "mockserver.certificateAuthorityCertificate";
     private static final String MOCKSERVER_TLS_PRIVATE_KEY_PATH = "mockserver.privateKeyPath";
@@ -129,6 +176,16 @@ public class ConfigurationProperties {
     private static final String MOCKSERVER_WATCH_INITIALIZATION_JSON = "mockserver.watchInitializationJson";
     private static final String MOCKSERVER_PERSISTED_EXPECTATIONS_PATH = "mockserver.persistedExpectationsPath";
     private static final String MOCKSERVER_PERSIST_EXPECTATIONS = "mockserver.persistExpectations";
+    private static final String MOCKSERVER_PERSISTED_EXPECTATIONS_JOURNAL = "mockserver.persistedExpectationsJournal";
+    private static final String MOCKSERVER_PERSISTED_EXPECTATIONS_FLUSH_INTERVAL = "mockserver.persistedExpectationsFlushInterval";
+    private static final String MOCKSERVER_CLUSTER_REPLICATION_PORT = "mockserver.clusterReplicationPort";
+    private static final String MOCKSERVER_CLUSTER_REPLICATION_BIND_ADDRESS = "mockserver.clusterReplicationBindAddress";
+    private static final String MOCKSERVER_CLUSTER_REPLICATION_TLS = "mockserver.clusterReplicationTLS";
+    private static final String MOCKSERVER_CLUSTER_REPLICATION_SECRET = "mockserver.clusterReplicationSecret";
+    private static final String MOCKSERVER_CLUSTER_PEERS = "mockserver.clusterPeers";
+    private static final String MOCKSERVER_CLUSTER_NODE_ID = "mockserver.clusterNodeId";
+    private static final String MOCKSERVER_CLUSTER_LOG_AGGREGATION = "mockserver.clusterLogAggregation";
+    private static final String MOCKSERVER_CLUSTER_LOG_QUERY_TIMEOUT = "mockserver.clusterLogQueryTimeout";
     private static final String MOCKSERVER_CORS_ALLOW_HEADERS = "mockserver.corsAllowHeaders";
     private static final String MOCKSERVER_CORS_ALLOW_METHODS = "mockserver.corsAllowMethods";
     private static final String MOCKSERVER_CORS_ALLOW_CREDENTIALS = "mockserver.corsAllowCredentials";
@@ -222,6 +279,8 @@ public class ConfigurationProperties {
     private static int maxInitialLineLength = readIntegerProperty(MOCKSERVER_MAX_INITIAL_LINE_LENGTH, "MOCKSERVER_MAX_INITIAL_LINE_LENGTH", DEFAULT_MAX_INITIAL_LINE_LENGTH);
     private static int maxHeaderSize = readIntegerProperty(MOCKSERVER_MAX_HEADER_SIZE, "MOCKSERVER_MAX_HEADER_SIZE", DEFAULT_MAX_HEADER_SIZE);
     private static int maxChunkSize = readIntegerProperty(MOCKSERVER_MAX_CHUNK_SIZE, "MOCKSERVER_MAX_CHUNK_SIZE", DEFAULT_MAX_CHUNK_SIZE);
+    private static int maxContentLength = readIntegerProperty(MOCKSERVER_MAX_CONTENT_LENGTH, "MOCKSERVER_MAX_CONTENT_LENGTH", DEFAULT_MAX_CONTENT_LENGTH);
+    private static int maxLogEntryBodySize = readIntegerProperty(MOCKSERVER_MAX_LOG_ENTRY_BODY_SIZE, "MOCKSERVER_MAX_LOG_ENTRY_BODY_SIZE", DEFAULT_MAX_LOG_ENTRY_BODY_SIZE);
     private static boolean preventCertificateDynamicUpdate = Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_PREVENT_CERTIFICATE_DYNAMIC_UPDATE, "MOCKSERVER_PREVENT_CERTIFICATE_DYNAMIC_UPDATE", DEFAULT_PREVENT_CERTIFICATE_DYNAMIC_UPDATE));
     private static boolean alwaysCloseConnections = Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_ALWAYS_CLOSE_SOCKET_CONNECTIONS, "MOCKSERVER_ALWAYS_CLOSE_SOCKET_CONNECTIONS", DEFAULT_MOCKSERVER_ALWAYS_CLOSE_SOCKET_CONNECTIONS));
     private static String livenessHttpGetPath = readPropertyHierarchically(MOCKSERVER_LIVENESS_HTTP_GET_PATH, "MOCKSERVER_LIVENESS_HTTP_GET_PATH", DEFAULT_LIVENESS_HTTP_GET_PATH);
@@ -251,6 +310,8 @@ public class ConfigurationProperties {
         maxInitialLineLength = readIntegerProperty(MOCKSERVER_MAX_INITIAL_LINE_LENGTH, "MOCKSERVER_MAX_INITIAL_LINE_LENGTH", DEFAULT_MAX_INITIAL_LINE_LENGTH);
         maxHeaderSize = readIntegerProperty(MOCKSERVER_MAX_HEADER_SIZE, "MOCKSERVER_MAX_HEADER_SIZE", DEFAULT_MAX_HEADER_SIZE);
         maxChunkSize = readIntegerProperty(MOCKSERVER_MAX_CHUNK_SIZE, "MOCKSERVER_MAX_CHUNK_SIZE", DEFAULT_MAX_CHUNK_SIZE);
+        maxContentLength = readIntegerProperty(MOCKSERVER_MAX_CONTENT_LENGTH, "MOCKSERVER_MAX_CONTENT_LENGTH", DEFAULT_MAX_CONTENT_LENGTH);
+        maxLogEntryBodySize = readIntegerProperty(MOCKSERVER_MAX_LOG_ENTRY_BODY_SIZE, "MOCKSERVER_MAX_LOG_ENTRY_BODY_SIZE", DEFAULT_MAX_LOG_ENTRY_BODY_SIZE);
         preventCertificateDynamicUpdate = Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_PREVENT_CERTIFICATE_DYNAMIC_UPDATE, "MOCKSERVER_PREVENT_CERTIFICATE_DYNAMIC_UPDATE", DEFAULT_PREVENT_CERTIFICATE_DYNAMIC_UPDATE));
         alwaysCloseConnections = Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_ALWAYS_CLOSE_SOCKET_CONNECTIONS, "MOCKSERVER_ALWAYS_CLOSE_SOCKET_CONNECTIONS", DEFAULT_MOCKSERVER_ALWAYS_CLOSE_SOCKET_CONNECTIONS));
         livenessHttpGetPath = readPropertyHierarchically(MOCKSERVER_LIVENESS_HTTP_GET_PATH, "MOCKSERVER_LIVENESS_HTTP_GET_PATH", DEFAULT_LIVENESS_HTTP_GET_PATH);
@@ -323,6 +384,34 @@ public class ConfigurationProperties {
         System.setProperty(MOCKSERVER_MEMORY_USAGE_DIRECTORY, directory);
     }
 
+    public static boolean memoryMappedLogEntries() {
+        return Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_MEMORY_MAPPED_LOG_ENTRIES, "MOCKSERVER_MEMORY_MAPPED_LOG_ENTRIES", DEFAULT_MEMORY_MAPPED_LOG_ENTRIES));
+    }
+
+    /**
+     * Store the requests, responses and expectations of each log entry in memory mapped files instead of on the heap,
+     * so many more log entries can be retained, this must be set before MockServer is started
+     *
+     * @param enable memory map log entries
+     */
+    public static void memoryMappedLogEntries(boolean enable) {
+        System.setProperty(MOCKSERVER_MEMORY_MAPPED_LOG_ENTRIES, "" + enable);
+    }
+
+    public static String memoryMappedLogEntriesDirectory() {
+        return readPropertyHierarchically(MOCKSERVER_MEMORY_MAPPED_LOG_ENTRIES_DIRECTORY, "MOCKSERVER_MEMORY_MAPPED_LOG_ENTRIES_DIRECTORY", System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Directory used for the memory mapped files that log entries are stored in when memoryMappedLogEntries is enabled
+     *
+     * @param directory directory for memory mapped log entry files
+     */
+    public static void memoryMappedLogEntriesDirectory(String directory) {
+        fileExists(directory);
+        System.setProperty(MOCKSERVER_MEMORY_MAPPED_LOG_ENTRIES_DIRECTORY, directory);
+    }
+
     public static int maxWebSocketExpectations() {
         return readIntegerProperty(MOCKSERVER_MAX_WEB_SOCKET_EXPECTATIONS, "MOCKSERVER_MAX_WEB_SOCKET_EXPECTATIONS", DEFAULT_MAX_WEB_SOCKET_EXPECTATIONS);
     }
@@ -358,6 +447,36 @@ public class ConfigurationProperties {
         maxChunkSize = readIntegerProperty(MOCKSERVER_MAX_CHUNK_SIZE, "MOCKSERVER_MAX_CHUNK_SIZE", DEFAULT_MAX_CHUNK_SIZE);
     }
 
+    public static int maxContentLength() {
+        return maxContentLength;
+    }
+
+    /**
+     * Maximum size of request or response bodies that are aggregated in memory, larger requests are rejected with 413 Request Entity Too Large,
+     * forwarded and proxied requests and their responses are aggregated, only HTTPS traffic relayed for CONNECT requests is streamed
+     *
+     * @param length maximum body size in bytes
+     */
+    public static void maxContentLength(int length) {
+        System.setProperty(MOCKSERVER_MAX_CONTENT_LENGTH, "" + length);
+        maxContentLength = readIntegerProperty(MOCKSERVER_MAX_CONTENT_LENGTH, "MOCKSERVER_MAX_CONTENT_LENGTH", DEFAULT_MAX_CONTENT_LENGTH);
+    }
+
+    public static int maxLogEntryBodySize() {
+        return maxLogEntryBodySize;
+    }
+
+    /**
+     * Maximum number of bytes of each request or response body retained in the event log, larger bodies are truncated to this prefix, text on a character boundary,
+     * so only the prefix is available when retrieving or verifying requests
+     *
+     * @param size maximum body size in bytes
+     */
+    public static void maxLogEntryBodySize(int size) {
+        System.setProperty(MOCKSERVER_MAX_LOG_ENTRY_BODY_SIZE, "" + size);
+        maxLogEntryBodySize = readIntegerProperty(MOCKSERVER_MAX_LOG_ENTRY_BODY_SIZE, "MOCKSERVER_MAX_LOG_ENTRY_BODY_SIZE", DEFAULT_MAX_LOG_ENTRY_BODY_SIZE);
+    }
+
     public static int nioEventLoopThreadCount() {
         return readIntegerProperty(MOCKSERVER_NIO_EVENT_LOOP_THREAD_COUNT, "MOCKSERVER_NIO_EVENT_LOOP_THREAD_COUNT", DEFAULT_NIO_EVENT_LOOP_THREAD_COUNT);
     }
@@ -374,6 +493,37 @@ public class ConfigurationProperties {
         System.setProperty(MOCKSERVER_ACTION_HANDLER_THREAD_COUNT, "" + count);
     }
 
+    public static long delayTimerTickDuration() {
+        return readLongProperty(MOCKSERVER_DELAY_TIMER_TICK_DURATION, "MOCKSERVER_DELAY_TIMER_TICK_DURATION", 5L);
+    }
+
+    /**
+     * Duration in milliseconds of each tick of the timing wheel used to schedule delayed actions, a delay may be up to
+     * one tick longer than requested, a shorter tick is more accurate but wakes the timer thread more often
+     *
+     * @param tickDuration duration in milliseconds of each tick
+     */
+    public static void delayTimerTickDuration(long tickDuration) {
+        System.setProperty(MOCKSERVER_DELAY_TIMER_TICK_DURATION, "" + tickDuration);
+    }
+
+    public static boolean actionHandlerVirtualThreads() {
+        return Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_ACTION_HANDLER_VIRTUAL_THREADS, "MOCKSERVER_ACTION_HANDLER_VIRTUAL_THREADS", "" + false));
+    }
+
+    /**
+     * Run actions that may block, such as class callbacks and templates, on a new virtual thread for each action instead
+     * of the pool of actionHandlerThreadCount platform threads, so slow callbacks don't exhaust the pool, requires a JVM
+     * that supports virtual threads (i.e. java 21 or later) otherwise the pool of platform threads is used
+     * <p>
+     * The default is false
+     *
+     * @param enable run blocking actions on virtual threads
+     */
+    public static void actionHandlerVirtualThreads(boolean enable) {
+        System.setProperty(MOCKSERVER_ACTION_HANDLER_VIRTUAL_THREADS, "" + enable);
+    }
+
     public static int webSocketClientEventLoopThreadCount() {
         return readIntegerProperty(MOCKSERVER_WEB_SOCKET_CLIENT_EVENT_LOOP_THREAD_COUNT, "MOCKSERVER_WEB_SOCKET_CLIENT_EVENT_LOOP_THREAD_COUNT", DEFAULT_WEB_SOCKET_CLIENT_EVENT_LOOP_THREAD_COUNT);
     }
@@ -382,6 +532,112 @@ public class ConfigurationProperties {
         System.setProperty(MOCKSERVER_WEB_SOCKET_CLIENT_EVENT_LOOP_THREAD_COUNT, "" + count);
     }
 
+    public static int controlPlaneThreadCount() {
+        return readIntegerProperty(MOCKSERVER_CONTROL_PLANE_THREAD_COUNT, "MOCKSERVER_CONTROL_PLANE_THREAD_COUNT", DEFAULT_CONTROL_PLANE_THREAD_COUNT);
+    }
+
+    /**
+     * Number of threads used to handle clear, retrieve and verify requests so they don't block the threads handling mocked requests
+     *
+     * @param count number of threads
+     */
+    public static void controlPlaneThreadCount(int count) {
+        System.setProperty(MOCKSERVER_CONTROL_PLANE_THREAD_COUNT, "" + count);
+    }
+
+    public static int controlPlaneQueueSize() {
+        return readIntegerProperty(MOCKSERVER_CONTROL_PLANE_QUEUE_SIZE, "MOCKSERVER_CONTROL_PLANE_QUEUE_SIZE", DEFAULT_CONTROL_PLANE_QUEUE_SIZE);
+    }
+
+    /**
+     * Maximum number of clear, retrieve and verify requests waiting for a control plane thread or for their event log query to complete,
+     * in addition to those being handled by a control plane thread, further requests are rejected with 429 Too Many Requests, this is
+     * also the maximum number of event log queries waiting for an event log query thread
+     *
+     * @param size maximum number of waiting requests
+     */
+    public static void controlPlaneQueueSize(int size) {
+        System.setProperty(MOCKSERVER_CONTROL_PLANE_QUEUE_SIZE, "" + size);
+    }
+
+    public static boolean nativeTransportEnabled() {
+        return Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_NATIVE_TRANSPORT_ENABLED, "MOCKSERVER_NATIVE_TRANSPORT_ENABLED", DEFAULT_NATIVE_TRANSPORT_ENABLED));
+    }
+
+    /**
+     * Use the native epoll transport, when available on Linux, instead of the NIO transport
+     *
+     * @param enable use the native epoll transport when available
+     */
+    public static void nativeTransportEnabled(boolean enable) {
+        System.setProperty(MOCKSERVER_NATIVE_TRANSPORT_ENABLED, "" + enable);
+    }
+
+    public static int acceptorThreadCount() {
+        return readIntegerProperty(MOCKSERVER_ACCEPTOR_THREAD_COUNT, "MOCKSERVER_ACCEPTOR_THREAD_COUNT", DEFAULT_ACCEPTOR_THREAD_COUNT);
+    }
+
+    /**
+     * Number of sockets, each with its own thread, accepting connections for each port using SO_REUSEPORT, only supported by the native epoll transport
+     *
+     * @param count number of acceptor threads per port
+     */
+    public static void acceptorThreadCount(int count) {
+        System.setProperty(MOCKSERVER_ACCEPTOR_THREAD_COUNT, "" + count);
+    }
+
+    public static boolean socketTcpNoDelay() {
+        return Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_SOCKET_TCP_NO_DELAY, "MOCKSERVER_SOCKET_TCP_NO_DELAY", DEFAULT_SOCKET_TCP_NO_DELAY));
+    }
+
+    /**
+     * Disable Nagle's algorithm (TCP_NODELAY) for accepted and outbound connections
+     *
+     * @param enable disable Nagle's algorithm
+     */
+    public static void socketTcpNoDelay(boolean enable) {
+        System.setProperty(MOCKSERVER_SOCKET_TCP_NO_DELAY, "" + enable);
+    }
+
+    public static int socketTcpFastOpen() {
+        return readIntegerProperty(MOCKSERVER_SOCKET_TCP_FAST_OPEN, "MOCKSERVER_SOCKET_TCP_FAST_OPEN", DEFAULT_SOCKET_TCP_FAST_OPEN);
+    }
+
+    /**
+     * Maximum number of pending TCP Fast Open (TCP_FASTOPEN) connections for each port, 0 disables TCP Fast Open, only supported by the native epoll transport
+     *
+     * @param queueLength maximum number of pending TCP Fast Open connections
+     */
+    public static void socketTcpFastOpen(int queueLength) {
+        System.setProperty(MOCKSERVER_SOCKET_TCP_FAST_OPEN, "" + queueLength);
+    }
+
+    public static int socketReceiveBufferSize() {
+        return readIntegerProperty(MOCKSERVER_SOCKET_RECEIVE_BUFFER_SIZE, "MOCKSERVER_SOCKET_RECEIVE_BUFFER_SIZE", DEFAULT_SOCKET_RECEIVE_BUFFER_SIZE);
+    }
+
+    /**
+     * Socket receive buffer size (SO_RCVBUF) for accepted and outbound connections, 0 uses the operating system default
+     *
+     * @param size receive buffer size in bytes
+     */
+    public static void socketReceiveBufferSize(int size) {
+        System.setProperty(MOCKSERVER_SOCKET_RECEIVE_BUFFER_SIZE, "" + size);
+    }
+
+    public static int socketSendBufferSize() {
+        return readIntegerProperty(MOCKSERVER_SOCKET_SEND_BUFFER_SIZE, "MOCKSERVER_SOCKET_SEND_BUFFER_SIZE", DEFAULT_SOCKET_SEND_BUFFER_SIZE);
+    }
+
+    /**
+     * Socket send buffer size (SO_SNDBUF) for accepted and outbound connections, 0 uses the operating system default
+     *
+     * @param size send buffer size in bytes
+     */
+    public static void socketSendBufferSize(int size) {
+        System.setProperty(MOCKSERVER_SOCKET_SEND_BUFFER_SIZE, "" + size);
+    }
+
     public static long maxSocketTimeout() {
         return readLongProperty(MOCKSERVER_MAX_SOCKET_TIMEOUT, "MOCKSERVER_MAX_SOCKET_TIMEOUT", TimeUnit.SECONDS.toMillis(DEFAULT_MAX_TIMEOUT));
     }
@@ -406,6 +662,32 @@ public class ConfigurationProperties {
         System.setProperty(MOCKSERVER_SOCKET_CONNECTION_TIMEOUT, "" + milliseconds);
     }
 
+    public static int forwardConnectionPoolMaxConnections() {
+        return readIntegerProperty(MOCKSERVER_FORWARD_CONNECTION_POOL_MAX_CONNECTIONS, "MOCKSERVER_FORWARD_CONNECTION_POOL_MAX_CONNECTIONS", DEFAULT_FORWARD_CONNECTION_POOL_MAX_CONNECTIONS);
+    }
+
+    /**
+     * Maximum number of connections kept open to each remote address for forwarded and proxied requests, set to 0 to open a new connection for every request
+     *
+     * @param maxConnections maximum number of connections per remote address
+     */
+    public static void forwardConnectionPoolMaxConnections(int maxConnections) {
+        System.setProperty(MOCKSERVER_FORWARD_CONNECTION_POOL_MAX_CONNECTIONS, "" + maxConnections);
+    }
+
+    public static long forwardConnectionPoolIdleTimeout() {
+        return readLongProperty(MOCKSERVER_FORWARD_CONNECTION_POOL_IDLE_TIMEOUT, "MOCKSERVER_FORWARD_CONNECTION_POOL_IDLE_TIMEOUT", DEFAULT_FORWARD_CONNECTION_POOL_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Time after which an unused pooled connection for forwarded and proxied requests is closed
+     *
+     * @param milliseconds idle timeout in milliseconds
+     */
+    public static void forwardConnectionPoolIdleTimeout(long milliseconds) {
+        System.setProperty(MOCKSERVER_FORWARD_CONNECTION_POOL_IDLE_TIMEOUT, "" + milliseconds);
+    }
+
     public static void alwaysCloseSocketConnections(boolean alwaysClose) {
         System.setProperty(MOCKSERVER_ALWAYS_CLOSE_SOCKET_CONNECTIONS, "" + alwaysClose);
         alwaysCloseConnections = Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_ALWAYS_CLOSE_SOCKET_CONNECTIONS, "MOCKSERVER_ALWAYS_CLOSE_SOCKET_CONNECTIONS", DEFAULT_MOCKSERVER_ALWAYS_CLOSE_SOCKET_CONNECTIONS));
@@ -543,6 +825,126 @@ public class ConfigurationProperties {
         return preventCertificateDynamicUpdate;
     }
 
+    /**
+     * Generate a separate X.509 Certificate, signed by the Certificate Authority, for each hostname received via SNI instead of
+     * adding each hostname to the Subject Alternative Names of a single certificate, which is regenerated for every new hostname
+     *
+     * @param enable generate a separate certificate for each SNI hostname
+     */
+    public static void tlsHostnameCertificates(boolean enable) {
+        System.setProperty(MOCKSERVER_TLS_HOSTNAME_CERTIFICATES, "" + enable);
+    }
+
+    public static boolean tlsHostnameCertificates() {
+        return Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_TLS_HOSTNAME_CERTIFICATES, "MOCKSERVER_TLS_HOSTNAME_CERTIFICATES", DEFAULT_TLS_HOSTNAME_CERTIFICATES));
+    }
+
+    public static int tlsHostnameCertificateCacheSize() {
+        return readIntegerProperty(MOCKSERVER_TLS_HOSTNAME_CERTIFICATE_CACHE_SIZE, "MOCKSERVER_TLS_HOSTNAME_CERTIFICATE_CACHE_SIZE", DEFAULT_TLS_HOSTNAME_CERTIFICATE_CACHE_SIZE);
+    }
+
+    /**
+     * Maximum number of per hostname TLS contexts kept, the least recently used are discarded and regenerated when the hostname is next seen
+     *
+     * @param size maximum number of cached per hostname TLS contexts
+     */
+    public static void tlsHostnameCertificateCacheSize(int size) {
+        System.setProperty(MOCKSERVER_TLS_HOSTNAME_CERTIFICATE_CACHE_SIZE, "" + size);
+    }
+
+    public static String tlsKeyPairAlgorithm() {
+        return readPropertyHierarchically(MOCKSERVER_TLS_KEY_PAIR_ALGORITHM, "MOCKSERVER_TLS_KEY_PAIR_ALGORITHM", DEFAULT_TLS_KEY_PAIR_ALGORITHM);
+    }
+
+    /**
+     * Algorithm of the key pairs for per hostname certificates, either RSA (2048 bit) or EC (P-256), EC keys are much cheaper to generate and sign with
+     *
+     * @param algorithm key pair algorithm RSA or EC
+     */
+    public static void tlsKeyPairAlgorithm(String algorithm) {
+        System.setProperty(MOCKSERVER_TLS_KEY_PAIR_ALGORITHM, algorithm);
+    }
+
+    public static int tlsKeyPairPoolSize() {
+        return readIntegerProperty(MOCKSERVER_TLS_KEY_PAIR_POOL_SIZE, "MOCKSERVER_TLS_KEY_PAIR_POOL_SIZE", DEFAULT_TLS_KEY_PAIR_POOL_SIZE);
+    }
+
+    /**
+     * Number of key pairs for per hostname certificates generated in the background before they are needed, 0 generates each key pair when the hostname is first seen
+     *
+     * @param size number of pre-generated key pairs
+     */
+    public static void tlsKeyPairPoolSize(int size) {
+        System.setProperty(MOCKSERVER_TLS_KEY_PAIR_POOL_SIZE, "" + size);
+    }
+
+    public static int tlsSessionCacheSize() {
+        return readIntegerProperty(MOCKSERVER_TLS_SESSION_CACHE_SIZE, "MOCKSERVER_TLS_SESSION_CACHE_SIZE", DEFAULT_TLS_SESSION_CACHE_SIZE);
+    }
+
+    /**
+     * Maximum number of TLS sessions cached for resumption by the server and client TLS contexts, 0 uses the TLS provider's default
+     *
+     * @param size maximum number of cached TLS sessions
+     */
+    public static void tlsSessionCacheSize(int size) {
+        System.setProperty(MOCKSERVER_TLS_SESSION_CACHE_SIZE, "" + size);
+    }
+
+    public static long tlsSessionTimeout() {
+        return readLongProperty(MOCKSERVER_TLS_SESSION_TIMEOUT, "MOCKSERVER_TLS_SESSION_TIMEOUT", DEFAULT_TLS_SESSION_TIMEOUT);
+    }
+
+    /**
+     * Time after which cached TLS sessions can no longer be resumed, 0 uses the TLS provider's default
+     *
+     * @param seconds TLS session timeout in seconds
+     */
+    public static void tlsSessionTimeout(long seconds) {
+        System.setProperty(MOCKSERVER_TLS_SESSION_TIMEOUT, "" + seconds);
+    }
+
+    public static boolean tlsSessionTickets() {
+        return Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_TLS_SESSION_TICKETS, "MOCKSERVER_TLS_SESSION_TICKETS", DEFAULT_TLS_SESSION_TICKETS));
+    }
+
+    /**
+     * Resume TLS sessions using session tickets (RFC 5077) held by the client instead of only the server's session cache,
+     * the JDK TLS provider reads this once when TLS is first used so it must be set before MockServer starts
+     *
+     * @param enable enable TLS session tickets
+     */
+    public static void tlsSessionTickets(boolean enable) {
+        System.setProperty(MOCKSERVER_TLS_SESSION_TICKETS, "" + enable);
+    }
+
+    public static String tlsProvider() {
+        return readPropertyHierarchically(MOCKSERVER_TLS_PROVIDER, "MOCKSERVER_TLS_PROVIDER", DEFAULT_TLS_PROVIDER);
+    }
+
+    /**
+     * TLS provider used for server and client TLS contexts, either JDK or OPENSSL, OPENSSL requires netty-tcnative (OpenSSL or BoringSSL)
+     * on the classpath otherwise JDK is used
+     *
+     * @param provider TLS provider JDK or OPENSSL
+     */
+    public static void tlsProvider(String provider) {
+        System.setProperty(MOCKSERVER_TLS_PROVIDER, provider);
+    }
+
+    public static boolean tlsAlpnEnabled() {
+        return Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_TLS_ALPN_ENABLED, "MOCKSERVER_TLS_ALPN_ENABLED", DEFAULT_TLS_ALPN_ENABLED));
+    }
+
+    /**
+     * Advertise the supported application protocols (currently only http/1.1) using ALPN during TLS handshakes, requires Java 8u252+ or OPENSSL
+     *
+     * @param enable advertise application protocols using ALPN
+     */
+    public static void tlsAlpnEnabled(boolean enable) {
+        System.setProperty(MOCKSERVER_TLS_ALPN_ENABLED, "" + enable);
+    }
+
     public static String certificateAuthorityPrivateKey() {
         return readPropertyHierarchically(MOCKSERVER_CERTIFICATE_AUTHORITY_PRIVATE_KEY, "MOCKSERVER_CERTIFICATE_AUTHORITY_PRIVATE_KEY", DEFAULT_CERTIFICATE_AUTHORITY_PRIVATE_KEY);
     }
@@ -1023,6 +1425,146 @@ public class ConfigurationProperties {
         System.setProperty(MOCKSERVER_PERSISTED_EXPECTATIONS_PATH, persistedExpectationsPath);
     }
 
+    public static boolean persistedExpectationsJournal() {
+        return Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_PERSISTED_EXPECTATIONS_JOURNAL, "MOCKSERVER_PERSISTED_EXPECTATIONS_JOURNAL", "" + false));
+    }
+
+    /**
+     * Persist changes to expectations by appending them to a journal file (persistedExpectationsPath + ".journal") which is periodically
+     * compacted into the persisted expectations file, instead of re-writing every expectation for each change
+     *
+     * @param enable enable persisting expectations using a journal
+     */
+    public static void persistedExpectationsJournal(boolean enable) {
+        System.setProperty(MOCKSERVER_PERSISTED_EXPECTATIONS_JOURNAL, "" + enable);
+    }
+
+    public static long persistedExpectationsFlushInterval() {
+        return readLongProperty(MOCKSERVER_PERSISTED_EXPECTATIONS_FLUSH_INTERVAL, "MOCKSERVER_PERSISTED_EXPECTATIONS_FLUSH_INTERVAL", 1000L);
+    }
+
+    /**
+     * Interval in milliseconds over which changes to expectations are coalesced before being appended to the journal when persistedExpectationsJournal is enabled
+     *
+     * @param flushInterval interval in milliseconds
+     */
+    public static void persistedExpectationsFlushInterval(long flushInterval) {
+        System.setProperty(MOCKSERVER_PERSISTED_EXPECTATIONS_FLUSH_INTERVAL, "" + flushInterval);
+    }
+
+    public static int clusterReplicationPort() {
+        return readIntegerProperty(MOCKSERVER_CLUSTER_REPLICATION_PORT, "MOCKSERVER_CLUSTER_REPLICATION_PORT", 0);
+    }
+
+    /**
+     * Port this instance listens on for expectation replication connections from the other instances in the cluster,
+     * replication is disabled when the port is 0
+     *
+     * @param port port for expectation replication connections
+     */
+    public static void clusterReplicationPort(int port) {
+        System.setProperty(MOCKSERVER_CLUSTER_REPLICATION_PORT, "" + port);
+    }
+
+    public static String clusterReplicationBindAddress() {
+        return readPropertyHierarchically(MOCKSERVER_CLUSTER_REPLICATION_BIND_ADDRESS, "MOCKSERVER_CLUSTER_REPLICATION_BIND_ADDRESS", "127.0.0.1");
+    }
+
+    /**
+     * Address the expectation replication port is bound to, the default is the loopback address, the port is only bound
+     * to another address if clusterReplicationSecret is set or clusterReplicationTLS and tlsMutualAuthenticationRequired
+     * are enabled
+     *
+     * @param bindAddress address for expectation replication connections
+     */
+    public static void clusterReplicationBindAddress(String bindAddress) {
+        System.setProperty(MOCKSERVER_CLUSTER_REPLICATION_BIND_ADDRESS, bindAddress);
+    }
+
+    public static boolean clusterReplicationTLS() {
+        return Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_CLUSTER_REPLICATION_TLS, "MOCKSERVER_CLUSTER_REPLICATION_TLS", "" + false));
+    }
+
+    /**
+     * Use TLS for expectation replication connections, with the same certificates as the MockServer port, when
+     * tlsMutualAuthenticationRequired is enabled each instance must also present a certificate trusted by the other instances
+     *
+     * @param enable use TLS for expectation replication connections
+     */
+    public static void clusterReplicationTLS(boolean enable) {
+        System.setProperty(MOCKSERVER_CLUSTER_REPLICATION_TLS, "" + enable);
+    }
+
+    public static String clusterReplicationSecret() {
+        return readPropertyHierarchically(MOCKSERVER_CLUSTER_REPLICATION_SECRET, "MOCKSERVER_CLUSTER_REPLICATION_SECRET", "");
+    }
+
+    /**
+     * Secret shared by every instance in the cluster, when set each expectation replication connection is authenticated
+     * by both instances proving they know the secret and records from unauthenticated connections are rejected
+     *
+     * @param secret secret shared by every instance in the cluster
+     */
+    public static void clusterReplicationSecret(String secret) {
+        System.setProperty(MOCKSERVER_CLUSTER_REPLICATION_SECRET, secret);
+    }
+
+    public static String clusterPeers() {
+        return readPropertyHierarchically(MOCKSERVER_CLUSTER_PEERS, "MOCKSERVER_CLUSTER_PEERS", "");
+    }
+
+    /**
+     * Comma separated list of host:port replication addresses of the other instances in the cluster, this instance
+     * connects to each of them and reconnects whenever a connection is lost
+     *
+     * @param peers comma separated list of host:port
+     */
+    public static void clusterPeers(String peers) {
+        System.setProperty(MOCKSERVER_CLUSTER_PEERS, peers);
+    }
+
+    public static String clusterNodeId() {
+        return readPropertyHierarchically(MOCKSERVER_CLUSTER_NODE_ID, "MOCKSERVER_CLUSTER_NODE_ID", "");
+    }
+
+    /**
+     * Unique id of this instance in the cluster, used in the version of each replicated expectation, if not set a
+     * random id is used
+     *
+     * @param nodeId unique id of this instance
+     */
+    public static void clusterNodeId(String nodeId) {
+        System.setProperty(MOCKSERVER_CLUSTER_NODE_ID, nodeId);
+    }
+
+    public static boolean clusterLogAggregation() {
+        return Boolean.parseBoolean(readPropertyHierarchically(MOCKSERVER_CLUSTER_LOG_AGGREGATION, "MOCKSERVER_CLUSTER_LOG_AGGREGATION", "" + true));
+    }
+
+    /**
+     * Include the event logs of the other instances in the cluster, queried over the replication connections, when
+     * retrieving requests, requests and responses or verifying requests
+     *
+     * @param enable include the event logs of the other instances in the cluster
+     */
+    public static void clusterLogAggregation(boolean enable) {
+        System.setProperty(MOCKSERVER_CLUSTER_LOG_AGGREGATION, "" + enable);
+    }
+
+    public static long clusterLogQueryTimeout() {
+        return readLongProperty(MOCKSERVER_CLUSTER_LOG_QUERY_TIMEOUT, "MOCKSERVER_CLUSTER_LOG_QUERY_TIMEOUT", 2000L);
+    }
+
+    /**
+     * Maximum time in milliseconds to wait for the other instances in the cluster to return their matching log entries,
+     * after which retrieved requests only include the log entries already returned and verification fails
+     *
+     * @param timeout timeout in milliseconds
+     */
+    public static void clusterLogQueryTimeout(long timeout) {
+        System.setProperty(MOCKSERVER_CLUSTER_LOG_QUERY_TIMEOUT, "" + timeout);
+    }
+
     public static boolean enableCORSForAPI() {
         return enableCORSForAPI;
     }
@@ -0,0 +1,89 @@
+package org.mockserver.log;
+
+import org.mockserver.collections.CircularConcurrentLinkedDeque;
+import org.mockserver.collections.SnapshotLog;
+import org.mockserver.log.model.LogEntry;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Keeps every log entry, including requests and responses, on the heap
+ *
+ * @author jamesdbloom
+ */
+public class InMemoryLogEntryStore implements LogEntryStore {
+
+    private final CircularConcurrentLinkedDeque<LogEntry> eventLog;
+    private final SnapshotLog<LogEntry> snapshotLog = new SnapshotLog<>();
+
+    public InMemoryLogEntryStore(int maxSize, Consumer<LogEntry> onRemoveCallback) {
+        // entries aren't cleared when removed because they may still be read from a snapshot
+        this.eventLog = new CircularConcurrentLinkedDeque<>(maxSize, logEntry -> {
+            snapshotLog.remove(logEntry);
+            if (onRemoveCallback != null) {
+                onRemoveCallback.accept(logEntry);
+            }
+        });
+    }
+
+    @Override
+    public boolean add(LogEntry logEntry) {
+        if (eventLog.add(logEntry)) {
+            snapshotLog.add(logEntry);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public void markDeleted(LogEntry logEntry) {
+        logEntry.setDeleted(true);
+    }
+
+    @Override
+    public void remove(LogEntry logEntry) {
+        eventLog.removeItem(logEntry);
+    }
+
+    @Override
+    public void clear() {
+        eventLog.clear();
+        snapshotLog.clear();
+    }
+
+    @Override
+    public int size() {
+        return eventLog.size();
+    }
+
+    @Override
+    public void setMaxSize(int maxSize) {
+        eventLog.setMaxSize(maxSize);
+    }
+
+    @Override
+    public Iterator<LogEntry> iterator() {
+        return eventLog.iterator();
+    }
+
+    @Override
+    public Iterator<LogEntry> descendingIterator() {
+        return eventLog.descendingIterator();
+    }
+
+    @Override
+    public List<LogEntry> snapshot(Set<String> ids) {
+        List<LogEntry> snapshot = snapshotLog.snapshot();
+        return ids != null ? SnapshotLog.filter(snapshot, logEntry -> ids.contains(logEntry.id())) : snapshot;
+    }
+
+    @Override
+    public Stream<LogEntry> stream() {
+        return eventLog.stream();
+    }
+}
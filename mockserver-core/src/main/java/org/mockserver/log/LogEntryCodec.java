@@ -0,0 +1,656 @@
+package org.mockserver.log;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mockserver.log.model.LogEntry;
+import org.mockserver.matchers.MatchType;
+import org.mockserver.mock.Expectation;
+import org.mockserver.model.*;
+import org.mockserver.serialization.ObjectMapperFactory;
+import org.mockserver.serialization.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockserver.model.MediaType.DEFAULT_HTTP_CHARACTER_SET;
+import static org.mockserver.model.NottableString.string;
+
+/**
+ * Binary encoding of the requests, responses, expectations and arguments of a log entry stored in a memory mapped file
+ * <p>
+ * The payload starts with the length of each section (requests, response, expectation and details) so each section can be
+ * decoded independently when it is first read.  Requests and responses are written field by field, only requests and
+ * responses using not, optional, schema or parameter style matching, unusual bodies, delays or connection options and
+ * expectations are written as json, arguments that can't be encoded are left on the heap.
+ *
+ * @author jamesdbloom
+ */
+class LogEntryCodec {
+
+    static final int REQUESTS = 0;
+    static final int RESPONSE = 1;
+    static final int EXPECTATION = 2;
+    static final int DETAILS = 3;
+    private static final int SECTIONS = 4;
+    private static final int SECTION_LENGTHS_SIZE = SECTIONS * Integer.BYTES;
+
+    private static final byte BINARY = 0;
+    private static final byte JSON = 1;
+
+    private static final byte NO_BODY = 0;
+    private static final byte STRING_BODY = 1;
+    private static final byte JSON_BODY = 2;
+    private static final byte XML_BODY = 3;
+    private static final byte BINARY_BODY = 4;
+    private static final byte LOG_ENTRY_JSON_BODY = 5;
+    private static final byte LOG_ENTRY_STRING_BODY = 6;
+
+    private static final byte HEAP_ARGUMENT = 0;
+    private static final byte STRING_ARGUMENT = 1;
+    private static final byte REQUEST_ARGUMENT = 2;
+    private static final byte RESPONSE_ARGUMENT = 3;
+    private static final byte EXPECTATION_ARGUMENT = 4;
+    private static final byte INTEGER_ARGUMENT = 5;
+    private static final byte LONG_ARGUMENT = 6;
+    private static final byte BOOLEAN_ARGUMENT = 7;
+
+    private static final MatchType[] MATCH_TYPES = MatchType.values();
+    private static final SocketAddress.Scheme[] SCHEMES = SocketAddress.Scheme.values();
+
+    private final ObjectMapper objectMapper = ObjectMapperFactory.createObjectMapper();
+
+    /**
+     * Encodes the payload of the log entry, any argument that can't be encoded is added to heapArguments, at the same index
+     *
+     * @return the payload or null if the log entry has no payload
+     */
+    byte[] encode(LogEntry logEntry, Object[] heapArguments) throws IOException {
+        byte[][] sections = new byte[SECTIONS][];
+        RequestDefinition[] httpRequests = logEntry.getHttpRequests();
+        if (httpRequests.length > 0) {
+            sections[REQUESTS] = write(out -> {
+                out.writeInt(httpRequests.length);
+                for (RequestDefinition httpRequest : httpRequests) {
+                    writeRequestDefinition(out, httpRequest);
+                }
+            });
+        }
+        if (logEntry.getHttpResponse() != null) {
+            sections[RESPONSE] = write(out -> writeHttpResponse(out, logEntry.getHttpResponse()));
+        }
+        if (logEntry.getExpectation() != null) {
+            sections[EXPECTATION] = objectMapper.writeValueAsBytes(new ExpectationDTO(logEntry.getExpectation()));
+        }
+        sections[DETAILS] = write(out -> {
+            writeNullableInteger(out, logEntry.getPort());
+            writeNullableString(out, logEntry.getBecause());
+            writeNullableBytes(out, logEntry.getHttpError() != null ? objectMapper.writeValueAsBytes(new HttpErrorDTO(logEntry.getHttpError())) : null);
+            writeArguments(out, logEntry.getArguments(), heapArguments);
+        });
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(payload);
+        for (byte[] section : sections) {
+            out.writeInt(section != null ? section.length : 0);
+        }
+        for (byte[] section : sections) {
+            if (section != null) {
+                out.write(section);
+            }
+        }
+        return payload.toByteArray();
+    }
+
+    RequestDefinition[] decodeRequests(byte[] payload) throws IOException {
+        DataInputStream in = section(payload, REQUESTS);
+        if (in == null) {
+            return null;
+        }
+        RequestDefinition[] httpRequests = new RequestDefinition[in.readInt()];
+        for (int i = 0; i < httpRequests.length; i++) {
+            httpRequests[i] = readRequestDefinition(in);
+        }
+        return httpRequests;
+    }
+
+    HttpResponse decodeResponse(byte[] payload) throws IOException {
+        DataInputStream in = section(payload, RESPONSE);
+        return in != null ? readHttpResponse(in) : null;
+    }
+
+    Expectation decodeExpectation(byte[] payload) throws IOException {
+        int length = sectionLength(payload, EXPECTATION);
+        return length > 0 ? objectMapper.readValue(payload, sectionStart(payload, EXPECTATION), length, ExpectationDTO.class).buildObject() : null;
+    }
+
+    Details decodeDetails(byte[] payload, Object[] heapArguments) throws IOException {
+        DataInputStream in = section(payload, DETAILS);
+        Details details = new Details();
+        details.port = readNullableInteger(in);
+        details.because = readNullableString(in);
+        byte[] httpError = readNullableBytes(in);
+        if (httpError != null) {
+            details.httpError = objectMapper.readValue(httpError, HttpErrorDTO.class).buildObject();
+        }
+        details.arguments = readArguments(in, heapArguments);
+        return details;
+    }
+
+    static class Details {
+        Integer port;
+        String because;
+        HttpError httpError;
+        Object[] arguments;
+    }
+
+    private int sectionLength(byte[] payload, int section) {
+        int position = section * Integer.BYTES;
+        return ((payload[position] & 0xFF) << 24) | ((payload[position + 1] & 0xFF) << 16) | ((payload[position + 2] & 0xFF) << 8) | (payload[position + 3] & 0xFF);
+    }
+
+    private int sectionStart(byte[] payload, int section) {
+        int start = SECTION_LENGTHS_SIZE;
+        for (int i = 0; i < section; i++) {
+            start += sectionLength(payload, i);
+        }
+        return start;
+    }
+
+    private DataInputStream section(byte[] payload, int section) {
+        int length = sectionLength(payload, section);
+        return length > 0 ? new DataInputStream(new ByteArrayInputStream(payload, sectionStart(payload, section), length)) : null;
+    }
+
+    private interface SectionWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private byte[] write(SectionWriter sectionWriter) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sectionWriter.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    // arguments
+
+    private void writeArguments(DataOutputStream out, Object[] arguments, Object[] heapArguments) throws IOException {
+        if (arguments == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(arguments.length);
+        for (int i = 0; i < arguments.length; i++) {
+            Object argument = arguments[i];
+            if (argument instanceof String) {
+                out.writeByte(STRING_ARGUMENT);
+                writeString(out, (String) argument);
+            } else if (argument instanceof RequestDefinition) {
+                out.writeByte(REQUEST_ARGUMENT);
+                writeRequestDefinition(out, (RequestDefinition) argument);
+            } else if (argument instanceof HttpResponse) {
+                out.writeByte(RESPONSE_ARGUMENT);
+                writeHttpResponse(out, (HttpResponse) argument);
+            } else if (argument instanceof Expectation) {
+                out.writeByte(EXPECTATION_ARGUMENT);
+                writeBytes(out, objectMapper.writeValueAsBytes(new ExpectationDTO((Expectation) argument)));
+            } else if (argument instanceof Integer) {
+                out.writeByte(INTEGER_ARGUMENT);
+                out.writeInt((Integer) argument);
+            } else if (argument instanceof Long) {
+                out.writeByte(LONG_ARGUMENT);
+                out.writeLong((Long) argument);
+            } else if (argument instanceof Boolean) {
+                out.writeByte(BOOLEAN_ARGUMENT);
+                out.writeBoolean((Boolean) argument);
+            } else {
+                out.writeByte(HEAP_ARGUMENT);
+                heapArguments[i] = argument;
+            }
+        }
+    }
+
+    private Object[] readArguments(DataInputStream in, Object[] heapArguments) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        Object[] arguments = new Object[length];
+        for (int i = 0; i < length; i++) {
+            byte type = in.readByte();
+            switch (type) {
+                case STRING_ARGUMENT:
+                    arguments[i] = readString(in);
+                    break;
+                case REQUEST_ARGUMENT:
+                    arguments[i] = readRequestDefinition(in);
+                    break;
+                case RESPONSE_ARGUMENT:
+                    arguments[i] = readHttpResponse(in);
+                    break;
+                case EXPECTATION_ARGUMENT:
+                    arguments[i] = objectMapper.readValue(readBytes(in), ExpectationDTO.class).buildObject();
+                    break;
+                case INTEGER_ARGUMENT:
+                    arguments[i] = in.readInt();
+                    break;
+                case LONG_ARGUMENT:
+                    arguments[i] = in.readLong();
+                    break;
+                case BOOLEAN_ARGUMENT:
+                    arguments[i] = in.readBoolean();
+                    break;
+                default:
+                    arguments[i] = heapArguments != null ? heapArguments[i] : null;
+            }
+        }
+        return arguments;
+    }
+
+    // requests
+
+    private void writeRequestDefinition(DataOutputStream out, RequestDefinition requestDefinition) throws IOException {
+        if (requestDefinition.getClass() == HttpRequest.class && isBinaryEncodable((HttpRequest) requestDefinition)) {
+            out.writeByte(BINARY);
+            HttpRequest httpRequest = (HttpRequest) requestDefinition;
+            writeNullableString(out, httpRequest.getLogCorrelationId());
+            writeNottableString(out, httpRequest.getMethod());
+            writeNottableString(out, httpRequest.getPath());
+            writeKeysToMultiValues(out, httpRequest.getPathParameters());
+            writeKeysToMultiValues(out, httpRequest.getQueryStringParameters());
+            writeKeysToMultiValues(out, httpRequest.getHeaders());
+            writeKeysAndValues(out, httpRequest.getCookies());
+            writeNullableBoolean(out, httpRequest.isKeepAlive());
+            writeNullableBoolean(out, httpRequest.isSecure());
+            SocketAddress socketAddress = httpRequest.getSocketAddress();
+            out.writeBoolean(socketAddress != null);
+            if (socketAddress != null) {
+                writeNullableString(out, socketAddress.getHost());
+                writeNullableInteger(out, socketAddress.getPort());
+                out.writeByte(socketAddress.getScheme() != null ? socketAddress.getScheme().ordinal() : -1);
+            }
+            writeBody(out, httpRequest.getBody());
+        } else {
+            out.writeByte(JSON);
+            writeBytes(out, objectMapper.writeValueAsBytes(toDTO(requestDefinition)));
+        }
+    }
+
+    private RequestDefinition readRequestDefinition(DataInputStream in) throws IOException {
+        if (in.readByte() == JSON) {
+            return objectMapper.readValue(readBytes(in), RequestDefinitionDTO.class).buildObject();
+        }
+        HttpRequest httpRequest = new HttpRequest();
+        httpRequest.withLogCorrelationId(readNullableString(in));
+        httpRequest
+            .withMethod(readNottableString(in))
+            .withPath(readNottableString(in))
+            .withPathParameters(readKeysToMultiValues(in, new Parameters()))
+            .withQueryStringParameters(readKeysToMultiValues(in, new Parameters()))
+            .withHeaders(readKeysToMultiValues(in, new Headers()))
+            .withCookies(readCookies(in))
+            .withKeepAlive(readNullableBoolean(in))
+            .withSecure(readNullableBoolean(in));
+        if (in.readBoolean()) {
+            SocketAddress socketAddress = new SocketAddress()
+                .withHost(readNullableString(in))
+                .withPort(readNullableInteger(in));
+            byte scheme = in.readByte();
+            httpRequest.withSocketAddress(socketAddress.withScheme(scheme >= 0 ? SCHEMES[scheme] : null));
+        }
+        Body<?> body = readBody(in);
+        if (body != null) {
+            httpRequest.withBody(body);
+        }
+        return httpRequest;
+    }
+
+    private boolean isBinaryEncodable(HttpRequest httpRequest) {
+        return httpRequest.getNot() == null
+            && isPlain(httpRequest.getMethod())
+            && isPlain(httpRequest.getPath())
+            && isPlain(httpRequest.getPathParameters())
+            && isPlain(httpRequest.getQueryStringParameters())
+            && isPlain(httpRequest.getHeaders())
+            && isPlain(httpRequest.getCookies())
+            && isBinaryEncodable(httpRequest.getBody());
+    }
+
+    /**
+     * log entry bodies only exist to format arguments, so json requests and responses store them as the equivalent
+     * json or string body, which are converted back to log entry bodies when the arguments are set on the log entry
+     */
+    private Object toDTO(RequestDefinition requestDefinition) {
+        if (requestDefinition instanceof OpenAPIDefinition) {
+            return new OpenAPIDefinitionDTO((OpenAPIDefinition) requestDefinition);
+        } else if (((HttpRequest) requestDefinition).getBody() instanceof LogEntryBody) {
+            return new HttpRequestDTO(((HttpRequest) requestDefinition).shallowClone().withBody(withoutLogEntryBody(((HttpRequest) requestDefinition).getBody())));
+        } else {
+            return new HttpRequestDTO((HttpRequest) requestDefinition);
+        }
+    }
+
+    // responses
+
+    private void writeHttpResponse(DataOutputStream out, HttpResponse httpResponse) throws IOException {
+        if (httpResponse.getClass() == HttpResponse.class && isBinaryEncodable(httpResponse)) {
+            out.writeByte(BINARY);
+            writeNullableInteger(out, httpResponse.getStatusCode());
+            writeNullableString(out, httpResponse.getReasonPhrase());
+            writeKeysToMultiValues(out, httpResponse.getHeaders());
+            writeKeysAndValues(out, httpResponse.getCookies());
+            writeBody(out, httpResponse.getBody());
+        } else {
+            out.writeByte(JSON);
+            if (httpResponse.getBody() instanceof LogEntryBody) {
+                httpResponse = httpResponse.shallowClone().withBody(withoutLogEntryBody(httpResponse.getBody()));
+            }
+            writeBytes(out, objectMapper.writeValueAsBytes(new HttpResponseDTO(httpResponse)));
+        }
+    }
+
+    private HttpResponse readHttpResponse(DataInputStream in) throws IOException {
+        if (in.readByte() == JSON) {
+            return objectMapper.readValue(readBytes(in), HttpResponseDTO.class).buildObject();
+        }
+        HttpResponse httpResponse = new HttpResponse()
+            .withStatusCode(readNullableInteger(in))
+            .withReasonPhrase(readNullableString(in))
+            .withHeaders(readKeysToMultiValues(in, new Headers()))
+            .withCookies(readCookies(in));
+        Body<?> body = readBody(in);
+        if (body != null) {
+            httpResponse.withBody((BodyWithContentType<?>) body);
+        }
+        return httpResponse;
+    }
+
+    private boolean isBinaryEncodable(HttpResponse httpResponse) {
+        return httpResponse.getDelay() == null
+            && httpResponse.getConnectionOptions() == null
+            && isPlain(httpResponse.getHeaders())
+            && isPlain(httpResponse.getCookies())
+            && isBinaryEncodable(httpResponse.getBody());
+    }
+
+    // bodies
+
+    private void writeBody(DataOutputStream out, Body<?> body) throws IOException {
+        if (body == null) {
+            out.writeByte(NO_BODY);
+        } else if (body instanceof StringBody) {
+            StringBody stringBody = (StringBody) body;
+            out.writeByte(STRING_BODY);
+            writeString(out, stringBody.getValue());
+            writeRawBytes(out, stringBody.getValue(), stringBody);
+            out.writeBoolean(stringBody.isSubString());
+            writeNullableString(out, stringBody.getContentType());
+        } else if (body instanceof JsonBody) {
+            JsonBody jsonBody = (JsonBody) body;
+            out.writeByte(JSON_BODY);
+            writeNullableString(out, jsonBody.getValue());
+            writeRawBytes(out, jsonBody.getValue(), jsonBody);
+            writeNullableString(out, jsonBody.getContentType());
+            out.writeByte(jsonBody.getMatchType() != null ? jsonBody.getMatchType().ordinal() : -1);
+        } else if (body instanceof XmlBody) {
+            XmlBody xmlBody = (XmlBody) body;
+            out.writeByte(XML_BODY);
+            writeNullableString(out, xmlBody.getValue());
+            writeRawBytes(out, xmlBody.getValue(), xmlBody);
+            writeNullableString(out, xmlBody.getContentType());
+        } else if (body instanceof BinaryBody) {
+            out.writeByte(BINARY_BODY);
+            writeNullableBytes(out, ((BinaryBody) body).getValue());
+            writeNullableString(out, body.getContentType());
+        } else if (body.getValue() instanceof JsonNode) {
+            out.writeByte(LOG_ENTRY_JSON_BODY);
+            writeString(out, body.getValue().toString());
+        } else {
+            out.writeByte(LOG_ENTRY_STRING_BODY);
+            writeString(out, String.valueOf(body.getValue()));
+        }
+    }
+
+    private Body<?> readBody(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case STRING_BODY: {
+                String value = readString(in);
+                byte[] rawBytes = readNullableBytes(in);
+                boolean subString = in.readBoolean();
+                return new StringBody(value, rawBytes, subString, readMediaType(in));
+            }
+            case JSON_BODY: {
+                String json = readNullableString(in);
+                byte[] rawBytes = readNullableBytes(in);
+                MediaType contentType = readMediaType(in);
+                byte matchType = in.readByte();
+                return new JsonBody(json, rawBytes, contentType, matchType >= 0 ? MATCH_TYPES[matchType] : null);
+            }
+            case XML_BODY: {
+                String xml = readNullableString(in);
+                byte[] rawBytes = readNullableBytes(in);
+                return new XmlBody(xml, rawBytes, readMediaType(in));
+            }
+            case BINARY_BODY: {
+                byte[] bytes = readNullableBytes(in);
+                return new BinaryBody(bytes, readMediaType(in));
+            }
+            case LOG_ENTRY_JSON_BODY:
+                return new LogEntryBody(objectMapper.readTree(readString(in)));
+            case LOG_ENTRY_STRING_BODY:
+                return new LogEntryBody(readString(in));
+            default:
+                return null;
+        }
+    }
+
+    private boolean isBinaryEncodable(Body<?> body) {
+        if (body == null) {
+            return true;
+        }
+        Class<?> type = body.getClass();
+        return body.getNot() == null
+            && body.getOptional() == null
+            && (type == StringBody.class || type == JsonBody.class || type == XmlBody.class || type == BinaryBody.class || type == LogEntryBody.class);
+    }
+
+    /**
+     * the raw bytes are only written if they aren't the encoded value, which is the case for most bodies
+     */
+    private void writeRawBytes(DataOutputStream out, String value, BodyWithContentType<?> body) throws IOException {
+        byte[] rawBytes = body.getRawBytes();
+        if (value != null && Arrays.equals(rawBytes, value.getBytes(body.getCharset(DEFAULT_HTTP_CHARACTER_SET)))) {
+            writeNullableBytes(out, null);
+        } else {
+            writeNullableBytes(out, rawBytes);
+        }
+    }
+
+    private MediaType readMediaType(DataInputStream in) throws IOException {
+        String contentType = readNullableString(in);
+        return contentType != null ? MediaType.parse(contentType) : null;
+    }
+
+    private BodyWithContentType<?> withoutLogEntryBody(Body<?> body) {
+        Object value = body.getValue();
+        if (value instanceof JsonNode) {
+            return new JsonBody(value.toString());
+        } else {
+            return new StringBody(String.valueOf(value));
+        }
+    }
+
+    // headers, parameters and cookies
+
+    private boolean isPlain(NottableString nottableString) {
+        return nottableString == null
+            || (nottableString.getClass() == NottableString.class && !nottableString.isNot() && nottableString.getParameterStyle() == null);
+    }
+
+    private boolean isPlain(KeysToMultiValues<?, ?> keysToMultiValues) {
+        if (keysToMultiValues == null) {
+            return true;
+        }
+        if (keysToMultiValues.getKeyMatchStyle() != KeyMatchStyle.SUB_SET) {
+            return false;
+        }
+        for (Map.Entry<NottableString, NottableString> entry : keysToMultiValues.getMultimap().entries()) {
+            if (!isPlain(entry.getKey()) || !isPlain(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isPlain(KeysAndValues<?, ?> keysAndValues) {
+        if (keysAndValues == null) {
+            return true;
+        }
+        for (Map.Entry<NottableString, NottableString> entry : keysAndValues.getMap().entrySet()) {
+            if (!isPlain(entry.getKey()) || !isPlain(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeNottableString(DataOutputStream out, NottableString nottableString) throws IOException {
+        writeNullableString(out, nottableString != null ? nottableString.getValue() : null);
+    }
+
+    private NottableString readNottableString(DataInputStream in) throws IOException {
+        String value = readNullableString(in);
+        return value != null ? string(value, false) : null;
+    }
+
+    private void writeKeysToMultiValues(DataOutputStream out, KeysToMultiValues<?, ?> keysToMultiValues) throws IOException {
+        if (keysToMultiValues == null) {
+            out.writeInt(-1);
+            return;
+        }
+        Map<NottableString, Collection<NottableString>> entries = keysToMultiValues.getMultimap().asMap();
+        out.writeInt(entries.size());
+        for (Map.Entry<NottableString, Collection<NottableString>> entry : entries.entrySet()) {
+            writeNottableString(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (NottableString value : entry.getValue()) {
+                writeNottableString(out, value);
+            }
+        }
+    }
+
+    private <T extends KeysToMultiValues<?, ?>> T readKeysToMultiValues(DataInputStream in, T keysToMultiValues) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        for (int i = 0; i < size; i++) {
+            NottableString name = readNottableString(in);
+            List<NottableString> values = new ArrayList<>();
+            int valueCount = in.readInt();
+            for (int j = 0; j < valueCount; j++) {
+                values.add(readNottableString(in));
+            }
+            keysToMultiValues.withEntry(name, values);
+        }
+        return keysToMultiValues;
+    }
+
+    private void writeKeysAndValues(DataOutputStream out, KeysAndValues<?, ?> keysAndValues) throws IOException {
+        if (keysAndValues == null) {
+            out.writeInt(-1);
+            return;
+        }
+        Map<NottableString, NottableString> entries = keysAndValues.getMap();
+        out.writeInt(entries.size());
+        for (Map.Entry<NottableString, NottableString> entry : entries.entrySet()) {
+            writeNottableString(out, entry.getKey());
+            writeNottableString(out, entry.getValue());
+        }
+    }
+
+    private Cookies readCookies(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Cookies cookies = new Cookies();
+        for (int i = 0; i < size; i++) {
+            cookies.withEntry(readNottableString(in), readNottableString(in));
+        }
+        return cookies;
+    }
+
+    // primitives
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value.getBytes(UTF_8));
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), UTF_8);
+    }
+
+    private void writeNullableString(DataOutputStream out, String value) throws IOException {
+        writeNullableBytes(out, value != null ? value.getBytes(UTF_8) : null);
+    }
+
+    private String readNullableString(DataInputStream in) throws IOException {
+        byte[] bytes = readNullableBytes(in);
+        return bytes != null ? new String(bytes, UTF_8) : null;
+    }
+
+    private void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private void writeNullableBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            writeBytes(out, bytes);
+        }
+    }
+
+    private byte[] readNullableBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private void writeNullableInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private Integer readNullableInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private void writeNullableBoolean(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : value ? 1 : 0);
+    }
+
+    private Boolean readNullableBoolean(DataInputStream in) throws IOException {
+        byte value = in.readByte();
+        return value < 0 ? null : value == 1;
+    }
+}
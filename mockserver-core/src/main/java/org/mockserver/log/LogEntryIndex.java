@@ -0,0 +1,324 @@
+package org.mockserver.log;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mockserver.codec.PathParametersDecoder;
+import org.mockserver.log.model.LogEntry;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.NottableSchemaString;
+import org.mockserver.model.NottableString;
+import org.mockserver.model.RequestDefinition;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockserver.log.model.LogEntry.LogMessageType.RECEIVED_REQUEST;
+
+/**
+ * Secondary indexes used to narrow the log entries that need to be evaluated for a query, before the request matcher is applied.
+ * <p>
+ * Entries are indexed by type, by the method and path of their requests, by correlation id and by the id of the expectation
+ * they reference or, for received requests, the expectation that matched them.  Entries without requests match any request
+ * and entries with a request that doesn't have a literal method and path (i.e. a notted, schema, regex or OpenAPI request
+ * definition) may match as a regex, so both are held in a residual set that is always a candidate.
+ * <p>
+ * The number of received requests, that haven't been cleared, matched by each expectation is counted as matches are
+ * recorded, so verifying by expectation id doesn't depend on which log entries are logged at the current log level.
+ * <p>
+ * Method and path values are case folded because method and path matching ignores case.
+ *
+ * @author jamesdbloom
+ */
+public class LogEntryIndex {
+
+    private static final PathParametersDecoder pathParametersParser = new PathParametersDecoder();
+    private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
+    private static final String METHOD_PATH_SEPARATOR = " ";
+
+    private final ConcurrentMap<String, IndexEntry> entriesById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<LogEntry.LogMessageType, Set<String>> byType = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> byMethodAndPath = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> byPath = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> byCorrelationId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> byExpectationId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> matchedRequestCounts = new ConcurrentHashMap<>();
+    private final Set<String> residual = ConcurrentHashMap.newKeySet();
+
+    public synchronized void add(LogEntry logEntry) {
+        IndexEntry indexEntry = new IndexEntry(logEntry);
+        IndexEntry existing = entriesById.put(indexEntry.id, indexEntry);
+        if (existing != null) {
+            unindex(existing);
+            if (existing.matchedExpectationId != null) {
+                // a replaced received request keeps the expectation that matched it
+                indexEntry.matchedExpectationId = existing.matchedExpectationId;
+                if (!indexEntry.deleted) {
+                    countMatch(indexEntry.matchedExpectationId, 1);
+                }
+            }
+        }
+        if (indexEntry.type != null) {
+            index(byType, indexEntry.type, indexEntry.id);
+        }
+        if (indexEntry.correlationId != null) {
+            index(byCorrelationId, indexEntry.correlationId, indexEntry.id);
+        }
+        if (indexEntry.expectationId != null) {
+            index(byExpectationId, indexEntry.expectationId, indexEntry.id);
+        }
+        if (indexEntry.matchedExpectationId != null) {
+            index(byExpectationId, indexEntry.matchedExpectationId, indexEntry.id);
+        }
+        if (indexEntry.methodAndPaths != null) {
+            for (String[] methodAndPath : indexEntry.methodAndPaths) {
+                index(byMethodAndPath, methodAndPathKey(methodAndPath[0], methodAndPath[1]), indexEntry.id);
+                index(byPath, methodAndPath[1], indexEntry.id);
+            }
+        } else {
+            residual.add(indexEntry.id);
+        }
+    }
+
+    /**
+     * Records that the expectation matched the received request with the correlation id, a received request is only
+     * counted once and only if it is in the log
+     *
+     * @param correlationId the log correlation id of the received request
+     * @param expectationId the id of the expectation that matched the request
+     */
+    public synchronized void matched(String correlationId, String expectationId) {
+        Set<String> ids = byCorrelationId.get(correlationId);
+        if (ids != null) {
+            for (String id : ids) {
+                IndexEntry indexEntry = entriesById.get(id);
+                if (indexEntry != null && indexEntry.type == RECEIVED_REQUEST && indexEntry.matchedExpectationId == null) {
+                    indexEntry.matchedExpectationId = expectationId;
+                    index(byExpectationId, expectationId, indexEntry.id);
+                    if (!indexEntry.deleted) {
+                        countMatch(expectationId, 1);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the entry as deleted, deleted received requests are no longer counted as matched by their expectation
+     */
+    public synchronized void markDeleted(String id) {
+        IndexEntry indexEntry = entriesById.get(id);
+        if (indexEntry != null && !indexEntry.deleted) {
+            indexEntry.deleted = true;
+            if (indexEntry.matchedExpectationId != null) {
+                countMatch(indexEntry.matchedExpectationId, -1);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of received requests, that haven't been cleared, matched by the expectation
+     *
+     * @param expectationId the id of the expectation
+     */
+    public int matchedRequestCount(String expectationId) {
+        AtomicInteger count = matchedRequestCounts.get(expectationId);
+        return count != null ? count.get() : 0;
+    }
+
+    public synchronized void remove(String id) {
+        IndexEntry indexEntry = entriesById.remove(id);
+        if (indexEntry != null) {
+            unindex(indexEntry);
+        }
+    }
+
+    public synchronized void clear() {
+        entriesById.clear();
+        byType.clear();
+        byMethodAndPath.clear();
+        byPath.clear();
+        byCorrelationId.clear();
+        byExpectationId.clear();
+        matchedRequestCounts.clear();
+        residual.clear();
+    }
+
+    public int size() {
+        return entriesById.size();
+    }
+
+    /**
+     * Returns the ids of the entries, with one of the types, that could match the request definition, or an empty optional
+     * if neither the types nor the request definition can be used to narrow the entries
+     *
+     * @param types              the types of entry to return or null for any type
+     * @param requestDefinition the request definition entries will be matched against or null to match any entry
+     */
+    public Optional<Set<String>> candidates(Set<LogEntry.LogMessageType> types, RequestDefinition requestDefinition) {
+        Set<String> typeCandidates = null;
+        if (types != null) {
+            typeCandidates = new HashSet<>();
+            for (LogEntry.LogMessageType type : types) {
+                Set<String> ids = byType.get(type);
+                if (ids != null) {
+                    typeCandidates.addAll(ids);
+                }
+            }
+        }
+        Set<String> requestCandidates = requestCandidates(requestDefinition);
+        if (typeCandidates == null && requestCandidates == null) {
+            return Optional.empty();
+        } else if (typeCandidates == null) {
+            return Optional.of(requestCandidates);
+        } else if (requestCandidates == null) {
+            return Optional.of(typeCandidates);
+        } else {
+            Set<String> smaller = typeCandidates.size() <= requestCandidates.size() ? typeCandidates : requestCandidates;
+            Set<String> larger = smaller == typeCandidates ? requestCandidates : typeCandidates;
+            smaller.retainAll(larger);
+            return Optional.of(smaller);
+        }
+    }
+
+    private Set<String> requestCandidates(RequestDefinition requestDefinition) {
+        if (!(requestDefinition instanceof HttpRequest) || requestDefinition.isNot()) {
+            return null;
+        }
+        HttpRequest httpRequest = (HttpRequest) requestDefinition;
+        NottableString path = httpRequest.getPath() != null ? pathParametersParser.normalisePathWithParametersForMatching(httpRequest) : null;
+        if (!isLiteral(path)) {
+            return null;
+        }
+        Set<String> ids;
+        if (isLiteral(httpRequest.getMethod())) {
+            ids = byMethodAndPath.get(methodAndPathKey(fold(httpRequest.getMethod().getValue()), fold(path.getValue())));
+        } else {
+            ids = byPath.get(fold(path.getValue()));
+        }
+        Set<String> candidates = new HashSet<>(residual);
+        if (ids != null) {
+            candidates.addAll(ids);
+        }
+        return candidates;
+    }
+
+    private void countMatch(String expectationId, int delta) {
+        AtomicInteger count = matchedRequestCounts.computeIfAbsent(expectationId, key -> new AtomicInteger());
+        if (count.addAndGet(delta) <= 0) {
+            matchedRequestCounts.remove(expectationId);
+        }
+    }
+
+    private void unindex(IndexEntry indexEntry) {
+        if (indexEntry.type != null) {
+            unindex(byType, indexEntry.type, indexEntry.id);
+        }
+        if (indexEntry.correlationId != null) {
+            unindex(byCorrelationId, indexEntry.correlationId, indexEntry.id);
+        }
+        if (indexEntry.expectationId != null) {
+            unindex(byExpectationId, indexEntry.expectationId, indexEntry.id);
+        }
+        if (indexEntry.matchedExpectationId != null) {
+            unindex(byExpectationId, indexEntry.matchedExpectationId, indexEntry.id);
+            if (!indexEntry.deleted) {
+                countMatch(indexEntry.matchedExpectationId, -1);
+            }
+        }
+        if (indexEntry.methodAndPaths != null) {
+            for (String[] methodAndPath : indexEntry.methodAndPaths) {
+                unindex(byMethodAndPath, methodAndPathKey(methodAndPath[0], methodAndPath[1]), indexEntry.id);
+                unindex(byPath, methodAndPath[1], indexEntry.id);
+            }
+        } else {
+            residual.remove(indexEntry.id);
+        }
+    }
+
+    private static <K> void index(ConcurrentMap<K, Set<String>> index, K key, String id) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private static <K> void unindex(ConcurrentMap<K, Set<String>> index, K key, String id) {
+        Set<String> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static String methodAndPathKey(String method, String path) {
+        return method + METHOD_PATH_SEPARATOR + path;
+    }
+
+    private static boolean isLiteral(NottableString nottableString) {
+        if (nottableString == null || nottableString.isNot() || nottableString instanceof NottableSchemaString || StringUtils.isBlank(nottableString.getValue())) {
+            return false;
+        }
+        String value = nottableString.getValue();
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character > 127 || REGEX_META_CHARACTERS.indexOf(character) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * folds case consistently with String.equalsIgnoreCase so folded values are equal if the original values are equal ignoring case
+     */
+    private static String fold(String value) {
+        char[] characters = value.toCharArray();
+        for (int i = 0; i < characters.length; i++) {
+            characters[i] = Character.toLowerCase(Character.toUpperCase(characters[i]));
+        }
+        return new String(characters);
+    }
+
+    private static class IndexEntry {
+
+        private final String id;
+        private final LogEntry.LogMessageType type;
+        private final String correlationId;
+        private final String expectationId;
+        private final List<String[]> methodAndPaths;
+        // only modified while holding the index lock
+        private boolean deleted;
+        private String matchedExpectationId;
+
+        private IndexEntry(LogEntry logEntry) {
+            this.id = logEntry.id();
+            this.type = logEntry.getType();
+            this.correlationId = logEntry.getCorrelationId();
+            this.expectationId = logEntry.getExpectation() != null ? logEntry.getExpectation().getId() : null;
+            this.deleted = logEntry.isDeleted();
+            this.methodAndPaths = methodAndPaths(logEntry.getHttpRequests());
+        }
+
+        /**
+         * returns null if any request may match a request definition with a different method and path
+         */
+        private static List<String[]> methodAndPaths(RequestDefinition[] requestDefinitions) {
+            if (requestDefinitions.length == 0) {
+                return null;
+            }
+            List<String[]> methodAndPaths = new ArrayList<>(requestDefinitions.length);
+            for (RequestDefinition requestDefinition : requestDefinitions) {
+                if (!(requestDefinition instanceof HttpRequest) || requestDefinition.isNot()) {
+                    return null;
+                }
+                HttpRequest httpRequest = (HttpRequest) requestDefinition;
+                if (!isLiteral(httpRequest.getMethod()) || !isLiteral(httpRequest.getPath())) {
+                    return null;
+                }
+                methodAndPaths.add(new String[]{fold(httpRequest.getMethod().getValue()), fold(httpRequest.getPath().getValue())});
+            }
+            return methodAndPaths;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.mockserver.log;
+
+import org.mockserver.log.model.LogEntry;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Storage backend for the entries in the MockServerEventLog, entries are returned in the order they were added
+ * <p>
+ * The remove callback provided to each store is called for every entry that is evicted, removed or cleared
+ *
+ * @author jamesdbloom
+ */
+public interface LogEntryStore {
+
+    boolean add(LogEntry logEntry);
+
+    void markDeleted(LogEntry logEntry);
+
+    void remove(LogEntry logEntry);
+
+    void clear();
+
+    int size();
+
+    void setMaxSize(int maxSize);
+
+    /**
+     * Returns an estimate of the heap retained by the entries, or -1 if the store doesn't estimate it
+     */
+    default long retainedHeapBytes() {
+        return -1;
+    }
+
+    Iterator<LogEntry> iterator();
+
+    Iterator<LogEntry> descendingIterator();
+
+    default Stream<LogEntry> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), 0), false);
+    }
+
+    /**
+     * Returns a point in time, immutable, view of the entries, or only the entries with one of the ids if ids isn't null, in the
+     * order they were added, the view is taken without copying the entries and is only filtered by id when it is first read,
+     * so it can be read on another thread while entries continue to be added, evicted and removed until it is released
+     */
+    List<LogEntry> snapshot(Set<String> ids);
+
+    /**
+     * Releases a snapshot once it has been read, the entries of a released snapshot may no longer be readable
+     */
+    default void releaseSnapshot(List<LogEntry> snapshot) {
+    }
+
+}
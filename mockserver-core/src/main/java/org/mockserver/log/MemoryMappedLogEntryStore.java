@@ -0,0 +1,679 @@
+package org.mockserver.log;
+
+import io.netty.util.internal.PlatformDependent;
+import org.mockserver.collections.CircularConcurrentLinkedDeque;
+import org.mockserver.collections.SnapshotLog;
+import org.mockserver.log.model.LogEntry;
+import org.mockserver.matchers.HttpRequestMatcher;
+import org.mockserver.mock.Expectation;
+import org.mockserver.model.HttpError;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.model.RequestDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the requests, responses, expectations and arguments of each log entry in memory mapped segment files, so the
+ * heap only holds a compact header for each entry (id, type, level, timestamp, correlation id and message format) and
+ * the position of its binary payload, see LogEntryCodec, entries are read back as log entries that only decode each
+ * part of their payload when it is first used.
+ * <p>
+ * Segments are deleted once every entry written to them has been evicted, removed or cleared, each snapshot holds a
+ * reference to the segments that had entries when it was taken, so a segment is only unmapped and its file deleted once
+ * the store and every snapshot using the segment have released it.
+ *
+ * @author jamesdbloom
+ */
+public class MemoryMappedLogEntryStore implements LogEntryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryMappedLogEntryStore.class);
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    // estimated heap retained for each entry by the header, the deque node, snapshot slot and id mapping of this store and
+    // the index of the MockServerEventLog, excluding the id, correlation id and fields only retained on the heap
+    private static final int ENTRY_HEAP_BYTES = 320;
+    /**
+     * Estimated heap retained for an entry with a uuid id and correlation id, used before any entries have been added
+     */
+    public static final int ESTIMATED_ENTRY_HEAP_BYTES = ENTRY_HEAP_BYTES + 2 * (40 + 2 * 36);
+    private final LogEntryCodec codec = new LogEntryCodec();
+    private final CircularConcurrentLinkedDeque<StoredLogEntry> eventLog;
+    private final SnapshotLog<StoredLogEntry> snapshotLog = new SnapshotLog<>();
+    private final Map<String, StoredLogEntry> entriesById = new ConcurrentHashMap<>();
+    private final Set<Segment> segments = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final AtomicLong retainedHeapBytes = new AtomicLong();
+    private final File directory;
+    private final int segmentSize;
+    private final Consumer<LogEntry> onRemoveCallback;
+    private Segment currentSegment;
+
+    public MemoryMappedLogEntryStore(int maxSize, File directory) {
+        this(maxSize, directory, null);
+    }
+
+    public MemoryMappedLogEntryStore(int maxSize, File directory, Consumer<LogEntry> onRemoveCallback) {
+        this(maxSize, directory, DEFAULT_SEGMENT_SIZE, onRemoveCallback);
+    }
+
+    MemoryMappedLogEntryStore(int maxSize, File directory, int segmentSize) {
+        this(maxSize, directory, segmentSize, null);
+    }
+
+    MemoryMappedLogEntryStore(int maxSize, File directory, int segmentSize, Consumer<LogEntry> onRemoveCallback) {
+        this.eventLog = new CircularConcurrentLinkedDeque<>(maxSize, this::release);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.onRemoveCallback = onRemoveCallback;
+    }
+
+    @Override
+    public synchronized boolean add(LogEntry logEntry) {
+        StoredLogEntry storedLogEntry;
+        try {
+            storedLogEntry = write(logEntry);
+        } catch (Throwable throwable) {
+            logger.warn("exception writing log entry to memory mapped file, log entry will be retained on heap", throwable);
+            storedLogEntry = new StoredLogEntry(logEntry);
+        }
+        retainedHeapBytes.addAndGet(storedLogEntry.heapBytes);
+        if (eventLog.add(storedLogEntry)) {
+            snapshotLog.add(storedLogEntry);
+            entriesById.put(storedLogEntry.id, storedLogEntry);
+            return true;
+        } else {
+            release(storedLogEntry);
+            return false;
+        }
+    }
+
+    @Override
+    public void markDeleted(LogEntry logEntry) {
+        StoredLogEntry storedLogEntry = entriesById.get(logEntry.id());
+        if (storedLogEntry != null) {
+            storedLogEntry.deleted = true;
+        }
+        logEntry.setDeleted(true);
+    }
+
+    @Override
+    public synchronized void remove(LogEntry logEntry) {
+        StoredLogEntry storedLogEntry = entriesById.get(logEntry.id());
+        if (storedLogEntry != null) {
+            eventLog.removeItem(storedLogEntry);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        eventLog.clear();
+        snapshotLog.clear();
+        if (currentSegment != null) {
+            delete(currentSegment);
+            currentSegment = null;
+        }
+    }
+
+    @Override
+    public int size() {
+        return eventLog.size();
+    }
+
+    @Override
+    public void setMaxSize(int maxSize) {
+        eventLog.setMaxSize(maxSize);
+    }
+
+    @Override
+    public long retainedHeapBytes() {
+        return retainedHeapBytes.get();
+    }
+
+    @Override
+    public Iterator<LogEntry> iterator() {
+        return new ReadingIterator(eventLog.iterator());
+    }
+
+    @Override
+    public Iterator<LogEntry> descendingIterator() {
+        return new ReadingIterator(eventLog.descendingIterator());
+    }
+
+    @Override
+    public synchronized List<LogEntry> snapshot(Set<String> ids) {
+        List<StoredLogEntry> storedLogEntries = snapshotLog.snapshot();
+        if (ids != null) {
+            // filtered on the header so entries that aren't required are never read from their segment
+            storedLogEntries = SnapshotLog.filter(storedLogEntries, storedLogEntry -> ids.contains(storedLogEntry.id));
+        }
+        // every segment with entries is retained, as the entries in the snapshot are only known once it is read
+        Set<Segment> retainedSegments = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Segment segment : segments) {
+            if (segment.retain()) {
+                retainedSegments.add(segment);
+            }
+        }
+        return new Snapshot(storedLogEntries, retainedSegments);
+    }
+
+    @Override
+    public void releaseSnapshot(List<LogEntry> snapshot) {
+        if (snapshot instanceof Snapshot) {
+            ((Snapshot) snapshot).release();
+        }
+    }
+
+    int segmentCount() {
+        return (int) entriesById
+            .values()
+            .stream()
+            .map(storedLogEntry -> storedLogEntry.segment)
+            .filter(segment -> segment != null && !segment.deleted)
+            .distinct()
+            .count();
+    }
+
+    private void release(StoredLogEntry storedLogEntry) {
+        snapshotLog.remove(storedLogEntry);
+        entriesById.remove(storedLogEntry.id, storedLogEntry);
+        retainedHeapBytes.addAndGet(-storedLogEntry.heapBytes);
+        if (onRemoveCallback != null) {
+            onRemoveCallback.accept(storedLogEntry.logEntry != null ? storedLogEntry.logEntry : new MemoryMappedLogEntry(storedLogEntry, null));
+        }
+        Segment segment = storedLogEntry.segment;
+        if (segment != null && segment.entries.decrementAndGet() == 0 && segment != currentSegment) {
+            delete(segment);
+        }
+    }
+
+    private void delete(Segment segment) {
+        segments.remove(segment);
+        segment.delete();
+    }
+
+    private StoredLogEntry write(LogEntry logEntry) throws IOException {
+        Object[] arguments = logEntry.getArguments();
+        Object[] heapArguments = arguments != null ? new Object[arguments.length] : null;
+        byte[] bytes = codec.encode(logEntry, heapArguments);
+        if (currentSegment == null || currentSegment.remaining() < bytes.length) {
+            Segment previousSegment = currentSegment;
+            currentSegment = new Segment(directory, Math.max(segmentSize, bytes.length));
+            segments.add(currentSegment);
+            if (previousSegment != null && previousSegment.entries.get() == 0) {
+                delete(previousSegment);
+            }
+        }
+        int offset = currentSegment.write(bytes);
+        if (heapArguments != null && Arrays.stream(heapArguments).allMatch(Objects::isNull)) {
+            heapArguments = null;
+        }
+        return new StoredLogEntry(logEntry, heapArguments, currentSegment, offset, bytes.length);
+    }
+
+    private LogEntry read(StoredLogEntry storedLogEntry) {
+        if (storedLogEntry.logEntry != null) {
+            return storedLogEntry.logEntry;
+        }
+        byte[] payload;
+        try {
+            // only the bytes are read, the payload is decoded as it is used, which may be after the segment has been released
+            payload = storedLogEntry.segment.read(storedLogEntry.offset, storedLogEntry.length);
+        } catch (Throwable throwable) {
+            logger.warn("exception reading log entry from memory mapped file", throwable);
+            payload = null;
+        }
+        return new MemoryMappedLogEntry(storedLogEntry, payload);
+    }
+
+    /**
+     * The header retained on the heap for each entry, only the fields used to filter entries before they are read and any
+     * throwable, consumer or argument that can't be written to a segment are retained
+     */
+    private static class StoredLogEntry {
+        // estimated heap retained by a whole log entry, the same estimate is used to limit the entries of the in memory store
+        private static final int HEAP_LOG_ENTRY_BYTES = 30 * 1024;
+        private final String id;
+        private final String correlationId;
+        private final LogEntry.LogMessageType type;
+        private final Level logLevel;
+        private final long epochTime;
+        private final String messageFormat;
+        private final HeapFields heapFields;
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+        // only set if the entry couldn't be written to a segment
+        private final LogEntry logEntry;
+        private final long heapBytes;
+        private volatile boolean deleted;
+
+        private StoredLogEntry(LogEntry logEntry, Object[] heapArguments, Segment segment, int offset, int length) {
+            this.id = logEntry.id();
+            this.correlationId = logEntry.getCorrelationId();
+            this.type = logEntry.getType();
+            this.logLevel = logEntry.getLogLevel();
+            this.epochTime = logEntry.getEpochTime();
+            this.messageFormat = logEntry.getMessageFormat();
+            this.deleted = logEntry.isDeleted();
+            if (logEntry.getThrowable() != null || logEntry.getConsumer() != null || heapArguments != null) {
+                this.heapFields = new HeapFields(logEntry.getThrowable(), logEntry.getConsumer(), heapArguments);
+            } else {
+                this.heapFields = null;
+            }
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.logEntry = null;
+            // message formats are constants shared by every entry
+            this.heapBytes = ENTRY_HEAP_BYTES + stringHeapBytes(id) + stringHeapBytes(correlationId) + (heapFields != null ? HeapFields.HEAP_BYTES : 0);
+            segment.entries.incrementAndGet();
+        }
+
+        private StoredLogEntry(LogEntry logEntry) {
+            this.id = logEntry.id();
+            this.correlationId = logEntry.getCorrelationId();
+            this.type = logEntry.getType();
+            this.logLevel = logEntry.getLogLevel();
+            this.epochTime = logEntry.getEpochTime();
+            this.messageFormat = logEntry.getMessageFormat();
+            this.heapFields = null;
+            this.segment = null;
+            this.offset = 0;
+            this.length = 0;
+            this.logEntry = logEntry;
+            this.heapBytes = ENTRY_HEAP_BYTES + HEAP_LOG_ENTRY_BYTES;
+        }
+
+        private static long stringHeapBytes(String value) {
+            return value != null ? 40 + 2L * value.length() : 0;
+        }
+    }
+
+    private static class HeapFields {
+        private static final int HEAP_BYTES = 1024;
+        private final Throwable throwable;
+        private final Runnable consumer;
+        private final Object[] arguments;
+
+        private HeapFields(Throwable throwable, Runnable consumer, Object[] arguments) {
+            this.throwable = throwable;
+            this.consumer = consumer;
+            this.arguments = arguments;
+        }
+    }
+
+    /**
+     * A log entry read from a segment, the header is set when it is read and each part of the payload is only decoded when
+     * it is first used, so filtering entries by their requests doesn't decode their responses, expectations or arguments
+     */
+    private class MemoryMappedLogEntry extends LogEntry {
+        private final StoredLogEntry storedLogEntry;
+        private final byte[] payload;
+        private boolean requestsDecoded;
+        private boolean responseDecoded;
+        private boolean expectationDecoded;
+        private boolean detailsDecoded;
+
+        private MemoryMappedLogEntry(StoredLogEntry storedLogEntry, byte[] payload) {
+            this.storedLogEntry = storedLogEntry;
+            this.payload = payload;
+            setType(storedLogEntry.type);
+            setLogLevel(storedLogEntry.logLevel);
+            setEpochTime(storedLogEntry.epochTime);
+            setCorrelationId(storedLogEntry.correlationId);
+            setMessageFormat(storedLogEntry.messageFormat);
+            setDeleted(storedLogEntry.deleted);
+            if (storedLogEntry.heapFields != null) {
+                setThrowable(storedLogEntry.heapFields.throwable);
+                setConsumer(storedLogEntry.heapFields.consumer);
+            }
+        }
+
+        private void decodeRequests() {
+            if (!requestsDecoded) {
+                requestsDecoded = true;
+                if (payload != null) {
+                    try {
+                        super.setHttpRequests(codec.decodeRequests(payload));
+                    } catch (Throwable throwable) {
+                        logger.warn("exception reading log entry requests from memory mapped file", throwable);
+                    }
+                }
+            }
+        }
+
+        private void decodeResponse() {
+            if (!responseDecoded) {
+                responseDecoded = true;
+                if (payload != null) {
+                    try {
+                        super.setHttpResponse(codec.decodeResponse(payload));
+                    } catch (Throwable throwable) {
+                        logger.warn("exception reading log entry response from memory mapped file", throwable);
+                    }
+                }
+            }
+        }
+
+        private void decodeExpectation() {
+            if (!expectationDecoded) {
+                expectationDecoded = true;
+                if (payload != null) {
+                    try {
+                        super.setExpectation(codec.decodeExpectation(payload));
+                    } catch (Throwable throwable) {
+                        logger.warn("exception reading log entry expectation from memory mapped file", throwable);
+                    }
+                }
+            }
+        }
+
+        private void decodeDetails() {
+            if (!detailsDecoded) {
+                detailsDecoded = true;
+                if (payload != null) {
+                    try {
+                        LogEntryCodec.Details details = codec.decodeDetails(payload, storedLogEntry.heapFields != null ? storedLogEntry.heapFields.arguments : null);
+                        super.setPort(details.port);
+                        super.setBecause(details.because);
+                        super.setHttpError(details.httpError);
+                        super.setArguments(details.arguments);
+                    } catch (Throwable throwable) {
+                        logger.warn("exception reading log entry arguments from memory mapped file", throwable);
+                    }
+                }
+            }
+        }
+
+        private void decodeAll() {
+            decodeRequests();
+            decodeResponse();
+            decodeExpectation();
+            decodeDetails();
+        }
+
+        @Override
+        public String id() {
+            return storedLogEntry.id;
+        }
+
+        @Override
+        public void clear() {
+            requestsDecoded = true;
+            responseDecoded = true;
+            expectationDecoded = true;
+            detailsDecoded = true;
+            super.clear();
+        }
+
+        @Override
+        public RequestDefinition[] getHttpRequests() {
+            decodeRequests();
+            return super.getHttpRequests();
+        }
+
+        @Override
+        public RequestDefinition[] getHttpUpdatedRequests() {
+            decodeRequests();
+            return super.getHttpUpdatedRequests();
+        }
+
+        @Override
+        public boolean matches(HttpRequestMatcher matcher) {
+            decodeRequests();
+            return super.matches(matcher);
+        }
+
+        @Override
+        public LogEntry setHttpRequests(RequestDefinition[] httpRequests) {
+            requestsDecoded = true;
+            return super.setHttpRequests(httpRequests);
+        }
+
+        @Override
+        public RequestDefinition getHttpRequest() {
+            decodeRequests();
+            return super.getHttpRequest();
+        }
+
+        @Override
+        public LogEntry setHttpRequest(RequestDefinition httpRequest) {
+            requestsDecoded = true;
+            return super.setHttpRequest(httpRequest);
+        }
+
+        @Override
+        public HttpResponse getHttpResponse() {
+            decodeResponse();
+            return super.getHttpResponse();
+        }
+
+        @Override
+        public HttpResponse getHttpUpdatedResponse() {
+            decodeResponse();
+            return super.getHttpUpdatedResponse();
+        }
+
+        @Override
+        public LogEntry setHttpResponse(HttpResponse httpResponse) {
+            responseDecoded = true;
+            return super.setHttpResponse(httpResponse);
+        }
+
+        @Override
+        public Expectation getExpectation() {
+            decodeExpectation();
+            return super.getExpectation();
+        }
+
+        @Override
+        public LogEntry setExpectation(Expectation expectation) {
+            expectationDecoded = true;
+            return super.setExpectation(expectation);
+        }
+
+        @Override
+        public LogEntry setExpectation(RequestDefinition httpRequest, HttpResponse httpResponse) {
+            expectationDecoded = true;
+            return super.setExpectation(httpRequest, httpResponse);
+        }
+
+        @Override
+        public Integer getPort() {
+            decodeDetails();
+            return super.getPort();
+        }
+
+        @Override
+        public LogEntry setPort(Integer port) {
+            decodeDetails();
+            return super.setPort(port);
+        }
+
+        @Override
+        public HttpError getHttpError() {
+            decodeDetails();
+            return super.getHttpError();
+        }
+
+        @Override
+        public LogEntry setHttpError(HttpError httpError) {
+            decodeDetails();
+            return super.setHttpError(httpError);
+        }
+
+        @Override
+        public String getMessage() {
+            decodeDetails();
+            return super.getMessage();
+        }
+
+        @Override
+        public Object[] getArguments() {
+            decodeDetails();
+            return super.getArguments();
+        }
+
+        @Override
+        public LogEntry setArguments(Object... arguments) {
+            decodeDetails();
+            return super.setArguments(arguments);
+        }
+
+        @Override
+        public String getBecause() {
+            decodeDetails();
+            return super.getBecause();
+        }
+
+        @Override
+        public LogEntry setBecause(String because) {
+            decodeDetails();
+            return super.setBecause(because);
+        }
+
+        @Override
+        public LogEntry truncateBodies(int maxBodySize) {
+            decodeAll();
+            return super.truncateBodies(maxBodySize);
+        }
+    }
+
+    /**
+     * Entries evicted after the snapshot is taken can still be read, as the snapshot holds a reference to their segments
+     * until it is released
+     */
+    private class Snapshot extends AbstractList<LogEntry> {
+        private final List<StoredLogEntry> storedLogEntries;
+        private final Set<Segment> segments;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Snapshot(List<StoredLogEntry> storedLogEntries, Set<Segment> segments) {
+            this.storedLogEntries = storedLogEntries;
+            this.segments = segments;
+        }
+
+        @Override
+        public LogEntry get(int index) {
+            return read(storedLogEntries.get(index));
+        }
+
+        @Override
+        public int size() {
+            return storedLogEntries.size();
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                segments.forEach(Segment::release);
+            }
+        }
+    }
+
+    private static class Segment {
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger entries = new AtomicInteger();
+        // one reference held by the store until the segment is deleted and one by each snapshot or read using the segment
+        private final AtomicInteger references = new AtomicInteger(1);
+        private int position;
+        private volatile boolean deleted;
+
+        private Segment(File directory, int size) throws IOException {
+            this.file = File.createTempFile("mockserver-log-entries-", ".segment", directory);
+            this.file.deleteOnExit();
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                // the mapping remains valid after the file is closed
+                this.buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        private int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        private int write(byte[] bytes) {
+            // duplicates are used so concurrent readers never see the position of the buffer change
+            ByteBuffer writeBuffer = buffer.duplicate();
+            writeBuffer.position(position);
+            writeBuffer.put(bytes);
+            int offset = position;
+            position += bytes.length;
+            return offset;
+        }
+
+        private byte[] read(int offset, int length) {
+            // an unmapped buffer must never be read, as that would crash the jvm
+            if (!retain()) {
+                throw new IllegalStateException("log entry segment file " + file + " has been deleted");
+            }
+            try {
+                byte[] bytes = new byte[length];
+                ByteBuffer readBuffer = buffer.duplicate();
+                readBuffer.position(offset);
+                readBuffer.get(bytes);
+                return bytes;
+            } finally {
+                release();
+            }
+        }
+
+        private boolean retain() {
+            int current;
+            do {
+                current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void release() {
+            if (references.decrementAndGet() == 0) {
+                // otherwise the mapping, and the disk space of the deleted file, is only released when the buffer is garbage collected
+                PlatformDependent.freeDirectBuffer(buffer);
+                if (!file.delete()) {
+                    logger.debug("failed to delete log entry segment file " + file);
+                }
+            }
+        }
+
+        private void delete() {
+            if (!deleted) {
+                deleted = true;
+                release();
+            }
+        }
+    }
+
+    private class ReadingIterator implements Iterator<LogEntry> {
+        private final Iterator<StoredLogEntry> iterator;
+
+        private ReadingIterator(Iterator<StoredLogEntry> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public LogEntry next() {
+            return read(iterator.next());
+        }
+    }
+}
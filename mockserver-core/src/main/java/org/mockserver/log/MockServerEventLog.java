@@ -1,15 +1,17 @@
 package org.mockserver.log;
 
+import com.google.common.collect.Lists;
 import com.lmax.disruptor.ExceptionHandler;
 import com.lmax.disruptor.dsl.Disruptor;
-import org.mockserver.collections.CircularConcurrentLinkedDeque;
 import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
 import org.mockserver.matchers.HttpRequestMatcher;
 import org.mockserver.matchers.MatcherBuilder;
+import org.mockserver.metrics.Metrics;
 import org.mockserver.mock.Expectation;
 import org.mockserver.mock.listeners.MockServerEventLogNotifier;
+import org.mockserver.model.HttpRequest;
 import org.mockserver.model.LogEventRequestAndResponse;
 import org.mockserver.model.RequestDefinition;
 import org.mockserver.scheduler.Scheduler;
@@ -21,18 +23,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
 
+import java.io.File;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -40,6 +41,7 @@ import static org.mockserver.log.model.LogEntry.LogMessageType.*;
 import static org.mockserver.log.model.LogEntryMessages.VERIFICATION_REQUESTS_MESSAGE_FORMAT;
 import static org.mockserver.log.model.LogEntryMessages.VERIFICATION_REQUEST_SEQUENCES_MESSAGE_FORMAT;
 import static org.mockserver.logging.MockServerLogger.writeToSystemOut;
+import static org.mockserver.metrics.Metrics.Timer.LOG_APPEND;
 import static org.mockserver.mock.HttpState.getPort;
 import static org.mockserver.model.HttpRequest.request;
 
@@ -49,6 +51,14 @@ import static org.mockserver.model.HttpRequest.request;
 public class MockServerEventLog extends MockServerEventLogNotifier {
 
     private static final Logger logger = LoggerFactory.getLogger(MockServerEventLog.class);
+    private static final EnumSet<LogEntry.LogMessageType> TRUNCATED_BODY_TYPES = EnumSet.of(
+        RECEIVED_REQUEST,
+        EXPECTATION_RESPONSE,
+        EXPECTATION_MATCHED,
+        EXPECTATION_NOT_MATCHED,
+        NO_MATCH_RESPONSE,
+        FORWARDED_REQUEST
+    );
     private static final Predicate<LogEntry> allPredicate = input
         -> true;
     private static final Predicate<LogEntry> notDeletedPredicate = input
@@ -63,6 +73,9 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
     );
     private static final Predicate<LogEntry> recordedExpectationLogPredicate = input
         -> !input.isDeleted() && input.getType() == FORWARDED_REQUEST;
+    private static final EnumSet<LogEntry.LogMessageType> REQUEST_LOG_TYPES = EnumSet.of(RECEIVED_REQUEST);
+    private static final EnumSet<LogEntry.LogMessageType> REQUEST_RESPONSE_LOG_TYPES = EnumSet.of(EXPECTATION_RESPONSE, NO_MATCH_RESPONSE, FORWARDED_REQUEST);
+    private static final EnumSet<LogEntry.LogMessageType> RECORDED_EXPECTATION_LOG_TYPES = EnumSet.of(FORWARDED_REQUEST);
     private static final Function<LogEntry, RequestDefinition[]> logEntryToRequest = LogEntry::getHttpRequests;
     private static final Function<LogEntry, Expectation> logEntryToExpectation = LogEntry::getExpectation;
     private static final Function<LogEntry, LogEventRequestAndResponse> logEntryToHttpRequestAndHttpResponse =
@@ -70,13 +83,26 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
             .withHttpRequest(logEntry.getHttpRequest())
             .withHttpResponse(logEntry.getHttpResponse())
             .withTimestamp(logEntry.getTimestamp());
-    private static final String[] EXCLUDED_FIELDS = {"id", "disruptor"};
+    private static final String[] EXCLUDED_FIELDS = {"id", "disruptor", "queryExecutor", "queryPermits", "peerEventLogs"};
+    private static final int QUERY_THREAD_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
     private MockServerLogger mockServerLogger;
-    private CircularConcurrentLinkedDeque<LogEntry> eventLog = new CircularConcurrentLinkedDeque<>(ConfigurationProperties.maxLogEntries(), LogEntry::clear);
+    private final LogEntryStore eventLog;
+    private final LogEntryIndex logEntryIndex = new LogEntryIndex();
     private MatcherBuilder matcherBuilder;
     private RequestDefinitionSerializer requestDefinitionSerializer;
     private final boolean asynchronousEventProcessing;
     private Disruptor<LogEntry> disruptor;
+    private volatile PeerEventLogs peerEventLogs;
+    private final int queryQueueSize = ConfigurationProperties.controlPlaneQueueSize();
+    private final ThreadPoolExecutor queryExecutor = new ThreadPoolExecutor(
+        QUERY_THREAD_COUNT,
+        QUERY_THREAD_COUNT,
+        60, SECONDS,
+        new LinkedBlockingQueue<>(queryQueueSize),
+        new Scheduler.SchedulerThreadFactory("EventLogQuery")
+    );
+    // acquired when a query is submitted and released once it has run, so queries are rejected before they are published
+    private final Semaphore queryPermits = new Semaphore(QUERY_THREAD_COUNT + queryQueueSize);
 
     public MockServerEventLog(MockServerLogger mockServerLogger, Scheduler scheduler, boolean asynchronousEventProcessing) {
         super(scheduler);
@@ -84,6 +110,12 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
         this.matcherBuilder = new MatcherBuilder(mockServerLogger);
         this.requestDefinitionSerializer = new RequestDefinitionSerializer(mockServerLogger);
         this.asynchronousEventProcessing = asynchronousEventProcessing;
+        this.queryExecutor.allowCoreThreadTimeOut(true);
+        if (ConfigurationProperties.memoryMappedLogEntries()) {
+            this.eventLog = new MemoryMappedLogEntryStore(ConfigurationProperties.maxLogEntries(), new File(ConfigurationProperties.memoryMappedLogEntriesDirectory()), logEntry -> logEntryIndex.remove(logEntry.id()));
+        } else {
+            this.eventLog = new InMemoryLogEntryStore(ConfigurationProperties.maxLogEntries(), logEntry -> logEntryIndex.remove(logEntry.id()));
+        }
         startRingBuffer();
     }
 
@@ -101,10 +133,44 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
         }
     }
 
+    /**
+     * Records that the expectation matched the received request, matches are recorded at every log level so verifying
+     * by expectation id doesn't depend on the log level
+     */
+    public void matched(HttpRequest request, Expectation expectation) {
+        String correlationId = request.getLogCorrelationId();
+        String expectationId = expectation.getId();
+        if (correlationId == null || expectationId == null) {
+            // a request without a correlation id was never logged as received, so can't be counted
+            return;
+        }
+        if (asynchronousEventProcessing) {
+            // published after the received request so it is indexed before the match is recorded
+            disruptor.getRingBuffer().tryPublishEvent(new LogEntry()
+                .setType(RUNNABLE)
+                .setConsumer(() -> logEntryIndex.matched(correlationId, expectationId))
+            );
+        } else {
+            logEntryIndex.matched(correlationId, expectationId);
+        }
+    }
+
     public int size() {
         return eventLog.size();
     }
 
+    public long retainedHeapBytes() {
+        return eventLog.retainedHeapBytes();
+    }
+
+    /**
+     * Includes the log entries of the other instances in a cluster when retrieving requests, requests and responses
+     * and when verifying requests, entries from every instance are merged by timestamp
+     */
+    public void setPeerEventLogs(PeerEventLogs peerEventLogs) {
+        this.peerEventLogs = peerEventLogs;
+    }
+
     public void setMaxSize(int maxSize) {
         eventLog.setMaxSize(maxSize);
     }
@@ -142,8 +208,15 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
     }
 
     private void processLogEntry(LogEntry logEntry) {
+        long appendStartTime = System.nanoTime();
         logEntry = logEntry.cloneAndClear();
-        eventLog.add(logEntry);
+        if (ConfigurationProperties.maxLogEntryBodySize() < Integer.MAX_VALUE && TRUNCATED_BODY_TYPES.contains(logEntry.getType())) {
+            logEntry.truncateBodies(ConfigurationProperties.maxLogEntryBodySize());
+        }
+        if (eventLog.add(logEntry)) {
+            logEntryIndex.add(logEntry);
+        }
+        Metrics.record(LOG_APPEND, System.nanoTime() - appendStartTime);
         notifyListeners(this, false);
         writeToSystemOut(logger, logEntry);
     }
@@ -152,7 +225,9 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
         try {
             notifyListeners(this, true);
             eventLog.clear();
+            logEntryIndex.clear();
             disruptor.shutdown(2, SECONDS);
+            queryExecutor.shutdown();
         } catch (Throwable throwable) {
             if (!(throwable instanceof com.lmax.disruptor.TimeoutException)) {
                 if (MockServerLogger.isEnabled(Level.WARN)) {
@@ -167,11 +242,25 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
     }
 
     public void reset() {
+        resetLocal();
+        PeerEventLogs peerEventLogs = this.peerEventLogs;
+        if (peerEventLogs != null) {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            peerEventLogs.reset(() -> future.complete("done"));
+            awaitPeers(future);
+        }
+    }
+
+    /**
+     * Clears all log entries only on this instance
+     */
+    public void resetLocal() {
         CompletableFuture<String> future = new CompletableFuture<>();
         disruptor.publishEvent(new LogEntry()
             .setType(RUNNABLE)
             .setConsumer(() -> {
                 eventLog.clear();
+                logEntryIndex.clear();
                 future.complete("done");
                 notifyListeners(this, false);
             })
@@ -183,58 +272,88 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
     }
 
     public void clear(RequestDefinition requestDefinition) {
+        clearLocal(requestDefinition);
+        PeerEventLogs peerEventLogs = this.peerEventLogs;
+        if (peerEventLogs != null) {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            peerEventLogs.clear(requestDefinition, () -> future.complete("done"));
+            awaitPeers(future);
+        }
+    }
+
+    /**
+     * Clears the log entries matching the request definition only on this instance
+     */
+    public void clearLocal(RequestDefinition requestDefinition) {
         CompletableFuture<String> future = new CompletableFuture<>();
         final boolean markAsDeletedOnly = MockServerLogger.isEnabled(Level.INFO);
-        disruptor.publishEvent(new LogEntry()
-            .setType(RUNNABLE)
-            .setConsumer(() -> {
-                String logCorrelationId = UUIDService.getUUID();
-                RequestDefinition matcher = requestDefinition != null ? requestDefinition : request().withLogCorrelationId(logCorrelationId);
-                HttpRequestMatcher requestMatcher = matcherBuilder.transformsToMatcher(matcher);
-                for (LogEntry logEntry : new LinkedList<>(eventLog)) {
-                    RequestDefinition[] requests = logEntry.getHttpRequests();
-                    boolean matches = false;
-                    if (requests != null) {
-                        for (RequestDefinition request : requests) {
-                            if (requestMatcher.matches(request.cloneWithLogCorrelationId())) {
-                                matches = true;
-                            }
+        readSnapshot(null, requestDefinition, logEntries -> {
+            String logCorrelationId = UUIDService.getUUID();
+            RequestDefinition matcher = requestDefinition != null ? requestDefinition : request().withLogCorrelationId(logCorrelationId);
+            HttpRequestMatcher requestMatcher = matcherBuilder.transformsToMatcher(matcher);
+            List<LogEntry> matchingLogEntries = new ArrayList<>();
+            for (LogEntry logEntry : logEntries) {
+                RequestDefinition[] requests = logEntry.getHttpRequests();
+                boolean matches = false;
+                if (requests != null) {
+                    for (RequestDefinition request : requests) {
+                        if (requestMatcher.matches(request.cloneWithLogCorrelationId())) {
+                            matches = true;
                         }
-                    } else {
-                        matches = true;
                     }
-                    if (matches) {
+                } else {
+                    matches = true;
+                }
+                if (matches) {
+                    matchingLogEntries.add(logEntry);
+                }
+            }
+            // entries are only modified on the ring buffer thread
+            disruptor.publishEvent(new LogEntry()
+                .setType(RUNNABLE)
+                .setConsumer(() -> {
+                    for (LogEntry logEntry : matchingLogEntries) {
                         if (markAsDeletedOnly) {
-                            logEntry.setDeleted(true);
+                            eventLog.markDeleted(logEntry);
+                            logEntryIndex.markDeleted(logEntry.id());
                         } else {
-                            eventLog.removeItem(logEntry);
+                            eventLog.remove(logEntry);
                         }
                     }
-                }
-                if (MockServerLogger.isEnabled(Level.INFO)) {
-                    mockServerLogger.logEvent(
-                        new LogEntry()
-                            .setType(CLEARED)
-                            .setLogLevel(Level.INFO)
-                            .setCorrelationId(logCorrelationId)
-                            .setHttpRequest(requestDefinition)
-                            .setMessageFormat("cleared logs that match:{}")
-                            .setArguments((requestDefinition == null ? "{}" : requestDefinition))
-                    );
-                }
-                future.complete("done");
-                notifyListeners(this, false);
-            })
-        );
+                    if (MockServerLogger.isEnabled(Level.INFO)) {
+                        mockServerLogger.logEvent(
+                            new LogEntry()
+                                .setType(CLEARED)
+                                .setLogLevel(Level.INFO)
+                                .setCorrelationId(logCorrelationId)
+                                .setHttpRequest(requestDefinition)
+                                .setMessageFormat("cleared logs that match:{}")
+                                .setArguments((requestDefinition == null ? "{}" : requestDefinition))
+                        );
+                    }
+                    future.complete("done");
+                    notifyListeners(this, false);
+                })
+            );
+        });
         try {
             future.get(2, SECONDS);
         } catch (ExecutionException | InterruptedException | TimeoutException ignore) {
         }
     }
 
+    private void awaitPeers(CompletableFuture<String> future) {
+        try {
+            // the peers complete the future within the log query timeout, even if they don't respond
+            future.get(ConfigurationProperties.clusterLogQueryTimeout() + SECONDS.toMillis(2), MILLISECONDS);
+        } catch (ExecutionException | InterruptedException | TimeoutException ignore) {
+        }
+    }
+
     public void retrieveMessageLogEntries(RequestDefinition requestDefinition, Consumer<List<LogEntry>> listConsumer) {
         retrieveLogEntries(
             requestDefinition,
+            null,
             notDeletedPredicate,
             (Stream<LogEntry> logEventStream) -> listConsumer.accept(logEventStream.filter(Objects::nonNull).collect(Collectors.toList()))
         );
@@ -243,22 +362,89 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
     public void retrieveMessageLogEntriesIncludingDeleted(RequestDefinition requestDefinition, Consumer<List<LogEntry>> listConsumer) {
         retrieveLogEntries(
             requestDefinition,
+            null,
             allPredicate,
             (Stream<LogEntry> logEventStream) -> listConsumer.accept(logEventStream.filter(Objects::nonNull).collect(Collectors.toList()))
         );
     }
 
     public void retrieveRequestLogEntries(RequestDefinition requestDefinition, Consumer<List<LogEntry>> listConsumer) {
-        retrieveLogEntries(
-            requestDefinition,
-            requestLogPredicate,
-            (Stream<LogEntry> logEventStream) -> listConsumer.accept(logEventStream.filter(Objects::nonNull).collect(Collectors.toList()))
-        );
+        retrieveRequestLogEntries(Collections.singletonList(requestDefinition), (logEntries, missingNodeIds) -> listConsumer.accept(logEntries));
+    }
+
+    /**
+     * Retrieves the received request log entries matching any of the request definitions from every instance, with the
+     * ids of the instances whose log entries couldn't be retrieved
+     */
+    private void retrieveRequestLogEntries(List<RequestDefinition> requestDefinitions, BiConsumer<List<LogEntry>, Set<String>> listConsumer) {
+        PeerEventLogs peerEventLogs = this.peerEventLogs;
+        if (peerEventLogs != null) {
+            retrieveLocalRequestLogEntries(requestDefinitions, localLogEntries ->
+                peerEventLogs.retrieveRequestLogEntries(requestDefinitions, peerLogEntries -> listConsumer.accept(mergeByTimestamp(localLogEntries, peerLogEntries.getLogEntries()), peerLogEntries.getMissingNodeIds()))
+            );
+        } else {
+            retrieveLocalRequestLogEntries(requestDefinitions, logEntries -> listConsumer.accept(logEntries, Collections.emptySet()));
+        }
+    }
+
+    /**
+     * Retrieves the received request log entries, only from this instance, that match any of the request definitions
+     */
+    public void retrieveLocalRequestLogEntries(List<RequestDefinition> requestDefinitions, Consumer<List<LogEntry>> listConsumer) {
+        if (requestDefinitions.size() == 1) {
+            retrieveLogEntries(
+                requestDefinitions.get(0),
+                REQUEST_LOG_TYPES,
+                requestLogPredicate,
+                (Stream<LogEntry> logEventStream) -> listConsumer.accept(logEventStream.filter(Objects::nonNull).collect(Collectors.toList()))
+            );
+        } else {
+            readSnapshot(REQUEST_LOG_TYPES, null, logEntries -> {
+                // a null request definition matches every request
+                List<HttpRequestMatcher> httpRequestMatchers = requestDefinitions.contains(null) ? Collections.emptyList() : requestDefinitions
+                    .stream()
+                    .map(matcherBuilder::transformsToMatcher)
+                    .collect(Collectors.toList());
+                listConsumer.accept(logEntries
+                    .stream()
+                    .filter(requestLogPredicate)
+                    .filter(logItem -> httpRequestMatchers.isEmpty() || httpRequestMatchers.stream().anyMatch(logItem::matches))
+                    .collect(Collectors.toList())
+                );
+            });
+        }
+    }
+
+    private static List<LogEntry> mergeByTimestamp(List<LogEntry> localLogEntries, List<LogEntry> peerLogEntries) {
+        if (peerLogEntries.isEmpty()) {
+            return localLogEntries;
+        }
+        List<LogEntry> logEntries = new ArrayList<>(localLogEntries.size() + peerLogEntries.size());
+        logEntries.addAll(localLogEntries);
+        logEntries.addAll(peerLogEntries);
+        // stable sort so entries with the same timestamp stay in the order they were logged
+        logEntries.sort(Comparator.comparingLong(LogEntry::getEpochTime));
+        return logEntries;
+    }
+
+    private static List<RequestDefinition> toRequests(List<LogEntry> logEntries) {
+        return logEntries
+            .stream()
+            .map(logEntryToRequest)
+            .filter(Objects::nonNull)
+            .flatMap(Arrays::stream)
+            .collect(Collectors.toList());
     }
 
     public void retrieveRequests(RequestDefinition requestDefinition, Consumer<List<RequestDefinition>> listConsumer) {
+        if (peerEventLogs != null) {
+            RequestDefinition requestDefinitionMatcher = requestDefinition != null ? requestDefinition : request().withLogCorrelationId(UUIDService.getUUID());
+            retrieveRequestLogEntries(requestDefinitionMatcher, logEntries -> listConsumer.accept(toRequests(logEntries)));
+            return;
+        }
         retrieveLogEntries(
             requestDefinition,
+            REQUEST_LOG_TYPES,
             requestLogPredicate,
             logEntryToRequest,
             logEventStream -> listConsumer.accept(
@@ -271,16 +457,43 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
     }
 
     public void retrieveRequestResponseMessageLogEntries(RequestDefinition requestDefinition, Consumer<List<LogEntry>> listConsumer) {
+        PeerEventLogs peerEventLogs = this.peerEventLogs;
+        if (peerEventLogs != null) {
+            retrieveLocalRequestResponseLogEntries(requestDefinition, localLogEntries ->
+                peerEventLogs.retrieveRequestResponseLogEntries(requestDefinition, peerLogEntries -> listConsumer.accept(mergeByTimestamp(localLogEntries, peerLogEntries.getLogEntries())))
+            );
+        } else {
+            retrieveLocalRequestResponseLogEntries(requestDefinition, listConsumer);
+        }
+    }
+
+    /**
+     * Retrieves the request and response log entries, only from this instance, that match the request definition
+     */
+    public void retrieveLocalRequestResponseLogEntries(RequestDefinition requestDefinition, Consumer<List<LogEntry>> listConsumer) {
         retrieveLogEntries(
             requestDefinition,
+            REQUEST_RESPONSE_LOG_TYPES,
             requestResponseLogPredicate,
             (Stream<LogEntry> logEventStream) -> listConsumer.accept(logEventStream.filter(Objects::nonNull).collect(Collectors.toList()))
         );
     }
 
     public void retrieveRequestResponses(RequestDefinition requestDefinition, Consumer<List<LogEventRequestAndResponse>> listConsumer) {
+        if (peerEventLogs != null) {
+            RequestDefinition requestDefinitionMatcher = requestDefinition != null ? requestDefinition : request().withLogCorrelationId(UUIDService.getUUID());
+            retrieveRequestResponseMessageLogEntries(requestDefinitionMatcher, logEntries -> listConsumer.accept(
+                logEntries
+                    .stream()
+                    .map(logEntryToHttpRequestAndHttpResponse)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList())
+            ));
+            return;
+        }
         retrieveLogEntries(
             requestDefinition,
+            REQUEST_RESPONSE_LOG_TYPES,
             requestResponseLogPredicate,
             logEntryToHttpRequestAndHttpResponse,
             logEventStream -> listConsumer.accept(logEventStream.filter(Objects::nonNull).collect(Collectors.toList()))
@@ -290,6 +503,7 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
     public void retrieveRecordedExpectationLogEntries(RequestDefinition requestDefinition, Consumer<List<LogEntry>> listConsumer) {
         retrieveLogEntries(
             requestDefinition,
+            RECORDED_EXPECTATION_LOG_TYPES,
             recordedExpectationLogPredicate,
             (Stream<LogEntry> logEventStream) -> listConsumer.accept(logEventStream.filter(Objects::nonNull).collect(Collectors.toList()))
         );
@@ -298,58 +512,95 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
     public void retrieveRecordedExpectations(RequestDefinition requestDefinition, Consumer<List<Expectation>> listConsumer) {
         retrieveLogEntries(
             requestDefinition,
+            RECORDED_EXPECTATION_LOG_TYPES,
             recordedExpectationLogPredicate,
             logEntryToExpectation,
             logEventStream -> listConsumer.accept(logEventStream.filter(Objects::nonNull).collect(Collectors.toList()))
         );
     }
 
-    private void retrieveLogEntries(RequestDefinition requestDefinition, Predicate<LogEntry> logEntryPredicate, Consumer<Stream<LogEntry>> consumer) {
-        disruptor.publishEvent(new LogEntry()
-            .setType(RUNNABLE)
-            .setConsumer(() -> {
-                HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(requestDefinition);
-                consumer.accept(this.eventLog
-                    .stream()
-                    .filter(logItem -> logItem.matches(httpRequestMatcher))
-                    .filter(logEntryPredicate)
-                );
-            })
-        );
+    private void retrieveLogEntries(RequestDefinition requestDefinition, Set<LogEntry.LogMessageType> types, Predicate<LogEntry> logEntryPredicate, Consumer<Stream<LogEntry>> consumer) {
+        readSnapshot(types, requestDefinition, logEntries -> {
+            HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(requestDefinition);
+            consumer.accept(logEntries
+                .stream()
+                .filter(logItem -> logItem.matches(httpRequestMatcher))
+                .filter(logEntryPredicate)
+            );
+        });
     }
 
-    private <T> void retrieveLogEntries(RequestDefinition requestDefinition, Predicate<LogEntry> logEntryPredicate, Function<LogEntry, T> logEntryMapper, Consumer<Stream<T>> consumer) {
-        disruptor.publishEvent(new LogEntry()
-            .setType(RUNNABLE)
-            .setConsumer(() -> {
-                RequestDefinition requestDefinitionMatcher = requestDefinition != null ? requestDefinition : request().withLogCorrelationId(UUIDService.getUUID());
-                HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(requestDefinitionMatcher);
-                consumer.accept(this.eventLog
+    private <T> void retrieveLogEntries(RequestDefinition requestDefinition, Set<LogEntry.LogMessageType> types, Predicate<LogEntry> logEntryPredicate, Function<LogEntry, T> logEntryMapper, Consumer<Stream<T>> consumer) {
+        readSnapshot(types, requestDefinition, logEntries -> {
+            RequestDefinition requestDefinitionMatcher = requestDefinition != null ? requestDefinition : request().withLogCorrelationId(UUIDService.getUUID());
+            HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(requestDefinitionMatcher);
+            consumer.accept(logEntries
+                .stream()
+                .filter(logItem -> logItem.matches(httpRequestMatcher))
+                .filter(logEntryPredicate)
+                .map(logEntryMapper)
+            );
+        });
+    }
+
+    public <T> void retrieveLogEntriesInReverseForUI(RequestDefinition requestDefinition, Predicate<LogEntry> logEntryPredicate, Function<LogEntry, T> logEntryMapper, Consumer<Stream<T>> consumer) {
+        readSnapshot(null, requestDefinition, logEntries -> {
+            HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(requestDefinition);
+            consumer.accept(
+                Lists.reverse(logEntries)
                     .stream()
                     .filter(logItem -> logItem.matches(httpRequestMatcher))
                     .filter(logEntryPredicate)
                     .map(logEntryMapper)
-                );
-            })
-        );
+            );
+        });
     }
 
-    public <T> void retrieveLogEntriesInReverseForUI(RequestDefinition requestDefinition, Predicate<LogEntry> logEntryPredicate, Function<LogEntry, T> logEntryMapper, Consumer<Stream<T>> consumer) {
+    /**
+     * The snapshot is taken on the ring buffer thread, so it contains every entry published before this call, without
+     * copying the log, and is then filtered and read on the query executor, so matching a large log doesn't block log
+     * entries being added, the snapshot is released once the consumer returns so the consumer must read the entries it
+     * needs before returning
+     *
+     * @throws RejectedExecutionException if too many queries are already waiting for the query executor
+     */
+    private void readSnapshot(Set<LogEntry.LogMessageType> types, RequestDefinition requestDefinition, Consumer<List<LogEntry>> snapshotConsumer) {
+        acquireQueryPermit();
         disruptor.publishEvent(new LogEntry()
             .setType(RUNNABLE)
             .setConsumer(() -> {
-                HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(requestDefinition);
-                consumer.accept(
-                    StreamSupport
-                        .stream(Spliterators.spliteratorUnknownSize(this.eventLog.descendingIterator(), 0), false)
-                        .filter(logItem -> logItem.matches(httpRequestMatcher))
-                        .filter(logEntryPredicate)
-                        .map(logEntryMapper)
-                );
+                List<LogEntry> logEntries = eventLog.snapshot(logEntryIndex.candidates(types, requestDefinition).orElse(null));
+                executeQuery(() -> {
+                    try {
+                        snapshotConsumer.accept(logEntries);
+                    } finally {
+                        eventLog.releaseSnapshot(logEntries);
+                    }
+                });
             })
         );
     }
 
+    private void acquireQueryPermit() {
+        if (!queryPermits.tryAcquire()) {
+            throw new RejectedExecutionException("too many event log queries in progress");
+        }
+    }
+
+    /**
+     * Runs a query, for which a permit has been acquired, on the query executor, the executor can't reject it as
+     * there are never more permits than threads and queue capacity
+     */
+    private void executeQuery(Runnable query) {
+        queryExecutor.execute(() -> {
+            try {
+                query.run();
+            } finally {
+                queryPermits.release();
+            }
+        });
+    }
+
     public Future<String> verify(Verification verification) {
         CompletableFuture<String> result = new CompletableFuture<>();
         verify(verification, result::complete);
@@ -370,8 +621,17 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
                         .setArguments(verification)
                 );
             }
-            retrieveRequests(verification.getHttpRequest().withLogCorrelationId(logCorrelationId), httpRequests -> {
+            if (verification.getHttpRequest() == null && verification.getExpectationId() != null) {
+                verifyMatchedRequestCount(verification, logCorrelationId, resultConsumer);
+                return;
+            }
+            retrieveRequestLogEntries(Collections.singletonList(verification.getHttpRequest().withLogCorrelationId(logCorrelationId)), (logEntries, missingNodeIds) -> {
                 try {
+                    if (!missingNodeIds.isEmpty()) {
+                        notVerified("Request not verified, " + missingInstancesMessage(missingNodeIds), logCorrelationId, resultConsumer);
+                        return;
+                    }
+                    List<RequestDefinition> httpRequests = toRequests(logEntries);
                     if (!verification.getTimes().matches(httpRequests.size())) {
                         retrieveRequests(null, allRequests -> {
                             String failureMessage;
@@ -423,6 +683,74 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
         }
     }
 
+    /**
+     * verifies the number of received requests matched by the expectation using the count held by the index, instead of
+     * matching every request in the log
+     */
+    private void verifyMatchedRequestCount(Verification verification, String logCorrelationId, Consumer<String> resultConsumer) {
+        String expectationId = verification.getExpectationId().getId();
+        retrieveMatchedRequestCount(expectationId, (matchedRequestCount, missingNodeIds) -> {
+            if (!missingNodeIds.isEmpty()) {
+                notVerified("Request not verified, " + missingInstancesMessage(missingNodeIds), logCorrelationId, resultConsumer);
+            } else if (!verification.getTimes().matches(matchedRequestCount)) {
+                String failureMessage = "Request not found " + verification.getTimes() + " for expectation:<" + expectationId + "> but was found " + matchedRequestCount + " times";
+                if (MockServerLogger.isEnabled(Level.INFO)) {
+                    mockServerLogger.logEvent(
+                        new LogEntry()
+                            .setType(VERIFICATION_FAILED)
+                            .setLogLevel(Level.INFO)
+                            .setCorrelationId(logCorrelationId)
+                            .setMessageFormat("request not found " + verification.getTimes() + " for expectation:{}but was found " + matchedRequestCount + " times")
+                            .setArguments(expectationId)
+                    );
+                }
+                resultConsumer.accept(failureMessage);
+            } else {
+                if (MockServerLogger.isEnabled(Level.INFO)) {
+                    mockServerLogger.logEvent(
+                        new LogEntry()
+                            .setType(VERIFICATION_PASSED)
+                            .setLogLevel(Level.INFO)
+                            .setCorrelationId(logCorrelationId)
+                            .setMessageFormat("request for expectation:{}found " + verification.getTimes())
+                            .setArguments(expectationId)
+                    );
+                }
+                resultConsumer.accept("");
+            }
+        });
+    }
+
+    /**
+     * Retrieves the number of requests matched by the expectation on every instance, with the ids of the instances
+     * whose count couldn't be retrieved
+     */
+    private void retrieveMatchedRequestCount(String expectationId, BiConsumer<Integer, Set<String>> countConsumer) {
+        PeerEventLogs peerEventLogs = this.peerEventLogs;
+        if (peerEventLogs != null) {
+            retrieveLocalMatchedRequestCount(expectationId, localCount ->
+                peerEventLogs.retrieveMatchedRequestCount(expectationId, (peerCount, missingNodeIds) -> countConsumer.accept(localCount + peerCount, missingNodeIds))
+            );
+        } else {
+            retrieveLocalMatchedRequestCount(expectationId, count -> countConsumer.accept(count, Collections.emptySet()));
+        }
+    }
+
+    /**
+     * Retrieves the number of requests matched by the expectation, only on this instance, the count is read on the ring
+     * buffer thread so it includes every request and match published before this call
+     */
+    public void retrieveLocalMatchedRequestCount(String expectationId, Consumer<Integer> countConsumer) {
+        acquireQueryPermit();
+        disruptor.publishEvent(new LogEntry()
+            .setType(RUNNABLE)
+            .setConsumer(() -> {
+                int matchedRequestCount = logEntryIndex.matchedRequestCount(expectationId);
+                executeQuery(() -> countConsumer.accept(matchedRequestCount));
+            })
+        );
+    }
+
     public Future<String> verify(VerificationSequence verification) {
         CompletableFuture<String> result = new CompletableFuture<>();
         verify(verification, result::complete);
@@ -431,79 +759,136 @@ public class MockServerEventLog extends MockServerEventLogNotifier {
 
     public void verify(VerificationSequence verificationSequence, Consumer<String> resultConsumer) {
         final String logCorrelationId = UUIDService.getUUID();
-        retrieveRequests(null, allRequests -> {
-            try {
-                if (verificationSequence != null) {
-                    if (MockServerLogger.isEnabled(Level.INFO)) {
-                        mockServerLogger.logEvent(
-                            new LogEntry()
-                                .setType(VERIFICATION)
-                                .setLogLevel(Level.INFO)
-                                .setCorrelationId(logCorrelationId)
-                                .setHttpRequests(verificationSequence.getHttpRequests().toArray(new RequestDefinition[0]))
-                                .setMessageFormat(VERIFICATION_REQUEST_SEQUENCES_MESSAGE_FORMAT)
-                                .setArguments(verificationSequence)
-                        );
+        if (peerEventLogs != null && verificationSequence != null) {
+            // only requests matching the sequence are returned by each instance, all requests are only retrieved for the failure message
+            List<RequestDefinition> requestDefinitions = verificationSequence
+                .getHttpRequests()
+                .stream()
+                .filter(Objects::nonNull)
+                .map(requestDefinition -> requestDefinition.withLogCorrelationId(logCorrelationId))
+                .collect(Collectors.toList());
+            retrieveRequestLogEntries(requestDefinitions, (logEntries, missingNodeIds) -> {
+                if (!missingNodeIds.isEmpty()) {
+                    notVerified("Request sequence not verified, " + missingInstancesMessage(missingNodeIds), logCorrelationId, resultConsumer);
+                    return;
+                }
+                List<RequestDefinition> matchingRequests = toRequests(logEntries);
+                boolean sequenceFound;
+                try {
+                    sequenceFound = sequenceFound(verificationSequence, logCorrelationId, matchingRequests);
+                } catch (Throwable throwable) {
+                    sequenceFound = false;
+                }
+                if (sequenceFound) {
+                    verify(verificationSequence, logCorrelationId, matchingRequests, resultConsumer);
+                } else {
+                    try {
+                        retrieveRequests(null, allRequests -> verify(verificationSequence, logCorrelationId, allRequests, resultConsumer));
+                    } catch (RejectedExecutionException ree) {
+                        notVerified("Request sequence not verified, " + ree.getMessage(), logCorrelationId, resultConsumer);
                     }
-                    String failureMessage = "";
-                    int requestLogCounter = 0;
-                    for (RequestDefinition verificationHttpRequest : verificationSequence.getHttpRequests()) {
-                        if (verificationHttpRequest != null) {
-                            verificationHttpRequest.withLogCorrelationId(logCorrelationId);
-                            HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(verificationHttpRequest);
-                            boolean foundRequest = false;
-                            for (; !foundRequest && requestLogCounter < allRequests.size(); requestLogCounter++) {
-                                if (httpRequestMatcher.matches(allRequests.get(requestLogCounter).cloneWithLogCorrelationId())) {
-                                    // move on to next request
-                                    foundRequest = true;
-                                }
-                            }
-                            if (!foundRequest) {
-                                String serializedRequestToBeVerified = requestDefinitionSerializer.serialize(true, verificationSequence.getHttpRequests());
-                                String serializedAllRequestInLog = allRequests.size() == 1 ? requestDefinitionSerializer.serialize(true, allRequests.get(0)) : requestDefinitionSerializer.serialize(true, allRequests);
-                                failureMessage = "Request sequence not found, expected:<" + serializedRequestToBeVerified + "> but was:<" + serializedAllRequestInLog + ">";
-                                final Object[] arguments = new Object[]{verificationSequence.getHttpRequests(), allRequests.size() == 1 ? allRequests.get(0) : allRequests};
-                                if (MockServerLogger.isEnabled(Level.INFO)) {
-                                    mockServerLogger.logEvent(
-                                        new LogEntry()
-                                            .setType(VERIFICATION_FAILED)
-                                            .setLogLevel(Level.INFO)
-                                            .setCorrelationId(logCorrelationId)
-                                            .setHttpRequests(verificationSequence.getHttpRequests().toArray(new RequestDefinition[0]))
-                                            .setMessageFormat("request sequence not found, expected:{}but was:{}")
-                                            .setArguments(arguments)
-                                    );
-                                }
-                                break;
-                            }
-                        }
+                }
+            });
+        } else {
+            retrieveRequests(null, allRequests -> verify(verificationSequence, logCorrelationId, allRequests, resultConsumer));
+        }
+    }
+
+    private static String missingInstancesMessage(Set<String> missingNodeIds) {
+        return "the event log of cluster instances " + missingNodeIds + " could not be retrieved, every instance must be connected to every other instance and respond within the log query timeout";
+    }
+
+    private void notVerified(String failureMessage, String logCorrelationId, Consumer<String> resultConsumer) {
+        if (MockServerLogger.isEnabled(Level.INFO)) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setType(VERIFICATION_FAILED)
+                    .setLogLevel(Level.INFO)
+                    .setCorrelationId(logCorrelationId)
+                    .setMessageFormat(failureMessage)
+            );
+        }
+        resultConsumer.accept(failureMessage);
+    }
+
+    private boolean sequenceFound(VerificationSequence verificationSequence, String logCorrelationId, List<RequestDefinition> allRequests) {
+        int requestLogCounter = 0;
+        for (RequestDefinition verificationHttpRequest : verificationSequence.getHttpRequests()) {
+            if (verificationHttpRequest != null) {
+                verificationHttpRequest.withLogCorrelationId(logCorrelationId);
+                HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(verificationHttpRequest);
+                boolean foundRequest = false;
+                for (; !foundRequest && requestLogCounter < allRequests.size(); requestLogCounter++) {
+                    if (httpRequestMatcher.matches(allRequests.get(requestLogCounter).cloneWithLogCorrelationId())) {
+                        // move on to next request
+                        foundRequest = true;
                     }
-                    if (isBlank(failureMessage) && MockServerLogger.isEnabled(Level.INFO)) {
+                }
+                if (!foundRequest) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void verify(VerificationSequence verificationSequence, String logCorrelationId, List<RequestDefinition> allRequests, Consumer<String> resultConsumer) {
+        try {
+            if (verificationSequence != null) {
+                if (MockServerLogger.isEnabled(Level.INFO)) {
+                    mockServerLogger.logEvent(
+                        new LogEntry()
+                            .setType(VERIFICATION)
+                            .setLogLevel(Level.INFO)
+                            .setCorrelationId(logCorrelationId)
+                            .setHttpRequests(verificationSequence.getHttpRequests().toArray(new RequestDefinition[0]))
+                            .setMessageFormat(VERIFICATION_REQUEST_SEQUENCES_MESSAGE_FORMAT)
+                            .setArguments(verificationSequence)
+                    );
+                }
+                String failureMessage = "";
+                if (!sequenceFound(verificationSequence, logCorrelationId, allRequests)) {
+                    String serializedRequestToBeVerified = requestDefinitionSerializer.serialize(true, verificationSequence.getHttpRequests());
+                    String serializedAllRequestInLog = allRequests.size() == 1 ? requestDefinitionSerializer.serialize(true, allRequests.get(0)) : requestDefinitionSerializer.serialize(true, allRequests);
+                    failureMessage = "Request sequence not found, expected:<" + serializedRequestToBeVerified + "> but was:<" + serializedAllRequestInLog + ">";
+                    final Object[] arguments = new Object[]{verificationSequence.getHttpRequests(), allRequests.size() == 1 ? allRequests.get(0) : allRequests};
+                    if (MockServerLogger.isEnabled(Level.INFO)) {
                         mockServerLogger.logEvent(
                             new LogEntry()
-                                .setType(VERIFICATION_PASSED)
+                                .setType(VERIFICATION_FAILED)
                                 .setLogLevel(Level.INFO)
                                 .setCorrelationId(logCorrelationId)
-                                .setMessageFormat("request sequence found:{}")
-                                .setArguments(verificationSequence.getHttpRequests())
+                                .setHttpRequests(verificationSequence.getHttpRequests().toArray(new RequestDefinition[0]))
+                                .setMessageFormat("request sequence not found, expected:{}but was:{}")
+                                .setArguments(arguments)
                         );
                     }
-                    resultConsumer.accept(failureMessage);
-                } else {
-                    resultConsumer.accept("");
                 }
-            } catch (Throwable throwable) {
-                mockServerLogger.logEvent(
-                    new LogEntry()
-                        .setType(EXCEPTION)
-                        .setCorrelationId(logCorrelationId)
-                        .setMessageFormat("exception:{} while processing verification sequence:{}")
-                        .setArguments(throwable.getMessage(), verificationSequence)
-                        .setThrowable(throwable)
-                );
-                resultConsumer.accept("exception while processing verification sequence" + (isNotBlank(throwable.getMessage()) ? " " + throwable.getMessage() : ""));
+                if (isBlank(failureMessage) && MockServerLogger.isEnabled(Level.INFO)) {
+                    mockServerLogger.logEvent(
+                        new LogEntry()
+                            .setType(VERIFICATION_PASSED)
+                            .setLogLevel(Level.INFO)
+                            .setCorrelationId(logCorrelationId)
+                            .setMessageFormat("request sequence found:{}")
+                            .setArguments(verificationSequence.getHttpRequests())
+                    );
+                }
+                resultConsumer.accept(failureMessage);
+            } else {
+                resultConsumer.accept("");
             }
-        });
+        } catch (Throwable throwable) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setType(EXCEPTION)
+                    .setCorrelationId(logCorrelationId)
+                    .setMessageFormat("exception:{} while processing verification sequence:{}")
+                    .setArguments(throwable.getMessage(), verificationSequence)
+                    .setThrowable(throwable)
+            );
+            resultConsumer.accept("exception while processing verification sequence" + (isNotBlank(throwable.getMessage()) ? " " + throwable.getMessage() : ""));
+        }
     }
 
     protected String[] fieldsExcludedFromEqualsAndHashCode() {
@@ -0,0 +1,46 @@
+package org.mockserver.log;
+
+import org.mockserver.model.RequestDefinition;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Queries the event logs of the other instances in a cluster, the request definitions are sent to each instance so
+ * only matching log entries are returned
+ *
+ * @author jamesdbloom
+ */
+public interface PeerEventLogs {
+
+    /**
+     * Retrieves the received request log entries matching any of the request definitions from every other instance
+     */
+    void retrieveRequestLogEntries(List<RequestDefinition> requestDefinitions, Consumer<PeerLogEntries> consumer);
+
+    /**
+     * Retrieves the request and response log entries matching the request definition from every other instance
+     */
+    void retrieveRequestResponseLogEntries(RequestDefinition requestDefinition, Consumer<PeerLogEntries> consumer);
+
+    /**
+     * Retrieves the total number of requests matched by the expectation on every other instance, with the ids of the
+     * instances that didn't return their count
+     */
+    void retrieveMatchedRequestCount(String expectationId, BiConsumer<Integer, Set<String>> consumer);
+
+    /**
+     * Clears the log entries matching the request definition on every other instance, the callback is called once every
+     * instance has cleared its log or hasn't responded
+     */
+    void clear(RequestDefinition requestDefinition, Runnable completionCallback);
+
+    /**
+     * Clears all log entries on every other instance, the callback is called once every instance has cleared its log or
+     * hasn't responded
+     */
+    void reset(Runnable completionCallback);
+
+}
@@ -0,0 +1,38 @@
+package org.mockserver.log;
+
+import org.mockserver.log.model.LogEntry;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The log entries returned by the other instances in a cluster and the instances that didn't return their log entries,
+ * because they didn't respond or aren't connected to this instance
+ *
+ * @author jamesdbloom
+ */
+public class PeerLogEntries {
+
+    private final List<LogEntry> logEntries;
+    private final Set<String> missingNodeIds;
+
+    public PeerLogEntries(List<LogEntry> logEntries, Set<String> missingNodeIds) {
+        this.logEntries = logEntries;
+        this.missingNodeIds = missingNodeIds;
+    }
+
+    public List<LogEntry> getLogEntries() {
+        return logEntries;
+    }
+
+    /**
+     * Node ids, or host:port for configured peers that aren't connected, of the instances missing from the log entries
+     */
+    public Set<String> getMissingNodeIds() {
+        return missingNodeIds;
+    }
+
+    public boolean isComplete() {
+        return missingNodeIds.isEmpty();
+    }
+}
@@ -14,6 +14,9 @@ import org.mockserver.serialization.ObjectMapperFactory;
 import org.mockserver.uuid.UUIDService;
 import org.slf4j.event.Level;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CodingErrorAction;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
@@ -411,6 +414,88 @@ public class LogEntry implements EventTranslator<LogEntry> {
         }
     }
 
+    /**
+     * Truncates request and response bodies, including those in the message arguments, so large uploads
+     * or downloads aren't held in memory for as long as this log entry is retained
+     *
+     * @param maxBodySize maximum number of bytes (or characters for formatted log bodies) to retain for each body, text is cut on a character boundary
+     */
+    public LogEntry truncateBodies(int maxBodySize) {
+        if (httpRequests != null) {
+            RequestDefinition[] truncatedRequests = new RequestDefinition[httpRequests.length];
+            for (int i = 0; i < httpRequests.length; i++) {
+                truncatedRequests[i] = truncateBody(httpRequests[i], maxBodySize);
+            }
+            httpRequests = truncatedRequests;
+        }
+        httpResponse = truncateBody(httpResponse, maxBodySize);
+        if (arguments != null) {
+            arguments = Arrays
+                .stream(arguments)
+                .map(argument -> {
+                    if (argument instanceof RequestDefinition) {
+                        return truncateBody((RequestDefinition) argument, maxBodySize);
+                    } else if (argument instanceof HttpResponse) {
+                        return truncateBody((HttpResponse) argument, maxBodySize);
+                    } else {
+                        return argument;
+                    }
+                })
+                .toArray(Object[]::new);
+        }
+        return this;
+    }
+
+    private RequestDefinition truncateBody(RequestDefinition requestDefinition, int maxBodySize) {
+        if (requestDefinition instanceof HttpRequest) {
+            BodyWithContentType<?> truncatedBody = truncateBody(((HttpRequest) requestDefinition).getBody(), maxBodySize);
+            if (truncatedBody != null) {
+                return ((HttpRequest) requestDefinition).shallowClone().withBody(truncatedBody);
+            }
+        }
+        return requestDefinition;
+    }
+
+    private HttpResponse truncateBody(HttpResponse httpResponse, int maxBodySize) {
+        if (httpResponse != null) {
+            BodyWithContentType<?> truncatedBody = truncateBody(httpResponse.getBody(), maxBodySize);
+            if (truncatedBody != null) {
+                return httpResponse.shallowClone().withBody(truncatedBody);
+            }
+        }
+        return httpResponse;
+    }
+
+    private BodyWithContentType<?> truncateBody(Body<?> body, int maxBodySize) {
+        if (body instanceof LogEntryBody) {
+            String value = String.valueOf(body.getValue());
+            if (value.length() > maxBodySize) {
+                int end = maxBodySize > 0 && Character.isHighSurrogate(value.charAt(maxBodySize - 1)) ? maxBodySize - 1 : maxBodySize;
+                return new LogEntryBody(value.substring(0, end));
+            }
+        } else if (body instanceof BodyWithContentType) {
+            byte[] rawBytes = body.getRawBytes();
+            if (rawBytes != null && rawBytes.length > maxBodySize) {
+                MediaType contentType = isNotBlank(body.getContentType()) ? MediaType.parse(body.getContentType()) : null;
+                if (body instanceof BinaryBody) {
+                    return new BinaryBody(Arrays.copyOf(rawBytes, maxBodySize), contentType);
+                } else {
+                    ByteBuffer truncatedBytes = ByteBuffer.wrap(rawBytes, 0, maxBodySize);
+                    CharBuffer truncatedValue = CharBuffer.allocate(maxBodySize);
+                    // without end of input the decoder doesn't consume a trailing partial character, so the body is cut on a character boundary
+                    body.getCharset(MediaType.DEFAULT_HTTP_CHARACTER_SET)
+                        .newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                        .decode(truncatedBytes, truncatedValue, false);
+                    truncatedValue.flip();
+                    return new StringBody(truncatedValue.toString(), Arrays.copyOf(rawBytes, truncatedBytes.position()), false, contentType);
+                }
+            }
+        }
+        return null;
+    }
+
     public LogEntry cloneAndClear() {
         LogEntry clone = this.clone();
         clear();
@@ -465,32 +550,33 @@ public class LogEntry implements EventTranslator<LogEntry> {
         if (this == o) {
             return true;
         }
-        if (o == null || getClass() != o.getClass()) {
+        // getters are used so subclasses that read their fields lazily are equal to a log entry with the same fields
+        if (!(o instanceof LogEntry)) {
             return false;
         }
         if (hashCode() != o.hashCode()) {
             return false;
         }
         LogEntry logEntry = (LogEntry) o;
-        return epochTime == logEntry.epochTime &&
-            deleted == logEntry.deleted &&
-            type == logEntry.type &&
-            logLevel == logEntry.logLevel &&
-            Objects.equals(messageFormat, logEntry.messageFormat) &&
-            Objects.equals(httpResponse, logEntry.httpResponse) &&
-            Objects.equals(httpError, logEntry.httpError) &&
-            Objects.equals(expectation, logEntry.expectation) &&
-            Objects.equals(consumer, logEntry.consumer) &&
-            Arrays.equals(arguments, logEntry.arguments) &&
-            Arrays.equals(httpRequests, logEntry.httpRequests);
+        return getEpochTime() == logEntry.getEpochTime() &&
+            isDeleted() == logEntry.isDeleted() &&
+            getType() == logEntry.getType() &&
+            getLogLevel() == logEntry.getLogLevel() &&
+            Objects.equals(getMessageFormat(), logEntry.getMessageFormat()) &&
+            Objects.equals(getHttpResponse(), logEntry.getHttpResponse()) &&
+            Objects.equals(getHttpError(), logEntry.getHttpError()) &&
+            Objects.equals(getExpectation(), logEntry.getExpectation()) &&
+            Objects.equals(getConsumer(), logEntry.getConsumer()) &&
+            Arrays.equals(getArguments(), logEntry.getArguments()) &&
+            Arrays.equals(getHttpRequests(), logEntry.getHttpRequests());
     }
 
     @Override
     public int hashCode() {
         if (hashCode == 0) {
-            int result = Objects.hash(epochTime, deleted, type, logLevel, messageFormat, httpResponse, httpError, expectation, consumer);
-            result = 31 * result + Arrays.hashCode(arguments);
-            result = 31 * result + Arrays.hashCode(httpRequests);
+            int result = Objects.hash(getEpochTime(), isDeleted(), getType(), getLogLevel(), getMessageFormat(), getHttpResponse(), getHttpError(), getExpectation(), getConsumer());
+            result = 31 * result + Arrays.hashCode(getArguments());
+            result = 31 * result + Arrays.hashCode(getHttpRequests());
             hashCode = result;
         }
         return hashCode;
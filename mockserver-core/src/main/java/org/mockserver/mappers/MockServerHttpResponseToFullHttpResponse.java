@@ -1,6 +1,7 @@
 package org.mockserver.mappers;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.cookie.DefaultCookie;
 import org.mockserver.codec.BodyDecoderEncoder;
@@ -35,49 +36,76 @@ public class MockServerHttpResponseToFullHttpResponse {
 
     public List<DefaultHttpObject> mapMockServerResponseToNettyResponse(HttpResponse httpResponse) {
         try {
-            ConnectionOptions connectionOptions = httpResponse.getConnectionOptions();
-            if (connectionOptions != null && connectionOptions.getChunkSize() != null && connectionOptions.getChunkSize() > 0) {
-                List<DefaultHttpObject> httpMessages = new ArrayList<>();
-                ByteBuf body = getBody(httpResponse);
-                DefaultHttpResponse defaultHttpResponse = new DefaultHttpResponse(
-                    HttpVersion.HTTP_1_1,
-                    getStatus(httpResponse)
-                );
-                setHeaders(httpResponse, defaultHttpResponse, body);
-                HttpUtil.setTransferEncodingChunked(defaultHttpResponse, true);
-                setCookies(httpResponse, defaultHttpResponse);
-                httpMessages.add(defaultHttpResponse);
-
-                ByteBuf[] chunks = bodyDecoderEncoder.bodyToByteBuf(httpResponse.getBody(), httpResponse.getFirstHeader(CONTENT_TYPE.toString()), connectionOptions.getChunkSize());
-                for (int i = 0; i < chunks.length - 1; i++) {
-                    DefaultHttpContent defaultHttpContent = new DefaultHttpContent(chunks[i]);
-                    httpMessages.add(defaultHttpContent);
-                }
-                httpMessages.add(new DefaultLastHttpContent(chunks[chunks.length - 1]));
-                return httpMessages;
-            } else {
-                ByteBuf body = getBody(httpResponse);
-                DefaultFullHttpResponse defaultFullHttpResponse = new DefaultFullHttpResponse(
-                    HttpVersion.HTTP_1_1,
-                    getStatus(httpResponse),
-                    body
-                );
-                setHeaders(httpResponse, defaultFullHttpResponse, body);
-                setCookies(httpResponse, defaultFullHttpResponse);
-                return Collections.singletonList(defaultFullHttpResponse);
-            }
+            return encodeResponse(httpResponse);
         } catch (Throwable throwable) {
-            mockServerLogger.logEvent(
-                new LogEntry()
-                    .setLogLevel(Level.ERROR)
-                    .setMessageFormat("exception encoding response{}")
-                    .setArguments(httpResponse)
-                    .setThrowable(throwable)
-            );
+            logEncodingException(httpResponse, throwable);
             return Collections.singletonList(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, getStatus(httpResponse)));
         }
     }
 
+    /**
+     * Compiles a response that is written for many requests, i.e. the response of an expectation, into a netty response
+     * that is stored on the response, each request must write a retained duplicate with its own connection header, the
+     * response must not be chunked, returns null and stores nothing if the response can't be encoded so each request
+     * is written, and the failure logged, by the per request path
+     */
+    public FullHttpResponse mapStaticMockServerResponseToNettyResponse(HttpResponse httpResponse) {
+        FullHttpResponse fullHttpResponse;
+        try {
+            fullHttpResponse = (FullHttpResponse) encodeResponse(httpResponse).get(0);
+        } catch (Throwable throwable) {
+            logEncodingException(httpResponse, throwable);
+            return null;
+        }
+        FullHttpResponse encoded = fullHttpResponse.replace(Unpooled.unreleasableBuffer(fullHttpResponse.content().asReadOnly()));
+        httpResponse.setEncoded(encoded);
+        return encoded;
+    }
+
+    private List<DefaultHttpObject> encodeResponse(HttpResponse httpResponse) {
+        ConnectionOptions connectionOptions = httpResponse.getConnectionOptions();
+        if (connectionOptions != null && connectionOptions.getChunkSize() != null && connectionOptions.getChunkSize() > 0) {
+            List<DefaultHttpObject> httpMessages = new ArrayList<>();
+            ByteBuf body = getBody(httpResponse);
+            DefaultHttpResponse defaultHttpResponse = new DefaultHttpResponse(
+                HttpVersion.HTTP_1_1,
+                getStatus(httpResponse)
+            );
+            setHeaders(httpResponse, defaultHttpResponse, body);
+            HttpUtil.setTransferEncodingChunked(defaultHttpResponse, true);
+            setCookies(httpResponse, defaultHttpResponse);
+            httpMessages.add(defaultHttpResponse);
+
+            ByteBuf[] chunks = bodyDecoderEncoder.bodyToByteBuf(httpResponse.getBody(), httpResponse.getFirstHeader(CONTENT_TYPE.toString()), connectionOptions.getChunkSize());
+            for (int i = 0; i < chunks.length - 1; i++) {
+                DefaultHttpContent defaultHttpContent = new DefaultHttpContent(chunks[i]);
+                httpMessages.add(defaultHttpContent);
+            }
+            httpMessages.add(new DefaultLastHttpContent(chunks[chunks.length - 1]));
+            return httpMessages;
+        } else {
+            ByteBuf body = getBody(httpResponse);
+            DefaultFullHttpResponse defaultFullHttpResponse = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1,
+                getStatus(httpResponse),
+                body
+            );
+            setHeaders(httpResponse, defaultFullHttpResponse, body);
+            setCookies(httpResponse, defaultFullHttpResponse);
+            return Collections.singletonList(defaultFullHttpResponse);
+        }
+    }
+
+    private void logEncodingException(HttpResponse httpResponse, Throwable throwable) {
+        mockServerLogger.logEvent(
+            new LogEntry()
+                .setLogLevel(Level.ERROR)
+                .setMessageFormat("exception encoding response{}")
+                .setArguments(httpResponse)
+                .setThrowable(throwable)
+        );
+    }
+
     private HttpResponseStatus getStatus(HttpResponse httpResponse) {
         int statusCode = httpResponse.getStatusCode() != null ? httpResponse.getStatusCode() : 200;
         if (!isEmpty(httpResponse.getReasonPhrase())) {
@@ -5,6 +5,7 @@ import org.mockserver.mock.Expectation;
 import org.mockserver.model.RequestDefinition;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.mockserver.character.Character.NEW_LINE;
 
@@ -23,7 +24,7 @@ public abstract class AbstractHttpRequestMatcher extends NotMatcher<RequestDefin
     protected final MockServerLogger mockServerLogger;
     private int hashCode;
     private boolean isBlank = false;
-    private boolean responseInProgress = false;
+    private final AtomicInteger responsesInProgress = new AtomicInteger();
     protected boolean controlPlaneMatcher;
     protected Expectation expectation;
     protected String didNotMatchRequestBecause = REQUEST_DID_NOT_MATCH + REQUEST_MATCHER + BECAUSE;
@@ -76,7 +77,12 @@ public abstract class AbstractHttpRequestMatcher extends NotMatcher<RequestDefin
     }
 
     @Override
-    public abstract boolean matches(MatchDifference context, RequestDefinition requestDefinition);
+    public boolean matches(MatchDifference context, RequestDefinition requestDefinition) {
+        return matches(context, null, requestDefinition);
+    }
+
+    @Override
+    public abstract boolean matches(MatchDifference context, HttpRequestMatchContext matchContext, RequestDefinition requestDefinition);
 
     @Override
     public Expectation getExpectation() {
@@ -84,11 +90,18 @@ public abstract class AbstractHttpRequestMatcher extends NotMatcher<RequestDefin
     }
 
     public boolean isResponseInProgress() {
-        return responseInProgress;
+        return responsesInProgress.get() > 0;
     }
 
+    /**
+     * counts responses in progress so a response completing doesn't clear the in progress state of concurrent responses for the same expectation
+     */
     public HttpRequestMatcher setResponseInProgress(boolean responseInProgress) {
-        this.responseInProgress = responseInProgress;
+        if (responseInProgress) {
+            responsesInProgress.incrementAndGet();
+        } else {
+            responsesInProgress.updateAndGet(count -> count > 0 ? count - 1 : 0);
+        }
         return this;
     }
 
@@ -5,4 +5,11 @@ package org.mockserver.matchers;
  */
 public abstract class BodyMatcher<MatchedType> extends NotMatcher<MatchedType> {
 
+    /**
+     * body matchers that parse the matched body can override this to reuse the body already parsed for the request
+     */
+    public boolean matches(final MatchDifference context, final HttpRequestMatchContext matchContext, final MatchedType matched) {
+        return matches(context, matched);
+    }
+
 }
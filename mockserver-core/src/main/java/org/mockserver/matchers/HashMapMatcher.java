@@ -6,6 +6,8 @@ import org.mockserver.logging.MockServerLogger;
 import org.mockserver.model.KeyAndValue;
 import org.mockserver.model.KeysAndValues;
 
+import java.util.function.Supplier;
+
 /**
  * @author jamesdbloom
  */
@@ -31,6 +33,13 @@ public class HashMapMatcher extends NotMatcher<KeysAndValues<? extends KeyAndVal
     }
 
     public boolean matches(final MatchDifference context, KeysAndValues<? extends KeyAndValue, ? extends KeysAndValues> matched) {
+        return matches(context, matched, null);
+    }
+
+    /**
+     * @param matchedHashMap supplies the matched values already converted into a map, or null to convert the matched values
+     */
+    boolean matches(final MatchDifference context, KeysAndValues<? extends KeyAndValue, ? extends KeysAndValues> matched, Supplier<NottableStringHashMap> matchedHashMap) {
         boolean result;
 
         if (matcher == null || matcher.isEmpty()) {
@@ -44,7 +53,7 @@ public class HashMapMatcher extends NotMatcher<KeysAndValues<? extends KeyAndVal
             }
             result = allKeysNotted || allKeysOptional;
         } else {
-            result = new NottableStringHashMap(mockServerLogger, controlPlaneMatcher, matched.getEntries()).containsAll(matcher);
+            result = (matchedHashMap != null ? matchedHashMap.get() : new NottableStringHashMap(mockServerLogger, controlPlaneMatcher, matched.getEntries())).containsAll(matcher);
         }
 
         if (!result && context != null) {
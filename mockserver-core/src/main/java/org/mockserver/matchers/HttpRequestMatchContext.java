@@ -0,0 +1,152 @@
+package org.mockserver.matchers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import org.mockserver.collections.NottableStringHashMap;
+import org.mockserver.collections.NottableStringMultiMap;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.model.Cookies;
+import org.mockserver.model.Headers;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.Parameters;
+import org.mockserver.serialization.ObjectMapperFactory;
+import org.w3c.dom.Document;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Lazily parsed view of a single request that is shared by every request matcher evaluated for that request,
+ * so headers, cookies, query string parameters and json or xml bodies are parsed at most once per request
+ * instead of once per expectation.
+ * <p>
+ * A match context isn't thread safe, it should only be used for one request on the thread matching that request.
+ *
+ * @author jamesdbloom
+ */
+public class HttpRequestMatchContext {
+
+    private final MockServerLogger mockServerLogger;
+    private final HttpRequest httpRequest;
+    private NottableStringMultiMap headers;
+    private NottableStringHashMap cookies;
+    private NottableStringMultiMap queryStringParameters;
+    private ParsedBody<JsonNode> jsonBody;
+    private ParsedBody<DocumentContext> jsonPathBody;
+    private ParsedBody<Document> xmlBody;
+
+    public HttpRequestMatchContext(MockServerLogger mockServerLogger, HttpRequest httpRequest) {
+        this.mockServerLogger = mockServerLogger;
+        this.httpRequest = httpRequest;
+    }
+
+    public HttpRequest getHttpRequest() {
+        return httpRequest;
+    }
+
+    NottableStringMultiMap getHeaders() {
+        if (headers == null) {
+            Headers requestHeaders = httpRequest.getHeaders();
+            headers = new NottableStringMultiMap(mockServerLogger, false, requestHeaders.getKeyMatchStyle(), requestHeaders.getEntries());
+        }
+        return headers;
+    }
+
+    NottableStringHashMap getCookies() {
+        if (cookies == null) {
+            Cookies requestCookies = httpRequest.getCookies();
+            cookies = new NottableStringHashMap(mockServerLogger, false, requestCookies.getEntries());
+        }
+        return cookies;
+    }
+
+    NottableStringMultiMap getQueryStringParameters() {
+        if (queryStringParameters == null) {
+            Parameters requestQueryStringParameters = httpRequest.getQueryStringParameters();
+            queryStringParameters = new NottableStringMultiMap(mockServerLogger, false, requestQueryStringParameters.getKeyMatchStyle(), requestQueryStringParameters.getEntries());
+        }
+        return queryStringParameters;
+    }
+
+    /**
+     * query string parameters are split in place for expectations with exploded parameter styles
+     */
+    void queryStringParametersModified() {
+        queryStringParameters = null;
+    }
+
+    JsonNode readJsonTree(String json) throws Exception {
+        if (jsonBody == null || !jsonBody.isFor(json)) {
+            jsonBody = ParsedBody.parse(json, value -> ObjectMapperFactory.createObjectMapper().readTree(value));
+        }
+        return jsonBody.get();
+    }
+
+    DocumentContext readJsonPathDocument(String json) throws Exception {
+        if (jsonPathBody == null || !jsonPathBody.isFor(json)) {
+            jsonPathBody = ParsedBody.parse(json, JsonPath::parse);
+        }
+        return jsonPathBody.get();
+    }
+
+    Document readXmlDocument(String xml, StringToXmlDocumentParser.ErrorLogger errorLogger) throws Exception {
+        if (xmlBody == null || !xmlBody.isFor(xml)) {
+            List<XmlError> xmlErrors = new ArrayList<>();
+            xmlBody = ParsedBody.parse(xml, value -> new StringToXmlDocumentParser().buildDocument(value, (matched, exception, level) -> xmlErrors.add(new XmlError(exception, level))));
+            xmlBody.xmlErrors = xmlErrors;
+        }
+        for (XmlError xmlError : xmlBody.xmlErrors) {
+            errorLogger.logError(xml, xmlError.exception, xmlError.level);
+        }
+        return xmlBody.get();
+    }
+
+    private interface Parser<T> {
+        T parse(String value) throws Exception;
+    }
+
+    private static class XmlError {
+        private final Exception exception;
+        private final StringToXmlDocumentParser.ErrorLevel level;
+
+        private XmlError(Exception exception, StringToXmlDocumentParser.ErrorLevel level) {
+            this.exception = exception;
+            this.level = level;
+        }
+    }
+
+    private static class ParsedBody<T> {
+        private final String source;
+        private final T value;
+        private final Exception exception;
+        private List<XmlError> xmlErrors = Collections.emptyList();
+
+        private ParsedBody(String source, T value, Exception exception) {
+            this.source = source;
+            this.value = value;
+            this.exception = exception;
+        }
+
+        private static <T> ParsedBody<T> parse(String source, Parser<T> parser) {
+            try {
+                return new ParsedBody<>(source, parser.parse(source), null);
+            } catch (Exception exception) {
+                return new ParsedBody<>(source, null, exception);
+            }
+        }
+
+        private boolean isFor(String source) {
+            return Objects.equals(this.source, source);
+        }
+
+        private T get() throws Exception {
+            if (exception != null) {
+                throw exception;
+            }
+            return value;
+        }
+    }
+}
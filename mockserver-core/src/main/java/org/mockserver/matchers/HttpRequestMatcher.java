@@ -14,6 +14,8 @@ public interface HttpRequestMatcher extends Matcher<RequestDefinition> {
 
     boolean matches(MatchDifference context, RequestDefinition httpRequest);
 
+    boolean matches(MatchDifference context, HttpRequestMatchContext matchContext, RequestDefinition httpRequest);
+
     Expectation getExpectation();
 
     boolean update(Expectation expectation);
@@ -6,6 +6,8 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.base.Joiner;
 import org.apache.commons.lang3.StringUtils;
 import org.mockserver.codec.ExpandedParameterDecoder;
+import org.mockserver.collections.NottableStringHashMap;
+import org.mockserver.collections.NottableStringMultiMap;
 import org.mockserver.codec.JsonSchemaBodyDecoder;
 import org.mockserver.codec.PathParametersDecoder;
 import org.mockserver.log.model.LogEntry;
@@ -19,6 +21,7 @@ import org.slf4j.event.Level;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.mockserver.character.Character.NEW_LINE;
@@ -195,11 +198,12 @@ public class HttpRequestPropertiesMatcher extends AbstractHttpRequestMatcher {
         this.sslMatcher = new BooleanMatcher(mockServerLogger, isSsl);
     }
 
-    public boolean matches(final MatchDifference context, final RequestDefinition requestDefinition) {
+    @Override
+    public boolean matches(final MatchDifference context, final HttpRequestMatchContext matchContext, final RequestDefinition requestDefinition) {
         if (requestDefinition instanceof HttpRequest) {
             HttpRequest request = (HttpRequest) requestDefinition;
             StringBuilder becauseBuilder = new StringBuilder();
-            boolean overallMatch = matches(context, request, becauseBuilder);
+            boolean overallMatch = matches(context, requestMatchContext(matchContext, request), request, becauseBuilder);
             if (!controlPlaneMatcher) {
                 if (overallMatch) {
                     if (MockServerLogger.isEnabled(Level.INFO)) {
@@ -250,7 +254,20 @@ public class HttpRequestPropertiesMatcher extends AbstractHttpRequestMatcher {
         }
     }
 
-    private boolean matches(MatchDifference context, HttpRequest request, StringBuilder becauseBuilder) {
+    /**
+     * control plane matchers match in the opposite direction so can't share the parsed request
+     */
+    private HttpRequestMatchContext requestMatchContext(HttpRequestMatchContext matchContext, HttpRequest request) {
+        if (controlPlaneMatcher || request == null) {
+            return null;
+        } else if (matchContext != null && matchContext.getHttpRequest() == request) {
+            return matchContext;
+        } else {
+            return new HttpRequestMatchContext(mockServerLogger, request);
+        }
+    }
+
+    private boolean matches(MatchDifference context, HttpRequestMatchContext matchContext, HttpRequest request, StringBuilder becauseBuilder) {
         if (isActive()) {
             if (request == this.httpRequest) {
                 return true;
@@ -281,17 +298,17 @@ public class HttpRequestPropertiesMatcher extends AbstractHttpRequestMatcher {
                         return false;
                     }
 
-                    boolean bodyMatches = bodyMatches(context, request);
+                    boolean bodyMatches = bodyMatches(context, matchContext, request);
                     if (failFast(bodyMatcher, context, matchDifferenceCount, becauseBuilder, bodyMatches, BODY)) {
                         return false;
                     }
 
-                    boolean headersMatch = matches(HEADERS, context, headerMatcher, request.getHeaders());
+                    boolean headersMatch = matches(HEADERS, context, headerMatcher, request.getHeaders(), matchContext != null ? matchContext::getHeaders : null);
                     if (failFast(headerMatcher, context, matchDifferenceCount, becauseBuilder, headersMatch, HEADERS)) {
                         return false;
                     }
 
-                    boolean cookiesMatch = matches(COOKIES, context, cookieMatcher, request.getCookies());
+                    boolean cookiesMatch = matches(COOKIES, context, cookieMatcher, request.getCookies(), matchContext != null ? matchContext::getCookies : null);
                     if (failFast(cookieMatcher, context, matchDifferenceCount, becauseBuilder, cookiesMatch, COOKIES)) {
                         return false;
                     }
@@ -309,9 +326,11 @@ public class HttpRequestPropertiesMatcher extends AbstractHttpRequestMatcher {
                     }
 
                     if (!controlPlaneMatcher) {
-                        expandedParameterDecoder.splitParameters(httpRequest.getQueryStringParameters(), request.getQueryStringParameters());
+                        if (expandedParameterDecoder.splitParameters(httpRequest.getQueryStringParameters(), request.getQueryStringParameters()) && matchContext != null) {
+                            matchContext.queryStringParametersModified();
+                        }
                     }
-                    boolean queryStringParametersMatches = matches(QUERY_PARAMETERS, context, queryStringParameterMatcher, request.getQueryStringParameters());
+                    boolean queryStringParametersMatches = matches(QUERY_PARAMETERS, context, queryStringParameterMatcher, request.getQueryStringParameters(), matchContext != null ? matchContext::getQueryStringParameters : null);
                     if (failFast(queryStringParameterMatcher, context, matchDifferenceCount, becauseBuilder, queryStringParametersMatches, QUERY_PARAMETERS)) {
                         return false;
                     }
@@ -384,13 +403,13 @@ public class HttpRequestPropertiesMatcher extends AbstractHttpRequestMatcher {
         return count % 2 != 0;
     }
 
-    private boolean bodyMatches(MatchDifference context, HttpRequest request) {
+    private boolean bodyMatches(MatchDifference context, HttpRequestMatchContext matchContext, HttpRequest request) {
         boolean bodyMatches;
         if (bodyMatcher != null) {
             if (controlPlaneMatcher) {
                 if (httpRequest.getBody() != null && String.valueOf(httpRequest.getBody()).equalsIgnoreCase(String.valueOf(request.getBody()))) {
                     bodyMatches = true;
-                } else if (bodyMatches(bodyMatcher, context, request)) {
+                } else if (bodyMatches(bodyMatcher, context, null, request)) {
                     // allow match of entries in EchoServer log (i.e. for java client integration tests)
                     bodyMatches = true;
                 } else {
@@ -401,6 +420,7 @@ public class HttpRequestPropertiesMatcher extends AbstractHttpRequestMatcher {
                                 bodyMatches = bodyMatches(
                                     buildBodyMatcher(bodyDTO.buildObject()),
                                     context,
+                                    null,
                                     httpRequest
                                 );
                             } else {
@@ -415,7 +435,7 @@ public class HttpRequestPropertiesMatcher extends AbstractHttpRequestMatcher {
                     }
                 }
             } else {
-                bodyMatches = bodyMatches(bodyMatcher, context, request);
+                bodyMatches = bodyMatches(bodyMatcher, context, matchContext, request);
             }
         } else {
             bodyMatches = true;
@@ -424,7 +444,7 @@ public class HttpRequestPropertiesMatcher extends AbstractHttpRequestMatcher {
     }
 
     @SuppressWarnings("unchecked")
-    private boolean bodyMatches(BodyMatcher bodyMatcher, MatchDifference context, HttpRequest request) {
+    private boolean bodyMatches(BodyMatcher bodyMatcher, MatchDifference context, HttpRequestMatchContext matchContext, HttpRequest request) {
         boolean bodyMatches;
         if (httpRequest.getBody().getOptional() != null && httpRequest.getBody().getOptional() && request.getBody() == null) {
             bodyMatches = true;
@@ -440,19 +460,19 @@ public class HttpRequestPropertiesMatcher extends AbstractHttpRequestMatcher {
                 bodyMatcher instanceof XmlSchemaMatcher
             ) {
                 // xml body matcher
-                bodyMatches = matches(BODY, context, bodyMatcher, request.getBodyAsString());
+                bodyMatches = matches(BODY, context, bodyMatcher, matchContext, request.getBodyAsString());
             } else if (bodyMatcher instanceof JsonStringMatcher ||
                 bodyMatcher instanceof JsonSchemaMatcher ||
                 bodyMatcher instanceof JsonPathMatcher
             ) {
                 // json body matcher
                 try {
-                    bodyMatches = matches(BODY, context, bodyMatcher, jsonSchemaBodyParser.convertToJson(request, bodyMatcher));
+                    bodyMatches = matches(BODY, context, bodyMatcher, matchContext, jsonSchemaBodyParser.convertToJson(request, bodyMatcher));
                 } catch (IllegalArgumentException iae) {
                     if (context != null) {
                         context.addDifference(mockServerLogger, iae, iae.getMessage());
                     }
-                    bodyMatches = matches(BODY, context, bodyMatcher, request.getBodyAsString());
+                    bodyMatches = matches(BODY, context, bodyMatcher, matchContext, request.getBodyAsString());
                 }
             } else {
                 bodyMatches = matches(BODY, context, bodyMatcher, request.getBodyAsString());
@@ -476,6 +496,30 @@ public class HttpRequestPropertiesMatcher extends AbstractHttpRequestMatcher {
         return result;
     }
 
+    @SuppressWarnings("rawtypes")
+    private boolean matches(MatchDifference.Field field, MatchDifference context, MultiValueMapMatcher matcher, KeysToMultiValues<? extends KeyToMultiValue, ? extends KeysToMultiValues> matched, Supplier<NottableStringMultiMap> matchedMultiMap) {
+        if (context != null) {
+            context.currentField(field);
+        }
+        return matcher == null || matcher.matches(context, matched, matchedMultiMap);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private boolean matches(MatchDifference.Field field, MatchDifference context, HashMapMatcher matcher, KeysAndValues<? extends KeyAndValue, ? extends KeysAndValues> matched, Supplier<NottableStringHashMap> matchedHashMap) {
+        if (context != null) {
+            context.currentField(field);
+        }
+        return matcher == null || matcher.matches(context, matched, matchedHashMap);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean matches(MatchDifference.Field field, MatchDifference context, BodyMatcher matcher, HttpRequestMatchContext matchContext, String matched) {
+        if (context != null) {
+            context.currentField(field);
+        }
+        return matcher == null || matcher.matches(context, matchContext, matched);
+    }
+
     @Override
     public String toString() {
         try {
@@ -12,6 +12,7 @@ import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.mockserver.cache.LRUCache;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
 import org.mockserver.model.*;
@@ -27,6 +28,7 @@ import java.util.stream.Collectors;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.AUTHORIZATION;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.mockserver.model.JsonSchemaBody.jsonSchema;
 import static org.mockserver.model.NottableOptionalString.optional;
@@ -41,10 +43,11 @@ import static org.slf4j.event.Level.TRACE;
 public class HttpRequestsPropertiesMatcher extends AbstractHttpRequestMatcher {
 
     private static final ObjectWriter TO_STRING_OBJECT_WRITER = ObjectMapperFactory.createObjectMapper(true);
+    // compiled operations are shared by every expectation for the same specification and operation
+    private static final LRUCache<String, OpenAPIOperationRouter> operationRouterLRUCache = new LRUCache<>(new MockServerLogger(), 250, MINUTES.toMillis(30));
     private int hashCode;
     private OpenAPIDefinition openAPIDefinition;
-    private List<HttpRequestPropertiesMatcher> httpRequestPropertiesMatchers;
-    private List<HttpRequest> httpRequests;
+    private OpenAPIOperationRouter operationRouter;
     private static final ObjectWriter OBJECT_WRITER = ObjectMapperFactory.createObjectMapper(new JsonNodeExampleSerializer()).writerWithDefaultPrettyPrinter();
 
     protected HttpRequestsPropertiesMatcher(MockServerLogger mockServerLogger) {
@@ -52,12 +55,12 @@ public class HttpRequestsPropertiesMatcher extends AbstractHttpRequestMatcher {
     }
 
     public List<HttpRequestPropertiesMatcher> getHttpRequestPropertiesMatchers() {
-        return httpRequestPropertiesMatchers;
+        return operationRouter != null ? operationRouter.getHttpRequestPropertiesMatchers() : null;
     }
 
     @Override
     public List<HttpRequest> getHttpRequests() {
-        return httpRequests;
+        return operationRouter != null ? operationRouter.getHttpRequests() : null;
     }
 
     @Override
@@ -65,28 +68,15 @@ public class HttpRequestsPropertiesMatcher extends AbstractHttpRequestMatcher {
         OpenAPIDefinition openAPIDefinition = requestDefinition instanceof OpenAPIDefinition ? (OpenAPIDefinition) requestDefinition : null;
         if (this.openAPIDefinition == null || !this.openAPIDefinition.equals(openAPIDefinition)) {
             this.openAPIDefinition = openAPIDefinition;
+            this.operationRouter = null;
             if (openAPIDefinition != null && isNotBlank(openAPIDefinition.getSpecUrlOrPayload())) {
-                httpRequestPropertiesMatchers = new ArrayList<>();
-                httpRequests = new ArrayList<>();
-                OpenAPISerialiser openAPISerialiser = new OpenAPISerialiser(mockServerLogger);
-                try {
-                    OpenAPI openAPI = buildOpenAPI(openAPIDefinition.getSpecUrlOrPayload());
-                    final Map<String, List<Pair<String, Operation>>> stringListMap = openAPISerialiser.retrieveOperations(openAPI, openAPIDefinition.getOperationId());
-                    stringListMap
-                        .forEach((path, operations) -> operations
-                            .forEach(methodOperationPair -> {
-                                Operation operation = methodOperationPair.getValue();
-                                if (operation.getRequestBody() != null && operation.getRequestBody().getContent() != null) {
-                                    operation.getRequestBody().getContent().forEach(handleRequestBody(openAPIDefinition, openAPI, path, methodOperationPair, Boolean.TRUE.equals(operation.getRequestBody().getRequired())));
-                                } else {
-                                    HttpRequest httpRequest = createHttpRequest(openAPIDefinition, openAPI, path, methodOperationPair);
-                                    addRequestMatcher(openAPIDefinition, methodOperationPair, httpRequest, "");
-                                }
-                            }));
-                } catch (Throwable throwable) {
-                    String message = (StringUtils.isBlank(throwable.getMessage()) || !throwable.getMessage().contains(OPEN_API_LOAD_ERROR) ? OPEN_API_LOAD_ERROR + (isNotBlank(throwable.getMessage()) ? ", " : "") : "") + throwable.getMessage();
-                    throw new IllegalArgumentException(message, throwable);
+                String operationRouterKey = controlPlaneMatcher + ":" + openAPIDefinition.getOperationId() + ":" + openAPIDefinition.getSpecUrlOrPayload();
+                OpenAPIOperationRouter operationRouter = operationRouterLRUCache.get(operationRouterKey);
+                if (operationRouter == null) {
+                    operationRouter = compile(openAPIDefinition);
+                    operationRouterLRUCache.put(operationRouterKey, operationRouter);
                 }
+                this.operationRouter = operationRouter;
             }
             this.hashCode = 0;
             if (MockServerLogger.isEnabled(TRACE)) {
@@ -104,6 +94,31 @@ public class HttpRequestsPropertiesMatcher extends AbstractHttpRequestMatcher {
         }
     }
 
+    private OpenAPIOperationRouter compile(OpenAPIDefinition openAPIDefinition) {
+        List<HttpRequestPropertiesMatcher> httpRequestPropertiesMatchers = new ArrayList<>();
+        List<HttpRequest> httpRequests = new ArrayList<>();
+        OpenAPISerialiser openAPISerialiser = new OpenAPISerialiser(mockServerLogger);
+        try {
+            OpenAPI openAPI = buildOpenAPI(openAPIDefinition.getSpecUrlOrPayload());
+            final Map<String, List<Pair<String, Operation>>> stringListMap = openAPISerialiser.retrieveOperations(openAPI, openAPIDefinition.getOperationId());
+            stringListMap
+                .forEach((path, operations) -> operations
+                    .forEach(methodOperationPair -> {
+                        Operation operation = methodOperationPair.getValue();
+                        if (operation.getRequestBody() != null && operation.getRequestBody().getContent() != null) {
+                            operation.getRequestBody().getContent().forEach(handleRequestBody(openAPIDefinition, openAPI, path, methodOperationPair, Boolean.TRUE.equals(operation.getRequestBody().getRequired()), httpRequests, httpRequestPropertiesMatchers));
+                        } else {
+                            HttpRequest httpRequest = createHttpRequest(openAPIDefinition, openAPI, path, methodOperationPair);
+                            addRequestMatcher(openAPIDefinition, methodOperationPair, httpRequest, "", httpRequests, httpRequestPropertiesMatchers);
+                        }
+                    }));
+        } catch (Throwable throwable) {
+            String message = (StringUtils.isBlank(throwable.getMessage()) || !throwable.getMessage().contains(OPEN_API_LOAD_ERROR) ? OPEN_API_LOAD_ERROR + (isNotBlank(throwable.getMessage()) ? ", " : "") : "") + throwable.getMessage();
+            throw new IllegalArgumentException(message, throwable);
+        }
+        return new OpenAPIOperationRouter(httpRequests, httpRequestPropertiesMatchers);
+    }
+
     private HttpRequest createHttpRequest(OpenAPIDefinition openAPIDefinition, OpenAPI openAPI, String path, Pair<String, Operation> methodOperationPair) {
         HttpRequest httpRequest = new HttpRequest()
             .withMethod(methodOperationPair.getKey())
@@ -403,7 +418,7 @@ public class HttpRequestsPropertiesMatcher extends AbstractHttpRequestMatcher {
         }
     }
 
-    private BiConsumer<String, MediaType> handleRequestBody(OpenAPIDefinition openAPIDefinition, OpenAPI openAPI, String path, Pair<String, Operation> methodOperationPair, Boolean required) {
+    private BiConsumer<String, MediaType> handleRequestBody(OpenAPIDefinition openAPIDefinition, OpenAPI openAPI, String path, Pair<String, Operation> methodOperationPair, Boolean required, List<HttpRequest> httpRequests, List<HttpRequestPropertiesMatcher> httpRequestPropertiesMatchers) {
         return (contentType, mediaType) -> {
             HttpRequest httpRequest = createHttpRequest(openAPIDefinition, openAPI, path, methodOperationPair);
             if (contentType.equals("multipart/form-data")) {
@@ -433,11 +448,11 @@ public class HttpRequestsPropertiesMatcher extends AbstractHttpRequestMatcher {
                     );
                 }
             }
-            addRequestMatcher(openAPIDefinition, methodOperationPair, httpRequest, contentType);
+            addRequestMatcher(openAPIDefinition, methodOperationPair, httpRequest, contentType, httpRequests, httpRequestPropertiesMatchers);
         };
     }
 
-    private void addRequestMatcher(OpenAPIDefinition openAPIDefinition, Pair<String, Operation> methodOperationPair, HttpRequest httpRequest, String contentType) {
+    private void addRequestMatcher(OpenAPIDefinition openAPIDefinition, Pair<String, Operation> methodOperationPair, HttpRequest httpRequest, String contentType, List<HttpRequest> httpRequests, List<HttpRequestPropertiesMatcher> httpRequestPropertiesMatchers) {
         httpRequests.add(httpRequest);
         HttpRequestPropertiesMatcher httpRequestPropertiesMatcher = new HttpRequestPropertiesMatcher(mockServerLogger);
         httpRequestPropertiesMatcher.update(httpRequest);
@@ -455,18 +470,23 @@ public class HttpRequestsPropertiesMatcher extends AbstractHttpRequestMatcher {
     }
 
     @Override
-    public boolean matches(MatchDifference context, RequestDefinition requestDefinition) {
+    public boolean matches(MatchDifference context, HttpRequestMatchContext matchContext, RequestDefinition requestDefinition) {
         boolean result = false;
+        List<HttpRequestPropertiesMatcher> httpRequestPropertiesMatchers = getHttpRequestPropertiesMatchers();
         if (httpRequestPropertiesMatchers != null && !httpRequestPropertiesMatchers.isEmpty()) {
+            if (context == null && !controlPlaneMatcher && requestDefinition instanceof HttpRequest) {
+                // when differences are being collected every operation is tried so the log explains why each one didn't match
+                httpRequestPropertiesMatchers = operationRouter.route((HttpRequest) requestDefinition);
+            }
             for (HttpRequestPropertiesMatcher httpRequestPropertiesMatcher : httpRequestPropertiesMatchers) {
                 if (context == null) {
                     if (MockServerLogger.isEnabled(Level.TRACE) && requestDefinition instanceof HttpRequest) {
                         context = new MatchDifference(requestDefinition);
                     }
-                    result = httpRequestPropertiesMatcher.matches(context, requestDefinition);
+                    result = httpRequestPropertiesMatcher.matches(context, matchContext, requestDefinition);
                 } else {
                     MatchDifference singleMatchDifference = new MatchDifference(context.getHttpRequest());
-                    result = httpRequestPropertiesMatcher.matches(singleMatchDifference, requestDefinition);
+                    result = httpRequestPropertiesMatcher.matches(singleMatchDifference, matchContext, requestDefinition);
                     context.addDifferences(singleMatchDifference.getAllDifferences());
                 }
                 if (result) {
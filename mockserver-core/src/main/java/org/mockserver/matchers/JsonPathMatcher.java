@@ -41,6 +41,11 @@ public class JsonPathMatcher extends BodyMatcher<String> {
     }
 
     public boolean matches(final MatchDifference context, final String matched) {
+        return matches(context, null, matched);
+    }
+
+    @Override
+    public boolean matches(final MatchDifference context, final HttpRequestMatchContext matchContext, final String matched) {
         boolean result = false;
         boolean alreadyLoggedMatchFailure = false;
 
@@ -53,7 +58,8 @@ public class JsonPathMatcher extends BodyMatcher<String> {
             result = true;
         } else if (matched != null) {
             try {
-                result = !jsonPath.<JSONArray>read(matched).isEmpty();
+                JSONArray matchedValues = matchContext != null ? matchContext.readJsonPathDocument(matched).read(jsonPath) : jsonPath.read(matched);
+                result = !matchedValues.isEmpty();
             } catch (Throwable throwable) {
                 if (context != null) {
                     context.addDifference(mockServerLogger, throwable, "json path match failed expected:{}found:{}failed because:{}", matcher, matched, throwable.getMessage());
@@ -1,6 +1,7 @@
 package org.mockserver.matchers;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.commons.lang3.StringUtils;
 import org.mockserver.logging.MockServerLogger;
 import org.mockserver.model.ParameterStyle;
@@ -36,13 +37,18 @@ public class JsonSchemaMatcher extends BodyMatcher<String> {
     }
 
     public boolean matches(final MatchDifference context, String matched) {
+        return matches(context, null, matched);
+    }
+
+    @Override
+    public boolean matches(final MatchDifference context, final HttpRequestMatchContext matchContext, String matched) {
         boolean result = false;
 
         if (matcher.equalsIgnoreCase(matched)) {
             result = true;
         } else if (!StringUtils.isBlank(matched)) {
             try {
-                String validation = jsonSchemaValidator.isValid(matched, false);
+                String validation = validate(matchContext, matched);
 
                 result = validation.isEmpty();
 
@@ -59,6 +65,21 @@ public class JsonSchemaMatcher extends BodyMatcher<String> {
         return not != result;
     }
 
+    private String validate(final HttpRequestMatchContext matchContext, final String matched) {
+        if (matchContext != null) {
+            JsonNode matchedJsonNode;
+            try {
+                matchedJsonNode = matchContext.readJsonTree(matched);
+            } catch (Exception exception) {
+                // invalid json is reported by validating the string
+                return jsonSchemaValidator.isValid(matched, false);
+            }
+            return jsonSchemaValidator.isValid(matchedJsonNode, false);
+        } else {
+            return jsonSchemaValidator.isValid(matched, false);
+        }
+    }
+
     public boolean isBlank() {
         return StringUtils.isBlank(matcher);
     }
@@ -39,6 +39,11 @@ public class JsonStringMatcher extends BodyMatcher<String> {
     }
 
     public boolean matches(final MatchDifference context, String matched) {
+        return matches(context, null, matched);
+    }
+
+    @Override
+    public boolean matches(final MatchDifference context, final HttpRequestMatchContext matchContext, String matched) {
         boolean result = false;
 
         try {
@@ -67,7 +72,7 @@ public class JsonStringMatcher extends BodyMatcher<String> {
                     result = Diff
                         .create(
                             matcherJsonNode,
-                            ObjectMapperFactory.createObjectMapper().readTree(matched),
+                            matchContext != null ? matchContext.readJsonTree(matched) : ObjectMapperFactory.createObjectMapper().readTree(matched),
                             "",
                             "",
                             diffConfig
@@ -6,6 +6,8 @@ import org.mockserver.logging.MockServerLogger;
 import org.mockserver.model.KeyToMultiValue;
 import org.mockserver.model.KeysToMultiValues;
 
+import java.util.function.Supplier;
+
 import static org.mockserver.model.NottableString.string;
 
 /**
@@ -33,6 +35,13 @@ public class MultiValueMapMatcher extends NotMatcher<KeysToMultiValues<? extends
     }
 
     public boolean matches(final MatchDifference context, KeysToMultiValues<? extends KeyToMultiValue, ? extends KeysToMultiValues> matched) {
+        return matches(context, matched, null);
+    }
+
+    /**
+     * @param matchedMultiMap supplies the matched values already converted into a multimap, or null to convert the matched values
+     */
+    boolean matches(final MatchDifference context, KeysToMultiValues<? extends KeyToMultiValue, ? extends KeysToMultiValues> matched, Supplier<NottableStringMultiMap> matchedMultiMap) {
         boolean result;
 
         if (matcher == null || matcher.isEmpty()) {
@@ -46,7 +55,7 @@ public class MultiValueMapMatcher extends NotMatcher<KeysToMultiValues<? extends
             }
             result = allKeysNotted || allKeysOptional;
         } else {
-            result = new NottableStringMultiMap(mockServerLogger, controlPlaneMatcher, matched.getKeyMatchStyle(), matched.getEntries()).containsAll(matcher);
+            result = (matchedMultiMap != null ? matchedMultiMap.get() : new NottableStringMultiMap(mockServerLogger, controlPlaneMatcher, matched.getKeyMatchStyle(), matched.getEntries())).containsAll(matcher);
         }
 
         if (!result && context != null) {
@@ -0,0 +1,121 @@
+package org.mockserver.matchers;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.NottableString;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Routes a request to the operations of an open api definition that could match it, using a trie of path
+ * segments with a table of methods at the end of each path, so a request is only matched against the
+ * parameter, header and body schemas of the operations with the same method and path template.
+ * <p>
+ * Path templates that contain regex characters outside of path parameters can't be routed so are always candidates.
+ *
+ * @author jamesdbloom
+ */
+class OpenAPIOperationRouter {
+
+    private static final Pattern PATH_VARIABLE_NAME_PATTERN = Pattern.compile("\\{[.;]?([^*]+)\\*?}");
+    private static final Pattern REGEX_CHARACTERS_PATTERN = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+
+    private final List<HttpRequest> httpRequests;
+    private final List<HttpRequestPropertiesMatcher> httpRequestPropertiesMatchers;
+    private final PathNode root = new PathNode();
+    private final BitSet unrouted = new BitSet();
+
+    OpenAPIOperationRouter(List<HttpRequest> httpRequests, List<HttpRequestPropertiesMatcher> httpRequestPropertiesMatchers) {
+        this.httpRequests = Collections.unmodifiableList(httpRequests);
+        this.httpRequestPropertiesMatchers = Collections.unmodifiableList(httpRequestPropertiesMatchers);
+        for (int index = 0; index < httpRequests.size(); index++) {
+            add(index, httpRequests.get(index));
+        }
+    }
+
+    List<HttpRequest> getHttpRequests() {
+        return httpRequests;
+    }
+
+    List<HttpRequestPropertiesMatcher> getHttpRequestPropertiesMatchers() {
+        return httpRequestPropertiesMatchers;
+    }
+
+    private void add(int index, HttpRequest httpRequest) {
+        String method = httpRequest.getMethod() != null ? httpRequest.getMethod().getValue() : null;
+        String path = httpRequest.getPath() != null ? httpRequest.getPath().getValue() : null;
+        if (StringUtils.isBlank(method) || StringUtils.isBlank(path) || REGEX_CHARACTERS_PATTERN.matcher(method).find()) {
+            unrouted.set(index);
+            return;
+        }
+        boolean withPathParameters = httpRequest.getPathParameters() != null && !httpRequest.getPathParameters().isEmpty();
+        PathNode node = root;
+        for (String pathPart : pathParts(path)) {
+            if (withPathParameters && PATH_VARIABLE_NAME_PATTERN.matcher(pathPart).matches()) {
+                if (node.parameter == null) {
+                    node.parameter = new PathNode();
+                }
+                node = node.parameter;
+            } else if (REGEX_CHARACTERS_PATTERN.matcher(pathPart).find()) {
+                unrouted.set(index);
+                return;
+            } else {
+                node = node.literals.computeIfAbsent(pathPart.toLowerCase(Locale.ROOT), key -> new PathNode());
+            }
+        }
+        node.methods.computeIfAbsent(method.toUpperCase(Locale.ROOT), key -> new BitSet()).set(index);
+    }
+
+    /**
+     * Returns the request matchers, in definition order, of the operations that could match the request
+     */
+    List<HttpRequestPropertiesMatcher> route(HttpRequest request) {
+        NottableString method = request.getMethod();
+        NottableString path = request.getPath();
+        if (path == null || path.isNot() || StringUtils.isBlank(path.getValue()) || method == null || method.isNot()) {
+            return httpRequestPropertiesMatchers;
+        }
+        BitSet candidates = (BitSet) unrouted.clone();
+        String methodValue = StringUtils.isBlank(method.getValue()) ? null : method.getValue().toUpperCase(Locale.ROOT);
+        collect(root, pathParts(path.getValue()), 0, methodValue, candidates);
+        List<HttpRequestPropertiesMatcher> routed = new ArrayList<>(candidates.cardinality());
+        for (int index = candidates.nextSetBit(0); index >= 0; index = candidates.nextSetBit(index + 1)) {
+            routed.add(httpRequestPropertiesMatchers.get(index));
+        }
+        return routed;
+    }
+
+    private void collect(PathNode node, String[] pathParts, int depth, String method, BitSet candidates) {
+        if (depth == pathParts.length) {
+            if (method != null) {
+                BitSet operations = node.methods.get(method);
+                if (operations != null) {
+                    candidates.or(operations);
+                }
+            } else {
+                for (BitSet operations : node.methods.values()) {
+                    candidates.or(operations);
+                }
+            }
+        } else {
+            PathNode literal = node.literals.get(pathParts[depth].toLowerCase(Locale.ROOT));
+            if (literal != null) {
+                collect(literal, pathParts, depth + 1, method, candidates);
+            }
+            if (node.parameter != null) {
+                collect(node.parameter, pathParts, depth + 1, method, candidates);
+            }
+        }
+    }
+
+    private static String[] pathParts(String path) {
+        return Arrays.stream(StringUtils.removeStart(path, "/").split("/")).filter(StringUtils::isNotBlank).toArray(String[]::new);
+    }
+
+    private static class PathNode {
+        private final Map<String, PathNode> literals = new HashMap<>();
+        private final Map<String, BitSet> methods = new HashMap<>();
+        private PathNode parameter;
+    }
+}
@@ -45,6 +45,11 @@ public class XPathMatcher extends BodyMatcher<String> {
     }
 
     public boolean matches(final MatchDifference context, final String matched) {
+        return matches(context, null, matched);
+    }
+
+    @Override
+    public boolean matches(final MatchDifference context, final HttpRequestMatchContext matchContext, final String matched) {
         boolean result = false;
         boolean alreadyLoggedMatchFailure = false;
 
@@ -57,11 +62,12 @@ public class XPathMatcher extends BodyMatcher<String> {
             result = true;
         } else if (matched != null) {
             try {
-                result = (Boolean) xpathExpression.evaluate(stringToXmlDocumentParser.buildDocument(matched, (matchedInException, throwable, level) -> {
+                StringToXmlDocumentParser.ErrorLogger errorLogger = (matchedInException, throwable, level) -> {
                     if (context != null) {
                         context.addDifference(mockServerLogger, throwable, "xpath match failed expected:{}found:{}failed because " + prettyPrint(level) + ":{}", matcher, matched, throwable.getMessage());
                     }
-                }), XPathConstants.BOOLEAN);
+                };
+                result = (Boolean) xpathExpression.evaluate(matchContext != null ? matchContext.readXmlDocument(matched, errorLogger) : stringToXmlDocumentParser.buildDocument(matched, errorLogger), XPathConstants.BOOLEAN);
             } catch (Throwable throwable) {
                 if (context != null) {
                     context.addDifference(mockServerLogger, throwable, "xpath match failed expected:{}found:{}failed because:{}", matcher, matched, throwable.getMessage());
@@ -3,6 +3,7 @@ package org.mockserver.memory;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.mockserver.configuration.ConfigurationProperties;
+import org.mockserver.log.MemoryMappedLogEntryStore;
 import org.mockserver.log.MockServerEventLog;
 import org.mockserver.mock.RequestMatchers;
 import org.mockserver.mock.listeners.MockServerLogListener;
@@ -22,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static org.mockserver.character.Character.NEW_LINE;
@@ -31,6 +33,7 @@ public class MemoryMonitoring implements MockServerLogListener, MockServerMatche
 
     private static final AtomicInteger memoryUpdateFrequency = new AtomicInteger(0);
     private static final AtomicInteger currentLogEntriesCount = new AtomicInteger(0);
+    private static final AtomicLong currentLogEntriesHeapBytes = new AtomicLong(-1);
     private static final AtomicInteger currentExpectationsCount = new AtomicInteger(0);
     private static final List<MemoryPoolMXBean> memoryPoolMXBeans = ManagementFactory.getMemoryPoolMXBeans();
     private static final File CSV_FILE = new File(ConfigurationProperties.memoryUsageCsvDirectory(), "memoryUsage_" + new SimpleDateFormat("yyyy-MM-dd").format(new Date()) + ".csv");
@@ -79,6 +82,10 @@ public class MemoryMonitoring implements MockServerLogListener, MockServerMatche
         return (heap.getNet().getMax() - heap.getNet().getUsed()) / 1024L;
     }
 
+    public long maxHeapKB() {
+        return getJVMMemory(MemoryType.HEAP).getNet().getMax() / 1024L;
+    }
+
     public void logMemoryMetrics() {
         if (ConfigurationProperties.outputMemoryUsageCsv()) {
             String line = buildStatistics().stream().map(Pair::getValue).map(String::valueOf).collect(Collectors.joining(","));
@@ -107,11 +114,36 @@ public class MemoryMonitoring implements MockServerLogListener, MockServerMatche
     }
 
     public int startingMaxLogEntries() {
-        return Math.min((int) (remainingHeapKB() / 30), MAX_LOG_ENTRIES_UPPER_LIMIT);
+        if (ConfigurationProperties.memoryMappedLogEntries()) {
+            return memoryMappedMaxLogEntries(0, 0);
+        } else {
+            return Math.min((int) (remainingHeapKB() / 30), MAX_LOG_ENTRIES_UPPER_LIMIT);
+        }
     }
 
     public int adjustedMaxLogEntries() {
-        return Math.min(startingMaxLogEntries() + (currentLogEntriesCount.get() / 2), MAX_LOG_ENTRIES_UPPER_LIMIT);
+        if (ConfigurationProperties.memoryMappedLogEntries()) {
+            return memoryMappedMaxLogEntries(currentLogEntriesHeapBytes.get(), currentLogEntriesCount.get());
+        } else {
+            return Math.min(startingMaxLogEntries() + (currentLogEntriesCount.get() / 2), MAX_LOG_ENTRIES_UPPER_LIMIT);
+        }
+    }
+
+    /**
+     * Only the header of each memory mapped log entry is retained on the heap, so the number of entries is limited by
+     * the heap the existing entries retain, measured by the event log, plus the remaining heap until a quarter of the
+     * maximum heap is free, and is never less than the limit for log entries retained on the heap
+     */
+    private int memoryMappedMaxLogEntries(long logEntriesHeapBytes, int logEntriesCount) {
+        long heapBytesPerLogEntry = MemoryMappedLogEntryStore.ESTIMATED_ENTRY_HEAP_BYTES;
+        if (logEntriesCount > 0 && logEntriesHeapBytes > 0) {
+            heapBytesPerLogEntry = Math.max(logEntriesHeapBytes / logEntriesCount, 1);
+        } else {
+            logEntriesHeapBytes = 0;
+        }
+        long availableHeapBytes = logEntriesHeapBytes + (remainingHeapKB() - maxHeapKB() / 4) * 1024L;
+        long maxLogEntries = Math.min(availableHeapBytes / heapBytesPerLogEntry, Integer.MAX_VALUE);
+        return (int) Math.max(maxLogEntries, Math.min(remainingHeapKB() / 30, MAX_LOG_ENTRIES_UPPER_LIMIT));
     }
 
     public int startingMaxExpectations() {
@@ -125,6 +157,7 @@ public class MemoryMonitoring implements MockServerLogListener, MockServerMatche
     @Override
     public void updated(MockServerEventLog mockServerLog) {
         currentLogEntriesCount.set(mockServerLog.size());
+        currentLogEntriesHeapBytes.set(mockServerLog.retainedHeapBytes());
         if (shouldUpdate()) {
             updateMemoryUsageMaximums();
             mockServerLog.setMaxSize(ConfigurationProperties.maxLogEntries());
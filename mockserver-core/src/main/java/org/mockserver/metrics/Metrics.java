@@ -3,91 +3,132 @@ package org.mockserver.metrics;
 import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.model.Action;
 
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
+ * Counters are striped so concurrent updates never contend on a lock and no values are boxed or names built per request
+ *
  * @author jamesdbloom
  */
-@SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
 public class Metrics {
 
-    private static Map<Name, Integer> metrics = new ConcurrentHashMap<>();
+    private static final LongAdder[] counters = new LongAdder[Name.values().length];
+    private static final LatencyHistogram[] latencies = new LatencyHistogram[Timer.values().length];
+    private static final Map<Action.Type, Name> actionNames = new EnumMap<>(Action.Type.class);
+
+    static {
+        for (Name name : Name.values()) {
+            counters[name.ordinal()] = new LongAdder();
+        }
+        for (Timer timer : Timer.values()) {
+            latencies[timer.ordinal()] = new LatencyHistogram();
+        }
+        for (Action.Type type : Action.Type.values()) {
+            actionNames.put(type, Name.valueOf("ACTION_" + type.name() + "_COUNT"));
+        }
+    }
 
     public static void clear() {
-        metrics.clear();
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
+        for (LatencyHistogram latency : latencies) {
+            latency.clear();
+        }
     }
 
+    /**
+     * sets the value of a metric used as a gauge, this isn't atomic with concurrent increments or decrements of the same metric
+     */
     public static void set(Name name, Integer value) {
-        metrics.put(name, value);
+        LongAdder counter = counters[name.ordinal()];
+        counter.reset();
+        counter.add(value);
     }
 
     public static Integer get(Name name) {
-        Integer value = metrics.get(name);
-        return value != null ? value : 0;
+        return counters[name.ordinal()].intValue();
     }
 
     public static void increment(Name name) {
         if (ConfigurationProperties.metricsEnabled()) {
-            synchronized (name) {
-                metrics.merge(name, 1, Integer::sum);
-            }
+            counters[name.ordinal()].increment();
         }
     }
 
     public static void decrement(Name name) {
         if (ConfigurationProperties.metricsEnabled()) {
-            synchronized (name) {
-                final Integer currentValue = metrics.get(name);
-                if (currentValue != null) {
-                    metrics.put(name, currentValue - 1);
-                } else {
-                    throw new IllegalArgumentException("Can not decrement metric \"" + name + "\" because it not exist");
-                }
-            }
+            counters[name.ordinal()].decrement();
         }
     }
 
+    /**
+     * adds to a metric whether or not metrics are enabled, so a caller that checked metricsEnabled once can keep its increments and decrements balanced
+     */
+    public static void add(Name name, long value) {
+        counters[name.ordinal()].add(value);
+    }
+
     public static void increment(Action.Type type) {
-        if (ConfigurationProperties.metricsEnabled()) {
-            Name name = Name.valueOf("ACTION_" + type.name() + "_COUNT");
-            synchronized (name) {
-                metrics.merge(name, 1, Integer::sum);
-            }
-        }
+        increment(actionNames.get(type));
     }
 
     public static void decrement(Action.Type type) {
+        decrement(actionNames.get(type));
+    }
+
+    public static void record(Timer timer, long durationNanos) {
         if (ConfigurationProperties.metricsEnabled()) {
-            Name name = Name.valueOf("ACTION_" + type.name() + "_COUNT");
-            synchronized (name) {
-                final Integer currentValue = metrics.get(name);
-                if (currentValue != null) {
-                    metrics.put(name, currentValue - 1);
-                } else {
-                    throw new IllegalArgumentException("Can not decrement metric \"" + name + "\" because it not exist");
-                }
-            }
+            latencies[timer.ordinal()].record(durationNanos);
         }
     }
 
+    public static LatencyHistogram get(Timer timer) {
+        return latencies[timer.ordinal()];
+    }
+
     public static void clearActionMetrics() {
-        metrics.remove(Name.ACTION_FORWARD_COUNT);
-        metrics.remove(Name.ACTION_FORWARD_TEMPLATE_COUNT);
-        metrics.remove(Name.ACTION_FORWARD_CLASS_CALLBACK_COUNT);
-        metrics.remove(Name.ACTION_FORWARD_OBJECT_CALLBACK_COUNT);
-        metrics.remove(Name.ACTION_FORWARD_REPLACE_COUNT);
-        metrics.remove(Name.ACTION_RESPONSE_COUNT);
-        metrics.remove(Name.ACTION_RESPONSE_TEMPLATE_COUNT);
-        metrics.remove(Name.ACTION_RESPONSE_CLASS_CALLBACK_COUNT);
-        metrics.remove(Name.ACTION_RESPONSE_OBJECT_CALLBACK_COUNT);
-        metrics.remove(Name.ACTION_ERROR_COUNT);
+        for (Name name : actionNames.values()) {
+            counters[name.ordinal()].reset();
+        }
     }
 
     public static void clearWebSocketMetrics() {
-        metrics.remove(Name.WEBSOCKET_CALLBACK_CLIENT_COUNT);
-        metrics.remove(Name.WEBSOCKET_CALLBACK_RESPONSE_HANDLER_COUNT);
-        metrics.remove(Name.WEBSOCKET_CALLBACK_FORWARD_HANDLER_COUNT);
+        counters[Name.WEBSOCKET_CALLBACK_CLIENT_COUNT.ordinal()].reset();
+        counters[Name.WEBSOCKET_CALLBACK_RESPONSE_HANDLER_COUNT.ordinal()].reset();
+        counters[Name.WEBSOCKET_CALLBACK_FORWARD_HANDLER_COUNT.ordinal()].reset();
+    }
+
+    /**
+     * Returns every counter and a summary of every latency histogram, with durations in microseconds
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        Map<String, Long> counterValues = new LinkedHashMap<>();
+        for (Name name : Name.values()) {
+            counterValues.put(name.name(), counters[name.ordinal()].sum());
+        }
+        snapshot.put("counters", counterValues);
+        Map<String, Map<String, Long>> latencyValues = new LinkedHashMap<>();
+        for (Timer timer : Timer.values()) {
+            LatencyHistogram latency = latencies[timer.ordinal()];
+            Map<String, Long> latencyValue = new LinkedHashMap<>();
+            latencyValue.put("count", latency.getCount());
+            latencyValue.put("meanMicros", NANOSECONDS.toMicros(latency.getMean()));
+            latencyValue.put("p50Micros", NANOSECONDS.toMicros(latency.getPercentile(50)));
+            latencyValue.put("p90Micros", NANOSECONDS.toMicros(latency.getPercentile(90)));
+            latencyValue.put("p99Micros", NANOSECONDS.toMicros(latency.getPercentile(99)));
+            latencyValue.put("p999Micros", NANOSECONDS.toMicros(latency.getPercentile(99.9)));
+            latencyValue.put("maxMicros", NANOSECONDS.toMicros(latency.getMax()));
+            latencyValues.put(timer.name(), latencyValue);
+        }
+        snapshot.put("latencies", latencyValues);
+        return snapshot;
     }
 
     public enum Name {
@@ -106,6 +147,22 @@ public class Metrics {
         ACTION_ERROR_COUNT,
         WEBSOCKET_CALLBACK_CLIENT_COUNT,
         WEBSOCKET_CALLBACK_RESPONSE_HANDLER_COUNT,
-        WEBSOCKET_CALLBACK_FORWARD_HANDLER_COUNT
+        WEBSOCKET_CALLBACK_FORWARD_HANDLER_COUNT,
+        FORWARD_CONNECTION_CREATED_COUNT,
+        FORWARD_CONNECTION_REUSED_COUNT,
+        FORWARD_CONNECTION_CLOSED_COUNT,
+        TLS_HANDSHAKE_FULL_COUNT,
+        TLS_HANDSHAKE_RESUMED_COUNT,
+        TLS_HANDSHAKE_FAILED_COUNT,
+        DELAYED_ACTION_PENDING_COUNT
+    }
+
+    public enum Timer {
+        REQUEST_MATCHING,
+        ACTION_EXECUTION,
+        FORWARD_ROUND_TRIP,
+        LOG_APPEND,
+        TLS_HANDSHAKE,
+        DELAYED_ACTION_LATENESS
     }
 }
@@ -525,6 +525,15 @@ public class Expectation extends ObjectWithJsonToString {
         return false;
     }
 
+    /**
+     * Atomically reserves one of the remaining matches before the action is run
+     *
+     * @return true if the expectation is still alive and either has unlimited matches or a remaining match was reserved
+     */
+    public boolean claimRemainingMatch() {
+        return isStillAlive() && (times == null || times.claim());
+    }
+
     @SuppressWarnings("PointlessNullCheck")
     public boolean contains(HttpRequest httpRequest) {
         return httpRequest != null && this.httpRequest.equals(httpRequest);
@@ -0,0 +1,254 @@
+package org.mockserver.mock;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mockserver.codec.PathParametersDecoder;
+import org.mockserver.matchers.HttpRequestMatcher;
+import org.mockserver.matchers.HttpRequestPropertiesMatcher;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.NottableSchemaString;
+import org.mockserver.model.NottableString;
+import org.mockserver.model.RequestDefinition;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.mockserver.mock.SortableExpectationId.EXPECTATION_SORTABLE_PRIORITY_COMPARATOR;
+
+/**
+ * Discrimination index used to narrow the request matchers that need to be evaluated for a request.
+ * <p>
+ * Matchers with a literal path are indexed by method and path, matchers with a regex path that starts
+ * with one or more literal segments are indexed in a path segment trie and all other matchers (i.e. notted,
+ * schema, blank path or OpenAPI matchers) are held in a residual bucket that is always a candidate.
+ * <p>
+ * Method and path values are case folded because method and path matching ignores case.
+ *
+ * @author jamesdbloom
+ */
+public class HttpRequestMatcherIndex {
+
+    private static final PathParametersDecoder pathParametersParser = new PathParametersDecoder();
+    private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
+    private static final String REGEX_QUANTIFIERS = "?*+{";
+    private static final String ANY_METHOD = "";
+    private static final String PATH_SEPARATOR = "/";
+    private static final String METHOD_PATH_SEPARATOR = " ";
+
+    private final ConcurrentMap<String, IndexEntry> entriesById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<IndexEntry>> byMethodAndPath = new ConcurrentHashMap<>();
+    private final PathSegmentNode pathPrefixTrie = new PathSegmentNode();
+
+    public synchronized void add(HttpRequestMatcher httpRequestMatcher) {
+        String id = expectationId(httpRequestMatcher);
+        if (id != null) {
+            IndexEntry existing = entriesById.remove(id);
+            if (existing != null) {
+                unindex(existing);
+            }
+            IndexEntry indexEntry = new IndexEntry(httpRequestMatcher);
+            entriesById.put(id, indexEntry);
+            if (indexEntry.path != null) {
+                byMethodAndPath
+                    .computeIfAbsent(methodAndPathKey(indexEntry.method != null ? indexEntry.method : ANY_METHOD, indexEntry.path), key -> ConcurrentHashMap.newKeySet())
+                    .add(indexEntry);
+            } else {
+                PathSegmentNode node = pathPrefixTrie;
+                for (String segment : indexEntry.pathPrefixSegments) {
+                    node = node.children.computeIfAbsent(segment, key -> new PathSegmentNode());
+                }
+                node.entries.add(indexEntry);
+            }
+        }
+    }
+
+    public synchronized void remove(HttpRequestMatcher httpRequestMatcher) {
+        String id = expectationId(httpRequestMatcher);
+        if (id != null) {
+            IndexEntry existing = entriesById.get(id);
+            if (existing != null && existing.httpRequestMatcher == httpRequestMatcher) {
+                entriesById.remove(id);
+                unindex(existing);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entriesById.clear();
+        byMethodAndPath.clear();
+        pathPrefixTrie.children.clear();
+        pathPrefixTrie.entries.clear();
+    }
+
+    public int size() {
+        return entriesById.size();
+    }
+
+    /**
+     * Returns the matchers that could match the request in priority order, or an empty optional if
+     * the request can't be used to narrow the matchers, for example because it has a blank method or path
+     */
+    public Optional<List<HttpRequestMatcher>> candidates(HttpRequest httpRequest) {
+        if (httpRequest == null || isNotIndexable(httpRequest.getMethod()) || isNotIndexable(httpRequest.getPath())) {
+            return Optional.empty();
+        }
+        String method = fold(httpRequest.getMethod().getValue());
+        String path = fold(httpRequest.getPath().getValue());
+        List<IndexEntry> candidates = new ArrayList<>();
+        addAll(candidates, byMethodAndPath.get(methodAndPathKey(method, path)), method);
+        addAll(candidates, byMethodAndPath.get(methodAndPathKey(ANY_METHOD, path)), method);
+        PathSegmentNode node = pathPrefixTrie;
+        addAll(candidates, node.entries, method);
+        for (String segment : path.split(PATH_SEPARATOR, -1)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                break;
+            }
+            addAll(candidates, node.entries, method);
+        }
+        List<HttpRequestMatcher> httpRequestMatchers = new ArrayList<>(candidates.size());
+        if (candidates.size() > 1) {
+            candidates.sort((entryOne, entryTwo) -> EXPECTATION_SORTABLE_PRIORITY_COMPARATOR.compare(sortableId(entryOne), sortableId(entryTwo)));
+        }
+        for (IndexEntry candidate : candidates) {
+            httpRequestMatchers.add(candidate.httpRequestMatcher);
+        }
+        return Optional.of(httpRequestMatchers);
+    }
+
+    private void addAll(List<IndexEntry> candidates, Set<IndexEntry> entries, String method) {
+        if (entries != null) {
+            for (IndexEntry entry : entries) {
+                if (entry.method == null || entry.method.equals(method)) {
+                    candidates.add(entry);
+                }
+            }
+        }
+    }
+
+    private void unindex(IndexEntry indexEntry) {
+        if (indexEntry.path != null) {
+            String key = methodAndPathKey(indexEntry.method != null ? indexEntry.method : ANY_METHOD, indexEntry.path);
+            Set<IndexEntry> entries = byMethodAndPath.get(key);
+            if (entries != null) {
+                entries.remove(indexEntry);
+                if (entries.isEmpty()) {
+                    byMethodAndPath.remove(key);
+                }
+            }
+        } else {
+            unindex(pathPrefixTrie, indexEntry, 0);
+        }
+    }
+
+    private boolean unindex(PathSegmentNode node, IndexEntry indexEntry, int depth) {
+        if (depth == indexEntry.pathPrefixSegments.length) {
+            node.entries.remove(indexEntry);
+        } else {
+            String segment = indexEntry.pathPrefixSegments[depth];
+            PathSegmentNode child = node.children.get(segment);
+            if (child != null && unindex(child, indexEntry, depth + 1)) {
+                node.children.remove(segment);
+            }
+        }
+        return node.entries.isEmpty() && node.children.isEmpty();
+    }
+
+    private static SortableExpectationId sortableId(IndexEntry indexEntry) {
+        Expectation expectation = indexEntry.httpRequestMatcher.getExpectation();
+        return expectation != null ? expectation.getSortableId() : SortableExpectationId.NULL;
+    }
+
+    private static String expectationId(HttpRequestMatcher httpRequestMatcher) {
+        return httpRequestMatcher != null && httpRequestMatcher.getExpectation() != null ? httpRequestMatcher.getExpectation().getId() : null;
+    }
+
+    private static String methodAndPathKey(String method, String path) {
+        return method + METHOD_PATH_SEPARATOR + path;
+    }
+
+    private static boolean isNotIndexable(NottableString nottableString) {
+        return nottableString == null || nottableString.isNot() || nottableString instanceof NottableSchemaString || StringUtils.isBlank(nottableString.getValue());
+    }
+
+    private static boolean isLiteral(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character > 127 || REGEX_META_CHARACTERS.indexOf(character) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * folds case consistently with String.equalsIgnoreCase so folded values are equal if the original values are equal ignoring case
+     */
+    static String fold(String value) {
+        char[] characters = value.toCharArray();
+        for (int i = 0; i < characters.length; i++) {
+            characters[i] = Character.toLowerCase(Character.toUpperCase(characters[i]));
+        }
+        return new String(characters);
+    }
+
+    private static class IndexEntry {
+
+        private static final String[] NO_SEGMENTS = new String[0];
+        private final HttpRequestMatcher httpRequestMatcher;
+        private final String method;
+        private final String path;
+        private final String[] pathPrefixSegments;
+
+        private IndexEntry(HttpRequestMatcher httpRequestMatcher) {
+            this.httpRequestMatcher = httpRequestMatcher;
+            RequestDefinition requestDefinition = httpRequestMatcher.getExpectation().getHttpRequest();
+            if (httpRequestMatcher instanceof HttpRequestPropertiesMatcher && requestDefinition instanceof HttpRequest && !requestDefinition.isNot()) {
+                HttpRequest httpRequest = (HttpRequest) requestDefinition;
+                NottableString method = httpRequest.getMethod();
+                this.method = !isNotIndexable(method) && isLiteral(method.getValue()) && !method.getValue().contains(METHOD_PATH_SEPARATOR) ? fold(method.getValue()) : null;
+                NottableString path = httpRequest.getPath() != null ? pathParametersParser.normalisePathWithParametersForMatching(httpRequest) : null;
+                if (isNotIndexable(path)) {
+                    this.path = null;
+                    this.pathPrefixSegments = NO_SEGMENTS;
+                } else if (isLiteral(path.getValue())) {
+                    this.path = fold(path.getValue());
+                    this.pathPrefixSegments = NO_SEGMENTS;
+                } else {
+                    this.path = null;
+                    this.pathPrefixSegments = literalPrefixSegments(path.getValue());
+                }
+            } else {
+                this.method = null;
+                this.path = null;
+                this.pathPrefixSegments = NO_SEGMENTS;
+            }
+        }
+
+        /**
+         * a segment is part of the literal prefix if it contains no regex meta characters and is followed by a separator that isn't quantified,
+         * any alternation could apply to the whole expression so disables the prefix entirely
+         */
+        private static String[] literalPrefixSegments(String regex) {
+            if (regex.indexOf('|') != -1) {
+                return NO_SEGMENTS;
+            }
+            String[] segments = regex.split(PATH_SEPARATOR, -1);
+            List<String> prefix = new ArrayList<>();
+            for (int i = 0; i < segments.length - 1; i++) {
+                String nextSegment = segments[i + 1];
+                if (isLiteral(segments[i]) && (nextSegment.isEmpty() || REGEX_QUANTIFIERS.indexOf(nextSegment.charAt(0)) == -1)) {
+                    prefix.add(fold(segments[i]));
+                } else {
+                    break;
+                }
+            }
+            return prefix.toArray(NO_SEGMENTS);
+        }
+    }
+
+    private static class PathSegmentNode {
+        private final ConcurrentMap<String, PathSegmentNode> children = new ConcurrentHashMap<>();
+        private final Set<IndexEntry> entries = ConcurrentHashMap.newKeySet();
+    }
+}
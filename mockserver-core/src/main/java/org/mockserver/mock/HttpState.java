@@ -1,11 +1,16 @@
 package org.mockserver.mock;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.mockserver.closurecallback.websocketregistry.WebSocketClientRegistry;
+import org.mockserver.cluster.ClusterEventLog;
+import org.mockserver.cluster.ExpectationReplicator;
 import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.log.MockServerEventLog;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
 import org.mockserver.memory.MemoryMonitoring;
+import org.mockserver.metrics.Metrics;
 import org.mockserver.mock.listeners.MockServerMatcherNotifier.Cause;
 import org.mockserver.model.*;
 import org.mockserver.openapi.OpenAPIConverter;
@@ -16,6 +21,9 @@ import org.mockserver.scheduler.Scheduler;
 import org.mockserver.serialization.*;
 import org.mockserver.serialization.java.ExpectationToJavaSerializer;
 import org.mockserver.server.initialize.ExpectationInitializerLoader;
+import org.mockserver.socket.tls.NettySslContextFactory;
+import org.mockserver.templates.engine.javascript.JavaScriptTemplateEngine;
+import org.mockserver.templates.engine.velocity.VelocityTemplateEngine;
 import org.mockserver.uuid.UUIDService;
 import org.mockserver.verify.Verification;
 import org.mockserver.verify.VerificationSequence;
@@ -24,10 +32,8 @@ import org.slf4j.event.Level;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -55,11 +61,14 @@ public class HttpState {
     public static final String LOG_SEPARATOR = NEW_LINE + "------------------------------------" + NEW_LINE;
     public static final String PATH_PREFIX = "/mockserver";
     private static final ThreadLocal<Integer> LOCAL_PORT = new ThreadLocal<>();
+    private static final ObjectWriter METRICS_WRITER = ObjectMapperFactory.createObjectMapper(true);
     private final String uniqueLoopPreventionHeaderValue = "MockServer_" + UUIDService.getUUID();
     private final MockServerEventLog mockServerLog;
     private final Scheduler scheduler;
     private ExpectationFileSystemPersistence expectationFileSystemPersistence;
     private ExpectationFileWatcher expectationFileWatcher;
+    private ExpectationReplicator expectationReplicator;
+    private ClusterEventLog clusterEventLog;
     // mockserver
     private final RequestMatchers requestMatchers;
     private final MockServerLogger mockServerLogger;
@@ -75,7 +84,20 @@ public class HttpState {
     private VerificationSequenceSerializer verificationSequenceSerializer;
     private LogEntrySerializer logEntrySerializer;
     private final MemoryMonitoring memoryMonitoring;
+    private final ThreadPoolExecutor controlPlaneExecutor = new ThreadPoolExecutor(
+        ConfigurationProperties.controlPlaneThreadCount(),
+        ConfigurationProperties.controlPlaneThreadCount(),
+        60L,
+        SECONDS,
+        new LinkedBlockingQueue<>(ConfigurationProperties.controlPlaneQueueSize()),
+        new Scheduler.SchedulerThreadFactory("ControlPlane")
+    );
+    // held until the response is written, so requests waiting for the event log are also limited
+    private final Semaphore controlPlanePermits = new Semaphore(ConfigurationProperties.controlPlaneThreadCount() + ConfigurationProperties.controlPlaneQueueSize());
     private OpenAPIConverter openAPIConverter;
+    // templates
+    private JavaScriptTemplateEngine javaScriptTemplateEngine;
+    private VelocityTemplateEngine velocityTemplateEngine;
 
     public static void setPort(final HttpRequest request) {
         if (request != null && request.getSocketAddress() != null) {
@@ -116,7 +138,24 @@ public class HttpState {
         if (ConfigurationProperties.watchInitializationJson()) {
             this.expectationFileWatcher = new ExpectationFileWatcher(mockServerLogger, requestMatchers);
         }
+        if (ConfigurationProperties.clusterReplicationPort() > 0 || isNotBlank(ConfigurationProperties.clusterPeers())) {
+            this.expectationReplicator = new ExpectationReplicator(
+                mockServerLogger,
+                requestMatchers,
+                ConfigurationProperties.clusterNodeId(),
+                ConfigurationProperties.clusterReplicationBindAddress(),
+                ConfigurationProperties.clusterReplicationPort(),
+                ExpectationReplicator.peers(ConfigurationProperties.clusterPeers()),
+                ConfigurationProperties.clusterReplicationTLS() ? new NettySslContextFactory(mockServerLogger) : null,
+                ConfigurationProperties.clusterReplicationSecret()
+            );
+            if (ConfigurationProperties.clusterLogAggregation()) {
+                this.clusterEventLog = new ClusterEventLog(mockServerLogger, mockServerLog, expectationReplicator, ConfigurationProperties.clusterLogQueryTimeout());
+                this.mockServerLog.setPeerEventLogs(clusterEventLog);
+            }
+        }
         this.memoryMonitoring = new MemoryMonitoring(this.mockServerLog, this.requestMatchers);
+        this.controlPlaneExecutor.allowCoreThreadTimeOut(true);
         new ExpectationInitializerLoader(mockServerLogger, requestMatchers);
     }
 
@@ -209,12 +248,18 @@ public class HttpState {
         });
     }
 
-    public List<Expectation> add(OpenAPIExpectation openAPIExpectation) {
-        return getOpenAPIConverter().buildExpectations(openAPIExpectation.getSpecUrlOrPayload(), openAPIExpectation.getOperationsAndResponses()).stream().map(this::add).flatMap(List::stream).collect(Collectors.toList());
+    public List<Expectation> add(OpenAPIExpectation... openAPIExpectations) {
+        List<Expectation> expectations = new ArrayList<>();
+        for (OpenAPIExpectation openAPIExpectation : openAPIExpectations) {
+            expectations.addAll(getOpenAPIConverter().buildExpectations(openAPIExpectation.getSpecUrlOrPayload(), openAPIExpectation.getOperationsAndResponses()));
+        }
+        return add(expectations.toArray(new Expectation[0]));
     }
 
     public List<Expectation> add(Expectation... expectations) {
-        List<Expectation> upsertedExpectations = new ArrayList<>();
+        for (Expectation expectation : expectations) {
+            compileTemplate(expectation);
+        }
         for (Expectation expectation : expectations) {
             RequestDefinition requestDefinition = expectation.getHttpRequest();
             if (requestDefinition instanceof HttpRequest) {
@@ -223,16 +268,35 @@ public class HttpState {
                     scheduler.submit(() -> addSubjectAlternativeName(hostHeader));
                 }
             }
-            upsertedExpectations.add(requestMatchers.add(expectation, Cause.API));
         }
-        return upsertedExpectations;
+        return requestMatchers.add(Arrays.asList(expectations), Cause.API);
+    }
+
+    private void compileTemplate(Expectation expectation) {
+        if (expectation.getAction() instanceof HttpTemplate) {
+            HttpTemplate httpTemplate = (HttpTemplate) expectation.getAction();
+            if (isNotBlank(httpTemplate.getTemplate())) {
+                switch (httpTemplate.getTemplateType()) {
+                    case VELOCITY:
+                        getVelocityTemplateEngine().compileTemplate(httpTemplate.getTemplate());
+                        break;
+                    case JAVASCRIPT:
+                        getJavaScriptTemplateEngine().compileTemplate(httpTemplate.getTemplate());
+                        break;
+                }
+            }
+        }
     }
 
     public Expectation firstMatchingExpectation(HttpRequest request) {
         if (requestMatchers.isEmpty()) {
             return null;
         } else {
-            return requestMatchers.firstMatchingExpectation(request);
+            Expectation expectation = requestMatchers.firstMatchingExpectation(request);
+            if (expectation != null && request != null && mockServerLog != null) {
+                mockServerLog.matched(request, expectation);
+            }
+            return expectation;
         }
     }
 
@@ -247,8 +311,28 @@ public class HttpState {
     }
 
     public HttpResponse retrieve(HttpRequest request) {
-        final String logCorrelationId = UUIDService.getUUID();
         CompletableFuture<HttpResponse> httpResponseFuture = new CompletableFuture<>();
+        retrieve(request, httpResponseFuture::complete);
+        try {
+            return httpResponseFuture.get(maxFutureTimeout(), MILLISECONDS);
+        } catch (ExecutionException | InterruptedException | TimeoutException ex) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.ERROR)
+                    .setMessageFormat("exception handling request:{}error:{}")
+                    .setArguments(request, ex.getMessage())
+                    .setThrowable(ex)
+            );
+            throw new RuntimeException("Exception retrieving state for " + request, ex);
+        }
+    }
+
+    /**
+     * Retrieves requests, responses, expectations or logs, the response consumer is called once the event log has been queried,
+     * which may be on another thread
+     */
+    public void retrieve(HttpRequest request, Consumer<HttpResponse> responseConsumer) {
+        final String logCorrelationId = UUIDService.getUUID();
         HttpResponse response = response().withStatusCode(OK.code());
         if (request != null) {
             try {
@@ -283,7 +367,7 @@ public class HttpState {
                                         .setArguments(requestDefinition)
                                 );
                             }
-                            httpResponseFuture.complete(response);
+                            responseConsumer.accept(response);
                         });
                         break;
                     }
@@ -306,7 +390,7 @@ public class HttpState {
                                                 MediaType.create("application", "java").withCharset(UTF_8)
                                             );
                                             mockServerLogger.logEvent(logEntry);
-                                            httpResponseFuture.complete(response);
+                                            responseConsumer.accept(response);
                                         }
                                     );
                                 break;
@@ -320,7 +404,7 @@ public class HttpState {
                                                 MediaType.JSON_UTF_8
                                             );
                                             mockServerLogger.logEvent(logEntry);
-                                            httpResponseFuture.complete(response);
+                                            responseConsumer.accept(response);
                                         }
                                     );
                                 break;
@@ -334,7 +418,7 @@ public class HttpState {
                                                 MediaType.JSON_UTF_8
                                             );
                                             mockServerLogger.logEvent(logEntry);
-                                            httpResponseFuture.complete(response);
+                                            responseConsumer.accept(response);
                                         }
                                     );
                                 break;
@@ -353,7 +437,7 @@ public class HttpState {
                             case JAVA:
                                 response.withBody("JAVA not supported for REQUEST_RESPONSES", MediaType.create("text", "plain").withCharset(UTF_8));
                                 mockServerLogger.logEvent(logEntry);
-                                httpResponseFuture.complete(response);
+                                responseConsumer.accept(response);
                                 break;
                             case JSON:
                                 mockServerLog
@@ -365,7 +449,7 @@ public class HttpState {
                                                 MediaType.JSON_UTF_8
                                             );
                                             mockServerLogger.logEvent(logEntry);
-                                            httpResponseFuture.complete(response);
+                                            responseConsumer.accept(response);
                                         }
                                     );
                                 break;
@@ -379,7 +463,7 @@ public class HttpState {
                                                 MediaType.JSON_UTF_8
                                             );
                                             mockServerLogger.logEvent(logEntry);
-                                            httpResponseFuture.complete(response);
+                                            responseConsumer.accept(response);
                                         }
                                     );
                                 break;
@@ -405,7 +489,7 @@ public class HttpState {
                                                 MediaType.create("application", "java").withCharset(UTF_8)
                                             );
                                             mockServerLogger.logEvent(logEntry);
-                                            httpResponseFuture.complete(response);
+                                            responseConsumer.accept(response);
                                         }
                                     );
                                 break;
@@ -419,7 +503,7 @@ public class HttpState {
                                                 MediaType.JSON_UTF_8
                                             );
                                             mockServerLogger.logEvent(logEntry);
-                                            httpResponseFuture.complete(response);
+                                            responseConsumer.accept(response);
                                         }
                                     );
                                 break;
@@ -433,7 +517,7 @@ public class HttpState {
                                                 MediaType.JSON_UTF_8
                                             );
                                             mockServerLogger.logEvent(logEntry);
-                                            httpResponseFuture.complete(response);
+                                            responseConsumer.accept(response);
                                         }
                                     );
                                 break;
@@ -464,24 +548,10 @@ public class HttpState {
                                     .setArguments(requestDefinition)
                             );
                         }
-                        httpResponseFuture.complete(response);
+                        responseConsumer.accept(response);
                         break;
                     }
                 }
-
-                try {
-                    return httpResponseFuture.get(maxFutureTimeout(), MILLISECONDS);
-                } catch (ExecutionException | InterruptedException | TimeoutException ex) {
-                    mockServerLogger.logEvent(
-                        new LogEntry()
-                            .setLogLevel(Level.ERROR)
-                            .setCorrelationId(logCorrelationId)
-                            .setMessageFormat("exception handling request:{}error:{}")
-                            .setArguments(request, ex.getMessage())
-                            .setThrowable(ex)
-                    );
-                    throw new RuntimeException("Exception retrieving state for " + request, ex);
-                }
             } catch (IllegalArgumentException iae) {
                 mockServerLogger.logEvent(
                     new LogEntry()
@@ -498,7 +568,7 @@ public class HttpState {
                 }
             }
         } else {
-            return response().withStatusCode(200);
+            responseConsumer.accept(response().withStatusCode(200));
         }
     }
 
@@ -509,9 +579,7 @@ public class HttpState {
     }
 
     public void verify(Verification verification, Consumer<String> resultConsumer) {
-        if (verification.getHttpRequest() == null) {
-            verification.withRequest(resolveExpectationId(verification.getExpectationId()));
-        }
+        // verifying by expectation id counts the requests matched by the expectation, which are recorded at every log level
         mockServerLog.verify(verification, resultConsumer);
     }
 
@@ -522,6 +590,7 @@ public class HttpState {
     }
 
     public void verify(VerificationSequence verification, Consumer<String> resultConsumer) {
+        // a count can't express ordering, so sequences of expectation ids are verified using each expectation's request
         if (verification.getHttpRequests() == null) {
             verification.withRequests(resolveExpectationIds(verification.getExpectationIds().toArray(new ExpectationId[0])));
         }
@@ -549,12 +618,13 @@ public class HttpState {
 
             if (request.matches("PUT", PATH_PREFIX + "/expectation", "/expectation")) {
 
-                List<Expectation> upsertedExpectations = new ArrayList<>();
+                List<Expectation> supportedExpectations = new ArrayList<>();
                 for (Expectation expectation : getExpectationSerializer().deserializeArray(request.getBodyAsJsonOrXmlString(), false)) {
                     if (!warDeployment || validateSupportedFeatures(expectation, request, responseWriter)) {
-                        upsertedExpectations.addAll(add(expectation));
+                        supportedExpectations.add(expectation);
                     }
                 }
+                List<Expectation> upsertedExpectations = add(supportedExpectations.toArray(new Expectation[0]));
 
                 responseWriter.writeResponse(request, response()
                     .withStatusCode(CREATED.code())
@@ -564,10 +634,7 @@ public class HttpState {
             } else if (request.matches("PUT", PATH_PREFIX + "/openapi", "/openapi")) {
 
                 try {
-                    List<Expectation> upsertedExpectations = new ArrayList<>();
-                    for (OpenAPIExpectation openAPIExpectation : getOpenAPIExpectationSerializer().deserializeArray(request.getBodyAsJsonOrXmlString(), false)) {
-                        upsertedExpectations.addAll(add(openAPIExpectation));
-                    }
+                    List<Expectation> upsertedExpectations = add(getOpenAPIExpectationSerializer().deserializeArray(request.getBodyAsJsonOrXmlString(), false));
                     responseWriter.writeResponse(request, response()
                         .withStatusCode(CREATED.code())
                         .withBody(getExpectationSerializer().serialize(upsertedExpectations), MediaType.JSON_UTF_8), true);
@@ -590,9 +657,11 @@ public class HttpState {
 
             } else if (request.matches("PUT", PATH_PREFIX + "/clear", "/clear")) {
 
-                clear(request);
-                responseWriter.writeResponse(request, OK);
-                canHandle.complete(true);
+                handleControlPlaneRequest(request, responseWriter, warDeployment, canHandle, handled -> {
+                    clear(request);
+                    responseWriter.writeResponse(request, OK);
+                    handled.run();
+                });
 
             } else if (request.matches("PUT", PATH_PREFIX + "/reset", "/reset")) {
 
@@ -602,30 +671,47 @@ public class HttpState {
 
             } else if (request.matches("PUT", PATH_PREFIX + "/retrieve", "/retrieve")) {
 
-                responseWriter.writeResponse(request, retrieve(request), true);
-                canHandle.complete(true);
+                handleControlPlaneRequest(request, responseWriter, warDeployment, canHandle, handled ->
+                    retrieve(request, response -> {
+                        responseWriter.writeResponse(request, response, true);
+                        handled.run();
+                    })
+                );
 
             } else if (request.matches("PUT", PATH_PREFIX + "/verify", "/verify")) {
 
-                verify(getVerificationSerializer().deserialize(request.getBodyAsJsonOrXmlString()), result -> {
-                    if (isEmpty(result)) {
-                        responseWriter.writeResponse(request, ACCEPTED);
-                    } else {
-                        responseWriter.writeResponse(request, NOT_ACCEPTABLE, result, MediaType.create("text", "plain").toString());
-                    }
-                    canHandle.complete(true);
-                });
+                handleControlPlaneRequest(request, responseWriter, warDeployment, canHandle, handled ->
+                    verify(getVerificationSerializer().deserialize(request.getBodyAsJsonOrXmlString()), result -> {
+                        if (isEmpty(result)) {
+                            responseWriter.writeResponse(request, ACCEPTED);
+                        } else {
+                            responseWriter.writeResponse(request, NOT_ACCEPTABLE, result, MediaType.create("text", "plain").toString());
+                        }
+                        handled.run();
+                    })
+                );
 
             } else if (request.matches("PUT", PATH_PREFIX + "/verifySequence", "/verifySequence")) {
 
-                verify(getVerificationSequenceSerializer().deserialize(request.getBodyAsJsonOrXmlString()), result -> {
-                    if (isEmpty(result)) {
-                        responseWriter.writeResponse(request, ACCEPTED);
-                    } else {
-                        responseWriter.writeResponse(request, NOT_ACCEPTABLE, result, MediaType.create("text", "plain").toString());
-                    }
-                    canHandle.complete(true);
-                });
+                handleControlPlaneRequest(request, responseWriter, warDeployment, canHandle, handled ->
+                    verify(getVerificationSequenceSerializer().deserialize(request.getBodyAsJsonOrXmlString()), result -> {
+                        if (isEmpty(result)) {
+                            responseWriter.writeResponse(request, ACCEPTED);
+                        } else {
+                            responseWriter.writeResponse(request, NOT_ACCEPTABLE, result, MediaType.create("text", "plain").toString());
+                        }
+                        handled.run();
+                    })
+                );
+
+            } else if (request.matches("PUT", PATH_PREFIX + "/metrics", "/metrics")) {
+
+                try {
+                    responseWriter.writeResponse(request, response().withStatusCode(OK.code()).withBody(METRICS_WRITER.writeValueAsString(Metrics.snapshot()), MediaType.JSON_UTF_8), true);
+                } catch (JsonProcessingException jpe) {
+                    throw new RuntimeException("Exception serialising metrics", jpe);
+                }
+                canHandle.complete(true);
 
             } else {
                 canHandle.complete(false);
@@ -652,6 +738,77 @@ public class HttpState {
 
     }
 
+    /**
+     * Runs clear, retrieve and verify requests on the control plane executor, so event loop threads aren't blocked waiting for the
+     * event log, the response is written by the handler once it completes.  When deployed as a WAR the servlet response must be
+     * written before the request returns so the handler is run on the calling thread.
+     * <p>
+     * A permit is held from when the request is accepted until the handler reports its response has been written, so the number of
+     * requests queued for a control plane thread or waiting for their event log query is bounded, further requests are rejected with
+     * 429 Too Many Requests.
+     */
+    private void handleControlPlaneRequest(HttpRequest request, ResponseWriter responseWriter, boolean warDeployment, CompletableFuture<Boolean> canHandle, Consumer<Runnable> handler) {
+        if (warDeployment) {
+            try {
+                handler.accept(() -> canHandle.complete(true));
+            } catch (RejectedExecutionException ree) {
+                // the event log query queue is full
+                tooManyControlPlaneRequests(request, responseWriter);
+                canHandle.complete(true);
+            }
+        } else {
+            if (controlPlanePermits.tryAcquire()) {
+                AtomicBoolean released = new AtomicBoolean(false);
+                Runnable handled = () -> {
+                    if (released.compareAndSet(false, true)) {
+                        controlPlanePermits.release();
+                    }
+                };
+                try {
+                    controlPlaneExecutor.execute(() -> {
+                        try {
+                            handler.accept(handled);
+                        } catch (RejectedExecutionException ree) {
+                            // the event log query queue is full
+                            tooManyControlPlaneRequests(request, responseWriter);
+                            handled.run();
+                        } catch (IllegalArgumentException iae) {
+                            mockServerLogger.logEvent(
+                                new LogEntry()
+                                    .setLogLevel(Level.ERROR)
+                                    .setHttpRequest(request)
+                                    .setMessageFormat("exception processing request:{}error:{}")
+                                    .setArguments(request, iae.getMessage())
+                            );
+                            responseWriter.writeResponse(request, BAD_REQUEST, iae.getMessage(), MediaType.create("text", "plain").toString());
+                            handled.run();
+                        } catch (Throwable throwable) {
+                            mockServerLogger.logEvent(
+                                new LogEntry()
+                                    .setLogLevel(Level.ERROR)
+                                    .setHttpRequest(request)
+                                    .setMessageFormat("exception processing " + request)
+                                    .setThrowable(throwable)
+                            );
+                            responseWriter.writeResponse(request, response().withStatusCode(BAD_REQUEST.code()).withBody(throwable.getMessage()), true);
+                            handled.run();
+                        }
+                    });
+                } catch (RejectedExecutionException ree) {
+                    handled.run();
+                    tooManyControlPlaneRequests(request, responseWriter);
+                }
+            } else {
+                tooManyControlPlaneRequests(request, responseWriter);
+            }
+            canHandle.complete(true);
+        }
+    }
+
+    private void tooManyControlPlaneRequests(HttpRequest request, ResponseWriter responseWriter) {
+        responseWriter.writeResponse(request, TOO_MANY_REQUESTS, "too many clear, retrieve or verify requests in progress", MediaType.create("text", "plain").toString());
+    }
+
     @SuppressWarnings("rawtypes")
     private boolean validateSupportedFeatures(Expectation expectation, HttpRequest request, ResponseWriter responseWriter) {
         boolean valid = true;
@@ -701,7 +858,14 @@ public class HttpState {
         if (expectationFileWatcher != null) {
             expectationFileWatcher.stop();
         }
+        if (clusterEventLog != null) {
+            clusterEventLog.stop();
+        }
+        if (expectationReplicator != null) {
+            expectationReplicator.stop();
+        }
         getMockServerLog().stop();
+        controlPlaneExecutor.shutdown();
     }
 
     private ExpectationIdSerializer getExpectationIdSerializer() {
@@ -773,4 +937,18 @@ public class HttpState {
         }
         return openAPIConverter;
     }
+
+    private JavaScriptTemplateEngine getJavaScriptTemplateEngine() {
+        if (this.javaScriptTemplateEngine == null) {
+            this.javaScriptTemplateEngine = new JavaScriptTemplateEngine(mockServerLogger);
+        }
+        return javaScriptTemplateEngine;
+    }
+
+    private VelocityTemplateEngine getVelocityTemplateEngine() {
+        if (this.velocityTemplateEngine == null) {
+            this.velocityTemplateEngine = new VelocityTemplateEngine(mockServerLogger);
+        }
+        return velocityTemplateEngine;
+    }
 }
@@ -1,10 +1,12 @@
 package org.mockserver.mock;
 
 import org.mockserver.closurecallback.websocketregistry.WebSocketClientRegistry;
+import org.mockserver.codec.BodyDecoderEncoder;
 import org.mockserver.collections.CircularPriorityQueue;
 import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
+import org.mockserver.matchers.HttpRequestMatchContext;
 import org.mockserver.matchers.HttpRequestMatcher;
 import org.mockserver.matchers.MatchDifference;
 import org.mockserver.matchers.MatcherBuilder;
@@ -19,6 +21,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.mockserver.configuration.ConfigurationProperties.maxExpectations;
 import static org.mockserver.log.model.LogEntry.LogMessageType.*;
@@ -34,16 +37,19 @@ import static org.slf4j.event.Level.DEBUG;
 @SuppressWarnings("FieldMayBeFinal")
 public class RequestMatchers extends MockServerMatcherNotifier {
 
+    final HttpRequestMatcherIndex httpRequestMatcherIndex = new HttpRequestMatcherIndex();
     final CircularPriorityQueue<String, HttpRequestMatcher, SortableExpectationId> httpRequestMatchers = new CircularPriorityQueue<>(
         maxExpectations(),
         EXPECTATION_SORTABLE_PRIORITY_COMPARATOR,
         httpRequestMatcher -> httpRequestMatcher.getExpectation() != null ? httpRequestMatcher.getExpectation().getSortableId() : NULL,
-        httpRequestMatcher -> httpRequestMatcher.getExpectation() != null ? httpRequestMatcher.getExpectation().getId() : ""
+        httpRequestMatcher -> httpRequestMatcher.getExpectation() != null ? httpRequestMatcher.getExpectation().getId() : "",
+        httpRequestMatcherIndex::remove
     );
     private final MockServerLogger mockServerLogger;
     private final Scheduler scheduler;
     private WebSocketClientRegistry webSocketClientRegistry;
     private MatcherBuilder matcherBuilder;
+    private final BodyDecoderEncoder bodyDecoderEncoder = new BodyDecoderEncoder();
 
     public RequestMatchers(MockServerLogger mockServerLogger, Scheduler scheduler, WebSocketClientRegistry webSocketClientRegistry) {
         super(scheduler);
@@ -53,48 +59,82 @@ public class RequestMatchers extends MockServerMatcherNotifier {
         this.webSocketClientRegistry = webSocketClientRegistry;
     }
 
-    public Expectation add(Expectation expectation, Cause cause) {
+    public synchronized Expectation add(Expectation expectation, Cause cause) {
         Expectation upsertedExpectation = null;
         if (expectation != null) {
-            upsertedExpectation = httpRequestMatchers
-                .getByKey(expectation.getId())
-                .map(httpRequestMatcher -> {
-                    if (httpRequestMatcher.getExpectation() != null && httpRequestMatcher.getExpectation().getAction() != null) {
-                        Metrics.decrement(httpRequestMatcher.getExpectation().getAction().getType());
-                    }
-                    if (httpRequestMatcher.getExpectation() != null) {
-                        // propagate created time from previous entry to avoid re-ordering on update
-                        expectation.withCreated(httpRequestMatcher.getExpectation().getCreated());
-                    }
-                    httpRequestMatchers.removePriorityKey(httpRequestMatcher);
-                    if (httpRequestMatcher.update(expectation)) {
-                        httpRequestMatchers.addPriorityKey(httpRequestMatcher);
-                        if (MockServerLogger.isEnabled(Level.INFO)) {
-                            mockServerLogger.logEvent(
-                                new LogEntry()
-                                    .setType(UPDATED_EXPECTATION)
-                                    .setLogLevel(Level.INFO)
-                                    .setHttpRequest(expectation.getHttpRequest())
-                                    .setMessageFormat(UPDATED_EXPECTATION_MESSAGE_FORMAT)
-                                    .setArguments(expectation.clone(), expectation.getId())
-                            );
-                        }
-                        if (expectation.getAction() != null) {
-                            Metrics.increment(expectation.getAction().getType());
-                        }
-                    } else {
-                        httpRequestMatchers.addPriorityKey(httpRequestMatcher);
-                    }
-                    return httpRequestMatcher;
-                })
-                .orElseGet(() -> addPrioritisedExpectation(expectation))
-                .getExpectation();
+            upsertedExpectation = upsert(expectation, null);
             notifyListeners(this, cause);
         }
         return upsertedExpectation;
     }
 
-    public void update(Expectation[] expectations, Cause cause) {
+    /**
+     * Upserts a batch of expectations notifying listeners once for the whole batch, so persistence, memory monitoring
+     * and the dashboard are updated once instead of once per expectation.
+     * <p>
+     * Matchers for new expectations are all built before any expectation is upserted so an invalid expectation
+     * rejects the whole batch, and batches are applied under the same lock as other upserts so they don't interleave.
+     */
+    public synchronized List<Expectation> add(List<Expectation> expectations, Cause cause) {
+        List<Expectation> upsertedExpectations = new ArrayList<>();
+        if (expectations != null && !expectations.isEmpty()) {
+            List<HttpRequestMatcher> newHttpRequestMatchers = new ArrayList<>(expectations.size());
+            for (Expectation expectation : expectations) {
+                if (expectation != null && !httpRequestMatchers.getByKey(expectation.getId()).isPresent()) {
+                    newHttpRequestMatchers.add(matcherBuilder.transformsToMatcher(expectation));
+                } else {
+                    newHttpRequestMatchers.add(null);
+                }
+            }
+            for (int i = 0; i < expectations.size(); i++) {
+                if (expectations.get(i) != null) {
+                    upsertedExpectations.add(upsert(expectations.get(i), newHttpRequestMatchers.get(i)));
+                }
+            }
+            notifyListeners(this, cause);
+        }
+        return upsertedExpectations;
+    }
+
+    private Expectation upsert(Expectation expectation, HttpRequestMatcher newHttpRequestMatcher) {
+        return httpRequestMatchers
+            .getByKey(expectation.getId())
+            .map(httpRequestMatcher -> {
+                if (httpRequestMatcher.getExpectation() != null && httpRequestMatcher.getExpectation().getAction() != null) {
+                    Metrics.decrement(httpRequestMatcher.getExpectation().getAction().getType());
+                }
+                if (httpRequestMatcher.getExpectation() != null) {
+                    // propagate created time from previous entry to avoid re-ordering on update
+                    expectation.withCreated(httpRequestMatcher.getExpectation().getCreated());
+                }
+                httpRequestMatchers.removePriorityKey(httpRequestMatcher);
+                if (httpRequestMatcher.update(expectation)) {
+                    httpRequestMatchers.addPriorityKey(httpRequestMatcher);
+                    httpRequestMatcherIndex.add(httpRequestMatcher);
+                    encodeResponseBody(expectation);
+                    if (MockServerLogger.isEnabled(Level.INFO)) {
+                        mockServerLogger.logEvent(
+                            new LogEntry()
+                                .setType(UPDATED_EXPECTATION)
+                                .setLogLevel(Level.INFO)
+                                .setHttpRequest(expectation.getHttpRequest())
+                                .setMessageFormat(UPDATED_EXPECTATION_MESSAGE_FORMAT)
+                                .setArguments(expectation.clone(), expectation.getId())
+                        );
+                    }
+                    if (expectation.getAction() != null) {
+                        Metrics.increment(expectation.getAction().getType());
+                    }
+                } else {
+                    httpRequestMatchers.addPriorityKey(httpRequestMatcher);
+                }
+                return httpRequestMatcher;
+            })
+            .orElseGet(() -> addPrioritisedExpectation(newHttpRequestMatcher != null ? newHttpRequestMatcher : matcherBuilder.transformsToMatcher(expectation)))
+            .getExpectation();
+    }
+
+    public synchronized void update(Expectation[] expectations, Cause cause) {
         AtomicInteger numberOfChanges = new AtomicInteger(0);
         if (expectations != null) {
             Map<String, HttpRequestMatcher> httpRequestMatchersByKey = httpRequestMatchers.keyMap();
@@ -115,6 +155,8 @@ public class RequestMatchers extends MockServerMatcherNotifier {
                         httpRequestMatchers.removePriorityKey(httpRequestMatcher);
                         if (httpRequestMatcher.update(expectation)) {
                             httpRequestMatchers.addPriorityKey(httpRequestMatcher);
+                            httpRequestMatcherIndex.add(httpRequestMatcher);
+                            encodeResponseBody(expectation);
                             numberOfChanges.getAndIncrement();
                             if (MockServerLogger.isEnabled(Level.INFO)) {
                                 mockServerLogger.logEvent(
@@ -133,7 +175,7 @@ public class RequestMatchers extends MockServerMatcherNotifier {
                             httpRequestMatchers.addPriorityKey(httpRequestMatcher);
                         }
                     } else {
-                        addPrioritisedExpectation(expectation);
+                        addPrioritisedExpectation(matcherBuilder.transformsToMatcher(expectation));
                         numberOfChanges.getAndIncrement();
                     }
                 });
@@ -152,9 +194,13 @@ public class RequestMatchers extends MockServerMatcherNotifier {
         }
     }
 
-    private HttpRequestMatcher addPrioritisedExpectation(Expectation expectation) {
-        HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(expectation);
+    private HttpRequestMatcher addPrioritisedExpectation(HttpRequestMatcher httpRequestMatcher) {
+        Expectation expectation = httpRequestMatcher.getExpectation();
         httpRequestMatchers.add(httpRequestMatcher);
+        if (httpRequestMatchers.getByKey(expectation.getId()).orElse(null) == httpRequestMatcher) {
+            httpRequestMatcherIndex.add(httpRequestMatcher);
+        }
+        encodeResponseBody(expectation);
         if (expectation.getAction() != null) {
             Metrics.increment(expectation.getAction().getType());
         }
@@ -171,6 +217,17 @@ public class RequestMatchers extends MockServerMatcherNotifier {
         return httpRequestMatcher;
     }
 
+    /**
+     * The response body of an expectation is written for every matching request, so it is encoded once when the
+     * expectation is added instead of for each response
+     */
+    private void encodeResponseBody(Expectation expectation) {
+        HttpResponse httpResponse = expectation.getHttpResponse();
+        if (httpResponse != null) {
+            bodyDecoderEncoder.encodeOnce(httpResponse.getBody(), httpResponse.getFirstHeader(CONTENT_TYPE.toString()));
+        }
+    }
+
     public int size() {
         return httpRequestMatchers.size();
     }
@@ -190,15 +247,22 @@ public class RequestMatchers extends MockServerMatcherNotifier {
     }
 
     public Expectation firstMatchingExpectation(HttpRequest httpRequest) {
-        Optional<Expectation> first = getHttpRequestMatchersCopy()
+        long matchingStartTime = System.nanoTime();
+        HttpRequestMatchContext matchContext = new HttpRequestMatchContext(mockServerLogger, httpRequest);
+        Optional<Expectation> first = getCandidateHttpRequestMatchers(httpRequest)
             .map(httpRequestMatcher -> {
                 Expectation matchingExpectation = null;
                 boolean remainingMatchesDecremented = false;
-                if (httpRequestMatcher.matches(MockServerLogger.isEnabled(DEBUG) ? new MatchDifference(httpRequest) : null, httpRequest)) {
-                    matchingExpectation = httpRequestMatcher.getExpectation();
+                if (httpRequestMatcher.matches(MockServerLogger.isEnabled(DEBUG) ? new MatchDifference(httpRequest) : null, matchContext, httpRequest)) {
+                    Expectation expectation = httpRequestMatcher.getExpectation();
+                    // mark in progress before claiming so a concurrent request can't remove the matcher once its last match is claimed
                     httpRequestMatcher.setResponseInProgress(true);
-                    if (matchingExpectation.decrementRemainingMatches()) {
-                        remainingMatchesDecremented = true;
+                    if (expectation.claimRemainingMatch()) {
+                        matchingExpectation = expectation;
+                        remainingMatchesDecremented = expectation.getTimes() != null && !expectation.getTimes().isUnlimited();
+                    } else {
+                        // a concurrent request claimed the last remaining match so try the next matcher
+                        httpRequestMatcher.setResponseInProgress(false);
                     }
                 } else if (!httpRequestMatcher.isResponseInProgress() && !httpRequestMatcher.isActive()) {
                     scheduler.submit(() -> removeHttpRequestMatcher(httpRequestMatcher));
@@ -218,6 +282,7 @@ public class RequestMatchers extends MockServerMatcherNotifier {
             } else {
                 Metrics.increment(RESPONSE_EXPECTATION_MATCHED_COUNT);
             }
+            Metrics.record(Metrics.Timer.REQUEST_MATCHING, System.nanoTime() - matchingStartTime);
         }
         return first.orElse(null);
     }
@@ -254,11 +319,20 @@ public class RequestMatchers extends MockServerMatcherNotifier {
         }
     }
 
+    /**
+     * Removes the expectation with the expectation id, returning true if an expectation was removed
+     */
+    public synchronized boolean remove(String expectationId, Cause cause) {
+        Optional<HttpRequestMatcher> httpRequestMatcher = httpRequestMatchers.getByKey(expectationId);
+        httpRequestMatcher.ifPresent(matcher -> removeHttpRequestMatcher(matcher, cause, true));
+        return httpRequestMatcher.isPresent();
+    }
+
     Expectation postProcess(Expectation expectation) {
         if (expectation != null) {
-            getHttpRequestMatchersCopy()
+            httpRequestMatchers
+                .getByKey(expectation.getId())
                 .filter(httpRequestMatcher -> httpRequestMatcher.getExpectation() == expectation)
-                .findFirst()
                 .ifPresent(httpRequestMatcher -> {
                     if (!expectation.isActive()) {
                         removeHttpRequestMatcher(httpRequestMatcher);
@@ -276,6 +350,7 @@ public class RequestMatchers extends MockServerMatcherNotifier {
     @SuppressWarnings("rawtypes")
     private void removeHttpRequestMatcher(HttpRequestMatcher httpRequestMatcher, Cause cause, boolean notifyAndUpdateMetrics) {
         if (httpRequestMatchers.remove(httpRequestMatcher)) {
+            httpRequestMatcherIndex.remove(httpRequestMatcher);
             if (httpRequestMatcher.getExpectation() != null && MockServerLogger.isEnabled(Level.INFO)) {
                 Expectation expectation = httpRequestMatcher.getExpectation().clone();
                 mockServerLogger.logEvent(
@@ -352,4 +427,11 @@ public class RequestMatchers extends MockServerMatcherNotifier {
     private Stream<HttpRequestMatcher> getHttpRequestMatchersCopy() {
         return httpRequestMatchers.stream();
     }
+
+    private Stream<HttpRequestMatcher> getCandidateHttpRequestMatchers(HttpRequest httpRequest) {
+        return httpRequestMatcherIndex
+            .candidates(httpRequest)
+            .map(List::stream)
+            .orElseGet(this::getHttpRequestMatchersCopy);
+    }
 }
@@ -9,6 +9,7 @@ import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.filters.HopByHopHeaderFilter;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
+import org.mockserver.metrics.Metrics;
 import org.mockserver.mock.Expectation;
 import org.mockserver.mock.HttpState;
 import org.mockserver.model.*;
@@ -22,6 +23,7 @@ import org.slf4j.event.Level;
 import java.net.InetSocketAddress;
 import java.util.Set;
 import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.HOST;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
@@ -44,6 +46,7 @@ import static org.slf4j.event.Level.TRACE;
 public class HttpActionHandler {
 
     public static final AttributeKey<InetSocketAddress> REMOTE_SOCKET = AttributeKey.valueOf("REMOTE_SOCKET");
+    private static final long ACTION_NOT_TIMED = Long.MIN_VALUE;
 
     private final HttpState httpStateHandler;
     private final Scheduler scheduler;
@@ -93,25 +96,34 @@ public class HttpActionHandler {
             final Action action = expectation.getAction();
             switch (action.getType()) {
                 case RESPONSE: {
-                    scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, () -> {
-                        final HttpResponse response = getHttpResponseActionHandler().handle((HttpResponse) action);
-                        writeResponseActionResponse(response, responseWriter, request, action, synchronous);
-                        expectationPostProcessor.run();
-                    }), synchronous);
+                    if (isStaticResponse((HttpResponse) action)) {
+                        scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, actionStartTime -> {
+                            logExpectationResponse((HttpResponse) action, request, action);
+                            responseWriter.writeStaticResponse(request, (HttpResponse) action);
+                            recordActionExecution(actionStartTime);
+                            expectationPostProcessor.run();
+                        }), synchronous);
+                    } else {
+                        scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, actionStartTime -> {
+                            final HttpResponse response = getHttpResponseActionHandler().handle((HttpResponse) action);
+                            writeResponseActionResponse(response, responseWriter, request, action, synchronous, actionStartTime);
+                            expectationPostProcessor.run();
+                        }), synchronous);
+                    }
                     break;
                 }
                 case RESPONSE_TEMPLATE: {
-                    scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, () -> {
+                    scheduler.scheduleBlocking(() -> handleAnyException(request, responseWriter, synchronous, action, actionStartTime -> {
                         final HttpResponse response = getHttpResponseTemplateActionHandler().handle((HttpTemplate) action, request);
-                        writeResponseActionResponse(response, responseWriter, request, action, synchronous);
+                        writeResponseActionResponse(response, responseWriter, request, action, synchronous, actionStartTime);
                         expectationPostProcessor.run();
                     }), synchronous, action.getDelay());
                     break;
                 }
                 case RESPONSE_CLASS_CALLBACK: {
-                    scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, () -> {
+                    scheduler.scheduleBlocking(() -> handleAnyException(request, responseWriter, synchronous, action, actionStartTime -> {
                         final HttpResponse response = getHttpResponseClassCallbackActionHandler().handle((HttpClassCallback) action, request);
-                        writeResponseActionResponse(response, responseWriter, request, action, synchronous);
+                        writeResponseActionResponse(response, responseWriter, request, action, synchronous, actionStartTime);
                         expectationPostProcessor.run();
                     }), synchronous, action.getDelay());
                     break;
@@ -123,25 +135,25 @@ public class HttpActionHandler {
                     break;
                 }
                 case FORWARD: {
-                    scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, () -> {
+                    scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, actionStartTime -> {
                         final HttpForwardActionResult responseFuture = getHttpForwardActionHandler().handle((HttpForward) action, request);
-                        writeForwardActionResponse(responseFuture, responseWriter, request, action, synchronous);
+                        writeForwardActionResponse(responseFuture, responseWriter, request, action, synchronous, actionStartTime);
                         expectationPostProcessor.run();
                     }), synchronous, action.getDelay());
                     break;
                 }
                 case FORWARD_TEMPLATE: {
-                    scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, () -> {
+                    scheduler.scheduleBlocking(() -> handleAnyException(request, responseWriter, synchronous, action, actionStartTime -> {
                         final HttpForwardActionResult responseFuture = getHttpForwardTemplateActionHandler().handle((HttpTemplate) action, request);
-                        writeForwardActionResponse(responseFuture, responseWriter, request, action, synchronous);
+                        writeForwardActionResponse(responseFuture, responseWriter, request, action, synchronous, actionStartTime);
                         expectationPostProcessor.run();
                     }), synchronous, action.getDelay());
                     break;
                 }
                 case FORWARD_CLASS_CALLBACK: {
-                    scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, () -> {
+                    scheduler.scheduleBlocking(() -> handleAnyException(request, responseWriter, synchronous, action, actionStartTime -> {
                         final HttpForwardActionResult responseFuture = getHttpForwardClassCallbackActionHandler().handle((HttpClassCallback) action, request);
-                        writeForwardActionResponse(responseFuture, responseWriter, request, action, synchronous);
+                        writeForwardActionResponse(responseFuture, responseWriter, request, action, synchronous, actionStartTime);
                         expectationPostProcessor.run();
                     }), synchronous, action.getDelay());
                     break;
@@ -153,16 +165,17 @@ public class HttpActionHandler {
                     break;
                 }
                 case FORWARD_REPLACE: {
-                    scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, () -> {
+                    scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, actionStartTime -> {
                         final HttpForwardActionResult responseFuture = getHttpOverrideForwardedRequestCallbackActionHandler().handle((HttpOverrideForwardedRequest) action, request);
-                        writeForwardActionResponse(responseFuture, responseWriter, request, action, synchronous);
+                        writeForwardActionResponse(responseFuture, responseWriter, request, action, synchronous, actionStartTime);
                         expectationPostProcessor.run();
                     }), synchronous, action.getDelay());
                     break;
                 }
                 case ERROR: {
-                    scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, () -> {
+                    scheduler.schedule(() -> handleAnyException(request, responseWriter, synchronous, action, actionStartTime -> {
                         getHttpErrorActionHandler().handle((HttpError) action, ctx);
+                        recordActionExecution(actionStartTime);
                         if (MockServerLogger.isEnabled(Level.INFO)) {
                             mockServerLogger.logEvent(
                                 new LogEntry()
@@ -299,9 +312,9 @@ public class HttpActionHandler {
         }
     }
 
-    private void handleAnyException(HttpRequest request, ResponseWriter responseWriter, boolean synchronous, Action action, Runnable processAction) {
+    private void handleAnyException(HttpRequest request, ResponseWriter responseWriter, boolean synchronous, Action action, LongConsumer processAction) {
         try {
-            processAction.run();
+            processAction.accept(System.nanoTime());
         } catch (Throwable throwable) {
             writeResponseActionResponse(notFoundResponse(), responseWriter, request, action, synchronous);
             if (MockServerLogger.isEnabled(Level.INFO)) {
@@ -318,33 +331,73 @@ public class HttpActionHandler {
         }
     }
 
+    /**
+     * A response without a delay, that isn't chunked and doesn't need CORS headers for each request, is written
+     * without being cloned or mapped for each request
+     */
+    private boolean isStaticResponse(HttpResponse response) {
+        ConnectionOptions connectionOptions = response.getConnectionOptions();
+        return response.getDelay() == null
+            && (connectionOptions == null || connectionOptions.getChunkSize() == null || connectionOptions.getChunkSize() <= 0)
+            && !enableCORSForAllResponses();
+    }
+
+    private void logExpectationResponse(final HttpResponse response, final HttpRequest request, final Action action) {
+        if (MockServerLogger.isEnabled(Level.INFO)) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setType(EXPECTATION_RESPONSE)
+                    .setLogLevel(Level.INFO)
+                    .setCorrelationId(request.getLogCorrelationId())
+                    .setHttpRequest(request)
+                    .setHttpResponse(response)
+                    .setMessageFormat("returning response:{}for request:{}for action:{}from expectation:{}")
+                    .setArguments(response, request, action, action.getExpectationId())
+            );
+        }
+    }
+
     void writeResponseActionResponse(final HttpResponse response, final ResponseWriter responseWriter, final HttpRequest request, final Action action, boolean synchronous) {
+        writeResponseActionResponse(response, responseWriter, request, action, synchronous, ACTION_NOT_TIMED);
+    }
+
+    private void writeResponseActionResponse(final HttpResponse response, final ResponseWriter responseWriter, final HttpRequest request, final Action action, boolean synchronous, long actionStartTime) {
+        // the response delay is excluded from the action execution time, the scheduler records how late delayed actions run
+        long writeScheduledTime = System.nanoTime();
         scheduler.schedule(() -> {
-            if (MockServerLogger.isEnabled(Level.INFO)) {
-                mockServerLogger.logEvent(
-                    new LogEntry()
-                        .setType(EXPECTATION_RESPONSE)
-                        .setLogLevel(Level.INFO)
-                        .setCorrelationId(request.getLogCorrelationId())
-                        .setHttpRequest(request)
-                        .setHttpResponse(response)
-                        .setMessageFormat("returning response:{}for request:{}for action:{}from expectation:{}")
-                        .setArguments(response, request, action, action.getExpectationId())
-                );
-            }
+            long writeStartTime = System.nanoTime();
+            logExpectationResponse(response, request, action);
             responseWriter.writeResponse(request, response, false);
+            if (actionStartTime != ACTION_NOT_TIMED) {
+                recordActionExecution(actionStartTime + writeStartTime - writeScheduledTime);
+            }
         }, synchronous, response.getDelay());
     }
 
+    /**
+     * Records the time from the start of an action until its response is written, for forwarded requests this includes
+     * the round trip to the remote server
+     */
+    private void recordActionExecution(long actionStartTime) {
+        Metrics.record(Metrics.Timer.ACTION_EXECUTION, System.nanoTime() - actionStartTime);
+    }
+
     void executeAfterForwardActionResponse(final HttpForwardActionResult responseFuture, final BiConsumer<HttpResponse, Throwable> command, final boolean synchronous) {
         scheduler.submit(responseFuture, command, synchronous);
     }
 
     void writeForwardActionResponse(final HttpForwardActionResult responseFuture, final ResponseWriter responseWriter, final HttpRequest request, final Action action, boolean synchronous) {
+        writeForwardActionResponse(responseFuture, responseWriter, request, action, synchronous, ACTION_NOT_TIMED);
+    }
+
+    private void writeForwardActionResponse(final HttpForwardActionResult responseFuture, final ResponseWriter responseWriter, final HttpRequest request, final Action action, boolean synchronous, long actionStartTime) {
         scheduler.submit(responseFuture, () -> {
             try {
                 HttpResponse response = responseFuture.getHttpResponse().get(maxFutureTimeout(), MILLISECONDS);
                 responseWriter.writeResponse(request, response, false);
+                if (actionStartTime != ACTION_NOT_TIMED) {
+                    recordActionExecution(actionStartTime);
+                }
                 mockServerLogger.logEvent(
                     new LogEntry()
                         .setType(FORWARDED_REQUEST)
@@ -41,6 +41,7 @@ public class MockServerMatcherNotifier extends ObjectWithReflectiveEqualsHashCod
     public enum Cause {
         FILE_WATCHER,
         INITIALISER,
-        API
+        API,
+        REPLICATION
     }
 }
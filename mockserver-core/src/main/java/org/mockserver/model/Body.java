@@ -1,6 +1,7 @@
 package org.mockserver.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.netty.buffer.ByteBuf;
 
 import java.nio.charset.Charset;
 import java.util.Arrays;
@@ -16,6 +17,7 @@ public abstract class Body<T> extends Not {
     private int hashCode;
     private final Type type;
     private Boolean optional;
+    private transient volatile EncodedBody encodedBody;
 
     public Body(Type type) {
         this.type = type;
@@ -49,6 +51,27 @@ public abstract class Body<T> extends Not {
         return defaultIfNotSet;
     }
 
+    /**
+     * Returns a read only buffer of the body previously encoded for the content type header, or null if the body hasn't
+     * been encoded for this content type header
+     */
+    @JsonIgnore
+    public ByteBuf getEncoded(String contentTypeHeader) {
+        EncodedBody encodedBody = this.encodedBody;
+        if (encodedBody != null && Objects.equals(encodedBody.contentTypeHeader, contentTypeHeader)) {
+            return encodedBody.buffer;
+        }
+        return null;
+    }
+
+    /**
+     * Stores the encoded body so a body that is written many times, i.e. the body of an expectation's response, is only
+     * encoded once, the buffer must be read only and unreleasable as it is shared by every response
+     */
+    public void setEncoded(String contentTypeHeader, ByteBuf buffer) {
+        this.encodedBody = new EncodedBody(contentTypeHeader, buffer);
+    }
+
     public String getContentType() {
         if (this instanceof BodyWithContentType) {
             return this.getContentType();
@@ -56,6 +79,16 @@ public abstract class Body<T> extends Not {
         return null;
     }
 
+    private static class EncodedBody {
+        private final String contentTypeHeader;
+        private final ByteBuf buffer;
+
+        private EncodedBody(String contentTypeHeader, ByteBuf buffer) {
+            this.contentTypeHeader = contentTypeHeader;
+            this.buffer = buffer;
+        }
+    }
+
     public enum Type {
         BINARY,
         JSON,
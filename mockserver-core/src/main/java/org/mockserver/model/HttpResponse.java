@@ -2,6 +2,7 @@ package org.mockserver.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.collect.Multimap;
+import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.cookie.ClientCookieDecoder;
 
 import java.nio.charset.Charset;
@@ -28,6 +29,7 @@ public class HttpResponse extends Action<HttpResponse> implements HttpMessage<Ht
     private Headers headers;
     private Cookies cookies;
     private ConnectionOptions connectionOptions;
+    private transient volatile FullHttpResponse encoded;
 
     /**
      * Static builder to create a response.
@@ -522,6 +524,23 @@ public class HttpResponse extends Action<HttpResponse> implements HttpMessage<Ht
         return Type.RESPONSE;
     }
 
+    /**
+     * Returns the netty response previously compiled from this response, without a connection header, or null if this
+     * response hasn't been compiled
+     */
+    @JsonIgnore
+    public FullHttpResponse getEncoded() {
+        return encoded;
+    }
+
+    /**
+     * Stores the compiled netty response so the response of an expectation is only mapped and encoded once, the content
+     * must be read only and unreleasable as a retained duplicate is written for every request
+     */
+    public void setEncoded(FullHttpResponse encoded) {
+        this.encoded = encoded;
+    }
+
     public HttpResponse shallowClone() {
         return response()
             .withStatusCode(statusCode)
@@ -47,6 +47,7 @@ public class NottableSchemaString extends NottableString {
     private final String type;
     private final String format;
     private final String json;
+    private final SimpleSchemaValidator simpleSchemaValidator;
 
 
     private static JsonNode convertToJsonNode(@Nonnull final String value, final String type, final String format) throws IOException {
@@ -116,10 +117,12 @@ public class NottableSchemaString extends NottableString {
             Schema<?> schemaByType = SchemaTypeUtil.createSchemaByType(schemaJsonNode);
             type = schemaByType.getType();
             format = schemaByType.getFormat();
+            simpleSchemaValidator = SimpleSchemaValidator.compile(schemaJsonNode, type, format);
         } else {
             schemaJsonNode = null;
             type = null;
             format = null;
+            simpleSchemaValidator = null;
         }
         json = (Boolean.TRUE.equals(isNot()) ? NOT_CHAR : "") + schema;
     }
@@ -131,10 +134,12 @@ public class NottableSchemaString extends NottableString {
             Schema<?> schemaByType = SchemaTypeUtil.createSchemaByType(schemaJsonNode);
             type = schemaByType.getType();
             format = schemaByType.getFormat();
+            simpleSchemaValidator = SimpleSchemaValidator.compile(schemaJsonNode, type, format);
         } else {
             schemaJsonNode = null;
             type = null;
             format = null;
+            simpleSchemaValidator = null;
         }
         json = (Boolean.TRUE.equals(isNot()) ? NOT_CHAR : "") + schema;
     }
@@ -161,7 +166,15 @@ public class NottableSchemaString extends NottableString {
         if (schemaJsonNode.get("nullable") != null && TRUE.equals(schemaJsonNode.get("nullable").asText()) && StringUtils.isBlank(json)) {
             return true;
         } else {
-            return VALIDATOR.validate(schemaJsonNode, convertToJsonNode(json, type, format), false).isSuccess();
+            JsonNode jsonNode = convertToJsonNode(json, type, format);
+            if (simpleSchemaValidator != null) {
+                // primitive schemas are validated without the full json schema validator
+                Boolean valid = simpleSchemaValidator.validate(jsonNode);
+                if (valid != null) {
+                    return valid;
+                }
+            }
+            return VALIDATOR.validate(schemaJsonNode, jsonNode, false).isSuccess();
         }
     }
 
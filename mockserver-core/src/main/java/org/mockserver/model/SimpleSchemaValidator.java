@@ -0,0 +1,298 @@
+package org.mockserver.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Validates values against schemas for a single primitive type using only type, numeric range, length, pattern and
+ * enum keywords, which covers almost all parameter, header and cookie schemas, without running the full JSON schema
+ * validator.
+ * <p>
+ * Validation returns null whenever the result might differ from the full JSON schema validator, i.e. for values that
+ * aren't a primitive of the expected type or strings that a regex could match differently in ECMA 262, so the caller
+ * can fall back to the full validator.
+ *
+ * @author jamesdbloom
+ */
+class SimpleSchemaValidator {
+
+    private static final Set<String> SIMPLE_TYPES = new HashSet<>(Arrays.asList("string", "integer", "number", "boolean"));
+    // formats not checked by the JSON schema validator
+    private static final Set<String> UNCHECKED_FORMATS = new HashSet<>(Arrays.asList("int32", "int64", "float", "double", "password"));
+    private static final Set<String> UNSUPPORTED_KEYWORDS = new HashSet<>(Arrays.asList(
+        "$schema", "id", "$ref", "definitions", "allOf", "anyOf", "oneOf", "not", "multipleOf",
+        "additionalItems", "items", "maxItems", "minItems", "uniqueItems",
+        "maxProperties", "minProperties", "required", "additionalProperties", "properties", "patternProperties", "dependencies"
+    ));
+    private static final Pattern PRINTABLE_ASCII = Pattern.compile("[\\x20-\\x7E]*");
+    private static final String ESCAPES_OUTSIDE_CLASS = "dDwWsSbBtnrf.-/\\+*?()[]{}|^$";
+    private static final String ESCAPES_INSIDE_CLASS = "dDwWstnrf.-/\\+*?()[]{}|^$";
+
+    private final String type;
+    private final BigDecimal minimum;
+    private final boolean exclusiveMinimum;
+    private final BigDecimal maximum;
+    private final boolean exclusiveMaximum;
+    private final int minLength;
+    private final int maxLength;
+    private final Pattern pattern;
+    private final List<JsonNode> enumValues;
+
+    private SimpleSchemaValidator(String type, BigDecimal minimum, boolean exclusiveMinimum, BigDecimal maximum, boolean exclusiveMaximum, int minLength, int maxLength, Pattern pattern, List<JsonNode> enumValues) {
+        this.type = type;
+        this.minimum = minimum;
+        this.exclusiveMinimum = exclusiveMinimum;
+        this.maximum = maximum;
+        this.exclusiveMaximum = exclusiveMaximum;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.pattern = pattern;
+        this.enumValues = enumValues;
+    }
+
+    /**
+     * Returns a validator for the schema or null if the schema can only be validated by the full JSON schema validator
+     */
+    static SimpleSchemaValidator compile(ObjectNode schema, String type, String format) {
+        if (schema == null || type == null || !SIMPLE_TYPES.contains(type) || !schema.path("type").isTextual() || !type.equals(schema.get("type").textValue())) {
+            return null;
+        }
+        if (format != null && !UNCHECKED_FORMATS.contains(format) || schema.has("format") && !(schema.get("format").isTextual() && UNCHECKED_FORMATS.contains(schema.get("format").textValue()))) {
+            return null;
+        }
+        for (Iterator<String> fieldNames = schema.fieldNames(); fieldNames.hasNext(); ) {
+            if (UNSUPPORTED_KEYWORDS.contains(fieldNames.next())) {
+                return null;
+            }
+        }
+        if (schema.has("title") && !schema.get("title").isTextual() || schema.has("description") && !schema.get("description").isTextual()) {
+            return null;
+        }
+        // numeric range
+        BigDecimal minimum = null;
+        BigDecimal maximum = null;
+        if (schema.has("minimum")) {
+            if (!schema.get("minimum").isNumber()) {
+                return null;
+            }
+            minimum = schema.get("minimum").decimalValue();
+        }
+        if (schema.has("maximum")) {
+            if (!schema.get("maximum").isNumber()) {
+                return null;
+            }
+            maximum = schema.get("maximum").decimalValue();
+        }
+        if (schema.has("exclusiveMinimum") && (!schema.get("exclusiveMinimum").isBoolean() || minimum == null)
+            || schema.has("exclusiveMaximum") && (!schema.get("exclusiveMaximum").isBoolean() || maximum == null)) {
+            return null;
+        }
+        boolean exclusiveMinimum = schema.path("exclusiveMinimum").booleanValue();
+        boolean exclusiveMaximum = schema.path("exclusiveMaximum").booleanValue();
+        // length
+        int minLength = 0;
+        int maxLength = Integer.MAX_VALUE;
+        if (schema.has("minLength")) {
+            if (!schema.get("minLength").canConvertToInt() || !schema.get("minLength").isIntegralNumber() || schema.get("minLength").intValue() < 0) {
+                return null;
+            }
+            minLength = schema.get("minLength").intValue();
+        }
+        if (schema.has("maxLength")) {
+            if (!schema.get("maxLength").canConvertToInt() || !schema.get("maxLength").isIntegralNumber() || schema.get("maxLength").intValue() < 0) {
+                return null;
+            }
+            maxLength = schema.get("maxLength").intValue();
+        }
+        // pattern
+        Pattern pattern = null;
+        if (schema.has("pattern")) {
+            if (!schema.get("pattern").isTextual() || !isPortableRegex(schema.get("pattern").textValue())) {
+                return null;
+            }
+            try {
+                pattern = Pattern.compile(schema.get("pattern").textValue());
+            } catch (PatternSyntaxException pse) {
+                return null;
+            }
+        }
+        // enum
+        List<JsonNode> enumValues = null;
+        if (schema.has("enum")) {
+            JsonNode enumNode = schema.get("enum");
+            if (!enumNode.isArray() || enumNode.size() == 0) {
+                return null;
+            }
+            enumValues = new ArrayList<>();
+            for (JsonNode enumValue : enumNode) {
+                if (enumValue.isContainerNode()) {
+                    return null;
+                }
+                for (JsonNode existing : enumValues) {
+                    if (equal(existing, enumValue)) {
+                        // duplicate enum values are an invalid schema
+                        return null;
+                    }
+                }
+                enumValues.add(enumValue);
+            }
+        }
+        return new SimpleSchemaValidator(type, minimum, exclusiveMinimum, maximum, exclusiveMaximum, minLength, maxLength, pattern, enumValues);
+    }
+
+    /**
+     * Returns the result of validating the value or null if only the full JSON schema validator can validate it
+     */
+    Boolean validate(JsonNode value) {
+        if (value == null || value.isNull() || value.isContainerNode()) {
+            return null;
+        }
+        switch (type) {
+            case "string":
+                if (!value.isTextual()) {
+                    return false;
+                }
+                break;
+            case "integer":
+                if (value.isFloatingPointNumber()) {
+                    return null;
+                }
+                if (!value.isIntegralNumber()) {
+                    return false;
+                }
+                break;
+            case "number":
+                if (!value.isNumber()) {
+                    return false;
+                }
+                break;
+            case "boolean":
+                if (!value.isBoolean()) {
+                    return false;
+                }
+                break;
+        }
+        if (value.isNumber()) {
+            BigDecimal decimal = value.decimalValue();
+            if (minimum != null) {
+                int comparison = decimal.compareTo(minimum);
+                if (comparison < 0 || exclusiveMinimum && comparison == 0) {
+                    return false;
+                }
+            }
+            if (maximum != null) {
+                int comparison = decimal.compareTo(maximum);
+                if (comparison > 0 || exclusiveMaximum && comparison == 0) {
+                    return false;
+                }
+            }
+        }
+        if (value.isTextual()) {
+            String text = value.textValue();
+            int length = text.codePointCount(0, text.length());
+            if (length < minLength || length > maxLength) {
+                return false;
+            }
+            if (pattern != null) {
+                if (!PRINTABLE_ASCII.matcher(text).matches()) {
+                    return null;
+                }
+                if (!pattern.matcher(text).find()) {
+                    return false;
+                }
+            }
+        }
+        if (enumValues != null) {
+            for (JsonNode enumValue : enumValues) {
+                if (equal(enumValue, value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean equal(JsonNode one, JsonNode other) {
+        if (one.isNumber() && other.isNumber()) {
+            return one.decimalValue().compareTo(other.decimalValue()) == 0;
+        } else {
+            return one.equals(other);
+        }
+    }
+
+    /**
+     * Returns true if the regex only uses syntax that has the same meaning in java and ECMA 262 for printable ascii strings
+     */
+    static boolean isPortableRegex(String regex) {
+        boolean insideClass = false;
+        // quantifiers at the start of the regex or a group, or after an anchor, alternation or quantifier are only an error in one of them
+        boolean quantifiable = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char character = regex.charAt(i);
+            if (character < 0x20 || character > 0x7E) {
+                return false;
+            }
+            if (character == '\\') {
+                if (i + 1 >= regex.length() || (insideClass ? ESCAPES_INSIDE_CLASS : ESCAPES_OUTSIDE_CLASS).indexOf(regex.charAt(i + 1)) == -1) {
+                    return false;
+                }
+                i++;
+                quantifiable = !insideClass && regex.charAt(i) != 'b' && regex.charAt(i) != 'B';
+            } else if (insideClass) {
+                if (character == '[' || character == '&' && i + 1 < regex.length() && regex.charAt(i + 1) == '&') {
+                    return false;
+                } else if (character == ']') {
+                    insideClass = false;
+                    quantifiable = true;
+                }
+            } else if (character == '[') {
+                // empty classes, or classes starting with ], have different meanings
+                int next = i + 1 < regex.length() && regex.charAt(i + 1) == '^' ? i + 2 : i + 1;
+                if (next >= regex.length() || regex.charAt(next) == ']') {
+                    return false;
+                }
+                insideClass = true;
+                i = next - 1;
+            } else if (character == '(') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '?') {
+                    // only non-capturing groups and look ahead are supported by both
+                    if (i + 2 >= regex.length() || ":=!".indexOf(regex.charAt(i + 2)) == -1) {
+                        return false;
+                    }
+                    i += 2;
+                }
+                quantifiable = false;
+            } else if (character == '*' || character == '+' || character == '?' || character == '{') {
+                if (!quantifiable) {
+                    return false;
+                }
+                if (character == '{') {
+                    int close = regex.indexOf('}', i);
+                    if (close == -1 || !regex.substring(i + 1, close).matches("[0-9]+(,[0-9]*)?")) {
+                        return false;
+                    }
+                    i = close;
+                }
+                // lazy quantifiers are supported by both, possessive quantifiers only by java
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '?') {
+                    i++;
+                } else if (i + 1 < regex.length() && regex.charAt(i + 1) == '+') {
+                    return false;
+                }
+                quantifiable = false;
+            } else if (character == ']' || character == '}') {
+                // literal brackets are only allowed unescaped in ECMA 262
+                return false;
+            } else {
+                quantifiable = character != '^' && character != '$' && character != '|';
+            }
+        }
+        return !insideClass;
+    }
+}
@@ -8,6 +8,7 @@ import org.mockserver.mock.Expectation;
 import org.mockserver.mock.RequestMatchers;
 import org.mockserver.mock.listeners.MockServerMatcherListener;
 import org.mockserver.mock.listeners.MockServerMatcherNotifier;
+import org.mockserver.scheduler.Scheduler;
 import org.mockserver.serialization.serializers.response.TimeToLiveSerializer;
 import org.slf4j.event.Level;
 
@@ -19,22 +20,37 @@ import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.mockserver.serialization.ObjectMapperFactory.createObjectMapper;
 import static org.slf4j.event.Level.*;
 
+/**
+ * Persists expectations to the persisted expectations file whenever they change, or if persistedExpectationsJournal is enabled,
+ * coalesces changes over the flush interval and appends them to a journal which is compacted into the persisted expectations
+ * file once it contains more records than there are expectations
+ */
 public class ExpectationFileSystemPersistence implements MockServerMatcherListener {
 
+    private static final int MINIMUM_JOURNAL_RECORDS_BEFORE_COMPACTION = 1000;
     private final ObjectWriter objectWriter;
     private final MockServerLogger mockServerLogger;
     private final Path filePath;
     private final boolean initializationPathMatchesPersistencePath;
     private final ReentrantLock fileWriteLock = new ReentrantLock();
     private final RequestMatchers requestMatchers;
+    private final ExpectationJournal expectationJournal;
+    private final ScheduledExecutorService journalExecutor;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    // only accessed from the journal executor thread
+    private Map<String, PersistedExpectation> journaledExpectations;
+    private long journalRecords;
 
     public ExpectationFileSystemPersistence(MockServerLogger mockServerLogger, RequestMatchers requestMatchers) {
         if (ConfigurationProperties.persistExpectations()) {
@@ -54,6 +70,14 @@ public class ExpectationFileSystemPersistence implements MockServerMatcherListen
                 );
             }
             this.initializationPathMatchesPersistencePath = ConfigurationProperties.initializationJsonPath().equals(ConfigurationProperties.persistedExpectationsPath());
+            if (ConfigurationProperties.persistedExpectationsJournal()) {
+                this.expectationJournal = new ExpectationJournal(mockServerLogger, ConfigurationProperties.persistedExpectationsPath());
+                this.journalExecutor = Executors.newSingleThreadScheduledExecutor(new Scheduler.SchedulerThreadFactory("ExpectationJournal"));
+                this.journalRecords = expectationJournal.recordCount();
+            } else {
+                this.expectationJournal = null;
+                this.journalExecutor = null;
+            }
             requestMatchers.registerListener(this);
             if (MockServerLogger.isEnabled(INFO)) {
                 mockServerLogger.logEvent(
@@ -69,58 +93,161 @@ public class ExpectationFileSystemPersistence implements MockServerMatcherListen
             this.objectWriter = null;
             this.filePath = null;
             this.initializationPathMatchesPersistencePath = true;
+            this.expectationJournal = null;
+            this.journalExecutor = null;
         }
     }
 
     @Override
     public void updated(RequestMatchers requestMatchers, MockServerMatcherNotifier.Cause cause) {
-        // ignore non-API changes from the same file
-        if (cause == MockServerMatcherNotifier.Cause.API || !initializationPathMatchesPersistencePath) {
-            fileWriteLock.lock();
+        if (expectationJournal != null) {
+            if (cause == MockServerMatcherNotifier.Cause.API || cause == MockServerMatcherNotifier.Cause.REPLICATION || !initializationPathMatchesPersistencePath) {
+                if (flushScheduled.compareAndSet(false, true)) {
+                    journalExecutor.schedule(this::flushJournal, ConfigurationProperties.persistedExpectationsFlushInterval(), MILLISECONDS);
+                }
+            } else {
+                // expectations were loaded from the persisted file (and journal) so are already persisted
+                journalExecutor.execute(() -> resetJournaledExpectations(cause == MockServerMatcherNotifier.Cause.FILE_WATCHER));
+            }
+        } else if (cause == MockServerMatcherNotifier.Cause.API || cause == MockServerMatcherNotifier.Cause.REPLICATION || !initializationPathMatchesPersistencePath) {
+            // ignore non-API changes from the same file
+            writeExpectations(requestMatchers.retrieveActiveExpectations(null));
+        }
+    }
+
+    private boolean writeExpectations(List<Expectation> expectations) {
+        fileWriteLock.lock();
+        try {
             try {
-                try {
-                    try (
-                        FileOutputStream fileOutputStream = new FileOutputStream(filePath.toFile());
-                        FileChannel fileChannel = fileOutputStream.getChannel();
-                        FileLock fileLock = fileChannel.lock()
-                    ) {
-                        if (fileLock != null) {
-                            List<Expectation> expectations = requestMatchers.retrieveActiveExpectations(null);
-                            if (MockServerLogger.isEnabled(TRACE)) {
-                                mockServerLogger.logEvent(
-                                    new LogEntry()
-                                        .setLogLevel(TRACE)
-                                        .setMessageFormat("persisting expectations{}to{}")
-                                        .setArguments(expectations, ConfigurationProperties.initializationJsonPath())
-                                );
-                            } else if (MockServerLogger.isEnabled(DEBUG)) {
-                                mockServerLogger.logEvent(
-                                    new LogEntry()
-                                        .setLogLevel(DEBUG)
-                                        .setMessageFormat("persisting expectations to{}")
-                                        .setArguments(ConfigurationProperties.initializationJsonPath())
-                                );
-                            }
-                            byte[] data = serialize(expectations).getBytes(UTF_8);
-                            ByteBuffer buffer = ByteBuffer.wrap(data);
-                            buffer.put(data);
-                            buffer.flip();
-                            while (buffer.hasRemaining()) {
-                                fileChannel.write(buffer);
-                            }
+                try (
+                    FileOutputStream fileOutputStream = new FileOutputStream(filePath.toFile());
+                    FileChannel fileChannel = fileOutputStream.getChannel();
+                    FileLock fileLock = fileChannel.lock()
+                ) {
+                    if (fileLock != null) {
+                        if (MockServerLogger.isEnabled(TRACE)) {
+                            mockServerLogger.logEvent(
+                                new LogEntry()
+                                    .setLogLevel(TRACE)
+                                    .setMessageFormat("persisting expectations{}to{}")
+                                    .setArguments(expectations, ConfigurationProperties.initializationJsonPath())
+                            );
+                        } else if (MockServerLogger.isEnabled(DEBUG)) {
+                            mockServerLogger.logEvent(
+                                new LogEntry()
+                                    .setLogLevel(DEBUG)
+                                    .setMessageFormat("persisting expectations to{}")
+                                    .setArguments(ConfigurationProperties.initializationJsonPath())
+                            );
+                        }
+                        byte[] data = serialize(expectations).getBytes(UTF_8);
+                        ByteBuffer buffer = ByteBuffer.wrap(data);
+                        buffer.put(data);
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            fileChannel.write(buffer);
                         }
+                        return true;
+                    }
+                }
+            } catch (Throwable throwable) {
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setLogLevel(Level.ERROR)
+                        .setMessageFormat("exception while persisting expectations to " + filePath.toString())
+                        .setThrowable(throwable)
+                );
+            }
+            return false;
+        } finally {
+            fileWriteLock.unlock();
+        }
+    }
+
+    private void flushJournal() {
+        flushScheduled.set(false);
+        try {
+            List<Expectation> expectations = requestMatchers.retrieveActiveExpectations(null);
+            if (journaledExpectations == null) {
+                // nothing journaled since startup so start from a new snapshot
+                compactJournal(expectations);
+            } else {
+                List<String> records = new ArrayList<>();
+                Map<String, PersistedExpectation> persistedExpectations = new HashMap<>();
+                for (Expectation expectation : expectations) {
+                    PersistedExpectation previous = journaledExpectations.get(expectation.getId());
+                    PersistedExpectation current = new PersistedExpectation(expectation);
+                    if (previous == null || previous.expectation != expectation) {
+                        records.add(expectationJournal.upsertRecord(expectation));
+                    } else if (previous.remainingTimes != current.remainingTimes) {
+                        records.add(expectationJournal.timesRecord(expectation.getId(), current.remainingTimes));
                     }
-                } catch (Throwable throwable) {
-                    mockServerLogger.logEvent(
-                        new LogEntry()
-                            .setLogLevel(Level.ERROR)
-                            .setMessageFormat("exception while persisting expectations to " + filePath.toString())
-                            .setThrowable(throwable)
-                    );
+                    persistedExpectations.put(expectation.getId(), current);
+                }
+                for (String id : journaledExpectations.keySet()) {
+                    if (!persistedExpectations.containsKey(id)) {
+                        records.add(expectationJournal.removeRecord(id));
+                    }
+                }
+                fileWriteLock.lock();
+                try {
+                    expectationJournal.append(records);
+                } finally {
+                    fileWriteLock.unlock();
+                }
+                journaledExpectations = persistedExpectations;
+                journalRecords += records.size();
+                if (journalRecords > Math.max(MINIMUM_JOURNAL_RECORDS_BEFORE_COMPACTION, expectations.size())) {
+                    compactJournal(expectations);
                 }
-            } finally {
-                fileWriteLock.unlock();
             }
+        } catch (Throwable throwable) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.ERROR)
+                    .setMessageFormat("exception while journaling expectations to " + expectationJournal.getJournalPath())
+                    .setThrowable(throwable)
+            );
+        }
+    }
+
+    private void compactJournal(List<Expectation> expectations) throws Exception {
+        if (!writeExpectations(expectations)) {
+            return;
+        }
+        fileWriteLock.lock();
+        try {
+            expectationJournal.truncate();
+        } finally {
+            fileWriteLock.unlock();
+        }
+        Map<String, PersistedExpectation> persistedExpectations = new HashMap<>();
+        for (Expectation expectation : expectations) {
+            persistedExpectations.put(expectation.getId(), new PersistedExpectation(expectation));
+        }
+        journaledExpectations = persistedExpectations;
+        journalRecords = 0;
+    }
+
+    private void resetJournaledExpectations(boolean persistedFileReplaced) {
+        try {
+            if (persistedFileReplaced) {
+                // journal records apply to the previous persisted file
+                expectationJournal.truncate();
+                journalRecords = 0;
+            }
+            Map<String, PersistedExpectation> persistedExpectations = new HashMap<>();
+            for (Expectation expectation : requestMatchers.retrieveActiveExpectations(null)) {
+                persistedExpectations.put(expectation.getId(), new PersistedExpectation(expectation));
+            }
+            journaledExpectations = persistedExpectations;
+        } catch (Throwable throwable) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.ERROR)
+                    .setMessageFormat("exception while journaling expectations to " + expectationJournal.getJournalPath())
+                    .setThrowable(throwable)
+            );
         }
     }
 
@@ -150,5 +277,21 @@ public class ExpectationFileSystemPersistence implements MockServerMatcherListen
         if (requestMatchers != null) {
             requestMatchers.unregisterListener(this);
         }
+        if (journalExecutor != null) {
+            if (flushScheduled.get()) {
+                journalExecutor.execute(this::flushJournal);
+            }
+            journalExecutor.shutdown();
+        }
+    }
+
+    private static class PersistedExpectation {
+        private final Expectation expectation;
+        private final int remainingTimes;
+
+        private PersistedExpectation(Expectation expectation) {
+            this.expectation = expectation;
+            this.remainingTimes = expectation.getTimes() != null ? expectation.getTimes().getRemainingTimes() : -1;
+        }
     }
 }
@@ -0,0 +1,196 @@
+package org.mockserver.persistence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.mockserver.log.model.LogEntry;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.matchers.Times;
+import org.mockserver.mock.Expectation;
+import org.mockserver.serialization.model.ExpectationDTO;
+import org.mockserver.serialization.serializers.response.TimeToLiveSerializer;
+import org.slf4j.event.Level;
+
+import java.io.BufferedReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+import static org.mockserver.serialization.ObjectMapperFactory.createObjectMapper;
+
+/**
+ * Append only journal of changes to expectations, one JSON record per line, that is replayed on top of the
+ * persisted expectations snapshot when expectations are loaded.
+ * <p>
+ * Upsert records contain the whole expectation, remove records contain the expectation id and times records
+ * contain the expectation id and remaining times, so matching a limited expectation only appends a small record.
+ *
+ * @author jamesdbloom
+ */
+public class ExpectationJournal {
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TYPE = "type";
+    private static final String ID = "id";
+    private static final String EXPECTATION = "expectation";
+    private static final String REMAINING_TIMES = "remainingTimes";
+    private static final String UPSERT = "UPSERT";
+    private static final String REMOVE = "REMOVE";
+    private static final String TIMES = "TIMES";
+
+    private final MockServerLogger mockServerLogger;
+    private final Path journalPath;
+    private final ObjectMapper objectMapper = createObjectMapper();
+    private final ObjectWriter expectationWriter = createObjectMapper(false, new TimeToLiveSerializer());
+
+    public ExpectationJournal(MockServerLogger mockServerLogger, String persistedExpectationsPath) {
+        this.mockServerLogger = mockServerLogger;
+        this.journalPath = Paths.get(persistedExpectationsPath + JOURNAL_SUFFIX);
+    }
+
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    public String upsertRecord(Expectation expectation) throws Exception {
+        return "{\"" + TYPE + "\":\"" + UPSERT + "\",\"" + EXPECTATION + "\":" + expectationWriter.writeValueAsString(expectation) + "}";
+    }
+
+    public String removeRecord(String id) throws Exception {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put(TYPE, REMOVE);
+        record.put(ID, id);
+        return objectMapper.writeValueAsString(record);
+    }
+
+    public String timesRecord(String id, int remainingTimes) throws Exception {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put(TYPE, TIMES);
+        record.put(ID, id);
+        record.put(REMAINING_TIMES, remainingTimes);
+        return objectMapper.writeValueAsString(record);
+    }
+
+    /**
+     * Appends the records with a single write
+     */
+    public void append(List<String> records) throws Exception {
+        if (!records.isEmpty()) {
+            StringBuilder lines = new StringBuilder();
+            for (String record : records) {
+                lines.append(record).append('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(UTF_8));
+            try (
+                FileChannel fileChannel = FileChannel.open(journalPath, CREATE, WRITE, APPEND);
+                FileLock ignored = fileChannel.lock()
+            ) {
+                while (buffer.hasRemaining()) {
+                    fileChannel.write(buffer);
+                }
+            }
+        }
+    }
+
+    public void truncate() throws Exception {
+        try (FileChannel fileChannel = FileChannel.open(journalPath, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            fileChannel.force(false);
+        }
+    }
+
+    public long recordCount() {
+        if (Files.exists(journalPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalPath, UTF_8)) {
+                return reader.lines().count();
+            } catch (Throwable throwable) {
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setLogLevel(Level.WARN)
+                        .setMessageFormat("exception while reading expectation journal " + journalPath)
+                        .setThrowable(throwable)
+                );
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Applies the journal records, in order, to the snapshot expectations, records that can't be read are ignored
+     */
+    public Expectation[] replay(Expectation[] snapshot) {
+        Map<String, Expectation> expectations = new LinkedHashMap<>();
+        for (Expectation expectation : snapshot) {
+            expectations.put(expectation.getId(), expectation);
+        }
+        if (Files.exists(journalPath)) {
+            int records = 0;
+            try (BufferedReader reader = Files.newBufferedReader(journalPath, UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        try {
+                            apply(expectations, objectMapper.readTree(line));
+                            records++;
+                        } catch (Throwable throwable) {
+                            mockServerLogger.logEvent(
+                                new LogEntry()
+                                    .setLogLevel(Level.WARN)
+                                    .setMessageFormat("exception while replaying expectation journal record:{}ignoring record")
+                                    .setArguments(line)
+                                    .setThrowable(throwable)
+                            );
+                        }
+                    }
+                }
+            } catch (Throwable throwable) {
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setLogLevel(Level.WARN)
+                        .setMessageFormat("exception while reading expectation journal " + journalPath)
+                        .setThrowable(throwable)
+                );
+            }
+            if (MockServerLogger.isEnabled(Level.INFO)) {
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setLogLevel(Level.INFO)
+                        .setMessageFormat("replayed{}records from expectation journal{}")
+                        .setArguments(records, journalPath.toString())
+                );
+            }
+        }
+        return expectations.values().toArray(new Expectation[0]);
+    }
+
+    private void apply(Map<String, Expectation> expectations, JsonNode record) throws Exception {
+        String type = record.get(TYPE).asText();
+        if (UPSERT.equals(type)) {
+            ExpectationDTO expectationDTO = objectMapper.treeToValue(record.get(EXPECTATION), ExpectationDTO.class);
+            if (expectationDTO != null) {
+                Expectation expectation = expectationDTO.buildObject();
+                expectations.put(expectation.getId(), expectation);
+            }
+        } else if (REMOVE.equals(type)) {
+            expectations.remove(record.get(ID).asText());
+        } else if (TIMES.equals(type)) {
+            Expectation expectation = expectations.get(record.get(ID).asText());
+            int remainingTimes = record.get(REMAINING_TIMES).asInt();
+            if (expectation != null && expectation.getTimes() != null && !expectation.getTimes().isUnlimited()) {
+                // remaining times only ever decrease
+                Times times = expectation.getTimes();
+                while (times.getRemainingTimes() > remainingTimes) {
+                    times.decrement();
+                }
+            }
+        }
+    }
+}
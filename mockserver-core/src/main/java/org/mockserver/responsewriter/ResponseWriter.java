@@ -61,29 +61,45 @@ public abstract class ResponseWriter {
         sendResponse(request, addConnectionHeader(request, response));
     }
 
+    /**
+     * Writes a response that isn't modified for each request, i.e. the response of an expectation without a delay,
+     * only the connection header is set for each request
+     */
+    public void writeStaticResponse(final HttpRequest request, final HttpResponse response) {
+        writeResponse(request, response.clone(), false);
+    }
+
     public abstract void sendResponse(HttpRequest request, HttpResponse response);
 
     protected HttpResponse addConnectionHeader(final HttpRequest request, final HttpResponse response) {
-        ConnectionOptions connectionOptions = response.getConnectionOptions();
-
         HttpResponse responseWithConnectionHeader = response.clone();
+        String connectionHeader = connectionHeader(request, response);
+        if (connectionHeader != null) {
+            responseWithConnectionHeader.replaceHeader(header(CONNECTION.toString(), connectionHeader));
+        }
+        return responseWithConnectionHeader;
+    }
 
+    /**
+     * Returns the value of the connection header for the response, or null if the connection header is suppressed
+     */
+    protected String connectionHeader(final HttpRequest request, final HttpResponse response) {
+        ConnectionOptions connectionOptions = response.getConnectionOptions();
         if (connectionOptions != null && (connectionOptions.getSuppressConnectionHeader() != null || connectionOptions.getKeepAliveOverride() != null)) {
             if (!Boolean.TRUE.equals(connectionOptions.getSuppressConnectionHeader())) {
                 if (Boolean.TRUE.equals(connectionOptions.getKeepAliveOverride())) {
-                    responseWithConnectionHeader.replaceHeader(header(CONNECTION.toString(), KEEP_ALIVE.toString()));
+                    return KEEP_ALIVE.toString();
                 } else {
-                    responseWithConnectionHeader.replaceHeader(header(CONNECTION.toString(), CLOSE.toString()));
+                    return CLOSE.toString();
                 }
             }
+            return null;
         } else {
             if (Boolean.TRUE.equals(request.isKeepAlive())) {
-                responseWithConnectionHeader.replaceHeader(header(CONNECTION.toString(), KEEP_ALIVE.toString()));
+                return KEEP_ALIVE.toString();
             } else {
-                responseWithConnectionHeader.replaceHeader(header(CONNECTION.toString(), CLOSE.toString()));
+                return CLOSE.toString();
             }
         }
-
-        return responseWithConnectionHeader;
     }
 }
@@ -1,10 +1,12 @@
 package org.mockserver.scheduler;
 
 import com.google.common.annotations.VisibleForTesting;
+import io.netty.util.HashedWheelTimer;
 import org.mockserver.client.SocketCommunicationException;
 import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
+import org.mockserver.metrics.Metrics;
 import org.mockserver.mock.action.http.HttpForwardActionResult;
 import org.mockserver.model.BinaryMessage;
 import org.mockserver.model.Delay;
@@ -15,7 +17,10 @@ import java.util.concurrent.*;
 import java.util.function.BiConsumer;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.mockserver.log.model.LogEntry.LogMessageType.WARN;
+import static org.mockserver.metrics.Metrics.Name.DELAYED_ACTION_PENDING_COUNT;
+import static org.mockserver.metrics.Metrics.Timer.DELAYED_ACTION_LATENESS;
 import static org.mockserver.mock.HttpState.getPort;
 import static org.mockserver.mock.HttpState.setPort;
 
@@ -24,14 +29,25 @@ import static org.mockserver.mock.HttpState.setPort;
  */
 public class Scheduler {
 
-    private final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(
-        ConfigurationProperties.actionHandlerThreadCount(),
-        new SchedulerThreadFactory("Scheduler"),
-        new ThreadPoolExecutor.CallerRunsPolicy()
-    );
+    private final ExecutorService scheduler;
+
+    private final boolean virtualThreads;
 
     private final boolean synchronous;
 
+    /**
+     * Delays are tracked by a single timing wheel, shared by every scheduler and created when first used, so waiting
+     * for a delay doesn't hold a thread or a place in the executor's delay queue, once a delay has elapsed the command
+     * is run by the scheduler's executor so the timer thread is never blocked
+     */
+    private static class DelayTimer {
+        private static final HashedWheelTimer TIMER = new HashedWheelTimer(
+            new SchedulerThreadFactory("DelayTimer"),
+            Math.max(1, ConfigurationProperties.delayTimerTickDuration()),
+            MILLISECONDS
+        );
+    }
+
     public static class SchedulerThreadFactory implements ThreadFactory {
 
         private final String name;
@@ -67,6 +83,38 @@ public class Scheduler {
     public Scheduler(MockServerLogger mockServerLogger, boolean synchronous) {
         this.mockServerLogger = mockServerLogger;
         this.synchronous = synchronous;
+        ExecutorService virtualThreadExecutor = ConfigurationProperties.actionHandlerVirtualThreads() ? newVirtualThreadPerTaskExecutor() : null;
+        this.virtualThreads = virtualThreadExecutor != null;
+        if (virtualThreadExecutor != null) {
+            this.scheduler = virtualThreadExecutor;
+        } else {
+            this.scheduler = new ScheduledThreadPoolExecutor(
+                ConfigurationProperties.actionHandlerThreadCount(),
+                new SchedulerThreadFactory("Scheduler"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+            );
+        }
+    }
+
+    /**
+     * Virtual threads are only available from java 21 and this is compiled for java 8 so the executor is created
+     * reflectively, returning null if the running JVM doesn't support virtual threads
+     */
+    private ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Throwable throwable) {
+            if (MockServerLogger.isEnabled(Level.WARN)) {
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setType(WARN)
+                        .setLogLevel(Level.WARN)
+                        .setMessageFormat("virtual threads are not supported by java version:{}using pool of:{}action handler threads instead")
+                        .setArguments(System.getProperty("java.version"), ConfigurationProperties.actionHandlerThreadCount())
+                );
+            }
+            return null;
+        }
     }
 
     public synchronized void shutdown() {
@@ -107,13 +155,51 @@ public class Scheduler {
             run(command, port);
         } else {
             if (delay != null) {
-                scheduler.schedule(() -> run(command, port), delay.getValue(), delay.getTimeUnit());
+                scheduleDelayed(() -> run(command, port), delay);
             } else {
                 run(command, port);
             }
         }
     }
 
+    private void scheduleDelayed(Runnable command, Delay delay) {
+        long delayNanos = delay.getTimeUnit().toNanos(delay.getValue());
+        long deadline = System.nanoTime() + delayNanos;
+        // read once so the pending count is decremented if, and only if, it was incremented
+        boolean metricsEnabled = ConfigurationProperties.metricsEnabled();
+        if (metricsEnabled) {
+            Metrics.add(DELAYED_ACTION_PENDING_COUNT, 1);
+        }
+        DelayTimer.TIMER.newTimeout(timeout -> {
+            if (metricsEnabled) {
+                Metrics.add(DELAYED_ACTION_PENDING_COUNT, -1);
+                Metrics.record(DELAYED_ACTION_LATENESS, Math.max(0, System.nanoTime() - deadline));
+            }
+            execute(command);
+        }, delayNanos, NANOSECONDS);
+    }
+
+    /**
+     * Schedules an action that may block, such as a class callback or a template, when virtual threads are enabled
+     * an action without a delay is run on a new virtual thread instead of the calling thread
+     */
+    public void scheduleBlocking(Runnable command, boolean synchronous, Delay... delays) {
+        if (virtualThreads && !this.synchronous && !synchronous && addDelays(delays) == null) {
+            Integer port = getPort();
+            execute(() -> run(command, port));
+        } else {
+            schedule(command, synchronous, delays);
+        }
+    }
+
+    private void execute(Runnable command) {
+        try {
+            scheduler.execute(command);
+        } catch (RejectedExecutionException ignore) {
+            // scheduler has been shutdown
+        }
+    }
+
     private Delay addDelays(Delay... delays) {
         if (delays == null || delays.length == 0) {
             return null;
@@ -141,7 +227,7 @@ public class Scheduler {
         if (this.synchronous || synchronous) {
             run(command, port);
         } else {
-            scheduler.submit(() -> run(command, port));
+            execute(() -> run(command, port));
         }
     }
 
@@ -1,5 +1,6 @@
 package org.mockserver.serialization.model;
 
+import org.mockserver.model.ExpectationId;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.ObjectWithJsonToString;
 import org.mockserver.model.OpenAPIDefinition;
@@ -14,11 +15,14 @@ import static org.mockserver.verify.VerificationTimes.once;
  */
 public class VerificationDTO extends ObjectWithJsonToString implements DTO<Verification> {
     private RequestDefinitionDTO httpRequest;
+    private ExpectationId expectationId;
     private VerificationTimesDTO times;
 
     public VerificationDTO(Verification verification) {
         if (verification != null) {
-            if (verification.getHttpRequest() instanceof HttpRequest) {
+            if (verification.getExpectationId() != null) {
+                expectationId = verification.getExpectationId();
+            } else if (verification.getHttpRequest() instanceof HttpRequest) {
                 httpRequest = new HttpRequestDTO((HttpRequest) verification.getHttpRequest());
             } else if (verification.getHttpRequest() instanceof OpenAPIDefinition) {
                 httpRequest = new OpenAPIDefinitionDTO((OpenAPIDefinition) verification.getHttpRequest());
@@ -32,7 +36,8 @@ public class VerificationDTO extends ObjectWithJsonToString implements DTO<Verif
 
     public Verification buildObject() {
         return verification()
-            .withRequest((httpRequest != null ? httpRequest.buildObject() : request()))
+            .withRequest(expectationId != null ? null : (httpRequest != null ? httpRequest.buildObject() : request()))
+            .withExpectationId(expectationId)
             .withTimes((times != null ? times.buildObject() : once()));
     }
 
@@ -45,6 +50,15 @@ public class VerificationDTO extends ObjectWithJsonToString implements DTO<Verif
         return this;
     }
 
+    public ExpectationId getExpectationId() {
+        return expectationId;
+    }
+
+    public VerificationDTO setExpectationId(ExpectationId expectationId) {
+        this.expectationId = expectationId;
+        return this;
+    }
+
     public VerificationTimesDTO getTimes() {
         return times;
     }
@@ -9,9 +9,11 @@ import org.mockserver.logging.MockServerLogger;
 import org.mockserver.mock.Expectation;
 import org.mockserver.mock.RequestMatchers;
 import org.mockserver.mock.listeners.MockServerMatcherNotifier.Cause;
+import org.mockserver.persistence.ExpectationJournal;
 import org.mockserver.serialization.ExpectationSerializer;
 
 import java.lang.reflect.Constructor;
+import java.util.Arrays;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.mockserver.log.model.LogEntry.LogMessageType.SERVER_CONFIGURATION;
@@ -34,9 +36,7 @@ public class ExpectationInitializerLoader {
     }
 
     private void addExpectationsFromInitializer() {
-        for (Expectation expectation : loadExpectations()) {
-            requestMatchers.add(expectation, Cause.INITIALISER);
-        }
+        requestMatchers.add(Arrays.asList(loadExpectations()), Cause.INITIALISER);
     }
 
     private Expectation[] retrieveExpectationsFromInitializerClass() {
@@ -90,11 +90,12 @@ public class ExpectationInitializerLoader {
                             .setArguments(initializationJsonPath, StringUtils.abbreviate(jsonExpectations, 1000))
                     );
                 }
-                if (isNotBlank(jsonExpectations)) {
-                    return expectationSerializer.deserializeArray(jsonExpectations, true);
-                } else {
-                    return new Expectation[0];
+                Expectation[] expectations = isNotBlank(jsonExpectations) ? expectationSerializer.deserializeArray(jsonExpectations, true) : new Expectation[0];
+                if (ConfigurationProperties.persistExpectations() && ConfigurationProperties.persistedExpectationsJournal() && initializationJsonPath.equals(ConfigurationProperties.persistedExpectationsPath())) {
+                    // replay changes journaled since the persisted expectations were last compacted
+                    expectations = new ExpectationJournal(mockServerLogger, initializationJsonPath).replay(expectations);
                 }
+                return expectations;
             } catch (Throwable throwable) {
                 if (MockServerLogger.isEnabled(WARN)) {
                     mockServerLogger.logEvent(
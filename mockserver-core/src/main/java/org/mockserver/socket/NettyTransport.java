@@ -0,0 +1,111 @@
+package org.mockserver.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.mockserver.configuration.ConfigurationProperties;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates event loop groups using the native epoll transport when it is available and enabled, falling back to NIO,
+ * and selects the channel types and socket options matching the transport of an event loop group
+ *
+ * @author jamesdbloom
+ */
+public class NettyTransport {
+
+    public static boolean nativeTransport() {
+        return ConfigurationProperties.nativeTransportEnabled() && Epoll.isAvailable();
+    }
+
+    public static EventLoopGroup createEventLoopGroup(int threadCount, ThreadFactory threadFactory) {
+        if (nativeTransport()) {
+            return new EpollEventLoopGroup(threadCount, threadFactory);
+        } else {
+            return new NioEventLoopGroup(threadCount, threadFactory);
+        }
+    }
+
+    private static boolean isEpoll(EventLoopGroup eventLoopGroup) {
+        if (eventLoopGroup instanceof EventLoop) {
+            eventLoopGroup = ((EventLoop) eventLoopGroup).parent();
+        }
+        return eventLoopGroup instanceof EpollEventLoopGroup;
+    }
+
+    public static Class<? extends ServerChannel> serverChannelClass(EventLoopGroup eventLoopGroup) {
+        return isEpoll(eventLoopGroup) ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    public static Class<? extends SocketChannel> socketChannelClass(EventLoopGroup eventLoopGroup) {
+        return isEpoll(eventLoopGroup) ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    /**
+     * True if each port should be bound by several sockets using SO_REUSEPORT, so connections are accepted by several threads
+     */
+    public static boolean reusePort(EventLoopGroup bossGroup) {
+        return isEpoll(bossGroup) && ConfigurationProperties.acceptorThreadCount() > 1;
+    }
+
+    /**
+     * Sets the channel type and socket options of a server bootstrap, the event loop groups must already be set
+     */
+    public static ServerBootstrap configureServer(ServerBootstrap serverBootstrap) {
+        EventLoopGroup bossGroup = serverBootstrap.config().group();
+        serverBootstrap
+            .channel(serverChannelClass(bossGroup))
+            .childOption(ChannelOption.TCP_NODELAY, ConfigurationProperties.socketTcpNoDelay());
+        if (ConfigurationProperties.socketReceiveBufferSize() > 0) {
+            // set on the listening socket so the tcp window scale is negotiated for the buffer size
+            serverBootstrap.option(ChannelOption.SO_RCVBUF, ConfigurationProperties.socketReceiveBufferSize());
+            serverBootstrap.childOption(ChannelOption.SO_RCVBUF, ConfigurationProperties.socketReceiveBufferSize());
+        }
+        if (ConfigurationProperties.socketSendBufferSize() > 0) {
+            serverBootstrap.childOption(ChannelOption.SO_SNDBUF, ConfigurationProperties.socketSendBufferSize());
+        }
+        if (isEpoll(bossGroup)) {
+            if (reusePort(bossGroup)) {
+                serverBootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+            }
+            if (ConfigurationProperties.socketTcpFastOpen() > 0) {
+                serverBootstrap.option(ChannelOption.TCP_FASTOPEN, ConfigurationProperties.socketTcpFastOpen());
+            }
+        }
+        return serverBootstrap;
+    }
+
+    /**
+     * Sets the channel type and socket options of a client bootstrap, the event loop group must already be set
+     */
+    public static Bootstrap configureClient(Bootstrap bootstrap) {
+        EventLoopGroup eventLoopGroup = bootstrap.config().group();
+        bootstrap
+            .channel(socketChannelClass(eventLoopGroup))
+            .option(ChannelOption.TCP_NODELAY, ConfigurationProperties.socketTcpNoDelay());
+        if (ConfigurationProperties.socketReceiveBufferSize() > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, ConfigurationProperties.socketReceiveBufferSize());
+        }
+        if (ConfigurationProperties.socketSendBufferSize() > 0) {
+            bootstrap.option(ChannelOption.SO_SNDBUF, ConfigurationProperties.socketSendBufferSize());
+        }
+        if (isEpoll(eventLoopGroup) && ConfigurationProperties.socketTcpFastOpen() > 0) {
+            bootstrap.option(ChannelOption.TCP_FASTOPEN_CONNECT, true);
+        }
+        return bootstrap;
+    }
+
+}
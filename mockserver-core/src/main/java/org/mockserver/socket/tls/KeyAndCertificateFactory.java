@@ -1,5 +1,6 @@
 package org.mockserver.socket.tls;
 
+import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 
@@ -24,4 +25,13 @@ public interface KeyAndCertificateFactory {
 
     X509Certificate certificateAuthorityX509Certificate();
 
+    /**
+     * Builds a X509 certificate for a single hostname and the public key of the key pair signed by the certificate authority
+     *
+     * @return the certificate or null if this factory only supports a single certificate for all hostnames
+     */
+    default X509Certificate buildX509CertificateForHostname(String hostname, KeyPair keyPair) {
+        return null;
+    }
+
 }
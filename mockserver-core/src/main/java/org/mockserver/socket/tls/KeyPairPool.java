@@ -0,0 +1,107 @@
+package org.mockserver.socket.tls;
+
+import org.mockserver.log.model.LogEntry;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.scheduler.Scheduler;
+import org.slf4j.event.Level;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockserver.socket.tls.jdk.CertificateSigningRequest.MOCK_KEY_SIZE;
+
+/**
+ * Generates key pairs for per hostname certificates on a background thread before they are needed, so a new
+ * hostname only waits for its certificate to be signed, not for a key pair to be generated
+ *
+ * @author jamesdbloom
+ */
+public class KeyPairPool {
+
+    private static final String EC_CURVE = "secp256r1";
+
+    private final MockServerLogger mockServerLogger;
+    private final String algorithm;
+    private final BlockingQueue<KeyPair> keyPairs;
+    private final ExecutorService keyPairGenerator;
+    private final AtomicBoolean generating = new AtomicBoolean(false);
+
+    public KeyPairPool(MockServerLogger mockServerLogger, String algorithm, int poolSize) {
+        this.mockServerLogger = mockServerLogger;
+        this.algorithm = "EC".equalsIgnoreCase(algorithm) ? "EC" : "RSA";
+        if (!this.algorithm.equalsIgnoreCase(algorithm)) {
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(Level.WARN)
+                    .setMessageFormat("unsupported key pair algorithm{}using RSA, the only supported values are RSA and EC")
+                    .setArguments(algorithm)
+            );
+        }
+        if (poolSize > 0) {
+            this.keyPairs = new ArrayBlockingQueue<>(poolSize);
+            this.keyPairGenerator = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new Scheduler.SchedulerThreadFactory("KeyPairGenerator"));
+            ((ThreadPoolExecutor) this.keyPairGenerator).allowCoreThreadTimeOut(true);
+            refill();
+        } else {
+            this.keyPairs = null;
+            this.keyPairGenerator = null;
+        }
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns a pre-generated key pair, or generates one on the calling thread if none are available
+     */
+    public KeyPair take() throws GeneralSecurityException {
+        KeyPair keyPair = keyPairs != null ? keyPairs.poll() : null;
+        refill();
+        return keyPair != null ? keyPair : generate();
+    }
+
+    int available() {
+        return keyPairs != null ? keyPairs.size() : 0;
+    }
+
+    private void refill() {
+        if (keyPairs != null && keyPairs.remainingCapacity() > 0 && generating.compareAndSet(false, true)) {
+            try {
+                keyPairGenerator.execute(() -> {
+                    try {
+                        while (keyPairs.remainingCapacity() > 0) {
+                            keyPairs.offer(generate());
+                        }
+                    } catch (Throwable throwable) {
+                        mockServerLogger.logEvent(
+                            new LogEntry()
+                                .setLogLevel(Level.ERROR)
+                                .setMessageFormat("exception while generating " + algorithm + " key pair")
+                                .setThrowable(throwable)
+                        );
+                    } finally {
+                        generating.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException ree) {
+                generating.set(false);
+            }
+        }
+    }
+
+    private KeyPair generate() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        if ("EC".equals(algorithm)) {
+            generator.initialize(new ECGenParameterSpec(EC_CURVE));
+        } else {
+            generator.initialize(MOCK_KEY_SIZE);
+        }
+        return generator.generateKeyPair();
+    }
+
+}
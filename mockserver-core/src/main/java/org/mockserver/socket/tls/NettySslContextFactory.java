@@ -1,29 +1,35 @@
 package org.mockserver.socket.tls;
 
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.OpenSsl;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import org.mockserver.cache.LRUCache;
 import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
+import org.mockserver.scheduler.Scheduler;
 import org.slf4j.event.Level;
 
 import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
+import java.security.KeyPair;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Supplier;
 import java.util.function.Function;
 import javax.net.ssl.SSLException;
 
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.mockserver.socket.tls.KeyAndCertificateFactoryFactory.createKeyAndCertificateFactory;
 import static org.mockserver.socket.tls.PEMToFile.privateKeyFromPEMFile;
@@ -47,11 +53,28 @@ public class NettySslContextFactory {
     private final KeyAndCertificateFactory keyAndCertificateFactory;
     private SslContext clientSslContext = null;
     private SslContext serverSslContext = null;
+    private LRUCache<String, SslContext> hostnameSslContexts;
+    private final ConcurrentHashMap<String, CompletableFuture<SslContext>> hostnameSslContextsInProgress = new ConcurrentHashMap<>();
+    private KeyPairPool keyPairPool;
+    private ExecutorService hostnameSslContextExecutor;
+    private volatile boolean hostnameCertificatesUnsupported = false;
+    private volatile boolean openSslUnavailableLogged = false;
 
     public NettySslContextFactory(MockServerLogger mockServerLogger) {
         this.mockServerLogger = mockServerLogger;
         keyAndCertificateFactory = createKeyAndCertificateFactory(mockServerLogger);
         System.setProperty("https.protocols", "SSLv3,TLSv1,TLSv1.1,TLSv1.2");
+        // only read by the JDK when TLS is first used
+        if (System.getProperty("jdk.tls.server.enableSessionTicketExtension") == null) {
+            System.setProperty("jdk.tls.server.enableSessionTicketExtension", "" + ConfigurationProperties.tlsSessionTickets());
+        }
+        if (System.getProperty("jdk.tls.client.enableSessionTicketExtension") == null) {
+            System.setProperty("jdk.tls.client.enableSessionTicketExtension", "" + ConfigurationProperties.tlsSessionTickets());
+        }
+        if (hostnameCertificatesEnabled()) {
+            // start generating key pairs before the first hostname is seen
+            keyPairPool();
+        }
     }
 
     public synchronized SslContext createClientSslContext(boolean forwardProxyClient) {
@@ -62,12 +85,14 @@ public class NettySslContextFactory {
                     keyAndCertificateFactory.buildAndSavePrivateKeyAndX509Certificate();
                 }
                 SslContextBuilder sslContextBuilder =
-                    SslContextBuilder
-                        .forClient()
-                        .keyManager(
-                            forwardProxyPrivateKey(),
-                            forwardProxyCertificateChain()
-                        );
+                    withSessionSettings(
+                        SslContextBuilder
+                            .forClient()
+                            .keyManager(
+                                forwardProxyPrivateKey(),
+                                forwardProxyCertificateChain()
+                            )
+                    );
                 if (forwardProxyClient) {
                     switch (ConfigurationProperties.forwardProxyTLSX509CertificatesTrustManagerType()) {
                         case ANY:
@@ -142,15 +167,7 @@ public class NettySslContextFactory {
             || ConfigurationProperties.rebuildServerTLSContext() && !ConfigurationProperties.preventCertificateDynamicUpdate()) {
             try {
                 keyAndCertificateFactory.buildAndSavePrivateKeyAndX509Certificate();
-                serverSslContext = SslContextBuilder
-                    .forServer(
-                        keyAndCertificateFactory.privateKey(),
-                        keyAndCertificateFactory.x509Certificate(),
-                        keyAndCertificateFactory.certificateAuthorityX509Certificate()
-                    )
-                    .trustManager(trustCertificateChain())
-                    .clientAuth(ConfigurationProperties.tlsMutualAuthenticationRequired() ? ClientAuth.REQUIRE : ClientAuth.NONE)
-                    .build();
+                serverSslContext = buildServerSslContext(keyAndCertificateFactory.privateKey(), keyAndCertificateFactory.x509Certificate());
                 ConfigurationProperties.rebuildServerTLSContext(false);
             } catch (Throwable throwable) {
                 mockServerLogger.logEvent(
@@ -164,6 +181,172 @@ public class NettySslContextFactory {
         return serverSslContext;
     }
 
+    private SslContext buildServerSslContext(PrivateKey privateKey, X509Certificate x509Certificate) throws SSLException {
+        return withSessionSettings(
+            SslContextBuilder
+                .forServer(
+                    privateKey,
+                    x509Certificate,
+                    keyAndCertificateFactory.certificateAuthorityX509Certificate()
+                )
+        )
+            .trustManager(trustCertificateChain())
+            .clientAuth(ConfigurationProperties.tlsMutualAuthenticationRequired() ? ClientAuth.REQUIRE : ClientAuth.NONE)
+            .build();
+    }
+
+    private SslContextBuilder withSessionSettings(SslContextBuilder sslContextBuilder) {
+        sslContextBuilder.sslProvider(sslProvider());
+        if (ConfigurationProperties.tlsSessionCacheSize() > 0) {
+            sslContextBuilder.sessionCacheSize(ConfigurationProperties.tlsSessionCacheSize());
+        }
+        if (ConfigurationProperties.tlsSessionTimeout() > 0) {
+            sslContextBuilder.sessionTimeout(ConfigurationProperties.tlsSessionTimeout());
+        }
+        if (ConfigurationProperties.tlsAlpnEnabled()) {
+            sslContextBuilder.applicationProtocolConfig(new ApplicationProtocolConfig(
+                ApplicationProtocolConfig.Protocol.ALPN,
+                ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                ApplicationProtocolNames.HTTP_1_1
+            ));
+        }
+        return sslContextBuilder;
+    }
+
+    private SslProvider sslProvider() {
+        if ("OPENSSL".equalsIgnoreCase(ConfigurationProperties.tlsProvider())) {
+            if (OpenSsl.isAvailable()) {
+                return SslProvider.OPENSSL;
+            } else if (!openSslUnavailableLogged) {
+                openSslUnavailableLogged = true;
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setLogLevel(Level.WARN)
+                        .setMessageFormat("OPENSSL TLS provider is not available, using JDK TLS provider, please ensure netty-tcnative is available in the classpath")
+                        .setThrowable(OpenSsl.unavailabilityCause())
+                );
+            }
+        }
+        return SslProvider.JDK;
+    }
+
+    /**
+     * True if each SNI hostname is given its own certificate, otherwise hostnames are added to the Subject Alternative Names of the
+     * single server certificate, which is not possible if dynamic updates are prevented or a fixed certificate is configured
+     */
+    public boolean hostnameCertificatesEnabled() {
+        return ConfigurationProperties.tlsHostnameCertificates()
+            && ConfigurationProperties.tlsHostnameCertificateCacheSize() > 0
+            && !ConfigurationProperties.preventCertificateDynamicUpdate()
+            && (isBlank(ConfigurationProperties.privateKeyPath()) || isBlank(ConfigurationProperties.x509CertificatePath()))
+            && !hostnameCertificatesUnsupported;
+    }
+
+    /**
+     * Returns the server context with a certificate for the hostname, signed by the certificate authority, generating the key pair
+     * and certificate on a background thread the first time a hostname is seen and caching the context for later connections
+     */
+    public CompletableFuture<SslContext> createServerSslContextForHostname(String hostname) {
+        if (isBlank(hostname) || !hostnameCertificatesEnabled()) {
+            if (isNotBlank(hostname)) {
+                ConfigurationProperties.addSslSubjectAlternativeNameDomains(hostname);
+            }
+            return CompletableFuture.completedFuture(createServerSslContext());
+        }
+        String key = hostname.trim().toLowerCase(Locale.ROOT);
+        SslContext sslContext = hostnameSslContexts().get(key);
+        if (sslContext != null) {
+            return CompletableFuture.completedFuture(sslContext);
+        }
+        CompletableFuture<SslContext> inProgress = new CompletableFuture<>();
+        CompletableFuture<SslContext> existing = hostnameSslContextsInProgress.putIfAbsent(key, inProgress);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            hostnameSslContextExecutor().execute(() -> {
+                try {
+                    inProgress.complete(buildHostnameServerSslContext(key));
+                } catch (Throwable throwable) {
+                    inProgress.completeExceptionally(throwable);
+                } finally {
+                    hostnameSslContextsInProgress.remove(key, inProgress);
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            hostnameSslContextsInProgress.remove(key, inProgress);
+            inProgress.completeExceptionally(ree);
+        }
+        return inProgress;
+    }
+
+    private SslContext buildHostnameServerSslContext(String hostname) {
+        SslContext sslContext = hostnameSslContexts().get(hostname);
+        if (sslContext == null) {
+            try {
+                KeyPair keyPair = keyPairPool().take();
+                X509Certificate x509Certificate = keyAndCertificateFactory.buildX509CertificateForHostname(hostname, keyPair);
+                if (x509Certificate != null) {
+                    sslContext = buildServerSslContext(keyPair.getPrivate(), x509Certificate);
+                    hostnameSslContexts().put(hostname, sslContext);
+                    if (MockServerLogger.isEnabled(Level.TRACE)) {
+                        mockServerLogger.logEvent(
+                            new LogEntry()
+                                .setLogLevel(Level.TRACE)
+                                .setMessageFormat("created new " + keyPair.getPublic().getAlgorithm() + " X509{}for hostname{}")
+                                .setArguments(x509Certificate, hostname)
+                        );
+                    }
+                } else {
+                    hostnameCertificatesUnsupported = true;
+                    mockServerLogger.logEvent(
+                        new LogEntry()
+                            .setLogLevel(Level.WARN)
+                            .setMessageFormat("key and certificate factory doesn't support per hostname certificates, adding hostnames to the Subject Alternative Names of the server certificate instead")
+                    );
+                }
+            } catch (Throwable throwable) {
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setLogLevel(Level.ERROR)
+                        .setMessageFormat("exception creating SSL context for hostname{}" + throwable.getMessage())
+                        .setArguments(hostname)
+                        .setThrowable(throwable)
+                );
+            }
+            if (sslContext == null) {
+                ConfigurationProperties.addSslSubjectAlternativeNameDomains(hostname);
+                sslContext = createServerSslContext();
+            }
+        }
+        return sslContext;
+    }
+
+    private synchronized LRUCache<String, SslContext> hostnameSslContexts() {
+        if (hostnameSslContexts == null) {
+            hostnameSslContexts = new LRUCache<>(mockServerLogger, ConfigurationProperties.tlsHostnameCertificateCacheSize(), TimeUnit.HOURS.toMillis(1));
+        }
+        return hostnameSslContexts;
+    }
+
+    private synchronized KeyPairPool keyPairPool() {
+        if (keyPairPool == null) {
+            keyPairPool = new KeyPairPool(mockServerLogger, ConfigurationProperties.tlsKeyPairAlgorithm(), ConfigurationProperties.tlsKeyPairPoolSize());
+        }
+        return keyPairPool;
+    }
+
+    private synchronized ExecutorService hostnameSslContextExecutor() {
+        if (hostnameSslContextExecutor == null) {
+            int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+            ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new Scheduler.SchedulerThreadFactory("HostnameCertificate"));
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            hostnameSslContextExecutor = threadPoolExecutor;
+        }
+        return hostnameSslContextExecutor;
+    }
+
     private X509Certificate[] trustCertificateChain() {
         if (isNotBlank(ConfigurationProperties.tlsMutualAuthenticationCertificateChain())) {
             List<X509Certificate> x509Certificates = x509ChainFromPEMFile(ConfigurationProperties.tlsMutualAuthenticationCertificateChain());
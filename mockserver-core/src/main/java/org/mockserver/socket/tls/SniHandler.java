@@ -7,10 +7,16 @@ import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
 import io.netty.util.internal.PlatformDependent;
 import org.mockserver.configuration.ConfigurationProperties;
+import org.mockserver.metrics.Metrics;
+
+import java.util.concurrent.CompletableFuture;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.mockserver.metrics.Metrics.Name.*;
+import static org.mockserver.metrics.Metrics.Timer.TLS_HANDSHAKE;
 
 /**
  * @author jamesdbloom
@@ -18,6 +24,9 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 public class SniHandler extends AbstractSniHandler<SslContext> {
 
     private final NettySslContextFactory nettySslContextFactory;
+    // the handler is added when the client hello arrives
+    private final long handshakeStartNanos = System.nanoTime();
+    private final long handshakeStartMillis = System.currentTimeMillis();
 
     public SniHandler(NettySslContextFactory nettySslContextFactory) {
         this.nettySslContextFactory = nettySslContextFactory;
@@ -25,6 +34,22 @@ public class SniHandler extends AbstractSniHandler<SslContext> {
 
     @Override
     protected Future<SslContext> lookup(ChannelHandlerContext ctx, String hostname) {
+        if (isNotBlank(hostname) && nettySslContextFactory.hostnameCertificatesEnabled()) {
+            CompletableFuture<SslContext> sslContextFuture = nettySslContextFactory.createServerSslContextForHostname(hostname);
+            if (sslContextFuture.isDone() && !sslContextFuture.isCompletedExceptionally()) {
+                return ctx.executor().newSucceededFuture(sslContextFuture.join());
+            }
+            // certificate is generated off the event loop, the handshake continues when it is ready
+            Promise<SslContext> promise = ctx.executor().newPromise();
+            sslContextFuture.whenComplete((sslContext, throwable) -> {
+                if (throwable != null) {
+                    promise.tryFailure(throwable);
+                } else {
+                    promise.trySuccess(sslContext);
+                }
+            });
+            return promise;
+        }
         if (isNotBlank(hostname)) {
             ConfigurationProperties.addSslSubjectAlternativeNameDomains(hostname);
         }
@@ -53,6 +78,7 @@ public class SniHandler extends AbstractSniHandler<SslContext> {
         try {
             sslHandler = sslContext.getNow().newHandler(ctx.alloc());
             ctx.pipeline().replace(this, SslHandler.class.getName(), sslHandler);
+            recordHandshake(sslHandler);
             sslHandler = null;
         } finally {
             // Since the SslHandler was not inserted into the pipeline the ownership of the SSLEngine was not
@@ -63,4 +89,22 @@ public class SniHandler extends AbstractSniHandler<SslContext> {
             }
         }
     }
+
+    private void recordHandshake(SslHandler sslHandler) {
+        if (ConfigurationProperties.metricsEnabled()) {
+            sslHandler.handshakeFuture().addListener(future -> {
+                if (future.isSuccess()) {
+                    Metrics.record(TLS_HANDSHAKE, System.nanoTime() - handshakeStartNanos);
+                    // a resumed session keeps the creation time of the handshake that created it
+                    if (sslHandler.engine().getSession().getCreationTime() < handshakeStartMillis) {
+                        Metrics.increment(TLS_HANDSHAKE_RESUMED_COUNT);
+                    } else {
+                        Metrics.increment(TLS_HANDSHAKE_FULL_COUNT);
+                    }
+                } else {
+                    Metrics.increment(TLS_HANDSHAKE_FAILED_COUNT);
+                }
+            });
+        }
+    }
 }
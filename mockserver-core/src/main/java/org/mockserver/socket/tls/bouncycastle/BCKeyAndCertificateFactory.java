@@ -276,6 +276,23 @@ public class BCKeyAndCertificateFactory implements KeyAndCertificateFactory {
         }
     }
 
+    @Override
+    public X509Certificate buildX509CertificateForHostname(String hostname, KeyPair keyPair) {
+        try {
+            return createCASignedCert(
+                keyPair.getPublic(),
+                certificateAuthorityX509Certificate(),
+                certificateAuthorityPrivateKey(),
+                certificateAuthorityX509Certificate().getPublicKey(),
+                hostname,
+                new String[0],
+                null
+            );
+        } catch (Exception e) {
+            throw new RuntimeException("Exception creating X509 certificate for hostname " + hostname, e);
+        }
+    }
+
     /**
      * Create a server certificate for the given domain and subject alternative names, signed by the given Certificate Authority.
      */
@@ -10,6 +10,7 @@ import org.slf4j.event.Level;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
@@ -228,6 +229,27 @@ public class JDKKeyAndCertificateFactory implements KeyAndCertificateFactory {
         }
     }
 
+    @Override
+    public X509Certificate buildX509CertificateForHostname(String hostname, KeyPair keyPair) {
+        try {
+            X509Certificate certificateAuthorityX509Certificate = certificateAuthorityX509Certificate();
+            X509AndPrivateKey hostnameX509AndPrivateKey = x509Generator.generateLeafX509AndPrivateKey(
+                new CertificateSigningRequest()
+                    .setKeyPairAlgorithm(keyPair.getPublic().getAlgorithm())
+                    .setSigningAlgorithm(SIGNING_ALGORITHM)
+                    .setCommonName(hostname)
+                    .addSubjectAlternativeNames(hostname),
+                certificateAuthorityX509Certificate.getIssuerDN().getName(),
+                certificateAuthorityPrivateKey(),
+                certificateAuthorityX509Certificate,
+                keyPair
+            );
+            return x509FromPEM(hostnameX509AndPrivateKey.getCert());
+        } catch (Exception e) {
+            throw new RuntimeException("Exception creating X509 certificate for hostname " + hostname, e);
+        }
+    }
+
     public boolean certificateNotYetCreated() {
         return x509AndPrivateKey == null;
     }
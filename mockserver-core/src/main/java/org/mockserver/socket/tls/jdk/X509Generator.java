@@ -45,10 +45,14 @@ public class X509Generator {
     }
 
     public X509AndPrivateKey generateLeafX509AndPrivateKey(final CertificateSigningRequest csr, String issuerDistinguishingName, final String caPrivateKey, final X509Certificate caCertificate) throws IOException, NoSuchAlgorithmException, CertificateException, InvalidKeyException, NoSuchProviderException, SignatureException, InvalidKeySpecException {
+        return generateLeafX509AndPrivateKey(csr, issuerDistinguishingName, caPrivateKey, caCertificate, generateKeyPair(csr.getKeyPairAlgorithm(), csr.getKeyPairSize()));
+    }
+
+    public X509AndPrivateKey generateLeafX509AndPrivateKey(final CertificateSigningRequest csr, String issuerDistinguishingName, final String caPrivateKey, final X509Certificate caCertificate, final KeyPair keyPair) throws IOException, NoSuchAlgorithmException, CertificateException, InvalidKeyException, NoSuchProviderException, SignatureException, InvalidKeySpecException {
+        // the certificate authority key algorithm can differ from the leaf key algorithm
         final PrivateKey privateKey = KeyFactory
-            .getInstance(csr.getKeyPairAlgorithm())
+            .getInstance(caCertificate.getPublicKey().getAlgorithm())
             .generatePrivate(keySpecFromPEM(caPrivateKey));
-        final KeyPair keyPair = generateKeyPair(csr.getKeyPairAlgorithm(), csr.getKeyPairSize());
         final X500Name subject = new X500Name(buildDistinguishedName(csr.getCommonName()));
         final X500Name issuer = new X500Name(issuerDistinguishingName);
         X509CertInfo x509CertInfo = buildX509CertInfo(subject, issuer, keyPair.getPublic(), csr);
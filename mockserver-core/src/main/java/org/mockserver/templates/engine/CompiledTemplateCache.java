@@ -0,0 +1,47 @@
+package org.mockserver.templates.engine;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of compiled templates keyed by template text, so a template is compiled
+ * once and then shared by every request it is executed for, instead of being compiled for each request.
+ * <p>
+ * Because the key is the template text an updated expectation with a different template never sees the
+ * previous compiled template, templates that are no longer used are evicted once the cache is full.
+ *
+ * @author jamesdbloom
+ */
+public class CompiledTemplateCache {
+
+    private final Map<String, CompiledScript> compiledTemplates;
+
+    public CompiledTemplateCache(int maxSize) {
+        this.compiledTemplates = Collections.synchronizedMap(new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    public CompiledScript get(String template, Compiler compiler) throws ScriptException {
+        CompiledScript compiledScript = compiledTemplates.get(template);
+        if (compiledScript == null) {
+            compiledScript = compiler.compile(template);
+            compiledTemplates.put(template, compiledScript);
+        }
+        return compiledScript;
+    }
+
+    public int size() {
+        return compiledTemplates.size();
+    }
+
+    public interface Compiler {
+        CompiledScript compile(String template) throws ScriptException;
+    }
+}
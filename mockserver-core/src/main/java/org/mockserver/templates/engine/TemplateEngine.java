@@ -10,4 +10,11 @@ public interface TemplateEngine {
 
     <T> T executeTemplate(String template, HttpRequest httpRequest, Class<? extends DTO<T>> dtoClass);
 
+    /**
+     * Compiles the template ahead of the first request so syntax errors are reported when the expectation is added
+     *
+     * @throws IllegalArgumentException if the template can't be compiled
+     */
+    void compileTemplate(String template);
+
 }
@@ -3,11 +3,13 @@ package org.mockserver.templates.engine.javascript;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jdk.nashorn.api.scripting.ScriptObjectMirror;
+import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.serialization.ObjectMapperFactory;
 import org.mockserver.serialization.model.DTO;
+import org.mockserver.templates.engine.CompiledTemplateCache;
 import org.mockserver.templates.engine.TemplateEngine;
 import org.mockserver.templates.engine.model.HttpRequestTemplateObject;
 import org.mockserver.templates.engine.serializer.HttpTemplateOutputDeserializer;
@@ -28,6 +30,7 @@ public class JavaScriptTemplateEngine implements TemplateEngine {
 
     private static final ObjectMapper OBJECT_MAPPER = ObjectMapperFactory.createObjectMapper();
     private static ScriptEngine engine;
+    private static CompiledTemplateCache compiledTemplateCache;
     private final MockServerLogger logFormatter;
     private HttpTemplateOutputDeserializer httpTemplateOutputDeserializer;
 
@@ -35,6 +38,9 @@ public class JavaScriptTemplateEngine implements TemplateEngine {
         if (engine == null) {
             engine = new ScriptEngineManager().getEngineByName("nashorn");
         }
+        if (compiledTemplateCache == null) {
+            compiledTemplateCache = new CompiledTemplateCache(ConfigurationProperties.maxExpectations());
+        }
         this.logFormatter = logFormatter;
         this.httpTemplateOutputDeserializer = new HttpTemplateOutputDeserializer(logFormatter);
     }
@@ -42,12 +48,10 @@ public class JavaScriptTemplateEngine implements TemplateEngine {
     @Override
     public <T> T executeTemplate(String template, HttpRequest request, Class<? extends DTO<T>> dtoClass) {
         T result = null;
-        String script = "function handle(request) {" + indentAndToString(template)[0] + "}";
+        String script = wrapTemplate(template);
         try {
             if (engine != null) {
-                Compilable compilable = (Compilable) engine;
-                // HttpResponse handle(HttpRequest httpRequest) - ES5
-                CompiledScript compiledScript = compilable.compile(script + " function serialise(request) { return JSON.stringify(handle(JSON.parse(request)), null, 2); }");
+                CompiledScript compiledScript = compiledTemplateCache.get(template, this::compile);
 
                 Bindings bindings = engine.createBindings();
                 compiledScript.eval(bindings);
@@ -97,4 +101,24 @@ public class JavaScriptTemplateEngine implements TemplateEngine {
         }
         return result;
     }
+
+    @Override
+    public void compileTemplate(String template) {
+        if (engine != null) {
+            try {
+                compiledTemplateCache.get(template, this::compile);
+            } catch (ScriptException se) {
+                throw new IllegalArgumentException(formatLogMessage("Exception compiling template:{}error:{}", wrapTemplate(template), se.getMessage()), se);
+            }
+        }
+    }
+
+    private String wrapTemplate(String template) {
+        return "function handle(request) {" + indentAndToString(template)[0] + "}";
+    }
+
+    private CompiledScript compile(String template) throws ScriptException {
+        // HttpResponse handle(HttpRequest httpRequest) - ES5
+        return ((Compilable) engine).compile(wrapTemplate(template) + " function serialise(request) { return JSON.stringify(handle(JSON.parse(request)), null, 2); }");
+    }
 }
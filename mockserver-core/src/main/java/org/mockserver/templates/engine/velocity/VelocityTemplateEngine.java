@@ -3,19 +3,24 @@ package org.mockserver.templates.engine.velocity;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.velocity.script.VelocityScriptEngineFactory;
+import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.serialization.ObjectMapperFactory;
 import org.mockserver.serialization.model.DTO;
+import org.mockserver.templates.engine.CompiledTemplateCache;
 import org.mockserver.templates.engine.TemplateEngine;
 import org.mockserver.templates.engine.model.HttpRequestTemplateObject;
 import org.mockserver.templates.engine.serializer.HttpTemplateOutputDeserializer;
 import org.slf4j.event.Level;
 
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
 import javax.script.SimpleScriptContext;
 import java.io.StringWriter;
 import java.io.Writer;
@@ -31,6 +36,7 @@ public class VelocityTemplateEngine implements TemplateEngine {
 
     private static final ScriptEngineManager manager = new ScriptEngineManager();
     private static final ScriptEngine engine;
+    private static CompiledTemplateCache compiledTemplateCache;
     private static final ObjectMapper OBJECT_MAPPER = ObjectMapperFactory.createObjectMapper();
     private final MockServerLogger logFormatter;
     private HttpTemplateOutputDeserializer httpTemplateOutputDeserializer;
@@ -41,6 +47,9 @@ public class VelocityTemplateEngine implements TemplateEngine {
     }
 
     public VelocityTemplateEngine(MockServerLogger logFormatter) {
+        if (compiledTemplateCache == null) {
+            compiledTemplateCache = new CompiledTemplateCache(ConfigurationProperties.maxExpectations());
+        }
         this.logFormatter = logFormatter;
         this.httpTemplateOutputDeserializer = new HttpTemplateOutputDeserializer(logFormatter);
     }
@@ -53,7 +62,7 @@ public class VelocityTemplateEngine implements TemplateEngine {
             ScriptContext context = new SimpleScriptContext();
             context.setWriter(writer);
             context.setAttribute("request", new HttpRequestTemplateObject(request), ScriptContext.ENGINE_SCOPE);
-            engine.eval(template, context);
+            compiledTemplateCache.get(template, this::compile).eval(context);
             JsonNode generatedObject = null;
             try {
                 generatedObject = OBJECT_MAPPER.readTree(writer.toString());
@@ -84,4 +93,17 @@ public class VelocityTemplateEngine implements TemplateEngine {
         }
         return result;
     }
+
+    @Override
+    public void compileTemplate(String template) {
+        try {
+            compiledTemplateCache.get(template, this::compile);
+        } catch (ScriptException se) {
+            throw new IllegalArgumentException(formatLogMessage("Exception compiling template:{}error:{}", template, se.getMessage()), se);
+        }
+    }
+
+    private CompiledScript compile(String template) throws ScriptException {
+        return ((Compilable) engine).compile(template);
+    }
 }
@@ -114,33 +114,46 @@ public class JsonSchemaValidator extends ObjectWithReflectiveEqualsHashCodeToStr
     }
 
     public String isValid(String json, boolean addOpenAPISpecificationMessage) {
-        String validationResult = "";
         if (isNotBlank(json)) {
             try {
+                return isValid(OBJECT_MAPPER.readTree(json), addOpenAPISpecificationMessage);
+            } catch (Throwable throwable) {
+                return validationException(throwable);
+            }
+        }
+        return "";
+    }
 
-                ProcessingReport processingReport = validator
-                    .validate(
-                        schemaJsonNode,
-                        OBJECT_MAPPER.readTree(json),
-                        true
-                    );
+    public String isValid(JsonNode json, boolean addOpenAPISpecificationMessage) {
+        String validationResult = "";
+        try {
 
-                if (!processingReport.isSuccess()) {
-                    validationResult = formatProcessingReport(processingReport, addOpenAPISpecificationMessage);
-                }
-            } catch (Throwable throwable) {
-                mockServerLogger.logEvent(
-                    new LogEntry()
-                        .setLogLevel(Level.ERROR)
-                        .setMessageFormat("exception validating JSON")
-                        .setThrowable(throwable)
+            ProcessingReport processingReport = validator
+                .validate(
+                    schemaJsonNode,
+                    json,
+                    true
                 );
-                return throwable.getClass().getSimpleName() + " - " + throwable.getMessage();
+
+            if (!processingReport.isSuccess()) {
+                validationResult = formatProcessingReport(processingReport, addOpenAPISpecificationMessage);
             }
+        } catch (Throwable throwable) {
+            return validationException(throwable);
         }
         return validationResult;
     }
 
+    private String validationException(Throwable throwable) {
+        mockServerLogger.logEvent(
+            new LogEntry()
+                .setLogLevel(Level.ERROR)
+                .setMessageFormat("exception validating JSON")
+                .setThrowable(throwable)
+        );
+        return throwable.getClass().getSimpleName() + " - " + throwable.getMessage();
+    }
+
     private String formatProcessingReport(ProcessingReport processingMessages, boolean addOpenAPISpecificationMessage) {
         List<String> validationErrors = new ArrayList<>();
         for (ProcessingMessage processingMessage : processingMessages) {
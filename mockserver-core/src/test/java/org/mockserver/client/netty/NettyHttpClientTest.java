@@ -8,22 +8,37 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockserver.client.NettyHttpClient;
+import org.mockserver.client.SocketCommunicationException;
+import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.echo.http.EchoServer;
 import org.mockserver.logging.MockServerLogger;
+import org.mockserver.metrics.Metrics;
 import org.mockserver.model.HttpResponse;
 import org.mockserver.model.MediaType;
 import org.mockserver.scheduler.Scheduler;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.*;
 import static io.netty.handler.codec.http.HttpHeaderValues.KEEP_ALIVE;
 import static io.netty.handler.codec.http.HttpHeaderValues.*;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.mockserver.metrics.Metrics.Name.FORWARD_CONNECTION_CREATED_COUNT;
+import static org.mockserver.metrics.Metrics.Name.FORWARD_CONNECTION_REUSED_COUNT;
 import static org.mockserver.model.BinaryBody.binary;
 import static org.mockserver.model.Cookie.cookie;
 import static org.mockserver.model.Header.header;
@@ -223,4 +238,217 @@ public class NettyHttpClientTest {
         ));
     }
 
+    @Test
+    public void shouldReuseConnectionForForwardedRequests() throws Exception {
+        // given
+        boolean originalMetricsEnabled = ConfigurationProperties.metricsEnabled();
+        try {
+            ConfigurationProperties.metricsEnabled(true);
+            Metrics.clear();
+            NettyHttpClient nettyHttpClient = new NettyHttpClient(mockServerLogger, clientEventLoopGroup, null, true);
+
+            // when
+            for (int i = 0; i < 3; i++) {
+                HttpResponse httpResponse = nettyHttpClient.sendRequest(request().withHeader("Host", "0.0.0.0:" + echoServer.getPort()).withBody("request_" + i))
+                    .get(10, TimeUnit.SECONDS);
+                assertThat(httpResponse.getBodyAsString(), is("request_" + i));
+            }
+
+            // then
+            assertThat(Metrics.get(FORWARD_CONNECTION_CREATED_COUNT), is(1));
+            assertThat(Metrics.get(FORWARD_CONNECTION_REUSED_COUNT), is(2));
+        } finally {
+            ConfigurationProperties.metricsEnabled(originalMetricsEnabled);
+            Metrics.clear();
+        }
+    }
+
+    @Test
+    public void shouldNotReuseConnectionWhenConnectionPoolDisabled() throws Exception {
+        // given
+        boolean originalMetricsEnabled = ConfigurationProperties.metricsEnabled();
+        int originalMaxConnections = ConfigurationProperties.forwardConnectionPoolMaxConnections();
+        try {
+            ConfigurationProperties.metricsEnabled(true);
+            ConfigurationProperties.forwardConnectionPoolMaxConnections(0);
+            Metrics.clear();
+            NettyHttpClient nettyHttpClient = new NettyHttpClient(mockServerLogger, clientEventLoopGroup, null, true);
+
+            // when
+            for (int i = 0; i < 3; i++) {
+                HttpResponse httpResponse = nettyHttpClient.sendRequest(request().withHeader("Host", "0.0.0.0:" + echoServer.getPort()).withBody("request_" + i))
+                    .get(10, TimeUnit.SECONDS);
+                assertThat(httpResponse.getBodyAsString(), is("request_" + i));
+            }
+
+            // then
+            assertThat(Metrics.get(FORWARD_CONNECTION_CREATED_COUNT), is(0));
+            assertThat(Metrics.get(FORWARD_CONNECTION_REUSED_COUNT), is(0));
+        } finally {
+            ConfigurationProperties.metricsEnabled(originalMetricsEnabled);
+            ConfigurationProperties.forwardConnectionPoolMaxConnections(originalMaxConnections);
+            Metrics.clear();
+        }
+    }
+
+    @Test
+    public void shouldNotReuseConnectionWhenRequestClosesConnection() throws Exception {
+        // given
+        boolean originalMetricsEnabled = ConfigurationProperties.metricsEnabled();
+        try {
+            ConfigurationProperties.metricsEnabled(true);
+            Metrics.clear();
+            NettyHttpClient nettyHttpClient = new NettyHttpClient(mockServerLogger, clientEventLoopGroup, null, true);
+
+            // when
+            for (int i = 0; i < 2; i++) {
+                nettyHttpClient.sendRequest(request().withHeader("Host", "0.0.0.0:" + echoServer.getPort()).withHeader(CONNECTION.toString(), CLOSE.toString()))
+                    .get(10, TimeUnit.SECONDS);
+            }
+
+            // then
+            assertThat(Metrics.get(FORWARD_CONNECTION_CREATED_COUNT), is(2));
+            assertThat(Metrics.get(FORWARD_CONNECTION_REUSED_COUNT), is(0));
+        } finally {
+            ConfigurationProperties.metricsEnabled(originalMetricsEnabled);
+            Metrics.clear();
+        }
+    }
+
+    @Test
+    public void shouldResendIdempotentRequestWhenReusedConnectionClosedBeforeResponse() throws Exception {
+        // given - the second request on the connection is read then the connection is closed without a response
+        List<String> receivedRequests = new CopyOnWriteArrayList<>();
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            Thread server = new Thread(() -> respond(serverSocket, receivedRequests, "HTTP/1.1 200 OK\r\ncontent-length: 0\r\n\r\n", null, "HTTP/1.1 200 OK\r\ncontent-length: 0\r\n\r\n"));
+            server.start();
+            NettyHttpClient nettyHttpClient = new NettyHttpClient(mockServerLogger, clientEventLoopGroup, null, true);
+            nettyHttpClient.sendRequest(request().withPath("/one").withHeader("Host", "127.0.0.1:" + serverSocket.getLocalPort())).get(10, TimeUnit.SECONDS);
+
+            // when
+            HttpResponse httpResponse = nettyHttpClient.sendRequest(request().withPath("/two").withHeader("Host", "127.0.0.1:" + serverSocket.getLocalPort())).get(10, TimeUnit.SECONDS);
+
+            // then
+            assertThat(httpResponse.getStatusCode(), is(200));
+            server.join(TimeUnit.SECONDS.toMillis(10));
+            assertThat(receivedRequests.toString(), is("[GET /one HTTP/1.1, GET /two HTTP/1.1, GET /two HTTP/1.1]"));
+        }
+    }
+
+    @Test
+    public void shouldNotResendNonIdempotentRequestWhenReusedConnectionClosedMidResponse() throws Exception {
+        // given - the response to the second request on the connection is closed part way through the body
+        List<String> receivedRequests = new CopyOnWriteArrayList<>();
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            Thread server = new Thread(() -> respond(serverSocket, receivedRequests, "HTTP/1.1 200 OK\r\ncontent-length: 0\r\n\r\n", "HTTP/1.1 200 OK\r\ncontent-length: 100\r\n\r\npartial", "HTTP/1.1 200 OK\r\ncontent-length: 0\r\n\r\n"));
+            server.start();
+            NettyHttpClient nettyHttpClient = new NettyHttpClient(mockServerLogger, clientEventLoopGroup, null, true);
+            nettyHttpClient.sendRequest(request().withPath("/one").withHeader("Host", "127.0.0.1:" + serverSocket.getLocalPort())).get(10, TimeUnit.SECONDS);
+
+            // when
+            Throwable failure = null;
+            try {
+                nettyHttpClient.sendRequest(request().withMethod("POST").withPath("/two").withHeader("Host", "127.0.0.1:" + serverSocket.getLocalPort()).withBody("some_body")).get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException executionException) {
+                failure = executionException.getCause();
+            }
+
+            // then
+            assertThat(failure != null, is(true));
+            server.join(TimeUnit.SECONDS.toMillis(10));
+            assertThat(receivedRequests.toString(), is("[GET /one HTTP/1.1, POST /two HTTP/1.1]"));
+        }
+    }
+
+    @Test
+    public void shouldFailRequestAndFreePooledConnectionWhenNoResponseWithinTimeout() throws Exception {
+        // given - the first connection reads the request but never responds, a second connection is responded to
+        long originalMaxSocketTimeout = ConfigurationProperties.maxSocketTimeout();
+        int originalMaxConnections = ConfigurationProperties.forwardConnectionPoolMaxConnections();
+        List<String> receivedRequests = new CopyOnWriteArrayList<>();
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            ConfigurationProperties.maxSocketTimeout(500);
+            ConfigurationProperties.forwardConnectionPoolMaxConnections(1);
+            Thread server = new Thread(() -> {
+                try (Socket neverResponds = serverSocket.accept()) {
+                    receivedRequests.add(readRequest(new BufferedReader(new InputStreamReader(neverResponds.getInputStream(), ISO_8859_1))));
+                    try (Socket socket = serverSocket.accept()) {
+                        receivedRequests.add(readRequest(new BufferedReader(new InputStreamReader(socket.getInputStream(), ISO_8859_1))));
+                        socket.getOutputStream().write("HTTP/1.1 200 OK\r\ncontent-length: 0\r\n\r\n".getBytes(ISO_8859_1));
+                        socket.getOutputStream().flush();
+                        MILLISECONDS.sleep(250);
+                    }
+                } catch (IOException | InterruptedException exception) {
+                    receivedRequests.add(exception.toString());
+                }
+            });
+            server.start();
+            NettyHttpClient nettyHttpClient = new NettyHttpClient(mockServerLogger, clientEventLoopGroup, null, true);
+
+            // when
+            Throwable failure = null;
+            try {
+                nettyHttpClient.sendRequest(request().withPath("/one").withHeader("Host", "127.0.0.1:" + serverSocket.getLocalPort())).get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException executionException) {
+                failure = executionException.getCause();
+            }
+
+            // then - the request fails and the only connection in the pool is available again
+            assertThat(failure instanceof SocketCommunicationException, is(true));
+            assertThat(failure.getMessage().startsWith("Response was not received after 500 milliseconds"), is(true));
+            HttpResponse httpResponse = nettyHttpClient.sendRequest(request().withPath("/two").withHeader("Host", "127.0.0.1:" + serverSocket.getLocalPort())).get(10, TimeUnit.SECONDS);
+            assertThat(httpResponse.getStatusCode(), is(200));
+            server.join(TimeUnit.SECONDS.toMillis(10));
+            assertThat(receivedRequests.toString(), is("[GET /one HTTP/1.1, GET /two HTTP/1.1]"));
+        } finally {
+            ConfigurationProperties.maxSocketTimeout(originalMaxSocketTimeout);
+            ConfigurationProperties.forwardConnectionPoolMaxConnections(originalMaxConnections);
+        }
+    }
+
+    /**
+     * Responds to the first request on the first connection, writes the second response (or nothing if null) to the
+     * second request on the same connection and closes it, then responds to a request on a new connection if one is opened
+     */
+    private void respond(ServerSocket serverSocket, List<String> receivedRequests, String firstResponse, String secondResponse, String retryResponse) {
+        try {
+            try (Socket socket = serverSocket.accept()) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), ISO_8859_1));
+                receivedRequests.add(readRequest(reader));
+                socket.getOutputStream().write(firstResponse.getBytes(ISO_8859_1));
+                receivedRequests.add(readRequest(reader));
+                if (secondResponse != null) {
+                    socket.getOutputStream().write(secondResponse.getBytes(ISO_8859_1));
+                    socket.getOutputStream().flush();
+                }
+            }
+            serverSocket.setSoTimeout(1000);
+            try (Socket socket = serverSocket.accept()) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), ISO_8859_1));
+                receivedRequests.add(readRequest(reader));
+                socket.getOutputStream().write(retryResponse.getBytes(ISO_8859_1));
+                socket.getOutputStream().flush();
+                MILLISECONDS.sleep(250);
+            }
+        } catch (SocketTimeoutException ignore) {
+            // request not sent again
+        } catch (IOException | InterruptedException exception) {
+            receivedRequests.add(exception.toString());
+        }
+    }
+
+    private String readRequest(BufferedReader reader) throws IOException {
+        String requestLine = reader.readLine();
+        int contentLength = 0;
+        String line;
+        while ((line = reader.readLine()) != null && !line.isEmpty()) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+            }
+        }
+        for (int i = 0; i < contentLength; i++) {
+            reader.read();
+        }
+        return requestLine;
+    }
 }
@@ -0,0 +1,225 @@
+package org.mockserver.cluster;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockserver.closurecallback.websocketregistry.WebSocketClientRegistry;
+import org.mockserver.log.MockServerEventLog;
+import org.mockserver.log.model.LogEntry;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.mock.Expectation;
+import org.mockserver.mock.RequestMatchers;
+import org.mockserver.model.ExpectationId;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.RequestDefinition;
+import org.mockserver.scheduler.Scheduler;
+import org.mockserver.socket.PortFactory;
+import org.mockserver.verify.VerificationSequence;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockserver.log.model.LogEntry.LogMessageType.RECEIVED_REQUEST;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+import static org.mockserver.verify.Verification.verification;
+import static org.mockserver.verify.VerificationTimes.exactly;
+import static org.mockserver.verify.VerificationTimes.never;
+
+/**
+ * @author jamesdbloom
+ */
+public class ClusterEventLogTest {
+
+    private final MockServerLogger mockServerLogger = new MockServerLogger(ClusterEventLogTest.class);
+    private final List<ExpectationReplicator> expectationReplicators = new ArrayList<>();
+    private final List<ClusterEventLog> clusterEventLogs = new ArrayList<>();
+
+    @After
+    public void stopNodes() {
+        clusterEventLogs.forEach(ClusterEventLog::stop);
+        expectationReplicators.forEach(ExpectationReplicator::stop);
+    }
+
+    private MockServerEventLog node(String nodeId, int port, Integer... peerPorts) {
+        Scheduler scheduler = new Scheduler(mockServerLogger);
+        MockServerEventLog mockServerEventLog = new MockServerEventLog(mockServerLogger, scheduler, true);
+        RequestMatchers requestMatchers = new RequestMatchers(mockServerLogger, scheduler, new WebSocketClientRegistry(mockServerLogger));
+        List<InetSocketAddress> peers = new ArrayList<>();
+        for (Integer peerPort : peerPorts) {
+            peers.add(new InetSocketAddress("127.0.0.1", peerPort));
+        }
+        ExpectationReplicator expectationReplicator = new ExpectationReplicator(mockServerLogger, requestMatchers, nodeId, port, peers);
+        expectationReplicators.add(expectationReplicator);
+        ClusterEventLog clusterEventLog = new ClusterEventLog(mockServerLogger, mockServerEventLog, expectationReplicator, SECONDS.toMillis(5));
+        clusterEventLogs.add(clusterEventLog);
+        mockServerEventLog.setPeerEventLogs(clusterEventLog);
+        return mockServerEventLog;
+    }
+
+    private void connectedNodes() throws Exception {
+        waitFor(() -> expectationReplicators.stream().allMatch(expectationReplicator -> !expectationReplicator.getPeerChannels().isEmpty()));
+    }
+
+    private void receivedRequest(MockServerEventLog mockServerEventLog, String path, long epochTime) {
+        mockServerEventLog.add(
+            new LogEntry()
+                .setHttpRequest(request(path))
+                .setType(RECEIVED_REQUEST)
+                .setEpochTime(epochTime)
+        );
+    }
+
+    private List<String> retrievePaths(MockServerEventLog mockServerEventLog, RequestDefinition requestDefinition) throws Exception {
+        CompletableFuture<List<RequestDefinition>> result = new CompletableFuture<>();
+        mockServerEventLog.retrieveRequests(requestDefinition, result::complete);
+        return result
+            .get(10, SECONDS)
+            .stream()
+            .map(httpRequest -> ((HttpRequest) httpRequest).getPath().getValue())
+            .collect(Collectors.toList());
+    }
+
+    private void waitFor(Callable<Boolean> condition) throws Exception {
+        long timeout = System.currentTimeMillis() + SECONDS.toMillis(10);
+        while (!condition.call() && System.currentTimeMillis() < timeout) {
+            MILLISECONDS.sleep(50);
+        }
+    }
+
+    @Test
+    public void shouldRetrieveRequestsFromAllNodesInTimestampOrder() throws Exception {
+        // given
+        int portOne = PortFactory.findFreePort();
+        MockServerEventLog nodeOne = node("one", portOne);
+        MockServerEventLog nodeTwo = node("two", 0, portOne);
+        connectedNodes();
+
+        // when
+        receivedRequest(nodeOne, "/one", 1000);
+        receivedRequest(nodeTwo, "/two", 2000);
+        receivedRequest(nodeOne, "/three", 3000);
+        receivedRequest(nodeTwo, "/four", 4000);
+
+        // then
+        assertThat(retrievePaths(nodeOne, null), is(Arrays.asList("/one", "/two", "/three", "/four")));
+        assertThat(retrievePaths(nodeTwo, null), is(Arrays.asList("/one", "/two", "/three", "/four")));
+        assertThat(retrievePaths(nodeOne, request("/two")), is(Collections.singletonList("/two")));
+    }
+
+    @Test
+    public void shouldVerifyRequestsReceivedByAllNodes() throws Exception {
+        // given
+        int portOne = PortFactory.findFreePort();
+        MockServerEventLog nodeOne = node("one", portOne);
+        MockServerEventLog nodeTwo = node("two", 0, portOne);
+        connectedNodes();
+        receivedRequest(nodeOne, "/one", 1000);
+        receivedRequest(nodeTwo, "/two", 2000);
+        receivedRequest(nodeOne, "/two", 3000);
+
+        // then
+        assertThat(nodeOne.verify(verification().withRequest(request("/two")).withTimes(exactly(2))).get(10, SECONDS), is(""));
+        assertThat(nodeOne.verify(new VerificationSequence().withRequests(request("/one"), request("/two"), request("/two"))).get(10, SECONDS), is(""));
+        assertThat(nodeTwo.verify(new VerificationSequence().withRequests(request("/two"), request("/one"))).get(10, SECONDS).startsWith("Request sequence not found"), is(true));
+    }
+
+    @Test
+    public void shouldNotVerifyRequestsWhenNodeIsNotDirectlyConnected() throws Exception {
+        // given
+        int portOne = PortFactory.findFreePort();
+        int portTwo = PortFactory.findFreePort();
+        MockServerEventLog nodeOne = node("one", portOne);
+        node("two", portTwo, portOne);
+        MockServerEventLog nodeThree = node("three", 0, portTwo);
+        connectedNodes();
+        waitFor(() -> expectationReplicators.get(0).getUnconnectedNodes().contains("three"));
+        receivedRequest(nodeThree, "/three", 1000);
+
+        // then
+        assertThat(expectationReplicators.get(0).getUnconnectedNodes(), is(Collections.singleton("three")));
+        assertThat(nodeOne.verify(verification().withRequest(request("/three")).withTimes(never())).get(10, SECONDS), is("Request not verified, the event log of cluster instances [three] could not be retrieved, every instance must be connected to every other instance and respond within the log query timeout"));
+        assertThat(nodeOne.verify(new VerificationSequence().withRequests(request("/three"))).get(10, SECONDS), is("Request sequence not verified, the event log of cluster instances [three] could not be retrieved, every instance must be connected to every other instance and respond within the log query timeout"));
+    }
+
+    @Test
+    public void shouldNotVerifyRequestsWhenConfiguredPeerIsNotConnected() throws Exception {
+        // given
+        int portOne = PortFactory.findFreePort();
+        int portTwo = PortFactory.findFreePort();
+        MockServerEventLog nodeOne = node("one", portOne);
+        MockServerEventLog nodeTwo = node("two", 0, portOne, portTwo);
+        connectedNodes();
+
+        // then
+        assertThat(nodeOne.verify(verification().withRequest(request("/one")).withTimes(never())).get(10, SECONDS), is(""));
+        assertThat(nodeTwo.verify(verification().withRequest(request("/one")).withTimes(never())).get(10, SECONDS), is("Request not verified, the event log of cluster instances [127.0.0.1:" + portTwo + "] could not be retrieved, every instance must be connected to every other instance and respond within the log query timeout"));
+    }
+
+    @Test
+    public void shouldResetAndClearLogOnAllNodes() throws Exception {
+        // given
+        int portOne = PortFactory.findFreePort();
+        MockServerEventLog nodeOne = node("one", portOne);
+        MockServerEventLog nodeTwo = node("two", 0, portOne);
+        connectedNodes();
+        receivedRequest(nodeOne, "/one", 1000);
+        receivedRequest(nodeTwo, "/two", 2000);
+        receivedRequest(nodeTwo, "/three", 3000);
+
+        // when
+        nodeOne.clear(request("/two"));
+
+        // then
+        assertThat(retrievePaths(nodeTwo, null), is(Arrays.asList("/one", "/three")));
+
+        // when
+        nodeOne.reset();
+
+        // then
+        assertThat(retrievePaths(nodeTwo, null), is(Collections.emptyList()));
+        assertThat(nodeOne.verify(verification().withRequest(request("/three")).withTimes(never())).get(10, SECONDS), is(""));
+    }
+
+    @Test
+    public void shouldVerifyRequestsMatchedByExpectationIdOnAllNodes() throws Exception {
+        // given
+        int portOne = PortFactory.findFreePort();
+        MockServerEventLog nodeOne = node("one", portOne);
+        MockServerEventLog nodeTwo = node("two", 0, portOne);
+        connectedNodes();
+        Expectation expectation = new Expectation(request("/some_path")).thenRespond(response());
+
+        // when
+        int correlation = 0;
+        for (MockServerEventLog mockServerEventLog : Arrays.asList(nodeOne, nodeTwo, nodeTwo)) {
+            HttpRequest httpRequest = request("/some_path");
+            httpRequest.withLogCorrelationId("correlation_" + correlation++);
+            mockServerEventLog.add(
+                new LogEntry()
+                    .setHttpRequest(httpRequest)
+                    .setType(RECEIVED_REQUEST)
+                    .setCorrelationId(httpRequest.getLogCorrelationId())
+            );
+            mockServerEventLog.matched(httpRequest, expectation);
+        }
+        receivedRequest(nodeTwo, "/some_path", 1000);
+
+        // then
+        assertThat(nodeOne.verify(
+            verification()
+                .withRequest(null)
+                .withExpectationId(new ExpectationId().withId(expectation.getId()))
+                .withTimes(exactly(3))
+        ).get(10, SECONDS), is(""));
+    }
+}
@@ -0,0 +1,374 @@
+package org.mockserver.cluster;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockserver.closurecallback.websocketregistry.WebSocketClientRegistry;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.mock.Expectation;
+import org.mockserver.mock.RequestMatchers;
+import org.mockserver.scheduler.Scheduler;
+import org.mockserver.serialization.ExpectationSerializer;
+import org.mockserver.socket.PortFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.mockserver.mock.listeners.MockServerMatcherNotifier.Cause.API;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * @author jamesdbloom
+ */
+public class ExpectationReplicatorTest {
+
+    private final MockServerLogger mockServerLogger = new MockServerLogger(ExpectationReplicatorTest.class);
+    private final List<ExpectationReplicator> expectationReplicators = new ArrayList<>();
+
+    @After
+    public void stopReplicators() {
+        expectationReplicators.forEach(ExpectationReplicator::stop);
+    }
+
+    private RequestMatchers node(String nodeId, int port, Integer... peerPorts) {
+        return node(nodeId, null, port, peerPorts);
+    }
+
+    private RequestMatchers node(String nodeId, String secret, int port, Integer... peerPorts) {
+        RequestMatchers requestMatchers = new RequestMatchers(mockServerLogger, new Scheduler(mockServerLogger), new WebSocketClientRegistry(mockServerLogger));
+        List<InetSocketAddress> peers = new ArrayList<>();
+        for (Integer peerPort : peerPorts) {
+            peers.add(new InetSocketAddress("127.0.0.1", peerPort));
+        }
+        expectationReplicators.add(new ExpectationReplicator(mockServerLogger, requestMatchers, nodeId, "127.0.0.1", port, peers, null, secret));
+        return requestMatchers;
+    }
+
+    private Expectation expectation(String id, String body) {
+        return new Expectation(request().withPath("/" + id)).withId(id).thenRespond(response().withBody(body));
+    }
+
+    private String responseBody(RequestMatchers requestMatchers, String id) {
+        return requestMatchers
+            .retrieveActiveExpectations(null)
+            .stream()
+            .filter(expectation -> expectation.getId().equals(id))
+            .map(expectation -> expectation.getHttpResponse().getBodyAsString())
+            .findFirst()
+            .orElse(null);
+    }
+
+    private String record(String type, String id, String version, long timestamp, Expectation expectation) {
+        return "{\"type\":\"" + type + "\",\"node\":\"peer\",\"id\":\"" + id + "\",\"version\":" + version + ",\"timestamp\":" + timestamp +
+            (expectation != null ? ",\"expectation\":" + new ExpectationSerializer(mockServerLogger).serialize(expectation).replaceAll("\\s*\\n\\s*", "") : "") +
+            "}\n";
+    }
+
+    private void waitFor(Callable<Boolean> condition) throws Exception {
+        long timeout = System.currentTimeMillis() + SECONDS.toMillis(10);
+        while (!condition.call() && System.currentTimeMillis() < timeout) {
+            MILLISECONDS.sleep(50);
+        }
+    }
+
+    @Test
+    public void shouldReplicateUpsertsAndRemovalsToAllNodes() throws Exception {
+        // given - nodes connected in a chain
+        int portOne = PortFactory.findFreePort();
+        int portTwo = PortFactory.findFreePort();
+        RequestMatchers nodeOne = node("one", portOne);
+        RequestMatchers nodeTwo = node("two", portTwo, portOne);
+        RequestMatchers nodeThree = node("three", 0, portTwo);
+
+        // when
+        nodeOne.add(expectation("some_id", "some_body"), API);
+
+        // then
+        waitFor(() -> "some_body".equals(responseBody(nodeThree, "some_id")));
+        assertThat(responseBody(nodeTwo, "some_id"), is("some_body"));
+        assertThat(responseBody(nodeThree, "some_id"), is("some_body"));
+
+        // when
+        nodeThree.add(expectation("some_id", "some_other_body"), API);
+
+        // then
+        waitFor(() -> "some_other_body".equals(responseBody(nodeOne, "some_id")));
+        assertThat(responseBody(nodeOne, "some_id"), is("some_other_body"));
+        assertThat(responseBody(nodeTwo, "some_id"), is("some_other_body"));
+
+        // when
+        nodeTwo.remove("some_id", API);
+
+        // then
+        waitFor(() -> nodeOne.isEmpty() && nodeThree.isEmpty());
+        assertThat(responseBody(nodeOne, "some_id"), is(nullValue()));
+        assertThat(responseBody(nodeThree, "some_id"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldSendSnapshotToJoiningNode() throws Exception {
+        // given
+        int portOne = PortFactory.findFreePort();
+        RequestMatchers nodeOne = node("one", portOne);
+        nodeOne.add(Arrays.asList(expectation("id_one", "body_one"), expectation("id_two", "body_two"), expectation("id_three", "body_three")), API);
+        nodeOne.remove("id_three", API);
+        MILLISECONDS.sleep(250);
+
+        // when
+        RequestMatchers nodeTwo = node("two", 0, portOne);
+
+        // then
+        waitFor(() -> nodeTwo.size() == 2);
+        assertThat(responseBody(nodeTwo, "id_one"), is("body_one"));
+        assertThat(responseBody(nodeTwo, "id_two"), is("body_two"));
+        assertThat(responseBody(nodeTwo, "id_three"), is(nullValue()));
+
+        // when - snapshot also sent from joining node
+        RequestMatchers nodeThree = node("three", 0, portOne);
+        nodeThree.add(expectation("id_four", "body_four"), API);
+
+        // then
+        waitFor(() -> "body_four".equals(responseBody(nodeTwo, "id_four")));
+        assertThat(responseBody(nodeOne, "id_four"), is("body_four"));
+        assertThat(responseBody(nodeThree, "id_one"), is("body_one"));
+    }
+
+    @Test
+    public void shouldParsePeers() {
+        // then
+        assertThat(ExpectationReplicator.peers(""), is(Collections.emptyList()));
+        assertThat(ExpectationReplicator.peers("localhost:1080, 10.0.0.1:1090").toString(), is(Arrays.asList(InetSocketAddress.createUnresolved("localhost", 1080), InetSocketAddress.createUnresolved("10.0.0.1", 1090)).toString()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotParsePeersWithoutPort() {
+        ExpectationReplicator.peers("localhost");
+    }
+
+    @Test
+    public void shouldResolveConcurrentUpdatesToSameResultOnAllNodes() throws Exception {
+        // given - both nodes change the expectation before they are connected
+        int portOne = PortFactory.findFreePort();
+        RequestMatchers nodeTwo = node("two", 0, portOne);
+        nodeTwo.add(expectation("some_id", "body_two"), API);
+        MILLISECONDS.sleep(50);
+
+        // when - node two reconnects after node one has made a later change
+        RequestMatchers nodeOne = node("one", portOne);
+        nodeOne.add(expectation("some_id", "body_one"), API);
+
+        // then - the latest change is kept on both nodes
+        waitFor(() -> "body_one".equals(responseBody(nodeTwo, "some_id")));
+        MILLISECONDS.sleep(250);
+        assertThat(responseBody(nodeOne, "some_id"), is("body_one"));
+        assertThat(responseBody(nodeTwo, "some_id"), is("body_one"));
+
+        // when - a later change after the concurrent changes have been merged
+        nodeTwo.add(expectation("some_id", "body_three"), API);
+
+        // then
+        waitFor(() -> "body_three".equals(responseBody(nodeOne, "some_id")));
+        assertThat(responseBody(nodeOne, "some_id"), is("body_three"));
+        assertThat(responseBody(nodeTwo, "some_id"), is("body_three"));
+    }
+
+    @Test
+    public void shouldResolveConcurrentUpdateFromPeerByTimestamp() throws Exception {
+        // given
+        int portOne = PortFactory.findFreePort();
+        RequestMatchers nodeOne = node("one", portOne);
+        nodeOne.add(Arrays.asList(expectation("id_one", "local_body"), expectation("id_two", "local_body")), API);
+        MILLISECONDS.sleep(250);
+
+        try (Socket socket = new Socket("127.0.0.1", portOne)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+            OutputStream outputStream = socket.getOutputStream();
+            assertThat(reader.readLine().contains("\"HELLO\""), is(true));
+            outputStream.write("{\"type\":\"HELLO\",\"node\":\"peer\"}\n".getBytes(UTF_8));
+
+            // when - concurrent changes, one older and one newer than the local change
+            outputStream.write(record("UPSERT", "id_one", "{\"peer\":1}", 1, expectation("id_one", "older_peer_body")).getBytes(UTF_8));
+            outputStream.write(record("UPSERT", "id_two", "{\"peer\":1}", System.currentTimeMillis() + 60000, expectation("id_two", "newer_peer_body")).getBytes(UTF_8));
+            outputStream.flush();
+
+            // then
+            waitFor(() -> "newer_peer_body".equals(responseBody(nodeOne, "id_two")));
+            assertThat(responseBody(nodeOne, "id_one"), is("local_body"));
+            assertThat(responseBody(nodeOne, "id_two"), is("newer_peer_body"));
+        }
+    }
+
+    @Test
+    public void shouldNotRestoreRemovedExpectationFromOlderUpsert() throws Exception {
+        // given - a tombstone with version {"one":2}
+        int portOne = PortFactory.findFreePort();
+        RequestMatchers nodeOne = node("one", portOne);
+        nodeOne.add(expectation("some_id", "some_body"), API);
+        MILLISECONDS.sleep(250);
+        nodeOne.remove("some_id", API);
+        MILLISECONDS.sleep(250);
+
+        try (Socket socket = new Socket("127.0.0.1", portOne)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+            OutputStream outputStream = socket.getOutputStream();
+            assertThat(reader.readLine().contains("\"HELLO\""), is(true));
+            outputStream.write("{\"type\":\"HELLO\",\"node\":\"peer\"}\n".getBytes(UTF_8));
+
+            // when - an upsert older than the tombstone, with a later timestamp, followed by a newer upsert
+            outputStream.write(record("UPSERT", "some_id", "{\"one\":1}", System.currentTimeMillis() + 60000, expectation("some_id", "some_body")).getBytes(UTF_8));
+            outputStream.write(record("UPSERT", "other_id", "{\"peer\":1}", System.currentTimeMillis(), expectation("other_id", "other_body")).getBytes(UTF_8));
+            outputStream.flush();
+
+            // then
+            waitFor(() -> "other_body".equals(responseBody(nodeOne, "other_id")));
+            assertThat(responseBody(nodeOne, "other_id"), is("other_body"));
+            assertThat(responseBody(nodeOne, "some_id"), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void shouldReplicateBetweenNodesWithSameSecret() throws Exception {
+        // given
+        int portOne = PortFactory.findFreePort();
+        RequestMatchers nodeOne = node("one", "some_secret", portOne);
+        RequestMatchers nodeTwo = node("two", "some_secret", 0, portOne);
+        RequestMatchers nodeThree = node("three", "other_secret", 0, portOne);
+
+        // when
+        nodeTwo.add(expectation("some_id", "some_body"), API);
+
+        // then
+        waitFor(() -> "some_body".equals(responseBody(nodeOne, "some_id")));
+        MILLISECONDS.sleep(250);
+        assertThat(responseBody(nodeOne, "some_id"), is("some_body"));
+        assertThat(responseBody(nodeThree, "some_id"), is(nullValue()));
+        assertThat(expectationReplicators.get(0).getPeerChannels().keySet(), is(Collections.singleton("two")));
+    }
+
+    @Test
+    public void shouldRejectRecordsFromUnauthenticatedConnection() throws Exception {
+        // given
+        int portOne = PortFactory.findFreePort();
+        RequestMatchers nodeOne = node("one", "some_secret", portOne);
+
+        try (Socket socket = new Socket("127.0.0.1", portOne)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+            OutputStream outputStream = socket.getOutputStream();
+            assertThat(reader.readLine().contains("\"nonce\""), is(true));
+
+            // when - HELLO without the AUTH record
+            outputStream.write("{\"type\":\"HELLO\",\"node\":\"peer\"}\n".getBytes(UTF_8));
+            outputStream.write(record("UPSERT", "some_id", "{\"peer\":1}", System.currentTimeMillis(), expectation("some_id", "some_body")).getBytes(UTF_8));
+            outputStream.flush();
+
+            // then - AUTH sent by node and connection closed
+            assertThat(reader.readLine().contains("\"AUTH\""), is(true));
+            assertThat(reader.readLine(), is(nullValue()));
+            assertThat(responseBody(nodeOne, "some_id"), is(nullValue()));
+            assertThat(expectationReplicators.get(0).getPeerChannels().isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void shouldRejectProofReflectedBackToNode() throws Exception {
+        // given
+        int portOne = PortFactory.findFreePort();
+        RequestMatchers nodeOne = node("one", "some_secret", portOne);
+
+        try (Socket connectionOne = new Socket("127.0.0.1", portOne); Socket connectionTwo = new Socket("127.0.0.1", portOne)) {
+            BufferedReader readerOne = new BufferedReader(new InputStreamReader(connectionOne.getInputStream(), UTF_8));
+            BufferedReader readerTwo = new BufferedReader(new InputStreamReader(connectionTwo.getInputStream(), UTF_8));
+            String nonce = nonce(readerOne.readLine());
+            readerTwo.readLine();
+
+            // when - HELLO pretending to be the node itself, then the nonce sent to a second connection to get it signed by the node
+            connectionOne.getOutputStream().write("{\"type\":\"HELLO\",\"node\":\"one\"}\n".getBytes(UTF_8));
+            connectionTwo.getOutputStream().write(("{\"type\":\"HELLO\",\"node\":\"peer\",\"nonce\":\"" + nonce + "\"}\n").getBytes(UTF_8));
+            String auth = readerTwo.readLine();
+            assertThat(auth.contains("\"AUTH\""), is(true));
+            try {
+                connectionOne.getOutputStream().write((auth + "\n").getBytes(UTF_8));
+                connectionOne.getOutputStream().write(record("UPSERT", "some_id", "{\"peer\":1}", System.currentTimeMillis(), expectation("some_id", "some_body")).getBytes(UTF_8));
+                connectionOne.getOutputStream().flush();
+            } catch (IOException ignore) {
+                // connection already closed
+            }
+
+            // then - the connection pretending to be the node is closed and the record ignored
+            assertThat(readerOne.readLine(), is(nullValue()));
+            MILLISECONDS.sleep(250);
+            assertThat(responseBody(nodeOne, "some_id"), is(nullValue()));
+            assertThat(expectationReplicators.get(0).getPeerChannels().isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void shouldRejectProofSignedForAnotherNode() throws Exception {
+        // given
+        int portOne = PortFactory.findFreePort();
+        RequestMatchers nodeOne = node("one", "some_secret", portOne);
+
+        try (Socket connectionOne = new Socket("127.0.0.1", portOne); Socket connectionTwo = new Socket("127.0.0.1", portOne)) {
+            BufferedReader readerOne = new BufferedReader(new InputStreamReader(connectionOne.getInputStream(), UTF_8));
+            BufferedReader readerTwo = new BufferedReader(new InputStreamReader(connectionTwo.getInputStream(), UTF_8));
+            String nonce = nonce(readerOne.readLine());
+            readerTwo.readLine();
+
+            // when - the nonce from the first connection signed by the node on the second connection, replayed on the first
+            connectionOne.getOutputStream().write("{\"type\":\"HELLO\",\"node\":\"peer\"}\n".getBytes(UTF_8));
+            assertThat(readerOne.readLine().contains("\"AUTH\""), is(true));
+            connectionTwo.getOutputStream().write(("{\"type\":\"HELLO\",\"node\":\"peer\",\"nonce\":\"" + nonce + "\"}\n").getBytes(UTF_8));
+            String auth = readerTwo.readLine();
+            assertThat(auth.contains("\"AUTH\""), is(true));
+            connectionOne.getOutputStream().write((auth + "\n").getBytes(UTF_8));
+            connectionOne.getOutputStream().flush();
+
+            // then
+            assertThat(readerOne.readLine(), is(nullValue()));
+            assertThat(responseBody(nodeOne, "some_id"), is(nullValue()));
+            assertThat(expectationReplicators.get(0).getPeerChannels().isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void shouldNotReconnectToPeerThatIsItself() throws Exception {
+        // given - every node configured with the same peers, including itself
+        int portOne = PortFactory.findFreePort();
+        int portTwo = PortFactory.findFreePort();
+        RequestMatchers nodeOne = node("one", "some_secret", portOne, portOne, portTwo);
+        RequestMatchers nodeTwo = node("two", "some_secret", portTwo, portOne, portTwo);
+
+        // when
+        nodeOne.add(expectation("some_id", "some_body"), API);
+
+        // then
+        waitFor(() -> "some_body".equals(responseBody(nodeTwo, "some_id")));
+        assertThat(responseBody(nodeTwo, "some_id"), is("some_body"));
+        waitFor(() -> expectationReplicators.get(0).getUnconnectedNodes().isEmpty());
+        assertThat(expectationReplicators.get(0).getUnconnectedNodes(), is(Collections.emptySet()));
+        assertThat(expectationReplicators.get(0).getPeerChannels().keySet(), is(Collections.singleton("two")));
+    }
+
+    private String nonce(String hello) {
+        Matcher matcher = Pattern.compile("\"nonce\"\\s*:\\s*\"([^\"]+)\"").matcher(hello);
+        assertThat(matcher.find(), is(true));
+        return matcher.group(1);
+    }
+}
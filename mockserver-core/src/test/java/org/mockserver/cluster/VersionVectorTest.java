@@ -0,0 +1,61 @@
+package org.mockserver.cluster;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockserver.cluster.VersionVector.Ordering.*;
+
+/**
+ * @author jamesdbloom
+ */
+public class VersionVectorTest {
+
+    @Test
+    public void shouldCompareVersions() {
+        // given
+        VersionVector one = VersionVector.EMPTY.increment("a");
+        VersionVector two = one.increment("b");
+        VersionVector concurrent = one.increment("c");
+
+        // then
+        assertThat(VersionVector.EMPTY.compare(VersionVector.EMPTY), is(EQUAL));
+        assertThat(one.compare(VersionVector.EMPTY), is(AFTER));
+        assertThat(VersionVector.EMPTY.compare(one), is(BEFORE));
+        assertThat(two.compare(one), is(AFTER));
+        assertThat(one.compare(two), is(BEFORE));
+        assertThat(two.compare(concurrent), is(CONCURRENT));
+        assertThat(concurrent.compare(two), is(CONCURRENT));
+    }
+
+    @Test
+    public void shouldMergeConcurrentVersions() {
+        // given
+        VersionVector one = VersionVector.EMPTY.increment("a");
+        VersionVector two = one.increment("b").increment("b");
+        VersionVector concurrent = one.increment("c");
+
+        // when
+        VersionVector merged = two.merge(concurrent);
+
+        // then
+        assertThat(merged.compare(two), is(AFTER));
+        assertThat(merged.compare(concurrent), is(AFTER));
+        assertThat(merged, is(concurrent.merge(two)));
+        assertThat(merged.toString(), is("{a=1, b=2, c=1}"));
+    }
+
+    @Test
+    public void shouldSerialiseToJson() {
+        // given
+        VersionVector version = VersionVector.EMPTY.increment("a").increment("b").increment("b");
+
+        // when
+        VersionVector deserialised = VersionVector.fromJson(version.toJson());
+
+        // then
+        assertThat(version.toJson().toString(), is("{\"a\":1,\"b\":2}"));
+        assertThat(deserialised.compare(version), is(EQUAL));
+        assertThat(VersionVector.fromJson(null), is(VersionVector.EMPTY));
+    }
+}
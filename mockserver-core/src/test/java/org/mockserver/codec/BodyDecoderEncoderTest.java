@@ -13,6 +13,7 @@ import java.util.Arrays;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockserver.model.BinaryBody.binary;
 import static org.mockserver.model.JsonBody.json;
@@ -97,6 +98,45 @@ public class BodyDecoderEncoderTest {
         assertThat(bodyBytes, is(Arrays.copyOfRange(bytes, 6, 7)));
     }
 
+    @Test
+    public void shouldNotKeepEncodedBodyWhenWritten() {
+        // given
+        Body body = new StringBody("şarəs");
+
+        // when
+        ByteBuf result = new BodyDecoderEncoder().bodyToByteBuf(body, MediaType.APPLICATION_JSON_UTF_8.toString());
+
+        // then
+        assertThat(result.readableBytes(), is("şarəs".getBytes(UTF_8).length));
+        assertThat(body.getEncoded(MediaType.APPLICATION_JSON_UTF_8.toString()), is(nullValue()));
+    }
+
+    @Test
+    public void shouldWriteBodyEncodedOnceForContentType() {
+        // given
+        Body body = new StringBody("şarəs");
+        BodyDecoderEncoder bodyDecoderEncoder = new BodyDecoderEncoder();
+        bodyDecoderEncoder.encodeOnce(body, MediaType.APPLICATION_JSON_UTF_8.toString());
+
+        // when
+        ByteBuf first = bodyDecoderEncoder.bodyToByteBuf(body, MediaType.APPLICATION_JSON_UTF_8.toString());
+        byte[] firstBytes = new byte[first.readableBytes()];
+        first.readBytes(firstBytes);
+        first.release();
+        ByteBuf second = bodyDecoderEncoder.bodyToByteBuf(body, MediaType.APPLICATION_JSON_UTF_8.toString());
+        ByteBuf[] chunks = bodyDecoderEncoder.bodyToByteBuf(body, MediaType.APPLICATION_JSON_UTF_8.toString(), 2);
+        ByteBuf otherContentType = bodyDecoderEncoder.bodyToByteBuf(body, null);
+
+        // then
+        assertThat(firstBytes, is("şarəs".getBytes(UTF_8)));
+        assertThat(second.isReadOnly(), is(true));
+        assertThat(second.readableBytes(), is(firstBytes.length));
+        assertThat(chunks.length, is(4));
+        assertThat(body.getEncoded(MediaType.APPLICATION_JSON_UTF_8.toString()).readableBytes(), is(firstBytes.length));
+        assertThat(otherContentType.readableBytes(), is("şarəs".getBytes(DEFAULT_HTTP_CHARACTER_SET).length));
+        assertThat(body.getEncoded(null), is(nullValue()));
+    }
+
     @Test
     public void shouldReadByteBufToStringBodyWithNoContentType() {
         // given
@@ -0,0 +1,87 @@
+package org.mockserver.collections;
+
+import org.mockserver.mock.SortableExpectationId;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockserver.mock.SortableExpectationId.EXPECTATION_SORTABLE_PRIORITY_COMPARATOR;
+
+/**
+ * Measures the cost of adding to, and removing from, full circular collections, the cost should stay
+ * flat as the maximum size increases
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.mockserver.collections.CircularCollectionsBenchmark
+ *
+ * @author jamesdbloom
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CircularCollectionsBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int maxSize;
+
+    private CircularPriorityQueue<String, SortableExpectationId, SortableExpectationId> circularPriorityQueue;
+    private CircularConcurrentLinkedDeque<String> circularConcurrentLinkedDeque;
+    private SortableExpectationId[] elements;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        circularPriorityQueue = new CircularPriorityQueue<>(
+            maxSize,
+            EXPECTATION_SORTABLE_PRIORITY_COMPARATOR,
+            sortableExpectationId -> sortableExpectationId,
+            sortableExpectationId -> sortableExpectationId.id
+        );
+        circularConcurrentLinkedDeque = new CircularConcurrentLinkedDeque<>(maxSize, null);
+        elements = new SortableExpectationId[maxSize];
+        for (int i = 0; i < maxSize; i++) {
+            elements[i] = new SortableExpectationId("element_" + i, 0, i);
+            circularPriorityQueue.add(elements[i]);
+            circularConcurrentLinkedDeque.add(elements[i].id);
+        }
+        counter = maxSize;
+    }
+
+    @Benchmark
+    public int priorityQueueAddWithEviction() {
+        counter++;
+        circularPriorityQueue.add(new SortableExpectationId("element_" + counter, 0, counter));
+        return circularPriorityQueue.size();
+    }
+
+    @Benchmark
+    public int priorityQueueRemoveAndAdd() {
+        SortableExpectationId element = elements[(int) (counter++ % maxSize)];
+        circularPriorityQueue.remove(element);
+        circularPriorityQueue.add(element);
+        return circularPriorityQueue.size();
+    }
+
+    @Benchmark
+    public int dequeAddWithEviction() {
+        circularConcurrentLinkedDeque.add("element_" + counter++);
+        return circularConcurrentLinkedDeque.size();
+    }
+
+    @Benchmark
+    public int dequeRemoveAndAdd() {
+        String element = elements[(int) (counter++ % maxSize)].id;
+        circularConcurrentLinkedDeque.removeItem(element);
+        circularConcurrentLinkedDeque.add(element);
+        return circularConcurrentLinkedDeque.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CircularCollectionsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
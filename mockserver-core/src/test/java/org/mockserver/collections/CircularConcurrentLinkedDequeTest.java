@@ -2,12 +2,19 @@ package org.mockserver.collections;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 
 import static junit.framework.TestCase.assertEquals;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
 
 /**
  * @author jamesdbloom
@@ -45,4 +52,114 @@ public class CircularConcurrentLinkedDequeTest {
         assertThat(concurrentLinkedQueue, contains("2", "3", "4"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldTrackSizeWhenRemovingAndClearing() {
+        // given
+        List<String> evicted = new ArrayList<>();
+        CircularConcurrentLinkedDeque<String> concurrentLinkedQueue = new CircularConcurrentLinkedDeque<>(3, evicted::add);
+
+        // when
+        concurrentLinkedQueue.add("1");
+        concurrentLinkedQueue.add("2");
+        concurrentLinkedQueue.add("3");
+        concurrentLinkedQueue.removeItem("2");
+
+        // then
+        assertEquals(2, concurrentLinkedQueue.size());
+        assertThat(evicted, contains("2"));
+
+        // when
+        concurrentLinkedQueue.add("4");
+        concurrentLinkedQueue.add("5");
+
+        // then
+        assertEquals(3, concurrentLinkedQueue.size());
+        assertThat(concurrentLinkedQueue, contains("3", "4", "5"));
+        assertThat(evicted, contains("2", "1"));
+
+        // when
+        concurrentLinkedQueue.clear();
+
+        // then
+        assertEquals(0, concurrentLinkedQueue.size());
+        assertThat(evicted, contains("2", "1", "3", "4", "5"));
+    }
+
+    @Test
+    public void shouldRemoveItemWithoutRemovingEqualElements() {
+        // given
+        List<String> evicted = new ArrayList<>();
+        CircularConcurrentLinkedDeque<String> concurrentLinkedQueue = new CircularConcurrentLinkedDeque<>(5, evicted::add);
+        String first = new String("1");
+        String second = new String("1");
+        concurrentLinkedQueue.add(first);
+        concurrentLinkedQueue.add("2");
+        concurrentLinkedQueue.add(second);
+
+        // when
+        boolean removed = concurrentLinkedQueue.removeItem(second);
+
+        // then
+        assertThat(removed, is(true));
+        assertEquals(2, concurrentLinkedQueue.size());
+        assertThat(concurrentLinkedQueue.getFirst(), sameInstance(first));
+        assertThat(concurrentLinkedQueue, contains("1", "2"));
+
+        // when
+        removed = concurrentLinkedQueue.removeItem(second);
+
+        // then
+        assertThat(removed, is(false));
+        assertEquals(2, concurrentLinkedQueue.size());
+    }
+
+    @Test
+    public void shouldSupportDequeOperations() {
+        // given
+        Deque<String> deque = new CircularConcurrentLinkedDeque<>(3, null);
+
+        // when
+        deque.addLast("2");
+        deque.addFirst("1");
+        deque.offerLast("3");
+
+        // then
+        assertThat(deque, contains("1", "2", "3"));
+        assertThat(deque.peekFirst(), is("1"));
+        assertThat(deque.peekLast(), is("3"));
+        List<String> descending = new ArrayList<>();
+        deque.descendingIterator().forEachRemaining(descending::add);
+        assertThat(descending, contains("3", "2", "1"));
+
+        // when - adding at the head of a full deque evicts from the tail
+        deque.push("0");
+
+        // then
+        assertThat(deque, contains("0", "1", "2"));
+        assertThat(deque.pop(), is("0"));
+        assertThat(deque.pollLast(), is("2"));
+        assertThat(deque.remove("1"), is(true));
+        assertThat(deque.isEmpty(), is(true));
+        assertThat(deque.pollFirst(), nullValue());
+    }
+
+    @Test
+    public void shouldContinueIteratingWhenElementsRemovedDuringIteration() {
+        // given
+        CircularConcurrentLinkedDeque<String> concurrentLinkedQueue = new CircularConcurrentLinkedDeque<>(5, null);
+        concurrentLinkedQueue.addAll(Arrays.asList("1", "2", "3", "4"));
+        Iterator<String> iterator = concurrentLinkedQueue.iterator();
+        List<String> iterated = new ArrayList<>();
+        iterated.add(iterator.next());
+
+        // when
+        concurrentLinkedQueue.removeItem("1");
+        concurrentLinkedQueue.removeItem("3");
+        iterator.forEachRemaining(iterated::add);
+
+        // then
+        assertThat(iterated, contains("1", "2", "4"));
+        assertThat(concurrentLinkedQueue, contains("2", "4"));
+    }
+
+}
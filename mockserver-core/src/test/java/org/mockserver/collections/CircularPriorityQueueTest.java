@@ -161,6 +161,72 @@ public class CircularPriorityQueueTest {
         ));
     }
 
+    @Test
+    public void shouldTrackSizeAndEvictAfterRemove() {
+        // given
+        CircularPriorityQueue<String, SortableExpectationId, SortableExpectationId> concurrentLinkedQueue = new CircularPriorityQueue<>(
+            3,
+            EXPECTATION_SORTABLE_PRIORITY_COMPARATOR,
+            sortableExpectationId -> sortableExpectationId,
+            sortableExpectationId -> sortableExpectationId.id
+        );
+
+        // when
+        concurrentLinkedQueue.add(new SortableExpectationId("1", 0, 0));
+        concurrentLinkedQueue.add(new SortableExpectationId("2", 0, 0));
+        concurrentLinkedQueue.add(new SortableExpectationId("3", 0, 0));
+        concurrentLinkedQueue.remove(new SortableExpectationId("2", 0, 0));
+        concurrentLinkedQueue.remove(new SortableExpectationId("2", 0, 0));
+
+        // then
+        assertEquals(2, concurrentLinkedQueue.size());
+
+        // when
+        concurrentLinkedQueue.add(new SortableExpectationId("4", 0, 0));
+        concurrentLinkedQueue.add(new SortableExpectationId("5", 0, 0));
+
+        // then - only oldest evicted
+        assertEquals(3, concurrentLinkedQueue.size());
+        assertThat(concurrentLinkedQueue.toSortedList(), contains(
+            new SortableExpectationId("3", 0, 0),
+            new SortableExpectationId("4", 0, 0),
+            new SortableExpectationId("5", 0, 0)
+        ));
+        assertThat(concurrentLinkedQueue.getByKey("1"), is(Optional.empty()));
+
+        // when
+        concurrentLinkedQueue.remove(new SortableExpectationId("3", 0, 0));
+        concurrentLinkedQueue.remove(new SortableExpectationId("4", 0, 0));
+        concurrentLinkedQueue.remove(new SortableExpectationId("5", 0, 0));
+
+        // then
+        assertEquals(0, concurrentLinkedQueue.size());
+        assertThat(concurrentLinkedQueue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldReplaceElementWithSameKey() {
+        // given
+        CircularPriorityQueue<String, SortableExpectationId, SortableExpectationId> concurrentLinkedQueue = new CircularPriorityQueue<>(
+            3,
+            EXPECTATION_SORTABLE_PRIORITY_COMPARATOR,
+            sortableExpectationId -> sortableExpectationId,
+            sortableExpectationId -> sortableExpectationId.id
+        );
+
+        // when
+        concurrentLinkedQueue.add(new SortableExpectationId("1", 0, 0));
+        concurrentLinkedQueue.add(new SortableExpectationId("2", 0, 0));
+        concurrentLinkedQueue.add(new SortableExpectationId("1", 10, 0));
+
+        // then
+        assertEquals(2, concurrentLinkedQueue.size());
+        assertThat(concurrentLinkedQueue.toSortedList(), contains(
+            new SortableExpectationId("1", 10, 0),
+            new SortableExpectationId("2", 0, 0)
+        ));
+    }
+
     @Test
     public void shouldSortExpectationOrderSamePriorityInsertedInOrder() {
         // given
@@ -0,0 +1,138 @@
+package org.mockserver.collections;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.mockserver.collections.SnapshotLog.CHUNK_SIZE;
+
+/**
+ * @author jamesdbloom
+ */
+public class SnapshotLogTest {
+
+    @Test
+    public void shouldNotChangeSnapshotWhenElementsAddedAndRemoved() {
+        // given
+        SnapshotLog<String> snapshotLog = new SnapshotLog<>();
+        snapshotLog.add("1");
+        snapshotLog.add("2");
+        snapshotLog.add("3");
+
+        // when
+        List<String> snapshot = snapshotLog.snapshot();
+        snapshotLog.remove("1");
+        snapshotLog.add("4");
+
+        // then
+        assertThat(snapshot, contains("1", "2", "3"));
+        assertThat(snapshotLog.snapshot(), contains("2", "3", "4"));
+    }
+
+    @Test
+    public void shouldReturnSameSnapshotUntilModified() {
+        // given
+        SnapshotLog<String> snapshotLog = new SnapshotLog<>();
+        snapshotLog.add("1");
+
+        // when
+        List<String> snapshot = snapshotLog.snapshot();
+
+        // then
+        assertThat(snapshotLog.snapshot() == snapshot, is(true));
+        snapshotLog.add("2");
+        assertThat(snapshotLog.snapshot() == snapshot, is(false));
+    }
+
+    @Test
+    public void shouldRemoveElementsThatAreNotFirst() {
+        // given
+        SnapshotLog<String> snapshotLog = new SnapshotLog<>();
+        String one = new String("1");
+        String two = new String("2");
+        String otherTwo = new String("2");
+        snapshotLog.add(one);
+        snapshotLog.add(two);
+        snapshotLog.add(otherTwo);
+        List<String> snapshot = snapshotLog.snapshot();
+
+        // when
+        snapshotLog.remove(two);
+
+        // then
+        List<String> compacted = snapshotLog.snapshot();
+        assertThat(compacted.size(), is(2));
+        assertThat(compacted.get(0) == one, is(true));
+        assertThat(compacted.get(1) == otherTwo, is(true));
+        assertThat(snapshot, contains("1", "2", "2"));
+
+        // when - an element removed earlier becomes first
+        snapshotLog.remove(otherTwo);
+        snapshotLog.remove(one);
+
+        // then
+        assertThat(snapshotLog.snapshot(), empty());
+    }
+
+    @Test
+    public void shouldReadSnapshotsAcrossChunks() {
+        // given
+        SnapshotLog<Integer> snapshotLog = new SnapshotLog<>();
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < CHUNK_SIZE * 3 + 10; i++) {
+            Integer element = i;
+            elements.add(element);
+            snapshotLog.add(element);
+        }
+        List<Integer> snapshot = snapshotLog.snapshot();
+
+        // when - evicted like a circular log
+        for (int i = 0; i < CHUNK_SIZE + 5; i++) {
+            snapshotLog.remove(elements.get(i));
+        }
+
+        // then
+        assertThat(snapshot, is(elements));
+        assertThat(snapshotLog.snapshot(), is(elements.subList(CHUNK_SIZE + 5, elements.size())));
+    }
+
+    @Test
+    public void shouldOnlyFilterSnapshotWhenRead() {
+        // given
+        SnapshotLog<String> snapshotLog = new SnapshotLog<>();
+        snapshotLog.add("1");
+        snapshotLog.add("2");
+        snapshotLog.add("3");
+        List<String> tested = new ArrayList<>();
+
+        // when
+        List<String> filtered = SnapshotLog.filter(snapshotLog.snapshot(), element -> tested.add(element) && !element.equals("2"));
+
+        // then
+        assertThat(tested, empty());
+        assertThat(filtered, contains("1", "3"));
+        assertThat(tested, contains("1", "2", "3"));
+    }
+
+    @Test
+    public void shouldClear() {
+        // given
+        SnapshotLog<String> snapshotLog = new SnapshotLog<>();
+        snapshotLog.add("1");
+        snapshotLog.add("2");
+        List<String> snapshot = snapshotLog.snapshot();
+
+        // when
+        snapshotLog.clear();
+        snapshotLog.add("3");
+
+        // then
+        assertThat(snapshot, contains("1", "2"));
+        assertThat(snapshotLog.snapshot(), contains("3"));
+    }
+}
@@ -109,6 +109,20 @@ public class ConfigurationPropertiesTest {
         assertEquals(2, actionHandlerThreadCount());
     }
 
+    @Test
+    public void shouldSetAndReadActionHandlerVirtualThreads() {
+        // given
+        System.clearProperty("mockserver.actionHandlerVirtualThreads");
+
+        // when
+        assertFalse(actionHandlerVirtualThreads());
+        actionHandlerVirtualThreads(true);
+
+        // then
+        assertEquals("true", System.getProperty("mockserver.actionHandlerVirtualThreads"));
+        assertTrue(actionHandlerVirtualThreads());
+    }
+
     @Test
     public void shouldSetAndReadWebSocketClientEventLoopThreadCount() {
         // given
@@ -216,6 +230,45 @@ public class ConfigurationPropertiesTest {
         assertEquals(tempFile.getAbsolutePath(), System.getProperty("mockserver.memoryUsageCsvDirectory"));
     }
 
+    @Test
+    public void shouldSetAndReadMemoryMappedLogEntries() {
+        // given
+        boolean originalSetting = memoryMappedLogEntries();
+        try {
+            // when
+            memoryMappedLogEntries(true);
+
+            // then
+            assertTrue(memoryMappedLogEntries());
+            assertEquals("true", System.getProperty("mockserver.memoryMappedLogEntries"));
+
+            // when
+            memoryMappedLogEntries(false);
+
+            // then
+            assertFalse(memoryMappedLogEntries());
+            assertEquals("false", System.getProperty("mockserver.memoryMappedLogEntries"));
+        } finally {
+            memoryMappedLogEntries(originalSetting);
+        }
+    }
+
+    @Test
+    public void shouldSetAndReadMemoryMappedLogEntriesDirectory() throws IOException {
+        // given
+        System.clearProperty("mockserver.memoryMappedLogEntriesDirectory");
+
+        // when
+        assertEquals(System.getProperty("java.io.tmpdir"), memoryMappedLogEntriesDirectory());
+        File tempFile = File.createTempFile("prefix", "suffix");
+        memoryMappedLogEntriesDirectory(tempFile.getAbsolutePath());
+
+        // then
+        assertEquals(tempFile.getAbsolutePath(), memoryMappedLogEntriesDirectory());
+        assertEquals(tempFile.getAbsolutePath(), System.getProperty("mockserver.memoryMappedLogEntriesDirectory"));
+        System.clearProperty("mockserver.memoryMappedLogEntriesDirectory");
+    }
+
     @Test
     public void shouldSetAndReadMaxWebSocketExpectations() {
         // given
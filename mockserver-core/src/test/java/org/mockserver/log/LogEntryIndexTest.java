@@ -0,0 +1,157 @@
+package org.mockserver.log;
+
+import org.junit.Test;
+import org.mockserver.log.model.LogEntry;
+import org.mockserver.mock.Expectation;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockserver.log.model.LogEntry.LogMessageType.*;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+import static org.mockserver.model.NottableString.not;
+
+/**
+ * @author jamesdbloom
+ */
+public class LogEntryIndexTest {
+
+    private LogEntry receivedRequest(String method, String path) {
+        return new LogEntry()
+            .setType(RECEIVED_REQUEST)
+            .setHttpRequest(request(path).withMethod(method));
+    }
+
+    @Test
+    public void shouldNarrowByMethodAndPath() {
+        // given
+        LogEntryIndex logEntryIndex = new LogEntryIndex();
+        LogEntry getSomePath = receivedRequest("GET", "/some_path");
+        LogEntry postSomePath = receivedRequest("POST", "/some_path");
+        LogEntry getOtherPath = receivedRequest("GET", "/other_path");
+        LogEntry withoutRequest = new LogEntry().setType(INFO);
+        logEntryIndex.add(getSomePath);
+        logEntryIndex.add(postSomePath);
+        logEntryIndex.add(getOtherPath);
+        logEntryIndex.add(withoutRequest);
+
+        // then - method and path
+        assertThat(logEntryIndex.candidates(null, request("/SOME_PATH").withMethod("get")).orElse(null), containsInAnyOrder(getSomePath.id(), withoutRequest.id()));
+        // then - path only
+        assertThat(logEntryIndex.candidates(null, request("/some_path")).orElse(null), containsInAnyOrder(getSomePath.id(), postSomePath.id(), withoutRequest.id()));
+        // then - not narrowed
+        assertThat(logEntryIndex.candidates(null, request("/some_.*")), is(Optional.empty()));
+        assertThat(logEntryIndex.candidates(null, request().withPath(not("/some_path"))), is(Optional.empty()));
+        assertThat(logEntryIndex.candidates(null, request()), is(Optional.empty()));
+        assertThat(logEntryIndex.candidates(null, null), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldTreatRegexRequestsAsAlwaysCandidates() {
+        // given
+        LogEntryIndex logEntryIndex = new LogEntryIndex();
+        LogEntry regexPath = new LogEntry()
+            .setType(VERIFICATION)
+            .setHttpRequest(request("/some_.*"));
+        LogEntry literalPath = receivedRequest("GET", "/other_path");
+        logEntryIndex.add(regexPath);
+        logEntryIndex.add(literalPath);
+
+        // then
+        assertThat(logEntryIndex.candidates(null, request("/some_path").withMethod("GET")).orElse(null), contains(regexPath.id()));
+    }
+
+    @Test
+    public void shouldNarrowByTypeAndRequest() {
+        // given
+        LogEntryIndex logEntryIndex = new LogEntryIndex();
+        LogEntry receivedRequest = receivedRequest("GET", "/some_path");
+        LogEntry forwardedRequest = new LogEntry()
+            .setType(FORWARDED_REQUEST)
+            .setHttpRequest(request("/some_path").withMethod("GET"))
+            .setHttpResponse(response());
+        LogEntry otherReceivedRequest = receivedRequest("GET", "/other_path");
+        logEntryIndex.add(receivedRequest);
+        logEntryIndex.add(forwardedRequest);
+        logEntryIndex.add(otherReceivedRequest);
+
+        // then
+        assertThat(logEntryIndex.candidates(EnumSet.of(RECEIVED_REQUEST), null).orElse(null), containsInAnyOrder(receivedRequest.id(), otherReceivedRequest.id()));
+        assertThat(logEntryIndex.candidates(EnumSet.of(RECEIVED_REQUEST), request("/some_path")).orElse(null), contains(receivedRequest.id()));
+        assertThat(logEntryIndex.candidates(EnumSet.of(EXPECTATION_RESPONSE), request("/some_path")).orElse(null), is(empty()));
+    }
+
+    @Test
+    public void shouldRemoveAndClearEntries() {
+        // given
+        LogEntryIndex logEntryIndex = new LogEntryIndex();
+        LogEntry someRequest = receivedRequest("GET", "/some_path");
+        LogEntry otherRequest = receivedRequest("GET", "/some_path");
+        logEntryIndex.add(someRequest);
+        logEntryIndex.add(otherRequest);
+
+        // when
+        logEntryIndex.remove(someRequest.id());
+
+        // then
+        assertThat(logEntryIndex.size(), is(1));
+        assertThat(logEntryIndex.candidates(EnumSet.of(RECEIVED_REQUEST), request("/some_path")).orElse(null), contains(otherRequest.id()));
+
+        // when
+        logEntryIndex.clear();
+
+        // then
+        assertThat(logEntryIndex.size(), is(0));
+        Set<String> candidates = logEntryIndex.candidates(EnumSet.of(RECEIVED_REQUEST), request("/some_path")).orElse(null);
+        assertThat(candidates, is(empty()));
+    }
+
+    @Test
+    public void shouldCountRequestsMatchedByExpectation() {
+        // given
+        LogEntryIndex logEntryIndex = new LogEntryIndex();
+        Expectation expectation = new Expectation(request("/some_path")).thenRespond(response());
+        Expectation otherExpectation = new Expectation(request("/other_path")).thenRespond(response());
+        LogEntry firstRequest = null;
+        for (int i = 0; i < 3; i++) {
+            LogEntry receivedRequest = receivedRequest("GET", "/some_path").setCorrelationId("some_correlation_" + i);
+            logEntryIndex.add(receivedRequest);
+            logEntryIndex.add(new LogEntry().setType(EXPECTATION_MATCHED).setCorrelationId("some_correlation_" + i).setExpectation(expectation));
+            logEntryIndex.matched("some_correlation_" + i, expectation.getId());
+            firstRequest = firstRequest != null ? firstRequest : receivedRequest;
+        }
+        LogEntry otherRequest = receivedRequest("GET", "/other_path").setCorrelationId("other_correlation");
+        logEntryIndex.add(otherRequest);
+        logEntryIndex.matched("other_correlation", otherExpectation.getId());
+
+        // when - matched again or without a received request
+        logEntryIndex.matched("other_correlation", expectation.getId());
+        logEntryIndex.matched("unknown_correlation", expectation.getId());
+
+        // then
+        assertThat(logEntryIndex.matchedRequestCount(expectation.getId()), is(3));
+        assertThat(logEntryIndex.matchedRequestCount(otherExpectation.getId()), is(1));
+        assertThat(logEntryIndex.matchedRequestCount("unknown"), is(0));
+
+        // when
+        logEntryIndex.markDeleted(otherRequest.id());
+        logEntryIndex.markDeleted(otherRequest.id());
+        logEntryIndex.remove(firstRequest.id());
+
+        // then
+        assertThat(logEntryIndex.matchedRequestCount(expectation.getId()), is(2));
+        assertThat(logEntryIndex.matchedRequestCount(otherExpectation.getId()), is(0));
+
+        // when
+        logEntryIndex.remove(otherRequest.id());
+        logEntryIndex.clear();
+
+        // then
+        assertThat(logEntryIndex.matchedRequestCount(expectation.getId()), is(0));
+        assertThat(logEntryIndex.matchedRequestCount(otherExpectation.getId()), is(0));
+    }
+}
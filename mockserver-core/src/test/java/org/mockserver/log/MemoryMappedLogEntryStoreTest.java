@@ -0,0 +1,299 @@
+package org.mockserver.log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.log.model.LogEntry;
+import org.mockserver.mock.Expectation;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.model.MediaType;
+import org.mockserver.model.RequestDefinition;
+import org.mockserver.model.SocketAddress;
+import org.mockserver.model.StringBody;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockserver.character.Character.NEW_LINE;
+import static org.mockserver.log.model.LogEntry.LogMessageType.*;
+import static org.mockserver.log.model.LogEntryMessages.RECEIVED_REQUEST_MESSAGE_FORMAT;
+import static org.mockserver.model.BinaryBody.binary;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+import static org.mockserver.model.JsonBody.json;
+import static org.mockserver.model.NottableString.not;
+import static org.mockserver.model.XmlBody.xml;
+import static org.slf4j.event.Level.INFO;
+
+/**
+ * @author jamesdbloom
+ */
+public class MemoryMappedLogEntryStoreTest {
+
+    private File directory;
+
+    @Before
+    public void createDirectory() throws Exception {
+        directory = Files.createTempDirectory("memoryMappedLogEntryStoreTest").toFile();
+    }
+
+    @After
+    public void deleteDirectory() {
+        for (File file : Objects.requireNonNull(directory.listFiles())) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private List<LogEntry> entries(LogEntryStore logEntryStore) {
+        return logEntryStore.stream().collect(Collectors.toList());
+    }
+
+    private LogEntry receivedRequest(String path) {
+        HttpRequest httpRequest = request(path)
+            .withMethod("POST")
+            .withHeader("someHeader", "someValue")
+            .withBody(json("{ \"path\": \"" + path + "\" }"));
+        return new LogEntry()
+            .setType(RECEIVED_REQUEST)
+            .setLogLevel(INFO)
+            .setCorrelationId("correlation_" + path)
+            .setHttpRequest(httpRequest)
+            .setMessageFormat(RECEIVED_REQUEST_MESSAGE_FORMAT)
+            .setArguments(httpRequest);
+    }
+
+    @Test
+    public void shouldReadBackRequestsResponsesExpectationsAndArguments() {
+        // given
+        MemoryMappedLogEntryStore logEntryStore = new MemoryMappedLogEntryStore(10, directory);
+        HttpResponse httpResponse = response("some_body").withHeader("someHeader", "someValue");
+        Expectation expectation = new Expectation(request("/some_path")).thenRespond(httpResponse);
+        LogEntry receivedRequest = receivedRequest("/some_path");
+        LogEntry expectationResponse = new LogEntry()
+            .setType(EXPECTATION_RESPONSE)
+            .setLogLevel(INFO)
+            .setHttpRequest(request("/some_path"))
+            .setHttpResponse(httpResponse)
+            .setExpectation(expectation)
+            .setMessageFormat("returning response:{}for request:{}for action:{}from expectation:{}")
+            .setArguments(httpResponse, request("/some_path"), httpResponse.getBody(), expectation.getId());
+        LogEntry message = new LogEntry()
+            .setType(LogEntry.LogMessageType.INFO)
+            .setLogLevel(INFO)
+            .setMessageFormat("some message:{}")
+            .setArguments("some_argument");
+
+        // when
+        logEntryStore.add(receivedRequest);
+        logEntryStore.add(expectationResponse);
+        logEntryStore.add(message);
+
+        // then
+        List<LogEntry> logEntries = entries(logEntryStore);
+        assertThat(logEntries.size(), is(3));
+        assertThat(logEntries.get(0).id(), is(receivedRequest.id()));
+        assertThat(logEntries.get(0).getCorrelationId(), is("correlation_/some_path"));
+        assertThat(logEntries.get(0).getHttpRequest(), hasToString(receivedRequest.getHttpRequest().toString()));
+        assertThat(logEntries.get(0).getMessage(), is(receivedRequest.getMessage()));
+        assertThat(logEntries.get(1).getHttpRequests(), is(expectationResponse.getHttpRequests()));
+        assertThat(logEntries.get(1).getHttpResponse(), is(httpResponse));
+        assertThat(logEntries.get(1).getExpectation(), is(expectation));
+        assertThat(logEntries.get(1).getMessage(), is(expectationResponse.getMessage()));
+        assertThat(logEntries.get(2).id(), is(message.id()));
+        assertThat(logEntries.get(2).getMessage(), is("some message:" + NEW_LINE + NEW_LINE + "  some_argument" + NEW_LINE));
+        assertThat(logEntries.get(2), is(message));
+        assertThat(logEntryStore.segmentCount(), is(1));
+    }
+
+    @Test
+    public void shouldReadBackRequestsEncodedAsBinaryAndJson() {
+        // given
+        MemoryMappedLogEntryStore logEntryStore = new MemoryMappedLogEntryStore(10, directory);
+        HttpRequest binaryEncodedRequest = request("/some_path")
+            .withMethod("PUT")
+            .withQueryStringParameter("someParameter", "someValue", "someOtherValue")
+            .withHeader("someHeader", "someValue")
+            .withCookie("someCookie", "someValue")
+            .withKeepAlive(true)
+            .withSecure(false)
+            .withSocketAddress("localhost", 1080, SocketAddress.Scheme.HTTPS)
+            .withBody(new StringBody("some_body", "some_raw_bytes".getBytes(UTF_8), false, MediaType.TEXT_PLAIN));
+        HttpRequest jsonEncodedRequest = request()
+            .withPath(not("/some_path"))
+            .withBody(xml("<some_xml/>"));
+        HttpRequest binaryBodyRequest = request("/some_path").withBody(binary(new byte[]{1, 2, 3}));
+        LogEntry logEntry = new LogEntry()
+            .setType(RECEIVED_REQUEST)
+            .setLogLevel(INFO)
+            .setHttpRequests(new RequestDefinition[]{binaryEncodedRequest, jsonEncodedRequest, binaryBodyRequest})
+            .setMessageFormat("some message:{}:{}:{}:{}")
+            .setArguments(binaryEncodedRequest, 1, true, RECEIVED_REQUEST)
+            .setThrowable(new RuntimeException("some_exception"));
+
+        // when
+        logEntryStore.add(logEntry);
+
+        // then
+        LogEntry readLogEntry = entries(logEntryStore).get(0);
+        assertThat(readLogEntry.getHttpRequests(), is(new RequestDefinition[]{binaryEncodedRequest, jsonEncodedRequest, binaryBodyRequest}));
+        assertThat(((HttpRequest) readLogEntry.getHttpRequest()).getBodyAsRawBytes(), is("some_raw_bytes".getBytes(UTF_8)));
+        assertThat(readLogEntry.getArguments(), is(logEntry.getArguments()));
+        assertThat(readLogEntry.getMessage(), is(logEntry.getMessage()));
+        assertThat(readLogEntry.getThrowable(), sameInstance(logEntry.getThrowable()));
+        assertThat(readLogEntry, is(logEntry));
+    }
+
+    @Test
+    public void shouldOnlyRetainHeaderOnHeap() {
+        // given
+        MemoryMappedLogEntryStore logEntryStore = new MemoryMappedLogEntryStore(10, directory);
+
+        // when
+        logEntryStore.add(receivedRequest("/path_one"));
+        logEntryStore.add(receivedRequest("/path_two"));
+
+        // then
+        assertThat(logEntryStore.retainedHeapBytes(), lessThan(2L * MemoryMappedLogEntryStore.ESTIMATED_ENTRY_HEAP_BYTES));
+
+        // when
+        logEntryStore.clear();
+
+        // then
+        assertThat(logEntryStore.retainedHeapBytes(), is(0L));
+    }
+
+    @Test
+    public void shouldEvictOldestEntriesAndDeleteUnusedSegments() {
+        // given
+        MemoryMappedLogEntryStore logEntryStore = new MemoryMappedLogEntryStore(3, directory, 512);
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            logEntryStore.add(receivedRequest("/path_" + i));
+        }
+
+        // then
+        assertThat(logEntryStore.size(), is(3));
+        assertThat(
+            entries(logEntryStore).stream().map(logEntry -> ((HttpRequest) logEntry.getHttpRequest()).getPath().getValue()).collect(Collectors.toList()),
+            contains("/path_17", "/path_18", "/path_19")
+        );
+        assertThat(Objects.requireNonNull(directory.listFiles()).length, is(logEntryStore.segmentCount()));
+        assertThat(logEntryStore.segmentCount(), lessThanOrEqualTo(3));
+    }
+
+    @Test
+    public void shouldMarkDeletedAndRemoveEntries() {
+        // given
+        MemoryMappedLogEntryStore logEntryStore = new MemoryMappedLogEntryStore(10, directory);
+        logEntryStore.add(receivedRequest("/path_one"));
+        logEntryStore.add(receivedRequest("/path_two"));
+        logEntryStore.add(receivedRequest("/path_three"));
+        List<LogEntry> logEntries = entries(logEntryStore);
+
+        // when
+        logEntryStore.markDeleted(logEntries.get(0));
+        logEntryStore.remove(logEntries.get(1));
+
+        // then
+        logEntries = entries(logEntryStore);
+        assertThat(logEntries.size(), is(2));
+        assertThat(logEntries.get(0).isDeleted(), is(true));
+        assertThat(logEntries.get(0).getHttpRequest(), hasToString(receivedRequest("/path_one").getHttpRequest().toString()));
+        assertThat(logEntries.get(1).isDeleted(), is(false));
+        assertThat(logEntries.get(1).getHttpRequest(), hasToString(receivedRequest("/path_three").getHttpRequest().toString()));
+    }
+
+    @Test
+    public void shouldDeleteSegmentsWhenCleared() {
+        // given
+        MemoryMappedLogEntryStore logEntryStore = new MemoryMappedLogEntryStore(10, directory, 512);
+        for (int i = 0; i < 5; i++) {
+            logEntryStore.add(receivedRequest("/path_" + i));
+        }
+        assertThat(Objects.requireNonNull(directory.listFiles()).length, greaterThan(1));
+
+        // when
+        logEntryStore.clear();
+
+        // then
+        assertThat(logEntryStore.size(), is(0));
+        assertThat(entries(logEntryStore), is(empty()));
+        assertThat(directory.listFiles(), emptyArray());
+
+        // when
+        logEntryStore.add(receivedRequest("/path_after_clear"));
+
+        // then
+        assertThat(entries(logEntryStore).get(0).getHttpRequest(), hasToString(receivedRequest("/path_after_clear").getHttpRequest().toString()));
+    }
+
+    @Test
+    public void shouldReverseIterate() {
+        // given
+        MemoryMappedLogEntryStore logEntryStore = new MemoryMappedLogEntryStore(10, directory);
+        logEntryStore.add(receivedRequest("/path_one"));
+        logEntryStore.add(receivedRequest("/path_two"));
+
+        // then
+        assertThat(logEntryStore.descendingIterator().next().getHttpRequest(), hasToString(receivedRequest("/path_two").getHttpRequest().toString()));
+    }
+
+    @Test
+    public void shouldReadSnapshotAfterEntriesAreEvicted() {
+        // given
+        MemoryMappedLogEntryStore logEntryStore = new MemoryMappedLogEntryStore(2, directory, 512);
+        LogEntry pathOne = receivedRequest("/path_one");
+        LogEntry pathTwo = receivedRequest("/path_two");
+        logEntryStore.add(pathOne);
+        logEntryStore.add(pathTwo);
+
+        // when
+        List<LogEntry> snapshot = logEntryStore.snapshot(null);
+        List<LogEntry> filteredSnapshot = logEntryStore.snapshot(Collections.singleton(pathTwo.id()));
+        for (int i = 0; i < 10; i++) {
+            logEntryStore.add(receivedRequest("/path_" + i));
+        }
+
+        // then
+        assertThat(snapshot.size(), is(2));
+        assertThat(snapshot.get(0).getHttpRequest(), hasToString(receivedRequest("/path_one").getHttpRequest().toString()));
+        assertThat(snapshot.get(1).getHttpRequest(), hasToString(receivedRequest("/path_two").getHttpRequest().toString()));
+        assertThat(filteredSnapshot.size(), is(1));
+        assertThat(filteredSnapshot.get(0).id(), is(pathTwo.id()));
+    }
+
+    @Test
+    public void shouldDeleteSegmentsOnlyOnceSnapshotIsReleased() {
+        // given
+        MemoryMappedLogEntryStore logEntryStore = new MemoryMappedLogEntryStore(2, directory, 512);
+        logEntryStore.add(receivedRequest("/path_one"));
+        logEntryStore.add(receivedRequest("/path_two"));
+        List<LogEntry> snapshot = logEntryStore.snapshot(null);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            logEntryStore.add(receivedRequest("/path_" + i));
+        }
+
+        // then - segments of evicted entries are kept for the snapshot
+        assertThat(Objects.requireNonNull(directory.listFiles()).length, greaterThan(logEntryStore.segmentCount()));
+        assertThat(snapshot.get(0).getHttpRequest(), hasToString(receivedRequest("/path_one").getHttpRequest().toString()));
+
+        // when
+        logEntryStore.releaseSnapshot(snapshot);
+
+        // then
+        assertThat(Objects.requireNonNull(directory.listFiles()).length, is(logEntryStore.segmentCount()));
+        assertThat(entries(logEntryStore).get(1).getHttpRequest(), hasToString(receivedRequest("/path_9").getHttpRequest().toString()));
+    }
+}
@@ -5,6 +5,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
+import org.mockserver.mock.Expectation;
+import org.mockserver.model.ExpectationId;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.scheduler.Scheduler;
 import org.mockserver.verify.Verification;
@@ -19,6 +21,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockserver.character.Character.NEW_LINE;
 import static org.mockserver.log.model.LogEntry.LogMessageType.RECEIVED_REQUEST;
 import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
 import static org.mockserver.verify.Verification.verification;
 import static org.mockserver.verify.VerificationTimes.atLeast;
 import static org.mockserver.verify.VerificationTimes.exactly;
@@ -485,4 +488,52 @@ public class MockServerEventLogRequestLogEntryVerificationTest {
             ),
             is("Request not found exactly 0 times, expected:<{ }> but was:<{ }>"));
     }
+
+    @Test
+    public void shouldVerifyRequestsMatchedByExpectationId() {
+        // given
+        Expectation expectation = new Expectation(request("some_path")).thenRespond(response());
+        for (int i = 0; i < 2; i++) {
+            HttpRequest httpRequest = new HttpRequest().withPath("some_path");
+            httpRequest.withLogCorrelationId("correlation_" + i);
+            mockServerEventLog.add(
+                new LogEntry()
+                    .setHttpRequest(httpRequest)
+                    .setType(RECEIVED_REQUEST)
+                    .setCorrelationId(httpRequest.getLogCorrelationId())
+            );
+            mockServerEventLog.matched(httpRequest, expectation);
+        }
+        mockServerEventLog.add(
+            new LogEntry()
+                .setHttpRequest(new HttpRequest().withPath("some_path"))
+                .setType(RECEIVED_REQUEST)
+                .setCorrelationId("correlation_unmatched")
+        );
+
+        // then
+        assertThat(verify(
+            verification()
+                .withRequest(null)
+                .withExpectationId(new ExpectationId().withId(expectation.getId()))
+                .withTimes(exactly(2))
+        ), is(""));
+        assertThat(verify(
+            verification()
+                .withRequest(null)
+                .withExpectationId(new ExpectationId().withId(expectation.getId()))
+                .withTimes(exactly(3))
+        ), is("Request not found exactly 3 times for expectation:<" + expectation.getId() + "> but was found 2 times"));
+
+        // when
+        mockServerEventLog.clear(request("some_path"));
+
+        // then
+        assertThat(verify(
+            verification()
+                .withRequest(null)
+                .withExpectationId(new ExpectationId().withId(expectation.getId()))
+                .withTimes(exactly(0))
+        ), is(""));
+    }
 }
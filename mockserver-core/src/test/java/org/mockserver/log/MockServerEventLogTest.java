@@ -10,13 +10,18 @@ import org.mockserver.matchers.TimeToLive;
 import org.mockserver.matchers.Times;
 import org.mockserver.mock.Expectation;
 import org.mockserver.mock.HttpState;
+import org.mockserver.model.HttpRequest;
 import org.mockserver.model.RequestDefinition;
 import org.mockserver.scheduler.Scheduler;
 import org.slf4j.event.Level;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static junit.framework.TestCase.fail;
@@ -27,6 +32,7 @@ import static org.hamcrest.core.Is.is;
 import static org.mockito.Mockito.mock;
 import static org.mockserver.log.model.LogEntry.LogMessageType.*;
 import static org.mockserver.log.model.LogEntryMessages.RECEIVED_REQUEST_MESSAGE_FORMAT;
+import static org.mockserver.model.BinaryBody.binary;
 import static org.mockserver.model.HttpRequest.request;
 import static org.mockserver.model.HttpResponse.notFoundResponse;
 import static org.mockserver.model.HttpResponse.response;
@@ -955,4 +961,137 @@ public class MockServerEventLogTest {
             ConfigurationProperties.logLevel(originalLevel.name());
         }
     }
+
+    @Test
+    public void shouldTruncateLargeBodies() {
+        Level originalLevel = ConfigurationProperties.logLevel();
+        int originalMaxLogEntryBodySize = ConfigurationProperties.maxLogEntryBodySize();
+        try {
+            // given
+            ConfigurationProperties.logLevel("INFO");
+            ConfigurationProperties.maxLogEntryBodySize(10);
+
+            // when
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(INFO)
+                    .setType(RECEIVED_REQUEST)
+                    .setHttpRequest(request("request_one").withBody("a body longer than ten bytes"))
+                    .setMessageFormat(RECEIVED_REQUEST_MESSAGE_FORMAT)
+                    .setArguments(request("request_one").withBody("a body longer than ten bytes"))
+            );
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(INFO)
+                    .setType(RECEIVED_REQUEST)
+                    .setHttpRequest(request("request_two").withBody(binary(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12})))
+                    .setMessageFormat(RECEIVED_REQUEST_MESSAGE_FORMAT)
+                    .setArguments(request("request_two"))
+            );
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(INFO)
+                    .setType(EXPECTATION_RESPONSE)
+                    .setHttpRequest(request("request_one"))
+                    .setHttpResponse(response("a response body longer than ten bytes"))
+                    .setMessageFormat("returning response:{}for request:{}")
+                    .setArguments(response("a response body longer than ten bytes"), request("request_one"))
+            );
+
+            // then
+            assertThat(retrieveRequests(null), contains(
+                request("request_one").withBody("a body lon"),
+                request("request_two").withBody(binary(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}))
+            ));
+            assertThat(retrieveRequestResponseMessageLogEntries(null).get(0).getHttpResponse(), is(response("a response")));
+            assertThat(String.valueOf(((HttpRequest) retrieveMessageLogEntries(null).get(0).getArguments()[0]).getBody().getValue()), is("a body lon"));
+        } finally {
+            ConfigurationProperties.logLevel(originalLevel.name());
+            ConfigurationProperties.maxLogEntryBodySize(originalMaxLogEntryBodySize);
+        }
+    }
+
+    @Test
+    public void shouldTruncateMultibyteBodiesOnCharacterBoundary() {
+        Level originalLevel = ConfigurationProperties.logLevel();
+        int originalMaxLogEntryBodySize = ConfigurationProperties.maxLogEntryBodySize();
+        try {
+            // given
+            ConfigurationProperties.logLevel("INFO");
+            ConfigurationProperties.maxLogEntryBodySize(5);
+
+            // when - euro sign is three bytes in utf-8 and crosses the five byte limit
+            mockServerLogger.logEvent(
+                new LogEntry()
+                    .setLogLevel(INFO)
+                    .setType(RECEIVED_REQUEST)
+                    .setHttpRequest(request("request_one").withBody("abc\u20ACdef", StandardCharsets.UTF_8))
+                    .setMessageFormat(RECEIVED_REQUEST_MESSAGE_FORMAT)
+                    .setArguments(request("request_one"))
+            );
+
+            // then
+            assertThat(retrieveRequests(null), contains(
+                request("request_one").withBody("abc", StandardCharsets.UTF_8)
+            ));
+            assertThat(((HttpRequest) retrieveRequests(null).get(0)).getBody().getRawBytes().length, is(3));
+        } finally {
+            ConfigurationProperties.logLevel(originalLevel.name());
+            ConfigurationProperties.maxLogEntryBodySize(originalMaxLogEntryBodySize);
+        }
+    }
+
+    @Test
+    public void shouldRejectQueriesWhenTooManyInProgress() throws InterruptedException {
+        int originalQueueSize = ConfigurationProperties.controlPlaneQueueSize();
+        CountDownLatch eventLogBlocked = new CountDownLatch(1);
+        MockServerEventLog mockServerEventLog = null;
+        try {
+            // given
+            ConfigurationProperties.controlPlaneQueueSize(1);
+            mockServerEventLog = new MockServerEventLog(mockServerLogger, mock(Scheduler.class), true);
+            mockServerEventLog.add(
+                new LogEntry()
+                    .setType(RUNNABLE)
+                    .setConsumer(() -> {
+                        try {
+                            eventLogBlocked.await(10, SECONDS);
+                        } catch (InterruptedException ignore) {
+                            // ignore
+                        }
+                    })
+            );
+            AtomicInteger accepted = new AtomicInteger();
+            CountDownLatch completed = new CountDownLatch(1);
+            RejectedExecutionException rejected = null;
+
+            // when
+            for (int i = 0; i < 100 && rejected == null; i++) {
+                try {
+                    mockServerEventLog.retrieveRequests(null, requests -> completed.countDown());
+                    accepted.incrementAndGet();
+                } catch (RejectedExecutionException ree) {
+                    rejected = ree;
+                }
+            }
+
+            // then
+            assertThat(rejected != null, is(true));
+            assertThat(rejected.getMessage(), is("too many event log queries in progress"));
+            assertThat(accepted.get() > 1, is(true));
+
+            // when
+            eventLogBlocked.countDown();
+
+            // then
+            assertThat(completed.await(10, SECONDS), is(true));
+        } finally {
+            eventLogBlocked.countDown();
+            ConfigurationProperties.controlPlaneQueueSize(originalQueueSize);
+            if (mockServerEventLog != null) {
+                mockServerEventLog.stop();
+            }
+        }
+    }
+
 }
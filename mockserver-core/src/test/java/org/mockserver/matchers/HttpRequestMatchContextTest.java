@@ -0,0 +1,186 @@
+package org.mockserver.matchers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.mock.Expectation;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.Parameter;
+import org.mockserver.model.Parameters;
+import org.w3c.dom.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockserver.model.Header.header;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.JsonBody.json;
+import static org.mockserver.model.JsonPathBody.jsonPath;
+import static org.mockserver.model.KeyMatchStyle.MATCHING_KEY;
+import static org.mockserver.model.ParameterStyle.FORM;
+import static org.mockserver.model.XPathBody.xpath;
+
+/**
+ * @author jamesdbloom
+ */
+public class HttpRequestMatchContextTest {
+
+    private final MockServerLogger mockServerLogger = new MockServerLogger();
+    private final MatcherBuilder matcherBuilder = new MatcherBuilder(mockServerLogger);
+
+    private HttpRequestMatcher matcher(HttpRequest httpRequest) {
+        return matcherBuilder.transformsToMatcher(new Expectation(httpRequest));
+    }
+
+    @Test
+    public void shouldBuildHeadersCookiesAndQueryParametersOnce() {
+        // given
+        HttpRequestMatchContext matchContext = new HttpRequestMatchContext(mockServerLogger, request()
+            .withHeader("someHeader", "someValue")
+            .withCookie("someCookie", "someValue")
+            .withQueryStringParameter("someParameter", "someValue")
+        );
+
+        // then
+        assertThat(matchContext.getHeaders(), sameInstance(matchContext.getHeaders()));
+        assertThat(matchContext.getCookies(), sameInstance(matchContext.getCookies()));
+        assertThat(matchContext.getQueryStringParameters(), sameInstance(matchContext.getQueryStringParameters()));
+    }
+
+    @Test
+    public void shouldRebuildQueryParametersWhenModified() throws Exception {
+        // given
+        HttpRequestMatchContext matchContext = new HttpRequestMatchContext(mockServerLogger, request().withQueryStringParameter("someParameter", "someValue"));
+        Object queryStringParameters = matchContext.getQueryStringParameters();
+
+        // when
+        matchContext.queryStringParametersModified();
+
+        // then
+        assertThat(matchContext.getQueryStringParameters(), not(sameInstance(queryStringParameters)));
+    }
+
+    @Test
+    public void shouldParseJsonOncePerBody() throws Exception {
+        // given
+        HttpRequestMatchContext matchContext = new HttpRequestMatchContext(mockServerLogger, request());
+
+        // when
+        JsonNode jsonNode = matchContext.readJsonTree("{ \"id\": 1 }");
+
+        // then
+        assertThat(matchContext.readJsonTree(new String("{ \"id\": 1 }")), sameInstance(jsonNode));
+        assertThat(matchContext.readJsonTree("{ \"id\": 2 }"), not(sameInstance(jsonNode)));
+        assertThat(matchContext.readJsonPathDocument("{ \"id\": 1 }"), sameInstance(matchContext.readJsonPathDocument("{ \"id\": 1 }")));
+    }
+
+    @Test
+    public void shouldRethrowJsonParseFailure() {
+        // given
+        HttpRequestMatchContext matchContext = new HttpRequestMatchContext(mockServerLogger, request());
+        Exception firstException = null;
+
+        // when
+        try {
+            matchContext.readJsonTree("{ invalid");
+            fail("expected exception to be thrown");
+        } catch (Exception exception) {
+            firstException = exception;
+        }
+
+        // then
+        try {
+            matchContext.readJsonTree("{ invalid");
+            fail("expected exception to be thrown");
+        } catch (Exception exception) {
+            assertThat(exception, sameInstance(firstException));
+        }
+    }
+
+    @Test
+    public void shouldReplayXmlParseErrorsToEachErrorLogger() throws Exception {
+        // given
+        HttpRequestMatchContext matchContext = new HttpRequestMatchContext(mockServerLogger, request());
+        List<StringToXmlDocumentParser.ErrorLevel> firstErrors = new ArrayList<>();
+        List<StringToXmlDocumentParser.ErrorLevel> secondErrors = new ArrayList<>();
+
+        // when
+        Document document = matchContext.readXmlDocument("<element><key>some_key</key></element>", (matched, exception, level) -> firstErrors.add(level));
+
+        // then
+        assertThat(matchContext.readXmlDocument("<element><key>some_key</key></element>", (matched, exception, level) -> firstErrors.add(level)), sameInstance(document));
+        assertThat(firstErrors, is(empty()));
+
+        // when
+        try {
+            matchContext.readXmlDocument("<element>", (matched, exception, level) -> firstErrors.add(level));
+            fail("expected exception to be thrown");
+        } catch (Exception ignore) {
+            // expected
+        }
+        try {
+            matchContext.readXmlDocument("<element>", (matched, exception, level) -> secondErrors.add(level));
+            fail("expected exception to be thrown");
+        } catch (Exception ignore) {
+            // expected
+        }
+
+        // then
+        assertThat(firstErrors, is(not(empty())));
+        assertThat(secondErrors, is(firstErrors));
+    }
+
+    @Test
+    public void shouldMatchMultipleExpectationsWithSharedContext() {
+        // given
+        HttpRequest httpRequest = request()
+            .withHeader(header("someHeader", "someValue"))
+            .withBody(json("{ \"id\": 1, \"name\": \"one\" }"));
+        HttpRequestMatchContext matchContext = new HttpRequestMatchContext(mockServerLogger, httpRequest);
+
+        // then
+        assertTrue(matcher(request().withHeader("someHeader", "someValue").withBody(json("{ \"id\": 1 }"))).matches(null, matchContext, httpRequest));
+        assertFalse(matcher(request().withHeader("someHeader", "otherValue").withBody(json("{ \"id\": 1 }"))).matches(null, matchContext, httpRequest));
+        assertFalse(matcher(request().withBody(json("{ \"id\": 2 }"))).matches(null, matchContext, httpRequest));
+        assertTrue(matcher(request().withBody(jsonPath("$[?(@.name == 'one')]"))).matches(null, matchContext, httpRequest));
+        assertFalse(matcher(request().withBody(jsonPath("$[?(@.name == 'two')]"))).matches(null, matchContext, httpRequest));
+    }
+
+    @Test
+    public void shouldMatchXPathWithSharedContext() {
+        // given
+        HttpRequest httpRequest = request().withBody("<element><key>some_key</key></element>");
+        HttpRequestMatchContext matchContext = new HttpRequestMatchContext(mockServerLogger, httpRequest);
+
+        // then
+        assertTrue(matcher(request().withBody(xpath("/element[key = 'some_key']"))).matches(null, matchContext, httpRequest));
+        assertFalse(matcher(request().withBody(xpath("/element[key = 'other_key']"))).matches(null, matchContext, httpRequest));
+    }
+
+    @Test
+    public void shouldMatchSplitQueryParametersWithSharedContext() {
+        // given
+        HttpRequest httpRequest = request().withQueryStringParameter("someKey", "1,1,1");
+        HttpRequestMatchContext matchContext = new HttpRequestMatchContext(mockServerLogger, httpRequest);
+
+        // when - query string parameters cached before being split
+        assertFalse(matcher(request().withQueryStringParameters(
+            new Parameters(
+                new Parameter("someKey", "1")
+            ).withKeyMatchStyle(MATCHING_KEY)
+        )).matches(null, matchContext, httpRequest));
+
+        // then
+        assertTrue(matcher(request().withQueryStringParameters(
+            new Parameters(
+                new Parameter("someKey", "1")
+                    .withStyle(FORM)
+            ).withKeyMatchStyle(MATCHING_KEY)
+        )).matches(null, matchContext, httpRequest));
+    }
+}
@@ -14,6 +14,7 @@ import static junit.framework.TestCase.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.hamcrest.core.StringContains.containsString;
 import static org.mockserver.character.Character.NEW_LINE;
@@ -226,6 +227,39 @@ public class HttpRequestsPropertiesMatcherTest {
         }
     }
 
+    @Test
+    public void shouldShareCompiledOperationsForSameSpecification() {
+        // given
+        String specUrlOrPayload = "---" + NEW_LINE +
+            "openapi: 3.0.0" + NEW_LINE +
+            "paths:" + NEW_LINE +
+            "  \"/somePath\":" + NEW_LINE +
+            "    get:" + NEW_LINE +
+            "      operationId: someOperation" + NEW_LINE +
+            "  \"/someOtherPath\":" + NEW_LINE +
+            "    get:" + NEW_LINE +
+            "      operationId: someOtherOperation" + NEW_LINE;
+        HttpRequestsPropertiesMatcher httpRequestsPropertiesMatcher = new HttpRequestsPropertiesMatcher(mockServerLogger);
+        HttpRequestsPropertiesMatcher otherHttpRequestsPropertiesMatcher = new HttpRequestsPropertiesMatcher(mockServerLogger);
+
+        // when
+        httpRequestsPropertiesMatcher.update(new Expectation(new OpenAPIDefinition().withSpecUrlOrPayload(specUrlOrPayload)));
+        otherHttpRequestsPropertiesMatcher.update(new Expectation(new OpenAPIDefinition().withSpecUrlOrPayload(specUrlOrPayload)));
+
+        // then
+        assertThat(otherHttpRequestsPropertiesMatcher.getHttpRequestPropertiesMatchers(), sameInstance(httpRequestsPropertiesMatcher.getHttpRequestPropertiesMatchers()));
+        assertTrue(otherHttpRequestsPropertiesMatcher.matches(
+            request()
+                .withMethod("GET")
+                .withPath("/someOtherPath")
+        ));
+        assertFalse(otherHttpRequestsPropertiesMatcher.matches(
+            request()
+                .withMethod("POST")
+                .withPath("/someOtherPath")
+        ));
+    }
+
     // PATH PARAMETERS
 
     @Test
@@ -0,0 +1,90 @@
+package org.mockserver.matchers;
+
+import org.junit.Test;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.model.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.NottableString.not;
+
+/**
+ * @author jamesdbloom
+ */
+public class OpenAPIOperationRouterTest {
+
+    private final MockServerLogger mockServerLogger = new MockServerLogger(OpenAPIOperationRouterTest.class);
+
+    private OpenAPIOperationRouter router(HttpRequest... httpRequests) {
+        List<HttpRequestPropertiesMatcher> httpRequestPropertiesMatchers = new ArrayList<>();
+        for (HttpRequest httpRequest : httpRequests) {
+            HttpRequestPropertiesMatcher httpRequestPropertiesMatcher = new HttpRequestPropertiesMatcher(mockServerLogger);
+            httpRequestPropertiesMatcher.update(httpRequest);
+            httpRequestPropertiesMatchers.add(httpRequestPropertiesMatcher);
+        }
+        return new OpenAPIOperationRouter(Arrays.asList(httpRequests), httpRequestPropertiesMatchers);
+    }
+
+    @Test
+    public void shouldRouteByMethodAndPath() {
+        // given
+        OpenAPIOperationRouter router = router(
+            request().withMethod("GET").withPath("/pets"),
+            request().withMethod("POST").withPath("/pets"),
+            request().withMethod("GET").withPath("/pets/{petId}").withPathParameter("petId", "[0-9]+"),
+            request().withMethod("GET").withPath("/pets/mine"),
+            request().withMethod("GET").withPath("/owners/{ownerId}/pets").withPathParameter("ownerId", ".+")
+        );
+        List<HttpRequestPropertiesMatcher> matchers = router.getHttpRequestPropertiesMatchers();
+
+        // then - literal path
+        assertThat(router.route(request().withMethod("GET").withPath("/pets")), contains(matchers.get(0)));
+        assertThat(router.route(request().withMethod("post").withPath("/PETS/")), contains(matchers.get(1)));
+        // then - path parameter
+        assertThat(router.route(request().withMethod("GET").withPath("/pets/1")), contains(matchers.get(2)));
+        assertThat(router.route(request().withMethod("GET").withPath("/owners/some_owner/pets")), contains(matchers.get(4)));
+        // then - literal and path parameter, in definition order
+        assertThat(router.route(request().withMethod("GET").withPath("/pets/mine")), contains(matchers.get(2), matchers.get(3)));
+        // then - any method
+        assertThat(router.route(request().withPath("/pets")), contains(matchers.get(0), matchers.get(1)));
+        // then - no operation
+        assertThat(router.route(request().withMethod("DELETE").withPath("/pets")), is(empty()));
+        assertThat(router.route(request().withMethod("GET").withPath("/pets/1/toys")), is(empty()));
+        assertThat(router.route(request().withMethod("GET").withPath("/owners")), is(empty()));
+    }
+
+    @Test
+    public void shouldNotRouteWithoutLiteralPath() {
+        // given
+        OpenAPIOperationRouter router = router(
+            request().withMethod("GET").withPath("/pets"),
+            request().withMethod("GET").withPath("/owners")
+        );
+
+        // then
+        assertThat(router.route(request().withMethod("GET")), is(router.getHttpRequestPropertiesMatchers()));
+        assertThat(router.route(request().withMethod("GET").withPath(not("/pets"))), is(router.getHttpRequestPropertiesMatchers()));
+        assertThat(router.route(request().withMethod(not("GET")).withPath("/pets")), is(router.getHttpRequestPropertiesMatchers()));
+    }
+
+    @Test
+    public void shouldAlwaysRoutePathsWithRegexCharacters() {
+        // given
+        OpenAPIOperationRouter router = router(
+            request().withMethod("GET").withPath("/v1.0/pets"),
+            request().withMethod("GET").withPath("/owners")
+        );
+        List<HttpRequestPropertiesMatcher> matchers = router.getHttpRequestPropertiesMatchers();
+
+        // then
+        assertThat(router.route(request().withMethod("GET").withPath("/v1.0/pets")), contains(matchers.get(0)));
+        assertThat(router.route(request().withMethod("GET").withPath("/owners")), contains(matchers.get(0), matchers.get(1)));
+    }
+}
@@ -31,4 +31,17 @@ public class TimesTest {
         times.decrement();
         assertThat(times.greaterThenZero(), is(false));
     }
+
+    @Test
+    public void shouldClaimRemainingTimes() {
+        // given
+        Times times = Times.exactly(2);
+
+        // then
+        assertThat(times.claim(), is(true));
+        assertThat(times.claim(), is(true));
+        assertThat(times.claim(), is(false));
+        assertThat(times.getRemainingTimes(), is(0));
+        assertThat(Times.unlimited().claim(), is(true));
+    }
 }
@@ -0,0 +1,55 @@
+package org.mockserver.metrics;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author jamesdbloom
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldMapValuesToContiguousBuckets() {
+        for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertThat(LatencyHistogram.bucketLowerBound(index), lessThanOrEqualTo(value));
+            assertThat(LatencyHistogram.bucketUpperBound(index), greaterThanOrEqualTo(value));
+        }
+    }
+
+    @Test
+    public void shouldReturnPercentilesWithinBucketPrecision() {
+        // given
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+        // when
+        for (int i = 1; i <= 1000; i++) {
+            latencyHistogram.record(i * 1000L);
+        }
+
+        // then
+        assertThat(latencyHistogram.getCount(), is(1000L));
+        assertThat(latencyHistogram.getMean(), is(500500L));
+        assertThat(latencyHistogram.getMax(), is(1000000L));
+        assertThat(latencyHistogram.getPercentile(50), allOf(greaterThanOrEqualTo(500000L), lessThanOrEqualTo(562500L)));
+        assertThat(latencyHistogram.getPercentile(99), allOf(greaterThanOrEqualTo(990000L), lessThanOrEqualTo(1000000L)));
+        assertThat(latencyHistogram.getPercentile(100), is(1000000L));
+    }
+
+    @Test
+    public void shouldClear() {
+        // given
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        latencyHistogram.record(1000L);
+
+        // when
+        latencyHistogram.clear();
+
+        // then
+        assertThat(latencyHistogram.getCount(), is(0L));
+        assertThat(latencyHistogram.getMax(), is(0L));
+        assertThat(latencyHistogram.getPercentile(50), is(0L));
+    }
+}
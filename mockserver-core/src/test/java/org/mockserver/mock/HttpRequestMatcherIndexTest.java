@@ -0,0 +1,206 @@
+package org.mockserver.mock;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.closurecallback.websocketregistry.WebSocketClientRegistry;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.matchers.HttpRequestMatcher;
+import org.mockserver.matchers.MatcherBuilder;
+import org.mockserver.matchers.TimeToLive;
+import org.mockserver.matchers.Times;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.scheduler.Scheduler;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockserver.mock.listeners.MockServerMatcherNotifier.Cause.API;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+import static org.mockserver.model.NottableString.not;
+
+/**
+ * @author jamesdbloom
+ */
+public class HttpRequestMatcherIndexTest {
+
+    private static final Scheduler scheduler = new Scheduler(new MockServerLogger());
+    private final MatcherBuilder matcherBuilder = new MatcherBuilder(new MockServerLogger());
+    private HttpRequestMatcherIndex httpRequestMatcherIndex;
+
+    @Before
+    public void createIndex() {
+        httpRequestMatcherIndex = new HttpRequestMatcherIndex();
+    }
+
+    @AfterClass
+    public static void stopScheduler() {
+        scheduler.shutdown();
+    }
+
+    private Expectation addExpectation(HttpRequest httpRequest) {
+        return addExpectation(httpRequest, 0);
+    }
+
+    private Expectation addExpectation(HttpRequest httpRequest, int priority) {
+        Expectation expectation = new Expectation(httpRequest, Times.unlimited(), TimeToLive.unlimited(), priority).thenRespond(response());
+        httpRequestMatcherIndex.add(matcherBuilder.transformsToMatcher(expectation));
+        return expectation;
+    }
+
+    private List<Expectation> candidates(HttpRequest httpRequest) {
+        return httpRequestMatcherIndex
+            .candidates(httpRequest)
+            .map(httpRequestMatchers -> httpRequestMatchers.stream().map(HttpRequestMatcher::getExpectation).collect(Collectors.toList()))
+            .orElseThrow(() -> new AssertionError("expected candidates for " + httpRequest));
+    }
+
+    @Test
+    public void shouldNarrowByLiteralMethodAndPath() {
+        // given
+        Expectation getOne = addExpectation(request().withMethod("GET").withPath("/one"));
+        Expectation postOne = addExpectation(request().withMethod("POST").withPath("/one"));
+        Expectation anyMethodOne = addExpectation(request().withPath("/one"));
+        addExpectation(request().withMethod("GET").withPath("/two"));
+
+        // then
+        assertThat(candidates(request().withMethod("GET").withPath("/one")), contains(getOne, anyMethodOne));
+        assertThat(candidates(request().withMethod("POST").withPath("/one")), contains(postOne, anyMethodOne));
+        assertThat(candidates(request().withMethod("PUT").withPath("/three")), is(empty()));
+    }
+
+    @Test
+    public void shouldIgnoreCaseOfMethodAndPath() {
+        // given
+        Expectation expectation = addExpectation(request().withMethod("get").withPath("/Some/Path"));
+
+        // then
+        assertThat(candidates(request().withMethod("GET").withPath("/some/path")), contains(expectation));
+    }
+
+    @Test
+    public void shouldIndexLiteralPrefixOfRegexPath() {
+        // given
+        Expectation regexWithPrefix = addExpectation(request().withMethod("GET").withPath("/api/v1/users/.*"));
+        Expectation regexWithShorterPrefix = addExpectation(request().withPath("/api/v[0-9]+/users"));
+        addExpectation(request().withPath("/other/.*"));
+
+        // then
+        assertThat(candidates(request().withMethod("GET").withPath("/api/v1/users/123")), contains(regexWithPrefix, regexWithShorterPrefix));
+        assertThat(candidates(request().withMethod("GET").withPath("/api/v2/users")), contains(regexWithShorterPrefix));
+        assertThat(candidates(request().withMethod("POST").withPath("/api/v1/users/123")), contains(regexWithShorterPrefix));
+    }
+
+    @Test
+    public void shouldIndexPathWithPathParametersByLiteralPrefix() {
+        // given
+        Expectation expectation = addExpectation(request().withPath("/pets/{petId}").withPathParameter("petId", "[0-9]+"));
+
+        // then
+        assertThat(candidates(request().withMethod("GET").withPath("/pets/123")), contains(expectation));
+        assertThat(candidates(request().withMethod("GET").withPath("/owners/123")), is(empty()));
+    }
+
+    @Test
+    public void shouldPlaceUnindexableMatchersInResidualBucket() {
+        // given
+        Expectation alternation = addExpectation(request().withPath("/one/two|/three"));
+        Expectation leadingRegex = addExpectation(request().withPath(".*/three"));
+        Expectation quantifiedSeparator = addExpectation(request().withPath("/three/*x"));
+        Expectation nottedPath = addExpectation(request().withPath(not("/one")));
+        Expectation nottedRequest = addExpectation((HttpRequest) request().withPath("/one").withNot(true));
+        Expectation noPath = addExpectation(request().withMethod("GET"));
+        Expectation regexMethod = addExpectation(request().withMethod("P.*").withPath("/three"));
+
+        // then
+        assertThat(candidates(request().withMethod("GET").withPath("/three")), contains(alternation, leadingRegex, quantifiedSeparator, nottedPath, nottedRequest, noPath, regexMethod));
+        assertThat(candidates(request().withMethod("PUT").withPath("/threex")), contains(alternation, leadingRegex, quantifiedSeparator, nottedPath, nottedRequest));
+    }
+
+    @Test
+    public void shouldReturnCandidatesInPriorityOrder() {
+        // given
+        Expectation lowPriorityLiteral = addExpectation(request().withPath("/some/path"), 0);
+        Expectation highPriorityRegex = addExpectation(request().withPath("/some/.*"), 10);
+        Expectation mediumPriorityResidual = addExpectation(request().withPath("/some/path|/other"), 5);
+        Expectation highestPriorityLiteral = addExpectation(request().withMethod("GET").withPath("/some/path"), 20);
+
+        // then
+        assertThat(candidates(request().withMethod("GET").withPath("/some/path")), contains(highestPriorityLiteral, highPriorityRegex, mediumPriorityResidual, lowPriorityLiteral));
+    }
+
+    @Test
+    public void shouldNotNarrowRequestWithBlankMethodOrPath() {
+        // given
+        addExpectation(request().withMethod("GET").withPath("/one"));
+
+        // then
+        assertThat(httpRequestMatcherIndex.candidates(request().withPath("/one")), is(Optional.empty()));
+        assertThat(httpRequestMatcherIndex.candidates(request().withMethod("GET")), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldRemoveAndReindexMatchers() {
+        // given
+        Expectation expectation = new Expectation(request().withMethod("GET").withPath("/one")).thenRespond(response());
+        HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(expectation);
+        httpRequestMatcherIndex.add(httpRequestMatcher);
+
+        // when
+        Expectation updatedExpectation = new Expectation(request().withMethod("GET").withPath("/two"), Times.unlimited(), TimeToLive.unlimited(), 0).withId(expectation.getId()).thenRespond(response());
+        httpRequestMatcher.update(updatedExpectation);
+        httpRequestMatcherIndex.add(httpRequestMatcher);
+
+        // then
+        assertThat(httpRequestMatcherIndex.size(), is(1));
+        assertThat(candidates(request().withMethod("GET").withPath("/one")), is(empty()));
+        assertThat(candidates(request().withMethod("GET").withPath("/two")), contains(updatedExpectation));
+
+        // when
+        httpRequestMatcherIndex.remove(httpRequestMatcher);
+
+        // then
+        assertThat(httpRequestMatcherIndex.size(), is(0));
+        assertThat(candidates(request().withMethod("GET").withPath("/two")), is(empty()));
+    }
+
+    @Test
+    public void shouldKeepIndexInSyncWithRequestMatchers() {
+        // given
+        RequestMatchers requestMatchers = new RequestMatchers(mock(MockServerLogger.class), scheduler, mock(WebSocketClientRegistry.class));
+        requestMatchers.setMaxSize(2);
+        Expectation first = new Expectation(request().withMethod("GET").withPath("/one")).thenRespond(response());
+        Expectation second = new Expectation(request().withMethod("GET").withPath("/two")).thenRespond(response());
+        Expectation third = new Expectation(request().withMethod("GET").withPath("/.*"), Times.unlimited(), TimeToLive.unlimited(), 10).thenRespond(response());
+
+        // when
+        requestMatchers.add(first, API);
+        requestMatchers.add(second, API);
+        requestMatchers.add(third, API);
+
+        // then - first evicted
+        assertThat(requestMatchers.httpRequestMatcherIndex.size(), is(2));
+        assertThat(requestMatchers.firstMatchingExpectation(request().withMethod("GET").withPath("/two")), is(third));
+
+        // when
+        requestMatchers.update(new Expectation[]{second}, API);
+
+        // then
+        assertThat(requestMatchers.httpRequestMatcherIndex.size(), is(1));
+        assertThat(requestMatchers.firstMatchingExpectation(request().withMethod("GET").withPath("/two")), is(second));
+        assertThat(requestMatchers.firstMatchingExpectation(request().withMethod("GET").withPath("/one")), is((Expectation) null));
+
+        // when
+        requestMatchers.reset();
+
+        // then
+        assertThat(requestMatchers.httpRequestMatcherIndex.size(), is(0));
+    }
+}
@@ -17,6 +17,7 @@ import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
 import org.mockserver.matchers.TimeToLive;
 import org.mockserver.matchers.Times;
+import org.mockserver.model.ExpectationId;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
 import org.mockserver.model.MediaType;
@@ -26,8 +27,10 @@ import org.mockserver.scheduler.Scheduler;
 import org.mockserver.serialization.*;
 import org.mockserver.serialization.java.ExpectationToJavaSerializer;
 import org.mockserver.serialization.java.HttpRequestToJavaSerializer;
+import org.mockserver.uuid.UUIDService;
 import org.mockserver.verify.Verification;
 import org.mockserver.verify.VerificationSequence;
+import org.mockserver.verify.VerificationTimes;
 import org.slf4j.event.Level;
 
 import java.net.URL;
@@ -36,6 +39,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -59,6 +63,8 @@ import static org.mockserver.model.HttpError.error;
 import static org.mockserver.model.HttpRequest.request;
 import static org.mockserver.model.HttpResponse.notFoundResponse;
 import static org.mockserver.model.HttpResponse.response;
+import static org.mockserver.model.HttpTemplate.TemplateType.VELOCITY;
+import static org.mockserver.model.HttpTemplate.template;
 import static org.mockserver.model.JsonBody.json;
 import static org.mockserver.model.PortBinding.portBinding;
 import static org.mockserver.model.RetrieveType.REQUEST_RESPONSES;
@@ -96,11 +102,24 @@ public class HttpStateTest {
     }
 
     private static class FakeResponseWriter extends ResponseWriter {
-        public HttpResponse response;
+        public volatile HttpResponse response;
+        private final CompletableFuture<HttpResponse> responseFuture = new CompletableFuture<>();
 
         @Override
         public void sendResponse(HttpRequest request, HttpResponse response) {
             this.response = response;
+            this.responseFuture.complete(response);
+        }
+
+        /**
+         * clear, retrieve and verify requests respond asynchronously on the control plane executor
+         */
+        public HttpResponse awaitResponse() {
+            try {
+                return responseFuture.get(10, SECONDS);
+            } catch (Exception e) {
+                throw new AssertionError("no response written", e);
+            }
         }
     }
 
@@ -124,12 +143,69 @@ public class HttpStateTest {
 
         // then
         assertThat(handle, is(true));
-        assertThat(responseWriter.response.getStatusCode(), is(200));
-        assertThat(responseWriter.response.getBodyAsString(), is(httpRequestSerializer.serialize(true, Collections.singletonList(
+        assertThat(responseWriter.awaitResponse().getStatusCode(), is(200));
+        assertThat(responseWriter.awaitResponse().getBodyAsString(), is(httpRequestSerializer.serialize(true, Collections.singletonList(
             request("request_one")
         ))));
     }
 
+    @Test
+    public void shouldRejectControlPlaneRequestsWhenTooManyWaitingForEventLog() throws InterruptedException {
+        int originalThreadCount = ConfigurationProperties.controlPlaneThreadCount();
+        int originalQueueSize = ConfigurationProperties.controlPlaneQueueSize();
+        CountDownLatch eventLogBlocked = new CountDownLatch(1);
+        HttpState httpState = null;
+        try {
+            // given
+            ConfigurationProperties.controlPlaneThreadCount(1);
+            ConfigurationProperties.controlPlaneQueueSize(1);
+            httpState = new HttpState(new MockServerLogger(), mock(Scheduler.class));
+            httpState.getMockServerLog().add(
+                new LogEntry()
+                    .setType(RUNNABLE)
+                    .setConsumer(() -> {
+                        try {
+                            eventLogBlocked.await(10, SECONDS);
+                        } catch (InterruptedException ignore) {
+                            // ignore
+                        }
+                    })
+            );
+            HttpRequest retrieveRequest = request("/mockserver/retrieve")
+                .withMethod("PUT")
+                .withBody(
+                    httpRequestSerializer.serialize(request("request_one"))
+                );
+            FakeResponseWriter firstResponseWriter = new FakeResponseWriter();
+            FakeResponseWriter secondResponseWriter = new FakeResponseWriter();
+            FakeResponseWriter rejectedResponseWriter = new FakeResponseWriter();
+            httpState.handle(retrieveRequest, firstResponseWriter, false);
+            httpState.handle(retrieveRequest, secondResponseWriter, false);
+
+            // when
+            boolean handle = httpState.handle(retrieveRequest, rejectedResponseWriter, false);
+
+            // then - rejected while the earlier requests wait for the event log, even though the control plane thread is free
+            assertThat(handle, is(true));
+            assertThat(rejectedResponseWriter.awaitResponse().getStatusCode(), is(429));
+            assertThat(rejectedResponseWriter.awaitResponse().getBodyAsString(), is("too many clear, retrieve or verify requests in progress"));
+
+            // when
+            eventLogBlocked.countDown();
+
+            // then
+            assertThat(firstResponseWriter.awaitResponse().getStatusCode(), is(200));
+            assertThat(secondResponseWriter.awaitResponse().getStatusCode(), is(200));
+        } finally {
+            eventLogBlocked.countDown();
+            ConfigurationProperties.controlPlaneThreadCount(originalThreadCount);
+            ConfigurationProperties.controlPlaneQueueSize(originalQueueSize);
+            if (httpState != null) {
+                httpState.stop();
+            }
+        }
+    }
+
     @Test
     public void shouldHandleClearRequest() {
         // given
@@ -151,8 +227,8 @@ public class HttpStateTest {
 
         // then
         assertThat(handle, is(true));
-        assertThat(responseWriter.response.getStatusCode(), is(200));
-        assertThat(responseWriter.response.getBodyAsString(), is(""));
+        assertThat(responseWriter.awaitResponse().getStatusCode(), is(200));
+        assertThat(responseWriter.awaitResponse().getBodyAsString(), is(""));
         assertThat(httpState.firstMatchingExpectation(request("request_one")), is(nullValue()));
         assertThat(httpState.retrieve(request("/mockserver/retrieve")
             .withMethod("PUT")
@@ -231,8 +307,8 @@ public class HttpStateTest {
 
         // then
         assertThat(handle, is(true));
-        assertThat(responseWriter.response.getStatusCode(), is(200));
-        assertThat(responseWriter.response.getBodyAsString(), is(expectationSerializer.serialize(Collections.singletonList(
+        assertThat(responseWriter.awaitResponse().getStatusCode(), is(200));
+        assertThat(responseWriter.awaitResponse().getBodyAsString(), is(expectationSerializer.serialize(Collections.singletonList(
             new Expectation(request("request_one"), Times.once(), TimeToLive.unlimited(), 0).withId("key_one").thenRespond(response("response_one"))
         ))));
     }
@@ -257,9 +333,9 @@ public class HttpStateTest {
 
             // then
             assertThat(handle, is(true));
-            assertThat(responseWriter.response.getStatusCode(), is(200));
+            assertThat(responseWriter.awaitResponse().getStatusCode(), is(200));
             assertThat(
-                responseWriter.response.getBodyAsString(),
+                responseWriter.awaitResponse().getBodyAsString(),
                 is(endsWith(LOG_DATE_FORMAT.format(new Date(TimeService.currentTimeMillis())) + " - creating expectation:" + NEW_LINE +
                     NEW_LINE +
                     "  {" + NEW_LINE +
@@ -489,8 +565,8 @@ public class HttpStateTest {
 
         // then
         assertThat(handle, is(true));
-        assertThat(responseWriter.response.getStatusCode(), is(200));
-        assertThat(responseWriter.response.getBodyAsString(), is(expectationSerializer.serialize(Collections.singletonList(
+        assertThat(responseWriter.awaitResponse().getStatusCode(), is(200));
+        assertThat(responseWriter.awaitResponse().getBodyAsString(), is(expectationSerializer.serialize(Collections.singletonList(
             expectationOne
         ))));
     }
@@ -529,8 +605,8 @@ public class HttpStateTest {
 
         // then
         assertThat(handle, is(true));
-        assertThat(responseWriter.response.getStatusCode(), is(202));
-        assertThat(responseWriter.response.getBodyAsString(), is(""));
+        assertThat(responseWriter.awaitResponse().getStatusCode(), is(202));
+        assertThat(responseWriter.awaitResponse().getBodyAsString(), is(""));
     }
 
     @Test
@@ -557,8 +633,8 @@ public class HttpStateTest {
 
         // then
         assertThat(handle, is(true));
-        assertThat(responseWriter.response.getStatusCode(), is(406));
-        assertThat(responseWriter.response.getBodyAsString(), is("Request not found at least once, expected:<{" + NEW_LINE +
+        assertThat(responseWriter.awaitResponse().getStatusCode(), is(406));
+        assertThat(responseWriter.awaitResponse().getBodyAsString(), is("Request not found at least once, expected:<{" + NEW_LINE +
             "  \"path\" : \"two\"" + NEW_LINE +
             "}> but was:<{" + NEW_LINE +
             "  \"path\" : \"one\"" + NEW_LINE +
@@ -602,8 +678,8 @@ public class HttpStateTest {
 
         // then
         assertThat(handle, is(true));
-        assertThat(responseWriter.response.getStatusCode(), is(202));
-        assertThat(responseWriter.response.getBodyAsString(), is(""));
+        assertThat(responseWriter.awaitResponse().getStatusCode(), is(202));
+        assertThat(responseWriter.awaitResponse().getBodyAsString(), is(""));
     }
 
     @Test
@@ -643,8 +719,8 @@ public class HttpStateTest {
 
         // then
         assertThat(handle, is(true));
-        assertThat(responseWriter.response.getStatusCode(), is(406));
-        assertThat(responseWriter.response.getBodyAsString(), is("Request sequence not found, expected:<[ {" + NEW_LINE +
+        assertThat(responseWriter.awaitResponse().getStatusCode(), is(406));
+        assertThat(responseWriter.awaitResponse().getBodyAsString(), is("Request sequence not found, expected:<[ {" + NEW_LINE +
             "  \"path\" : \"three\"" + NEW_LINE +
             "}, {" + NEW_LINE +
             "  \"path\" : \"one\"" + NEW_LINE +
@@ -676,6 +752,24 @@ public class HttpStateTest {
         assertThat(httpState.firstMatchingExpectation(request("request_two")), is(expectationOne));
     }
 
+    @Test
+    public void shouldNotAddExpectationsWithInvalidTemplate() {
+        // given
+        Expectation validExpectation = new Expectation(request("request_one")).thenRespond(response("response_one"));
+        Expectation invalidExpectation = new Expectation(request("request_two")).thenRespond(template(VELOCITY, "#if {"));
+
+        // when
+        try {
+            httpState.add(validExpectation, invalidExpectation);
+            fail("expected exception to be thrown");
+        } catch (IllegalArgumentException iae) {
+            assertThat(iae.getMessage(), containsString("Exception compiling template:"));
+        }
+
+        // then
+        assertThat(httpState.getRequestMatchers().isEmpty(), is(true));
+    }
+
     @Test
     public void shouldAddExceptionViaOpenApiClasspath() {
         // when
@@ -2058,6 +2152,53 @@ public class HttpStateTest {
         }
     }
 
+    private void receivedAndMatched(HttpRequest request) {
+        request.withLogCorrelationId(UUIDService.getUUID());
+        httpState.log(
+            new LogEntry()
+                .setType(RECEIVED_REQUEST)
+                .setLogLevel(Level.INFO)
+                .setCorrelationId(request.getLogCorrelationId())
+                .setHttpRequest(request)
+                .setMessageFormat(RECEIVED_REQUEST_MESSAGE_FORMAT)
+                .setArguments(request)
+        );
+        httpState.firstMatchingExpectation(request);
+    }
+
+    @Test
+    public void shouldVerifyRequestsMatchedByExpectationIdAtEveryLogLevel() throws Exception {
+        Level originalLevel = ConfigurationProperties.logLevel();
+        try {
+            for (String logLevel : Arrays.asList("INFO", "WARN")) {
+                // given
+                ConfigurationProperties.logLevel(logLevel);
+                httpState.reset();
+                Expectation withHeader = new Expectation(request("/some_path").withHeader("some_header", "some_value"), Times.unlimited(), TimeToLive.unlimited(), 10).thenRespond(response("with_header"));
+                Expectation withoutHeader = new Expectation(request("/some_path")).thenRespond(response("without_header"));
+                httpState.add(withHeader);
+                httpState.add(withoutHeader);
+
+                // when
+                receivedAndMatched(request("/some_path").withHeader("some_header", "some_value"));
+                receivedAndMatched(request("/some_path"));
+                receivedAndMatched(request("/some_path"));
+
+                // then - only requests matched by each expectation are counted, not every request matching its request
+                assertThat(logLevel, httpState.verify(new Verification().withRequest(null).withExpectationId(new ExpectationId().withId(withHeader.getId())).withTimes(VerificationTimes.exactly(1))).get(5, SECONDS), is(""));
+                assertThat(logLevel, httpState.verify(new Verification().withRequest(null).withExpectationId(new ExpectationId().withId(withoutHeader.getId())).withTimes(VerificationTimes.exactly(2))).get(5, SECONDS), is(""));
+
+                // when
+                httpState.getMockServerLog().clear(request("/some_path"));
+
+                // then
+                assertThat(logLevel, httpState.verify(new Verification().withRequest(null).withExpectationId(new ExpectationId().withId(withoutHeader.getId())).withTimes(VerificationTimes.exactly(0))).get(5, SECONDS), is(""));
+            }
+        } finally {
+            ConfigurationProperties.logLevel(originalLevel.name());
+        }
+    }
+
     @Test
     public void shouldVerifyWithFuture() throws Exception {
         // given
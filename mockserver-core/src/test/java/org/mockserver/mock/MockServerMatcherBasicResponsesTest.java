@@ -38,6 +38,16 @@ public class MockServerMatcherBasicResponsesTest {
         assertEquals(expectation, requestMatchers.firstMatchingExpectation(new HttpRequest().withPath("somePath")));
     }
 
+    @Test
+    public void encodeResponseBodyWhenExpectationAdded() {
+        // when
+        Expectation expectation = new Expectation(request().withPath("somePath")).thenRespond(response().withHeader("Content-Type", "text/plain; charset=utf-8").withBody("someBody"));
+        requestMatchers.add(expectation, API);
+
+        // then
+        assertEquals("someBody".length(), expectation.getHttpResponse().getBody().getEncoded("text/plain; charset=utf-8").readableBytes());
+    }
+
     @Test
     public void respondWhenRegexPathMatches() {
         // when
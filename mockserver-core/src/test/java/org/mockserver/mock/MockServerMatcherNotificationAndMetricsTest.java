@@ -55,6 +55,36 @@ public class MockServerMatcherNotificationAndMetricsTest {
         ConfigurationProperties.metricsEnabled(false);
     }
 
+    @Test
+    public void shouldNotifyOnceOnBulkAdd() throws InterruptedException {
+        // given
+        List<MockServerMatcherNotifier.Cause> causes = new ArrayList<>();
+        requestMatchers.registerListener((requestMatchers, cause) -> {
+            causes.add(cause);
+        });
+        List<Expectation> expectations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expectations.add(new Expectation(
+                request()
+                    .withPath("somePath" + i)
+            ).thenRespond(
+                response()
+                    .withBody("someBody" + i)
+            ));
+        }
+
+        // when
+        List<Expectation> upsertedExpectations = requestMatchers.add(expectations, API);
+
+        // then
+        MILLISECONDS.sleep(500);
+        assertThat(upsertedExpectations.size(), is(10));
+        assertThat(requestMatchers.httpRequestMatchers.size(), is(10));
+        assertThat(requestMatchers.httpRequestMatcherIndex.size(), is(10));
+        assertThat(causes, contains(API));
+        assertThat(Metrics.get(Metrics.Name.ACTION_RESPONSE_COUNT), is(10));
+    }
+
     @Test
     public void shouldNotifyOnAdd() throws InterruptedException {
         // given
@@ -9,6 +9,11 @@ import org.mockserver.matchers.Times;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.scheduler.Scheduler;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static junit.framework.TestCase.assertEquals;
@@ -35,6 +40,57 @@ public class MockServerMatcherSequentialResponsesTest {
         requestMatchers = new RequestMatchers(mockLogFormatter, scheduler, webSocketClientRegistry);
     }
 
+    @Test
+    public void respondExactlyRemainingTimesWhenMatchedConcurrently() throws Exception {
+        // given
+        int threads = 64;
+        int requestsPerThread = 200;
+        Expectation limitedExpectation = new Expectation(new HttpRequest().withPath("somepath"), Times.exactly(1000), TimeToLive.unlimited(), 10).thenRespond(response().withBody("limited"));
+        requestMatchers.add(limitedExpectation, API);
+        Expectation onceExpectation = new Expectation(new HttpRequest().withPath("somepath"), Times.once(), TimeToLive.unlimited(), 5).thenRespond(response().withBody("once"));
+        requestMatchers.add(onceExpectation, API);
+        Expectation unlimitedExpectation = new Expectation(new HttpRequest().withPath("somepath")).thenRespond(response().withBody("unlimited"));
+        requestMatchers.add(unlimitedExpectation, API);
+        AtomicInteger limitedMatches = new AtomicInteger();
+        AtomicInteger onceMatches = new AtomicInteger();
+        AtomicInteger unlimitedMatches = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    for (int request = 0; request < requestsPerThread; request++) {
+                        Expectation expectation = requestMatchers.firstMatchingExpectation(new HttpRequest().withPath("somepath"));
+                        if (expectation == limitedExpectation) {
+                            limitedMatches.incrementAndGet();
+                        } else if (expectation == onceExpectation) {
+                            onceMatches.incrementAndGet();
+                        } else if (expectation == unlimitedExpectation) {
+                            unlimitedMatches.incrementAndGet();
+                        }
+                        requestMatchers.postProcess(expectation);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        // then
+        assertThat(limitedMatches.get(), is(1000));
+        assertThat(onceMatches.get(), is(1));
+        assertThat(unlimitedMatches.get(), is(threads * requestsPerThread - 1001));
+    }
+
     @Test
     public void respondWhenPathMatchesExpectationWithLimitedMatchesWithMultipleResponses() {
         // when
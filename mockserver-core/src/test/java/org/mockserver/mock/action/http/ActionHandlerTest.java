@@ -14,6 +14,8 @@ import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
 import org.mockserver.mock.Expectation;
 import org.mockserver.mock.HttpState;
+import org.mockserver.metrics.LatencyHistogram;
+import org.mockserver.metrics.Metrics;
 import org.mockserver.model.*;
 import org.mockserver.responsewriter.ResponseWriter;
 import org.mockserver.scheduler.Scheduler;
@@ -24,7 +26,11 @@ import org.slf4j.event.Level;
 import java.net.InetSocketAddress;
 import java.util.HashSet;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.openMocks;
 import static org.mockserver.character.Character.NEW_LINE;
@@ -165,6 +171,91 @@ public class ActionHandlerTest {
         verify(scheduler).schedule(any(Runnable.class), eq(true), eq(milliseconds(0)));
     }
 
+    @Test
+    public void shouldProcessStaticResponseAction() {
+        // given
+        HttpResponse response = response("some_body");
+        expectation = new Expectation(request).thenRespond(response);
+        when(mockHttpStateHandler.firstMatchingExpectation(request)).thenReturn(expectation);
+
+        // when
+        actionHandler.processAction(request, mockResponseWriter, null, new HashSet<>(), false, true);
+
+        // then
+        verify(mockHttpResponseActionHandler, never()).handle(any(HttpResponse.class));
+        verify(mockResponseWriter).writeStaticResponse(request, response);
+        verify(mockServerLogger).logEvent(
+            new LogEntry()
+                .setLogLevel(INFO)
+                .setType(EXPECTATION_RESPONSE)
+                .setHttpRequest(request)
+                .setHttpResponse(response)
+                .setMessageFormat("returning response:{}for request:{}for action:{}from expectation:{}")
+                .setArguments(response, request, response, expectation.getId())
+        );
+    }
+
+    @Test
+    public void shouldRecordActionExecutionWhenResponseWrittenExcludingDelay() {
+        boolean originalMetricsEnabled = ConfigurationProperties.metricsEnabled();
+        try {
+            // given
+            ConfigurationProperties.metricsEnabled(true);
+            Metrics.clear();
+            HttpResponse delayedResponse = response("some_body").withDelay(milliseconds(500));
+            when(mockHttpResponseActionHandler.handle(any(HttpResponse.class))).thenReturn(delayedResponse);
+
+            // when
+            actionHandler.processAction(request, mockResponseWriter, null, new HashSet<>(), false, true);
+
+            // then
+            verify(mockResponseWriter).writeResponse(request, delayedResponse, false);
+            LatencyHistogram actionExecution = Metrics.get(Metrics.Timer.ACTION_EXECUTION);
+            assertThat(actionExecution.getCount(), is(1L));
+            assertThat(actionExecution.getMax(), lessThan(TimeUnit.MILLISECONDS.toNanos(500)));
+        } finally {
+            ConfigurationProperties.metricsEnabled(originalMetricsEnabled);
+            Metrics.clear();
+        }
+    }
+
+    @Test
+    public void shouldRecordActionExecutionWhenForwardedResponseWritten() throws InterruptedException {
+        boolean originalMetricsEnabled = ConfigurationProperties.metricsEnabled();
+        try {
+            // given
+            ConfigurationProperties.metricsEnabled(true);
+            Metrics.clear();
+            HttpForward forward = forward()
+                .withHost("localhost")
+                .withPort(1080);
+            expectation = new Expectation(request).thenForward(forward);
+            when(mockHttpStateHandler.firstMatchingExpectation(request)).thenReturn(expectation);
+            CompletableFuture<HttpResponse> pendingResponseFuture = new CompletableFuture<>();
+            when(mockHttpForwardActionHandler.handle(any(HttpForward.class), any(HttpRequest.class))).thenReturn(new HttpForwardActionResult(forwardedHttpRequest, pendingResponseFuture, null, new InetSocketAddress(1234)));
+
+            // when
+            actionHandler.processAction(request, mockResponseWriter, null, new HashSet<>(), false, false);
+
+            // then - not recorded until the forwarded response is written
+            assertThat(Metrics.get(Metrics.Timer.ACTION_EXECUTION).getCount(), is(0L));
+
+            // when
+            pendingResponseFuture.complete(response);
+
+            // then
+            verify(mockResponseWriter, timeout(5000)).writeResponse(request, response, false);
+            long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+            while (Metrics.get(Metrics.Timer.ACTION_EXECUTION).getCount() == 0 && System.currentTimeMillis() < timeout) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            assertThat(Metrics.get(Metrics.Timer.ACTION_EXECUTION).getCount(), is(1L));
+        } finally {
+            ConfigurationProperties.metricsEnabled(originalMetricsEnabled);
+            Metrics.clear();
+        }
+    }
+
     @Test
     public void shouldProcessResponseTemplateAction() {
         // given
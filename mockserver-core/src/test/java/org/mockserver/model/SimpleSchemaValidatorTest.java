@@ -0,0 +1,153 @@
+package org.mockserver.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.github.fge.jsonschema.main.JsonValidator;
+import org.junit.Test;
+import org.mockserver.serialization.ObjectMapperFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+
+/**
+ * @author jamesdbloom
+ */
+public class SimpleSchemaValidatorTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = ObjectMapperFactory.createObjectMapper();
+    private static final JsonValidator VALIDATOR = JsonSchemaFactory.byDefault().getValidator();
+
+    private SimpleSchemaValidator compile(String schema) throws Exception {
+        ObjectNode schemaJsonNode = (ObjectNode) OBJECT_MAPPER.readTree(schema);
+        return SimpleSchemaValidator.compile(schemaJsonNode, schemaJsonNode.path("type").asText(null), schemaJsonNode.path("format").asText(null));
+    }
+
+    private void assertSameAsJsonSchemaValidator(String schema, List<JsonNode> values) throws Exception {
+        SimpleSchemaValidator simpleSchemaValidator = compile(schema);
+        assertThat(schema, simpleSchemaValidator, is(notNullValue()));
+        for (JsonNode value : values) {
+            Boolean valid = simpleSchemaValidator.validate(value);
+            if (valid != null) {
+                assertThat(schema + " " + value, valid, is(VALIDATOR.validate(OBJECT_MAPPER.readTree(schema), value, false).isSuccess()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldValidateInteger() throws Exception {
+        List<JsonNode> values = Arrays.asList(
+            OBJECT_MAPPER.readTree("0"),
+            OBJECT_MAPPER.readTree("1"),
+            OBJECT_MAPPER.readTree("5"),
+            OBJECT_MAPPER.readTree("10"),
+            OBJECT_MAPPER.readTree("-1"),
+            OBJECT_MAPPER.readTree("12345678901234567890"),
+            new TextNode("a")
+        );
+        assertSameAsJsonSchemaValidator("{\"type\":\"integer\"}", values);
+        assertSameAsJsonSchemaValidator("{\"type\":\"integer\",\"format\":\"int64\",\"minimum\":1}", values);
+        assertSameAsJsonSchemaValidator("{\"type\":\"integer\",\"minimum\":1,\"exclusiveMinimum\":true,\"maximum\":10,\"exclusiveMaximum\":true}", values);
+        assertSameAsJsonSchemaValidator("{\"type\":\"integer\",\"enum\":[1,5,10]}", values);
+    }
+
+    @Test
+    public void shouldValidateNumber() throws Exception {
+        List<JsonNode> values = Arrays.asList(
+            OBJECT_MAPPER.readTree("0"),
+            OBJECT_MAPPER.readTree("0.5"),
+            OBJECT_MAPPER.readTree("1.5"),
+            OBJECT_MAPPER.readTree("2.5"),
+            OBJECT_MAPPER.readTree("-2.5"),
+            new TextNode("a")
+        );
+        assertSameAsJsonSchemaValidator("{\"type\":\"number\"}", values);
+        assertSameAsJsonSchemaValidator("{\"type\":\"number\",\"minimum\":0.5,\"maximum\":2.5}", values);
+        assertSameAsJsonSchemaValidator("{\"type\":\"number\",\"minimum\":0.5,\"exclusiveMinimum\":true}", values);
+        assertSameAsJsonSchemaValidator("{\"type\":\"number\",\"enum\":[0,1.5]}", values);
+    }
+
+    @Test
+    public void shouldValidateString() throws Exception {
+        List<JsonNode> values = Arrays.asList(
+            new TextNode(""),
+            new TextNode("a"),
+            new TextNode("abc"),
+            new TextNode("abcd"),
+            new TextNode("555-1212"),
+            new TextNode("(888)555-1212"),
+            new TextNode("(888)555-1212 ext. 532"),
+            new TextNode("(800)FLOWERS"),
+            new TextNode("\uD83D\uDE00\uD83D\uDE00")
+        );
+        assertSameAsJsonSchemaValidator("{\"type\":\"string\"}", values);
+        assertSameAsJsonSchemaValidator("{\"type\":\"string\",\"minLength\":2,\"maxLength\":3}", values);
+        assertSameAsJsonSchemaValidator("{\"type\":\"string\",\"pattern\":\"^(\\\\([0-9]{3}\\\\))?[0-9]{3}-[0-9]{4}$\"}", values);
+        assertSameAsJsonSchemaValidator("{\"type\":\"string\",\"pattern\":\"[a-c]+\"}", values);
+        assertSameAsJsonSchemaValidator("{\"type\":\"string\",\"enum\":[\"a\",\"abc\"]}", values);
+    }
+
+    @Test
+    public void shouldValidateBoolean() throws Exception {
+        List<JsonNode> values = Arrays.asList(
+            OBJECT_MAPPER.readTree("true"),
+            OBJECT_MAPPER.readTree("false"),
+            OBJECT_MAPPER.readTree("1"),
+            new TextNode("true")
+        );
+        assertSameAsJsonSchemaValidator("{\"type\":\"boolean\"}", values);
+        assertSameAsJsonSchemaValidator("{\"type\":\"boolean\",\"enum\":[true]}", values);
+    }
+
+    @Test
+    public void shouldNotValidateFractionsAsIntegers() throws Exception {
+        assertThat(compile("{\"type\":\"integer\"}").validate(OBJECT_MAPPER.readTree("1.0")), is(nullValue()));
+        assertThat(compile("{\"type\":\"integer\"}").validate(OBJECT_MAPPER.readTree("null")), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotValidateNonAsciiStringsByPattern() throws Exception {
+        assertThat(compile("{\"type\":\"string\",\"pattern\":\"^a$\"}").validate(new TextNode("a\n")), is(nullValue()));
+        assertThat(compile("{\"type\":\"string\",\"pattern\":\"^a$\"}").validate(new TextNode("\u00E1")), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotCompileComplexSchemas() throws Exception {
+        assertThat(compile("{\"type\":\"object\",\"properties\":{\"id\":{\"type\":\"integer\"}}}"), is(nullValue()));
+        assertThat(compile("{\"type\":\"array\",\"items\":{\"type\":\"integer\"}}"), is(nullValue()));
+        assertThat(compile("{\"type\":\"number\",\"multipleOf\":10}"), is(nullValue()));
+        assertThat(compile("{\"type\":\"string\",\"format\":\"date-time\"}"), is(nullValue()));
+        assertThat(compile("{\"type\":\"string\",\"format\":\"email\"}"), is(nullValue()));
+        assertThat(compile("{\"type\":[\"string\",\"integer\"]}"), is(nullValue()));
+        assertThat(compile("{\"anyOf\":[{\"type\":\"string\"},{\"type\":\"integer\"}]}"), is(nullValue()));
+        assertThat(compile("{\"type\":\"integer\",\"exclusiveMinimum\":true}"), is(nullValue()));
+        assertThat(compile("{\"type\":\"string\",\"enum\":[\"a\",\"a\"]}"), is(nullValue()));
+        assertThat(compile("{\"type\":\"string\",\"minLength\":\"2\"}"), is(nullValue()));
+        assertThat(compile("{\"type\":\"string\",\"pattern\":\"(?i)abc\"}"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldOnlyAcceptRegexWithSameMeaningInJavaAndEcma() {
+        assertThat(SimpleSchemaValidator.isPortableRegex("^[a-zA-Z0-9_-]+$"), is(true));
+        assertThat(SimpleSchemaValidator.isPortableRegex("^(\\([0-9]{3}\\))?[0-9]{3}-[0-9]{4}$"), is(true));
+        assertThat(SimpleSchemaValidator.isPortableRegex("^(?:abc|def)\\d{2,}?$"), is(true));
+        assertThat(SimpleSchemaValidator.isPortableRegex("[^\\s]*"), is(true));
+        assertThat(SimpleSchemaValidator.isPortableRegex("(?<=a)b"), is(false));
+        assertThat(SimpleSchemaValidator.isPortableRegex("\\p{Alpha}"), is(false));
+        assertThat(SimpleSchemaValidator.isPortableRegex("a++"), is(false));
+        assertThat(SimpleSchemaValidator.isPortableRegex("a{2}{3}"), is(false));
+        assertThat(SimpleSchemaValidator.isPortableRegex("[a[b]]"), is(false));
+        assertThat(SimpleSchemaValidator.isPortableRegex("[a-z&&[^b]]"), is(false));
+        assertThat(SimpleSchemaValidator.isPortableRegex("[]a]"), is(false));
+        assertThat(SimpleSchemaValidator.isPortableRegex("\\1"), is(false));
+        assertThat(SimpleSchemaValidator.isPortableRegex("*a"), is(false));
+        assertThat(SimpleSchemaValidator.isPortableRegex("a{"), is(false));
+    }
+}
@@ -0,0 +1,65 @@
+package org.mockserver.persistence;
+
+import org.junit.Test;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.matchers.TimeToLive;
+import org.mockserver.matchers.Times;
+import org.mockserver.mock.Expectation;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * @author jamesdbloom
+ */
+public class ExpectationJournalTest {
+
+    @Test
+    public void shouldReplayJournalOnSnapshot() throws Exception {
+        // given
+        File persistedExpectations = File.createTempFile("persistedExpectations", ".json");
+        ExpectationJournal expectationJournal = new ExpectationJournal(new MockServerLogger(), persistedExpectations.getAbsolutePath());
+        expectationJournal.getJournalPath().toFile().deleteOnExit();
+        Expectation one = new Expectation(request("/one"), Times.exactly(5), TimeToLive.unlimited(), 0)
+            .withId("one")
+            .thenRespond(response("one"));
+        Expectation two = new Expectation(request("/two"))
+            .withId("two")
+            .thenRespond(response("two"));
+        Expectation updatedTwo = new Expectation(request("/two"))
+            .withId("two")
+            .thenRespond(response("updated two"));
+        Expectation three = new Expectation(request("/three"))
+            .withId("three")
+            .thenRespond(response("three"));
+
+        // when
+        expectationJournal.append(Arrays.asList(
+            expectationJournal.upsertRecord(updatedTwo),
+            expectationJournal.timesRecord("one", 3),
+            expectationJournal.upsertRecord(three),
+            expectationJournal.removeRecord("three"),
+            expectationJournal.timesRecord("one", 2)
+        ));
+        Expectation[] expectations = expectationJournal.replay(new Expectation[]{one, two});
+
+        // then
+        assertThat(expectations.length, is(2));
+        assertThat(expectations[0].getId(), is("one"));
+        assertThat(expectations[0].getTimes().getRemainingTimes(), is(2));
+        assertThat(expectations[1].getId(), is("two"));
+        assertThat(expectations[1].getHttpResponse().getBodyAsString(), is("updated two"));
+        assertThat(expectationJournal.recordCount(), is(5L));
+
+        // when
+        expectationJournal.truncate();
+
+        // then
+        assertThat(expectationJournal.recordCount(), is(0L));
+    }
+}
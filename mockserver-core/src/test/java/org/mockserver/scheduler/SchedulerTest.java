@@ -0,0 +1,237 @@
+package org.mockserver.scheduler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.configuration.ConfigurationProperties;
+import org.mockserver.log.model.LogEntry;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.metrics.Metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+import static org.mockserver.metrics.Metrics.Name.DELAYED_ACTION_PENDING_COUNT;
+import static org.mockserver.model.Delay.milliseconds;
+
+/**
+ * @author jamesdbloom
+ */
+public class SchedulerTest {
+
+    private final List<LogEntry> logEntries = new CopyOnWriteArrayList<>();
+    private final MockServerLogger mockServerLogger = new MockServerLogger(SchedulerTest.class) {
+        @Override
+        public void logEvent(LogEntry logEntry) {
+            logEntries.add(logEntry);
+        }
+    };
+    private boolean originalMetricsEnabled;
+    private boolean originalVirtualThreads;
+    private Scheduler scheduler;
+
+    @Before
+    public void createScheduler() {
+        originalMetricsEnabled = ConfigurationProperties.metricsEnabled();
+        originalVirtualThreads = ConfigurationProperties.actionHandlerVirtualThreads();
+        scheduler = new Scheduler(mockServerLogger);
+        Metrics.clear();
+    }
+
+    @After
+    public void shutdownScheduler() {
+        scheduler.shutdown();
+        ConfigurationProperties.metricsEnabled(originalMetricsEnabled);
+        ConfigurationProperties.actionHandlerVirtualThreads(originalVirtualThreads);
+        Metrics.clear();
+    }
+
+    private void createScheduler(boolean virtualThreads) {
+        scheduler.shutdown();
+        logEntries.clear();
+        ConfigurationProperties.actionHandlerVirtualThreads(virtualThreads);
+        scheduler = new Scheduler(mockServerLogger);
+    }
+
+    private static boolean virtualThreadsSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean isVirtual(Thread thread) throws Exception {
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+
+    @Test
+    public void shouldRunDelayedCommandAfterDelayOnSchedulerThread() throws InterruptedException {
+        // given
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicLong ranAfterNanos = new AtomicLong();
+        AtomicReference<String> threadName = new AtomicReference<>();
+        long start = System.nanoTime();
+
+        // when
+        scheduler.schedule(() -> {
+            ranAfterNanos.set(System.nanoTime() - start);
+            threadName.set(Thread.currentThread().getName());
+            ran.countDown();
+        }, false, milliseconds(200));
+
+        // then
+        assertThat(ran.await(5, SECONDS), is(true));
+        assertThat(NANOSECONDS.toMillis(ranAfterNanos.get()), greaterThanOrEqualTo(200L));
+        assertThat(threadName.get().startsWith("MockServer-Scheduler"), is(true));
+    }
+
+    @Test
+    public void shouldCountPendingDelayedCommandsWhenMetricsEnabled() throws InterruptedException {
+        // given
+        ConfigurationProperties.metricsEnabled(true);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        // when
+        scheduler.schedule(ran::countDown, false, milliseconds(500));
+
+        // then
+        assertThat(Metrics.get(DELAYED_ACTION_PENDING_COUNT), is(1));
+        assertThat(ran.await(5, SECONDS), is(true));
+        assertThat(Metrics.get(DELAYED_ACTION_PENDING_COUNT), is(0));
+    }
+
+    @Test
+    public void shouldKeepPendingCountBalancedWhenMetricsDisabledWhileDelayed() throws InterruptedException {
+        // given
+        ConfigurationProperties.metricsEnabled(true);
+        CountDownLatch ran = new CountDownLatch(1);
+        scheduler.schedule(ran::countDown, false, milliseconds(200));
+
+        // when
+        ConfigurationProperties.metricsEnabled(false);
+
+        // then
+        assertThat(ran.await(5, SECONDS), is(true));
+        assertThat(Metrics.get(DELAYED_ACTION_PENDING_COUNT), is(0));
+    }
+
+    @Test
+    public void shouldNotCountPendingDelayedCommandsWhenMetricsDisabled() throws InterruptedException {
+        // given
+        ConfigurationProperties.metricsEnabled(false);
+        CountDownLatch ran = new CountDownLatch(1);
+        scheduler.schedule(ran::countDown, false, milliseconds(200));
+
+        // when
+        ConfigurationProperties.metricsEnabled(true);
+
+        // then
+        assertThat(ran.await(5, SECONDS), is(true));
+        assertThat(Metrics.get(DELAYED_ACTION_PENDING_COUNT), is(0));
+    }
+
+    @Test
+    public void shouldNotRunCommandsAfterShutdown() throws InterruptedException {
+        // given
+        CountDownLatch ran = new CountDownLatch(3);
+        scheduler.schedule(ran::countDown, false, milliseconds(200));
+        scheduler.shutdown();
+
+        // when
+        scheduler.schedule(ran::countDown, false, milliseconds(50));
+        scheduler.submit(ran::countDown);
+
+        // then
+        assertThat(ran.await(500, MILLISECONDS), is(false));
+        assertThat(ran.getCount(), is(3L));
+    }
+
+    @Test
+    public void shouldUseThreadPoolWhenVirtualThreadsNotSupported() throws InterruptedException {
+        // given
+        assumeFalse(virtualThreadsSupported());
+
+        // when
+        createScheduler(true);
+
+        // then
+        assertThat(logEntries.size(), is(1));
+        assertThat(logEntries.get(0).getMessageFormat().startsWith("virtual threads are not supported by java version"), is(true));
+
+        // when
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        scheduler.submit(() -> {
+            thread.set(Thread.currentThread());
+            ran.countDown();
+        });
+
+        // then
+        assertThat(ran.await(5, SECONDS), is(true));
+        assertThat(thread.get().getName().startsWith("MockServer-Scheduler"), is(true));
+    }
+
+    @Test
+    public void shouldScheduleBlockingActionLikeOtherActionsWhenVirtualThreadsDisabled() throws InterruptedException {
+        // given
+        createScheduler(false);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        // when
+        scheduler.scheduleBlocking(() -> thread.set(Thread.currentThread()), false);
+
+        // then
+        assertThat(logEntries.isEmpty(), is(true));
+        assertThat(thread.get(), is(Thread.currentThread()));
+
+        // when
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicLong ranAfterNanos = new AtomicLong();
+        long start = System.nanoTime();
+        scheduler.scheduleBlocking(() -> {
+            ranAfterNanos.set(System.nanoTime() - start);
+            thread.set(Thread.currentThread());
+            ran.countDown();
+        }, false, milliseconds(200));
+
+        // then
+        assertThat(ran.await(5, SECONDS), is(true));
+        assertThat(NANOSECONDS.toMillis(ranAfterNanos.get()), greaterThanOrEqualTo(200L));
+        assertThat(thread.get().getName().startsWith("MockServer-Scheduler"), is(true));
+    }
+
+    @Test
+    public void shouldRunBlockingActionOnVirtualThreadWhenVirtualThreadsEnabled() throws Exception {
+        // given
+        assumeTrue(virtualThreadsSupported());
+        createScheduler(true);
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        // when
+        scheduler.scheduleBlocking(() -> {
+            thread.set(Thread.currentThread());
+            ran.countDown();
+        }, false);
+
+        // then
+        assertThat(logEntries.isEmpty(), is(true));
+        assertThat(ran.await(5, SECONDS), is(true));
+        assertThat(thread.get() == Thread.currentThread(), is(false));
+        assertThat(isVirtual(thread.get()), is(true));
+    }
+}
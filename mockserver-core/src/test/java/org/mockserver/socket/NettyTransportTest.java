@@ -0,0 +1,71 @@
+package org.mockserver.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.Test;
+import org.mockserver.configuration.ConfigurationProperties;
+import org.mockserver.scheduler.Scheduler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+
+/**
+ * @author jamesdbloom
+ */
+public class NettyTransportTest {
+
+    @Test
+    public void shouldFallbackToNioTransport() {
+        boolean originalNativeTransportEnabled = ConfigurationProperties.nativeTransportEnabled();
+        EventLoopGroup eventLoopGroup = null;
+        try {
+            // given
+            ConfigurationProperties.nativeTransportEnabled(false);
+
+            // when
+            eventLoopGroup = NettyTransport.createEventLoopGroup(1, new Scheduler.SchedulerThreadFactory("NettyTransportTest"));
+
+            // then
+            assertThat(NettyTransport.nativeTransport(), is(false));
+            assertThat(eventLoopGroup, instanceOf(NioEventLoopGroup.class));
+            assertThat(NettyTransport.serverChannelClass(eventLoopGroup), is(NioServerSocketChannel.class));
+            assertThat(NettyTransport.socketChannelClass(eventLoopGroup), is(NioSocketChannel.class));
+            assertThat(NettyTransport.socketChannelClass(eventLoopGroup.next()), is(NioSocketChannel.class));
+            assertThat(NettyTransport.reusePort(eventLoopGroup), is(false));
+        } finally {
+            ConfigurationProperties.nativeTransportEnabled(originalNativeTransportEnabled);
+            if (eventLoopGroup != null) {
+                eventLoopGroup.shutdownGracefully();
+            }
+        }
+    }
+
+    @Test
+    public void shouldConfigureClientSocketOptions() {
+        int originalSocketReceiveBufferSize = ConfigurationProperties.socketReceiveBufferSize();
+        boolean originalSocketTcpNoDelay = ConfigurationProperties.socketTcpNoDelay();
+        EventLoopGroup eventLoopGroup = new NioEventLoopGroup(1, new Scheduler.SchedulerThreadFactory("NettyTransportTest"));
+        try {
+            // given
+            ConfigurationProperties.socketReceiveBufferSize(65536);
+            ConfigurationProperties.socketTcpNoDelay(false);
+
+            // when
+            Bootstrap bootstrap = NettyTransport.configureClient(new Bootstrap().group(eventLoopGroup));
+
+            // then
+            assertThat((Integer) bootstrap.config().options().get(ChannelOption.SO_RCVBUF), is(65536));
+            assertThat((Boolean) bootstrap.config().options().get(ChannelOption.TCP_NODELAY), is(false));
+            assertThat(bootstrap.config().options().containsKey(ChannelOption.SO_SNDBUF), is(false));
+        } finally {
+            ConfigurationProperties.socketReceiveBufferSize(originalSocketReceiveBufferSize);
+            ConfigurationProperties.socketTcpNoDelay(originalSocketTcpNoDelay);
+            eventLoopGroup.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.mockserver.socket.tls;
+
+import org.junit.Test;
+import org.mockserver.logging.MockServerLogger;
+
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+/**
+ * @author jamesdbloom
+ */
+public class KeyPairPoolTest {
+
+    @Test
+    public void shouldFillPoolInBackground() throws Exception {
+        // when
+        KeyPairPool keyPairPool = new KeyPairPool(new MockServerLogger(), "EC", 3);
+
+        // then
+        assertThat(waitForAvailable(keyPairPool, 3), is(3));
+    }
+
+    @Test
+    public void shouldRefillPoolInBackgroundAfterTake() throws Exception {
+        // given
+        KeyPairPool keyPairPool = new KeyPairPool(new MockServerLogger(), "EC", 2);
+        waitForAvailable(keyPairPool, 2);
+
+        // when
+        KeyPair keyPair = keyPairPool.take();
+
+        // then
+        assertThat(keyPair, notNullValue());
+        assertThat(keyPair.getPublic().getAlgorithm(), is("EC"));
+        assertThat(waitForAvailable(keyPairPool, 2), is(2));
+    }
+
+    @Test
+    public void shouldGenerateKeyPairWhenPoolIsEmpty() throws Exception {
+        // given
+        KeyPairPool keyPairPool = new KeyPairPool(new MockServerLogger(), "EC", 1);
+
+        // when - more key pairs are taken than the pool holds
+        KeyPair firstKeyPair = keyPairPool.take();
+        KeyPair secondKeyPair = keyPairPool.take();
+        KeyPair thirdKeyPair = keyPairPool.take();
+
+        // then
+        assertThat(firstKeyPair, notNullValue());
+        assertThat(secondKeyPair, notNullValue());
+        assertThat(thirdKeyPair, notNullValue());
+        assertThat(secondKeyPair, not(sameInstance(firstKeyPair)));
+        assertThat(thirdKeyPair, not(sameInstance(secondKeyPair)));
+    }
+
+    @Test
+    public void shouldGenerateKeyPairOnCallingThreadWithoutPool() throws Exception {
+        // given
+        KeyPairPool keyPairPool = new KeyPairPool(new MockServerLogger(), "EC", 0);
+
+        // when
+        KeyPair keyPair = keyPairPool.take();
+
+        // then
+        assertThat(keyPair, notNullValue());
+        assertThat(keyPair.getPublic().getAlgorithm(), is("EC"));
+        assertThat(keyPairPool.available(), is(0));
+    }
+
+    @Test
+    public void shouldUseRSAForUnsupportedAlgorithm() throws Exception {
+        // given
+        KeyPairPool keyPairPool = new KeyPairPool(new MockServerLogger(), "DSA", 0);
+
+        // when
+        KeyPair keyPair = keyPairPool.take();
+
+        // then
+        assertThat(keyPairPool.getAlgorithm(), is("RSA"));
+        assertThat(keyPair.getPublic().getAlgorithm(), is("RSA"));
+    }
+
+    private int waitForAvailable(KeyPairPool keyPairPool, int expected) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (keyPairPool.available() < expected && System.currentTimeMillis() < timeout) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return keyPairPool.available();
+    }
+}
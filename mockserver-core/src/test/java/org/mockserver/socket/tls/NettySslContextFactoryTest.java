@@ -0,0 +1,251 @@
+package org.mockserver.socket.tls;
+
+import io.netty.handler.ssl.SslContext;
+import org.junit.After;
+import org.junit.Test;
+import org.mockserver.configuration.ConfigurationProperties;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.socket.tls.jdk.JDKKeyAndCertificateFactory;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+/**
+ * @author jamesdbloom
+ */
+public class NettySslContextFactoryTest {
+
+    @Test
+    public void shouldConfigureSessionCacheForServerAndClient() {
+        int originalTlsSessionCacheSize = ConfigurationProperties.tlsSessionCacheSize();
+        long originalTlsSessionTimeout = ConfigurationProperties.tlsSessionTimeout();
+        try {
+            // given
+            ConfigurationProperties.tlsSessionCacheSize(100);
+            ConfigurationProperties.tlsSessionTimeout(60);
+            NettySslContextFactory nettySslContextFactory = new NettySslContextFactory(new MockServerLogger());
+
+            // when
+            SslContext serverSslContext = nettySslContextFactory.createServerSslContext();
+            SslContext clientSslContext = nettySslContextFactory.createClientSslContext(false);
+
+            // then
+            assertThat(serverSslContext.sessionContext().getSessionCacheSize(), is(100));
+            assertThat(serverSslContext.sessionContext().getSessionTimeout(), is(60));
+            assertThat(clientSslContext.sessionContext().getSessionCacheSize(), is(100));
+            assertThat(clientSslContext.sessionContext().getSessionTimeout(), is(60));
+        } finally {
+            ConfigurationProperties.tlsSessionCacheSize(originalTlsSessionCacheSize);
+            ConfigurationProperties.tlsSessionTimeout(originalTlsSessionTimeout);
+        }
+    }
+
+    @Test
+    public void shouldAdvertiseHttp11UsingAlpn() {
+        boolean originalTlsAlpnEnabled = ConfigurationProperties.tlsAlpnEnabled();
+        try {
+            // given
+            ConfigurationProperties.tlsAlpnEnabled(true);
+            NettySslContextFactory nettySslContextFactory = new NettySslContextFactory(new MockServerLogger());
+
+            // when
+            SslContext serverSslContext = nettySslContextFactory.createServerSslContext();
+
+            // then
+            assertThat(serverSslContext.applicationProtocolNegotiator().protocols(), contains("http/1.1"));
+        } finally {
+            ConfigurationProperties.tlsAlpnEnabled(originalTlsAlpnEnabled);
+        }
+    }
+
+    @After
+    public void resetSupplier() {
+        KeyAndCertificateFactoryFactory.setCustomKeyAndCertificateFactorySupplier(null);
+    }
+
+    @Test
+    public void shouldCacheHostnameSslContextAndEvictLeastRecentlyUsed() throws Exception {
+        boolean originalTlsHostnameCertificates = ConfigurationProperties.tlsHostnameCertificates();
+        int originalTlsHostnameCertificateCacheSize = ConfigurationProperties.tlsHostnameCertificateCacheSize();
+        String originalTlsKeyPairAlgorithm = ConfigurationProperties.tlsKeyPairAlgorithm();
+        try {
+            // given
+            ConfigurationProperties.tlsHostnameCertificates(true);
+            ConfigurationProperties.tlsHostnameCertificateCacheSize(2);
+            ConfigurationProperties.tlsKeyPairAlgorithm("EC");
+            CountingKeyAndCertificateFactory keyAndCertificateFactory = new CountingKeyAndCertificateFactory(null);
+            KeyAndCertificateFactoryFactory.setCustomKeyAndCertificateFactorySupplier(mockServerLogger -> keyAndCertificateFactory.withDelegate(mockServerLogger));
+            NettySslContextFactory nettySslContextFactory = new NettySslContextFactory(new MockServerLogger());
+
+            // when
+            SslContext hostOne = nettySslContextFactory.createServerSslContextForHostname("one.example.com").get(30, TimeUnit.SECONDS);
+            SslContext hostTwo = nettySslContextFactory.createServerSslContextForHostname("two.example.com").get(30, TimeUnit.SECONDS);
+            CompletableFuture<SslContext> cachedHostOne = nettySslContextFactory.createServerSslContextForHostname("ONE.example.com");
+
+            // then - cached contexts are returned without generating a new certificate
+            assertThat(cachedHostOne.isDone(), is(true));
+            assertThat(cachedHostOne.get(), sameInstance(hostOne));
+            assertThat(hostTwo, not(sameInstance(hostOne)));
+            assertThat(keyAndCertificateFactory.certificatesCreated("one.example.com"), is(1));
+            assertThat(keyAndCertificateFactory.certificatesCreated("two.example.com"), is(1));
+
+            // when - a third hostname evicts the least recently used hostname
+            nettySslContextFactory.createServerSslContextForHostname("three.example.com").get(30, TimeUnit.SECONDS);
+
+            // then
+            assertThat(nettySslContextFactory.createServerSslContextForHostname("one.example.com").get(30, TimeUnit.SECONDS), sameInstance(hostOne));
+            assertThat(keyAndCertificateFactory.certificatesCreated("one.example.com"), is(1));
+            assertThat(nettySslContextFactory.createServerSslContextForHostname("two.example.com").get(30, TimeUnit.SECONDS), not(sameInstance(hostTwo)));
+            assertThat(keyAndCertificateFactory.certificatesCreated("two.example.com"), is(2));
+        } finally {
+            ConfigurationProperties.tlsHostnameCertificates(originalTlsHostnameCertificates);
+            ConfigurationProperties.tlsHostnameCertificateCacheSize(originalTlsHostnameCertificateCacheSize);
+            ConfigurationProperties.tlsKeyPairAlgorithm(originalTlsKeyPairAlgorithm);
+        }
+    }
+
+    @Test
+    public void shouldCreateOneCertificateForConcurrentLookupsOfSameHostname() throws Exception {
+        boolean originalTlsHostnameCertificates = ConfigurationProperties.tlsHostnameCertificates();
+        int originalTlsHostnameCertificateCacheSize = ConfigurationProperties.tlsHostnameCertificateCacheSize();
+        String originalTlsKeyPairAlgorithm = ConfigurationProperties.tlsKeyPairAlgorithm();
+        try {
+            // given
+            ConfigurationProperties.tlsHostnameCertificates(true);
+            ConfigurationProperties.tlsHostnameCertificateCacheSize(10);
+            ConfigurationProperties.tlsKeyPairAlgorithm("EC");
+            CountDownLatch certificateBlocked = new CountDownLatch(1);
+            CountingKeyAndCertificateFactory keyAndCertificateFactory = new CountingKeyAndCertificateFactory(certificateBlocked);
+            KeyAndCertificateFactoryFactory.setCustomKeyAndCertificateFactorySupplier(mockServerLogger -> keyAndCertificateFactory.withDelegate(mockServerLogger));
+            NettySslContextFactory nettySslContextFactory = new NettySslContextFactory(new MockServerLogger());
+
+            // when
+            CompletableFuture<SslContext> firstLookup = nettySslContextFactory.createServerSslContextForHostname("www.example.com");
+            CompletableFuture<SslContext> secondLookup = nettySslContextFactory.createServerSslContextForHostname("www.example.com");
+
+            // then
+            assertThat(secondLookup, sameInstance(firstLookup));
+            assertThat(firstLookup.isDone(), is(false));
+
+            // when
+            certificateBlocked.countDown();
+
+            // then
+            assertThat(secondLookup.get(30, TimeUnit.SECONDS), sameInstance(firstLookup.get(30, TimeUnit.SECONDS)));
+            assertThat(keyAndCertificateFactory.certificatesCreated("www.example.com"), is(1));
+        } finally {
+            ConfigurationProperties.tlsHostnameCertificates(originalTlsHostnameCertificates);
+            ConfigurationProperties.tlsHostnameCertificateCacheSize(originalTlsHostnameCertificateCacheSize);
+            ConfigurationProperties.tlsKeyPairAlgorithm(originalTlsKeyPairAlgorithm);
+        }
+    }
+
+    @Test
+    public void shouldFallBackToServerSslContextWhenHostnameCertificatesNotSupported() throws Exception {
+        boolean originalTlsHostnameCertificates = ConfigurationProperties.tlsHostnameCertificates();
+        int originalTlsHostnameCertificateCacheSize = ConfigurationProperties.tlsHostnameCertificateCacheSize();
+        try {
+            // given
+            ConfigurationProperties.tlsHostnameCertificates(true);
+            ConfigurationProperties.tlsHostnameCertificateCacheSize(10);
+            KeyAndCertificateFactoryFactory.setCustomKeyAndCertificateFactorySupplier(mockServerLogger -> new JDKKeyAndCertificateFactory(mockServerLogger) {
+                @Override
+                public X509Certificate buildX509CertificateForHostname(String hostname, KeyPair keyPair) {
+                    return null;
+                }
+            });
+            NettySslContextFactory nettySslContextFactory = new NettySslContextFactory(new MockServerLogger());
+
+            // when
+            SslContext sslContext = nettySslContextFactory.createServerSslContextForHostname("unsupported.example.com").get(30, TimeUnit.SECONDS);
+
+            // then
+            assertThat(sslContext, notNullValue());
+            assertThat(nettySslContextFactory.hostnameCertificatesEnabled(), is(false));
+            assertThat(Arrays.asList(ConfigurationProperties.sslSubjectAlternativeNameDomains()), hasItem("unsupported.example.com"));
+        } finally {
+            ConfigurationProperties.tlsHostnameCertificates(originalTlsHostnameCertificates);
+            ConfigurationProperties.tlsHostnameCertificateCacheSize(originalTlsHostnameCertificateCacheSize);
+        }
+    }
+
+    private static class CountingKeyAndCertificateFactory implements KeyAndCertificateFactory {
+
+        private final CountDownLatch certificateBlocked;
+        private final Map<String, AtomicInteger> certificatesCreated = new ConcurrentHashMap<>();
+        private KeyAndCertificateFactory delegate;
+
+        CountingKeyAndCertificateFactory(CountDownLatch certificateBlocked) {
+            this.certificateBlocked = certificateBlocked;
+        }
+
+        CountingKeyAndCertificateFactory withDelegate(MockServerLogger mockServerLogger) {
+            this.delegate = new JDKKeyAndCertificateFactory(mockServerLogger);
+            return this;
+        }
+
+        int certificatesCreated(String hostname) {
+            AtomicInteger count = certificatesCreated.get(hostname);
+            return count != null ? count.get() : 0;
+        }
+
+        @Override
+        public void buildAndSaveCertificateAuthorityPrivateKeyAndX509Certificate() {
+            delegate.buildAndSaveCertificateAuthorityPrivateKeyAndX509Certificate();
+        }
+
+        @Override
+        public void buildAndSavePrivateKeyAndX509Certificate() {
+            delegate.buildAndSavePrivateKeyAndX509Certificate();
+        }
+
+        @Override
+        public boolean certificateNotYetCreated() {
+            return delegate.certificateNotYetCreated();
+        }
+
+        @Override
+        public PrivateKey privateKey() {
+            return delegate.privateKey();
+        }
+
+        @Override
+        public X509Certificate x509Certificate() {
+            return delegate.x509Certificate();
+        }
+
+        @Override
+        public X509Certificate certificateAuthorityX509Certificate() {
+            return delegate.certificateAuthorityX509Certificate();
+        }
+
+        @Override
+        public X509Certificate buildX509CertificateForHostname(String hostname, KeyPair keyPair) {
+            certificatesCreated.computeIfAbsent(hostname, key -> new AtomicInteger()).incrementAndGet();
+            if (certificateBlocked != null) {
+                try {
+                    certificateBlocked.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return delegate.buildX509CertificateForHostname(hostname, keyPair);
+        }
+    }
+}
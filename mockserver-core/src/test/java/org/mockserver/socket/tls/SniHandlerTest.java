@@ -0,0 +1,101 @@
+package org.mockserver.socket.tls;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.concurrent.Future;
+import org.junit.Test;
+import org.mockserver.logging.MockServerLogger;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+/**
+ * @author jamesdbloom
+ */
+public class SniHandlerTest {
+
+    @Test
+    public void shouldReturnCompletedLookupWhenSslContextAlreadyCreated() {
+        // given
+        NettySslContextFactory nettySslContextFactory = new NettySslContextFactory(new MockServerLogger());
+        SslContext sslContext = nettySslContextFactory.createServerSslContext();
+        SniHandler sniHandler = new SniHandler(hostnameSslContextFactory(nettySslContextFactory, CompletableFuture.completedFuture(sslContext)));
+        EmbeddedChannel channel = new EmbeddedChannel(sniHandler);
+
+        // when
+        Future<SslContext> lookup = sniHandler.lookup(channel.pipeline().context(sniHandler), "www.example.com");
+
+        // then
+        assertThat(lookup.isSuccess(), is(true));
+        assertThat(lookup.getNow(), sameInstance(sslContext));
+    }
+
+    @Test
+    public void shouldCompleteLookupWhenSslContextCreated() {
+        // given
+        NettySslContextFactory nettySslContextFactory = new NettySslContextFactory(new MockServerLogger());
+        SslContext sslContext = nettySslContextFactory.createServerSslContext();
+        CompletableFuture<SslContext> sslContextFuture = new CompletableFuture<>();
+        SniHandler sniHandler = new SniHandler(hostnameSslContextFactory(nettySslContextFactory, sslContextFuture));
+        EmbeddedChannel channel = new EmbeddedChannel(sniHandler);
+
+        // when
+        Future<SslContext> lookup = sniHandler.lookup(channel.pipeline().context(sniHandler), "www.example.com");
+
+        // then
+        assertThat(lookup.isDone(), is(false));
+
+        // when
+        sslContextFuture.complete(sslContext);
+
+        // then
+        assertThat(lookup.isSuccess(), is(true));
+        assertThat(lookup.getNow(), sameInstance(sslContext));
+    }
+
+    @Test
+    public void shouldFailLookupWhenSslContextCreationFails() {
+        // given
+        NettySslContextFactory nettySslContextFactory = new NettySslContextFactory(new MockServerLogger());
+        CompletableFuture<SslContext> sslContextFuture = new CompletableFuture<>();
+        SniHandler sniHandler = new SniHandler(hostnameSslContextFactory(nettySslContextFactory, sslContextFuture));
+        EmbeddedChannel channel = new EmbeddedChannel(sniHandler);
+        RuntimeException failure = new RuntimeException("failed to create certificate");
+
+        // when
+        Future<SslContext> lookup = sniHandler.lookup(channel.pipeline().context(sniHandler), "www.example.com");
+
+        // then
+        assertThat(lookup.isDone(), is(false));
+
+        // when
+        sslContextFuture.completeExceptionally(failure);
+
+        // then
+        assertThat(lookup.isDone(), is(true));
+        assertThat(lookup.isSuccess(), is(false));
+        assertThat(lookup.cause(), sameInstance(failure));
+    }
+
+    private NettySslContextFactory hostnameSslContextFactory(NettySslContextFactory nettySslContextFactory, CompletableFuture<SslContext> sslContextFuture) {
+        return new NettySslContextFactory(new MockServerLogger()) {
+            @Override
+            public boolean hostnameCertificatesEnabled() {
+                return true;
+            }
+
+            @Override
+            public synchronized SslContext createServerSslContext() {
+                return nettySslContextFactory.createServerSslContext();
+            }
+
+            @Override
+            public CompletableFuture<SslContext> createServerSslContextForHostname(String hostname) {
+                return sslContextFuture;
+            }
+        };
+    }
+}
@@ -3,8 +3,11 @@ package org.mockserver.socket.tls.bouncycastle;
 import org.junit.Test;
 import org.mockserver.logging.MockServerLogger;
 import org.mockserver.socket.tls.KeyAndCertificateFactory;
+import org.mockserver.socket.tls.KeyPairPool;
 
 import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
 
 import static junit.framework.TestCase.assertTrue;
 
@@ -30,4 +33,26 @@ public class BCKeyAndCertificateFactoryTest {
         assertTrue("The client cert serial number is non-negative",
             keyAndCertificateFactory.x509Certificate().getSerialNumber().compareTo(BigInteger.ZERO) > 0);
     }
+
+    @Test
+    public void shouldCreateCertificateForHostnameWithRSAKeyPair() throws Exception {
+        KeyPair keyPair = new KeyPairPool(new MockServerLogger(), "RSA", 0).take();
+
+        X509Certificate x509Certificate = keyAndCertificateFactory.buildX509CertificateForHostname("some.host.com", keyPair);
+
+        assertTrue("The hostname cert is for the hostname", x509Certificate.getSubjectX500Principal().getName().contains("CN=some.host.com"));
+        assertTrue("The hostname cert has the key pair public key", x509Certificate.getPublicKey().equals(keyPair.getPublic()));
+        x509Certificate.verify(keyAndCertificateFactory.certificateAuthorityX509Certificate().getPublicKey());
+    }
+
+    @Test
+    public void shouldCreateCertificateForHostnameWithECKeyPair() throws Exception {
+        KeyPair keyPair = new KeyPairPool(new MockServerLogger(), "EC", 0).take();
+
+        X509Certificate x509Certificate = keyAndCertificateFactory.buildX509CertificateForHostname("some.host.com", keyPair);
+
+        assertTrue("The hostname cert is for the hostname", x509Certificate.getSubjectX500Principal().getName().contains("CN=some.host.com"));
+        assertTrue("The hostname cert has an EC public key", x509Certificate.getPublicKey().getAlgorithm().equals("EC"));
+        x509Certificate.verify(keyAndCertificateFactory.certificateAuthorityX509Certificate().getPublicKey());
+    }
 }
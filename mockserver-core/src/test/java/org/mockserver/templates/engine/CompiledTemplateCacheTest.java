@@ -0,0 +1,90 @@
+package org.mockserver.templates.engine;
+
+import org.junit.Test;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * @author jamesdbloom
+ */
+public class CompiledTemplateCacheTest {
+
+    private final List<String> compiledTemplates = new ArrayList<>();
+
+    private CompiledScript compile(String template) throws ScriptException {
+        if (template.contains("invalid")) {
+            throw new ScriptException("invalid template");
+        }
+        compiledTemplates.add(template);
+        return new CompiledScript() {
+            @Override
+            public Object eval(ScriptContext context) {
+                return template;
+            }
+
+            @Override
+            public ScriptEngine getEngine() {
+                return null;
+            }
+        };
+    }
+
+    @Test
+    public void shouldCompileTemplateOnce() throws ScriptException {
+        // given
+        CompiledTemplateCache compiledTemplateCache = new CompiledTemplateCache(10);
+
+        // when
+        CompiledScript compiledScript = compiledTemplateCache.get("template_one", this::compile);
+
+        // then
+        assertThat(compiledTemplateCache.get("template_one", this::compile), sameInstance(compiledScript));
+        assertThat(compiledTemplateCache.get(new String("template_one"), this::compile), sameInstance(compiledScript));
+        assertThat(compiledTemplates, contains("template_one"));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedTemplate() throws ScriptException {
+        // given
+        CompiledTemplateCache compiledTemplateCache = new CompiledTemplateCache(2);
+        compiledTemplateCache.get("template_one", this::compile);
+        compiledTemplateCache.get("template_two", this::compile);
+
+        // when
+        compiledTemplateCache.get("template_one", this::compile);
+        compiledTemplateCache.get("template_three", this::compile);
+        compiledTemplateCache.get("template_one", this::compile);
+        compiledTemplateCache.get("template_two", this::compile);
+
+        // then
+        assertThat(compiledTemplateCache.size(), is(2));
+        assertThat(compiledTemplates, contains("template_one", "template_two", "template_three", "template_two"));
+    }
+
+    @Test
+    public void shouldNotCacheTemplateThatFailsToCompile() {
+        // given
+        CompiledTemplateCache compiledTemplateCache = new CompiledTemplateCache(10);
+
+        // when
+        try {
+            compiledTemplateCache.get("invalid_template", this::compile);
+            fail("expected exception to be thrown");
+        } catch (ScriptException se) {
+            // then
+            assertThat(se.getMessage(), is("invalid template"));
+        }
+        assertThat(compiledTemplateCache.size(), is(0));
+    }
+}
@@ -345,6 +345,25 @@ public class JavaScriptTemplateEngineTest {
         );
     }
 
+    @Test
+    public void shouldReportInvalidJavaScriptWhenCompiling() {
+        // given
+        String template = "return { 'statusCode': 200, ";
+        if (new ScriptEngineManager().getEngineByName("nashorn") != null) {
+            exception.expect(IllegalArgumentException.class);
+            exception.expectCause(isA(ScriptException.class));
+            exception.expectMessage(containsString("Exception compiling template:" + NEW_LINE +
+                NEW_LINE +
+                "  function handle(request) {" + NEW_LINE +
+                "  " + NEW_LINE +
+                "    return { 'statusCode': 200, " + NEW_LINE +
+                "  }"));
+        }
+
+        // when
+        new JavaScriptTemplateEngine(logFormatter).compileTemplate(template);
+    }
+
     @Test
     public void shouldRestrictGlobalContextMultipleHttpRequestsInParallel() throws InterruptedException, ExecutionException {
         // given
@@ -330,6 +330,24 @@ public class VelocityTemplateEngineTest {
         );
     }
 
+    @Test
+    public void shouldReportInvalidVelocityTemplateWhenCompiling() {
+        // given
+        String template = "#if {" + NEW_LINE +
+            "    'statusCode': 200" + NEW_LINE +
+            "}";
+        exception.expect(IllegalArgumentException.class);
+        exception.expectCause(isA(ScriptException.class));
+        exception.expectMessage(containsString("Exception compiling template:" + NEW_LINE +
+            NEW_LINE +
+            "  #if {" + NEW_LINE +
+            "      'statusCode': 200" + NEW_LINE +
+            "  }"));
+
+        // when
+        new VelocityTemplateEngine(logFormatter).compileTemplate(template);
+    }
+
     @Test
     public void shouldHandleMultipleHttpRequestsWithVelocityResponseTemplateInParallel()
         throws InterruptedException, ExecutionException {
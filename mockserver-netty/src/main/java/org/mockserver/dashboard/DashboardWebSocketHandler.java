@@ -325,7 +325,18 @@ public class DashboardWebSocketHandler extends ChannelInboundHandlerAdapter impl
 
     @VisibleForTesting
     void sendUpdate(ChannelOutboundInvoker ctx, RequestDefinition httpRequest) {
-        sendUpdate(ctx, httpRequest, 2);
+        try {
+            sendUpdate(ctx, httpRequest, 2);
+        } catch (RejectedExecutionException ree) {
+            // too many event log queries are in progress, the dashboard is updated again when the log or expectations next change
+            if (MockServerLogger.isEnabled(Level.DEBUG)) {
+                mockServerLogger.logEvent(
+                    new LogEntry()
+                        .setLogLevel(Level.DEBUG)
+                        .setMessageFormat("skipped dashboard update, " + ree.getMessage())
+                );
+            }
+        }
     }
 
     private void sendUpdate(ChannelOutboundInvoker ctx, RequestDefinition httpRequest, int retryCount) {
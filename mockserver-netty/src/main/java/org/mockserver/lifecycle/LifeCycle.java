@@ -4,7 +4,6 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.log.MockServerEventLog;
@@ -13,6 +12,7 @@ import org.mockserver.logging.MockServerLogger;
 import org.mockserver.mock.HttpState;
 import org.mockserver.mock.listeners.MockServerMatcherNotifier;
 import org.mockserver.scheduler.Scheduler;
+import org.mockserver.socket.NettyTransport;
 import org.mockserver.stop.Stoppable;
 
 import java.net.InetSocketAddress;
@@ -36,8 +36,8 @@ import static org.slf4j.event.Level.*;
 public abstract class LifeCycle implements Stoppable {
 
     protected final MockServerLogger mockServerLogger;
-    protected final EventLoopGroup bossGroup = new NioEventLoopGroup(5, new Scheduler.SchedulerThreadFactory(this.getClass().getSimpleName() + "-bossEventLoop"));
-    protected final EventLoopGroup workerGroup = new NioEventLoopGroup(ConfigurationProperties.nioEventLoopThreadCount(), new Scheduler.SchedulerThreadFactory(this.getClass().getSimpleName() + "-workerEventLoop"));
+    protected final EventLoopGroup bossGroup = NettyTransport.createEventLoopGroup(Math.max(5, ConfigurationProperties.acceptorThreadCount()), new Scheduler.SchedulerThreadFactory(this.getClass().getSimpleName() + "-bossEventLoop"));
+    protected final EventLoopGroup workerGroup = NettyTransport.createEventLoopGroup(ConfigurationProperties.nioEventLoopThreadCount(), new Scheduler.SchedulerThreadFactory(this.getClass().getSimpleName() + "-workerEventLoop"));
     protected final HttpState httpState;
     protected ServerBootstrap serverServerBootstrap;
     private final List<Future<Channel>> serverChannelFutures = new ArrayList<>();
@@ -207,7 +207,9 @@ public abstract class LifeCycle implements Stoppable {
                     }
                 }).start();
 
-                actualPortBindings.add(((InetSocketAddress) channelOpened.get(maxFutureTimeout(), MILLISECONDS).localAddress()).getPort());
+                int actualPort = ((InetSocketAddress) channelOpened.get(maxFutureTimeout(), MILLISECONDS).localAddress()).getPort();
+                actualPortBindings.add(actualPort);
+                bindAdditionalAcceptors(serverBootstrap, localBoundIP, actualPort);
             } catch (Exception e) {
                 throw new RuntimeException("Exception while binding MockServer to port " + portToBind, e.getCause());
             }
@@ -215,6 +217,28 @@ public abstract class LifeCycle implements Stoppable {
         return actualPortBindings;
     }
 
+    private void bindAdditionalAcceptors(final ServerBootstrap serverBootstrap, final String localBoundIP, final int port) {
+        if (NettyTransport.reusePort(bossGroup)) {
+            // each socket bound with SO_REUSEPORT is registered with a different boss thread and the kernel balances connections between them
+            for (int acceptor = 1; acceptor < ConfigurationProperties.acceptorThreadCount(); acceptor++) {
+                try {
+                    serverBootstrap
+                        .bind(isBlank(localBoundIP) ? new InetSocketAddress(port) : new InetSocketAddress(localBoundIP, port))
+                        .syncUninterruptibly();
+                } catch (Throwable throwable) {
+                    mockServerLogger.logEvent(
+                        new LogEntry()
+                            .setLogLevel(WARN)
+                            .setMessageFormat("exception binding additional acceptor to port{}connections will be accepted by fewer threads")
+                            .setArguments(port)
+                            .setThrowable(throwable)
+                    );
+                    break;
+                }
+            }
+        }
+    }
+
     protected void startedServer(List<Integer> ports) {
         final String message = "started on port" + (ports.size() == 1 ? ": " + ports.get(0) : "s: " + ports);
         setPort(ports);
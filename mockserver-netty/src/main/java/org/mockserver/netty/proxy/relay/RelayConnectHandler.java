@@ -5,10 +5,8 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpContentDecompressor;
-import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.ssl.SslHandler;
 import org.mockserver.configuration.ConfigurationProperties;
@@ -16,6 +14,7 @@ import org.mockserver.lifecycle.LifeCycle;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.LoggingHandler;
 import org.mockserver.logging.MockServerLogger;
+import org.mockserver.socket.NettyTransport;
 import org.slf4j.event.Level;
 
 import java.net.InetSocketAddress;
@@ -46,9 +45,7 @@ public abstract class RelayConnectHandler<T> extends SimpleChannelInboundHandler
 
     @Override
     public void channelRead0(final ChannelHandlerContext proxyClientCtx, final T request) {
-        Bootstrap bootstrap = new Bootstrap()
-            .group(proxyClientCtx.channel().eventLoop())
-            .channel(NioSocketChannel.class)
+        Bootstrap bootstrap = NettyTransport.configureClient(new Bootstrap().group(proxyClientCtx.channel().eventLoop()))
             .handler(new ChannelInboundHandlerAdapter() {
                 @Override
                 public void channelActive(final ChannelHandlerContext mockServerCtx) {
@@ -84,8 +81,7 @@ public abstract class RelayConnectHandler<T> extends SimpleChannelInboundHandler
 
                                     pipelineToMockServer.addLast(new HttpContentDecompressor());
 
-                                    pipelineToMockServer.addLast(new HttpObjectAggregator(Integer.MAX_VALUE));
-
+                                    // bodies are relayed chunk by chunk, they are only aggregated by MockServer when the request is handled
                                     pipelineToMockServer.addLast(new DownstreamProxyRelayHandler(mockServerLogger, proxyClientCtx.channel()));
 
                                     // upstream (to proxy client)
@@ -103,8 +99,6 @@ public abstract class RelayConnectHandler<T> extends SimpleChannelInboundHandler
 
                                     pipelineToProxyClient.addLast(new HttpContentDecompressor());
 
-                                    pipelineToProxyClient.addLast(new HttpObjectAggregator(Integer.MAX_VALUE));
-
                                     pipelineToProxyClient.addLast(new UpstreamProxyRelayHandler(mockServerLogger, proxyClientCtx.channel(), mockServerCtx.channel()));
                                 });
                         } else {
@@ -5,7 +5,8 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.ssl.SslHandler;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
@@ -19,11 +20,12 @@ import static org.mockserver.exception.ExceptionHandling.connectionClosedExcepti
 import static org.mockserver.netty.unification.PortUnificationHandler.isSslEnabledDownstream;
 import static org.mockserver.netty.unification.PortUnificationHandler.nettySslContextFactory;
 
-public class UpstreamProxyRelayHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+public class UpstreamProxyRelayHandler extends SimpleChannelInboundHandler<HttpObject> {
 
     private final MockServerLogger mockServerLogger;
     private final Channel upstreamChannel;
     private final Channel downstreamChannel;
+    private String requestLine = "";
 
     public UpstreamProxyRelayHandler(MockServerLogger mockServerLogger, Channel upstreamChannel, Channel downstreamChannel) {
         super(false);
@@ -39,11 +41,14 @@ public class UpstreamProxyRelayHandler extends SimpleChannelInboundHandler<FullH
     }
 
     @Override
-    public void channelRead0(final ChannelHandlerContext ctx, final FullHttpRequest request) {
+    public void channelRead0(final ChannelHandlerContext ctx, final HttpObject httpObject) {
+        if (httpObject instanceof HttpRequest) {
+            requestLine = ((HttpRequest) httpObject).method() + " " + ((HttpRequest) httpObject).uri();
+        }
         if (isSslEnabledDownstream(upstreamChannel) && downstreamChannel.pipeline().get(SslHandler.class) == null) {
             downstreamChannel.pipeline().addFirst(nettySslContextFactory(ctx.channel()).createClientSslContext(true).newHandler(ctx.alloc()));
         }
-        downstreamChannel.writeAndFlush(request).addListener((ChannelFutureListener) future -> {
+        downstreamChannel.writeAndFlush(httpObject).addListener((ChannelFutureListener) future -> {
             if (future.isSuccess()) {
                 ctx.channel().read();
             } else {
@@ -51,7 +56,7 @@ public class UpstreamProxyRelayHandler extends SimpleChannelInboundHandler<FullH
                     mockServerLogger.logEvent(
                         new LogEntry()
                             .setLogLevel(Level.ERROR)
-                            .setMessageFormat("exception while returning response for request \"" + request.method() + " " + request.uri() + "\"")
+                            .setMessageFormat("exception while returning response for request \"" + requestLine + "\"")
                             .setThrowable(future.cause())
                     );
                 }
@@ -3,10 +3,12 @@ package org.mockserver.netty.responsewriter;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.FullHttpResponse;
 import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.cors.CORSHeaders;
 import org.mockserver.log.model.LogEntry;
 import org.mockserver.logging.MockServerLogger;
+import org.mockserver.mappers.MockServerHttpResponseToFullHttpResponse;
 import org.mockserver.model.ConnectionOptions;
 import org.mockserver.model.Delay;
 import org.mockserver.model.HttpRequest;
@@ -14,6 +16,7 @@ import org.mockserver.model.HttpResponse;
 import org.mockserver.responsewriter.ResponseWriter;
 import org.mockserver.scheduler.Scheduler;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.CONNECTION;
 import static org.slf4j.event.Level.TRACE;
 import static org.slf4j.event.Level.WARN;
 
@@ -35,10 +38,32 @@ public class NettyResponseWriter extends ResponseWriter {
 
     @Override
     public void sendResponse(HttpRequest request, HttpResponse response) {
-        writeAndCloseSocket(ctx, request, response);
+        writeAndCloseSocket(ctx, request, response, response);
     }
 
-    private void writeAndCloseSocket(final ChannelHandlerContext ctx, final HttpRequest request, HttpResponse response) {
+    /**
+     * Writes a retained duplicate of the netty response compiled once for the response, instead of cloning, mapping
+     * and encoding the response for every request
+     */
+    @Override
+    public void writeStaticResponse(HttpRequest request, HttpResponse response) {
+        FullHttpResponse encoded = response.getEncoded();
+        if (encoded == null) {
+            encoded = new MockServerHttpResponseToFullHttpResponse(mockServerLogger).mapStaticMockServerResponseToNettyResponse(response);
+            if (encoded == null) {
+                super.writeStaticResponse(request, response);
+                return;
+            }
+        }
+        FullHttpResponse fullHttpResponse = encoded.retainedDuplicate();
+        String connectionHeader = connectionHeader(request, response);
+        if (connectionHeader != null) {
+            fullHttpResponse.headers().set(CONNECTION, connectionHeader);
+        }
+        writeAndCloseSocket(ctx, request, response, fullHttpResponse);
+    }
+
+    private void writeAndCloseSocket(final ChannelHandlerContext ctx, final HttpRequest request, HttpResponse response, Object message) {
         boolean closeChannel;
 
         ConnectionOptions connectionOptions = response.getConnectionOptions();
@@ -48,7 +73,7 @@ public class NettyResponseWriter extends ResponseWriter {
             closeChannel = !(request.isKeepAlive() != null && request.isKeepAlive());
         }
 
-        ChannelFuture channelFuture = ctx.writeAndFlush(response);
+        ChannelFuture channelFuture = ctx.writeAndFlush(message);
         if (closeChannel || ConfigurationProperties.alwaysCloseSocketConnections()) {
             channelFuture.addListener((ChannelFutureListener) future -> {
                 Delay closeSocketDelay = connectionOptions != null ? connectionOptions.getCloseSocketDelay() : null;
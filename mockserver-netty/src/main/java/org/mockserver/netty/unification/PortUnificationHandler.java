@@ -224,7 +224,7 @@ public class PortUnificationHandler extends ReplayingDecoder<Void> {
         ));
         addLastIfNotPresent(pipeline, new HttpContentDecompressor());
         addLastIfNotPresent(pipeline, httpContentLengthRemover);
-        addLastIfNotPresent(pipeline, new HttpObjectAggregator(Integer.MAX_VALUE));
+        addLastIfNotPresent(pipeline, new HttpObjectAggregator(ConfigurationProperties.maxContentLength()));
         if (tlsMutualAuthenticationRequired() && !isSslEnabledUpstream(ctx.channel())) {
             HttpResponse httpResponse = response()
                 .withStatusCode(426)
@@ -89,6 +89,25 @@ public class HttpRequestHandlerTest {
         embeddedChannel = new EmbeddedChannel(mockServerHandler);
     }
 
+    /**
+     * clear, retrieve and verify requests respond asynchronously on the control plane executor
+     */
+    private <T> T readOutbound() {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        T outbound = embeddedChannel.readOutbound();
+        while (outbound == null && System.currentTimeMillis() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            embeddedChannel.runPendingTasks();
+            outbound = embeddedChannel.readOutbound();
+        }
+        return outbound;
+    }
+
     @Test
     public void shouldRetrieveRequests() {
         // given
@@ -107,7 +126,7 @@ public class HttpRequestHandlerTest {
         embeddedChannel.writeInbound(expectationRetrieveRequestsRequest);
 
         // then
-        HttpResponse httpResponse = embeddedChannel.readOutbound();
+        HttpResponse httpResponse = readOutbound();
         assertThat(httpResponse.getStatusCode(), is(200));
         assertThat(httpResponse.getBodyAsString(), is(httpRequestSerializer.serialize(Collections.singletonList(
             request("request_one")
@@ -133,7 +152,7 @@ public class HttpRequestHandlerTest {
         embeddedChannel.writeInbound(clearRequest);
 
         // then
-        HttpResponse httpResponse = embeddedChannel.readOutbound();
+        HttpResponse httpResponse = readOutbound();
         assertThat(httpResponse.getStatusCode(), is(200));
         assertThat(httpResponse.getBodyAsString(), is(""));
         assertThat(httpStateHandler.firstMatchingExpectation(request("request_one")), is(nullValue()));
@@ -244,7 +263,7 @@ public class HttpRequestHandlerTest {
         embeddedChannel.writeInbound(expectationRetrieveExpectationsRequest);
 
         // then
-        HttpResponse httpResponse = embeddedChannel.readOutbound();
+        HttpResponse httpResponse = readOutbound();
         assertThat(httpResponse.getStatusCode(), is(200));
         assertThat(httpResponse.getBodyAsString(), is(expectationSerializer.serialize(Collections.singletonList(
             new Expectation(request("request_one"), Times.once(), TimeToLive.unlimited(), 0).withId("key_one").thenRespond(response("response_one"))
@@ -269,7 +288,7 @@ public class HttpRequestHandlerTest {
             embeddedChannel.writeInbound(retrieveLogRequest);
 
             // then
-            HttpResponse response = embeddedChannel.readOutbound();
+            HttpResponse response = readOutbound();
             assertThat(response.getStatusCode(), is(200));
             assertThat(
                 response.getBodyAsString(),
@@ -357,7 +376,7 @@ public class HttpRequestHandlerTest {
         embeddedChannel.writeInbound(expectationRetrieveExpectationsRequest);
 
         // then
-        HttpResponse httpResponse = embeddedChannel.readOutbound();
+        HttpResponse httpResponse = readOutbound();
         assertThat(httpResponse.getStatusCode(), is(200));
         assertThat(httpResponse.getBodyAsString(), is(expectationSerializer.serialize(Collections.singletonList(
             expectationOne
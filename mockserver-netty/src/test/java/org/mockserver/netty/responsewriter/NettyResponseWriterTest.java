@@ -1,6 +1,7 @@
 package org.mockserver.netty.responsewriter;
 
 import io.netty.channel.*;
+import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.util.concurrent.GenericFutureListener;
 import org.junit.Before;
 import org.junit.Test;
@@ -14,11 +15,14 @@ import org.mockserver.scheduler.Scheduler;
 
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasItemInArray;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.openMocks;
 import static org.mockserver.configuration.ConfigurationProperties.enableCORSForAllResponses;
@@ -71,6 +75,51 @@ public class NettyResponseWriterTest {
         verify(mockChannelFuture).addListener(any(GenericFutureListener.class));
     }
 
+    @Test
+    public void shouldWriteStaticResponseCompiledOnce() {
+        // given
+        HttpRequest request = request("some_request").withKeepAlive(true);
+        HttpResponse response = response("some_response").withHeader("some_header", "some_value");
+        ArgumentCaptor<FullHttpResponse> fullHttpResponseArgumentCaptor = ArgumentCaptor.forClass(FullHttpResponse.class);
+
+        // when
+        new NettyResponseWriter(new MockServerLogger(), mockChannelHandlerContext, scheduler).writeStaticResponse(request, response);
+        FullHttpResponse encoded = response.getEncoded();
+        new NettyResponseWriter(new MockServerLogger(), mockChannelHandlerContext, scheduler).writeStaticResponse(request("some_request").withKeepAlive(false), response);
+
+        // then
+        assertThat(response.getEncoded(), sameInstance(encoded));
+        assertThat(encoded.headers().contains("connection"), is(false));
+        verify(mockChannelHandlerContext, times(2)).writeAndFlush(fullHttpResponseArgumentCaptor.capture());
+        FullHttpResponse first = fullHttpResponseArgumentCaptor.getAllValues().get(0);
+        FullHttpResponse second = fullHttpResponseArgumentCaptor.getAllValues().get(1);
+        assertThat(first.status().code(), is(200));
+        assertThat(first.headers().get("some_header"), is("some_value"));
+        assertThat(first.headers().get("connection"), is("keep-alive"));
+        assertThat(first.headers().get("content-length"), is("13"));
+        assertThat(first.content().toString(StandardCharsets.UTF_8), is("some_response"));
+        assertThat(second.headers().get("connection"), is("close"));
+        assertThat(second.content().toString(StandardCharsets.UTF_8), is("some_response"));
+    }
+
+    @Test
+    public void shouldWriteStaticResponseForEachRequestWhenEncodingFails() {
+        // given
+        HttpRequest request = request("some_request");
+        HttpResponse response = response("some_response").withHeader("invalid header", "some_value");
+
+        // when
+        new NettyResponseWriter(new MockServerLogger(), mockChannelHandlerContext, scheduler).writeStaticResponse(request, response);
+
+        // then
+        assertThat(response.getEncoded(), nullValue());
+        verify(mockChannelHandlerContext).writeAndFlush(
+            response("some_response")
+                .withHeader("invalid header", "some_value")
+                .withHeader("connection", "close")
+        );
+    }
+
     @Test
     public void shouldWriteNullResponse() {
         // given